@@ -64,4 +64,28 @@ public enum GamePowerup {
 
         return null;
     }
+
+    /**
+     * Converts a powerup instance to the level tile which activates it.
+     *
+     * @param powerup Powerup to convert.
+     * @return Resulting tile, or {@link LevelTile#NONE} if not applicable.
+     */
+    public static LevelTile toTile(GamePowerup powerup) {
+        if (powerup == null)
+            return LevelTile.NONE;
+
+        switch (powerup) {
+            case GHOST:
+                return LevelTile.GHOST;
+
+            case PULL:
+                return LevelTile.PULL;
+
+            case STRENGTH:
+                return LevelTile.STRENGTH;
+        }
+
+        return LevelTile.NONE;
+    }
 }
@@ -54,9 +54,21 @@ public interface ILevel {
     Dimensions getSize();
 
     /**
-     * Gets the tiles comprising the level.
+     * Gets the tiles comprising the level. The returned array covers the whole bounding box of the level, so large
+     * levels should be read through {@link #getTileGrid()} instead.
      *
      * @return Tiles comprising the level.
      */
     LevelTile[][] getTiles();
+
+    /**
+     * Gets the tiles comprising the level, stored in chunks, so that the memory taken grows with the level's non-wall
+     * area rather than its bounding box. Implementations which hold their tiles in a grid should return it directly;
+     * by default, the grid is built from {@link #getTiles()}.
+     *
+     * @return Tiles comprising the level.
+     */
+    default LevelTileGrid getTileGrid() {
+        return LevelTileGrid.of(this.getTiles());
+    }
 }
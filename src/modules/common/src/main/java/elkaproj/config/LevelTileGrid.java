@@ -0,0 +1,263 @@
+package elkaproj.config;
+
+import elkaproj.Dimensions;
+
+import java.util.Arrays;
+
+/**
+ * Immutable grid of the tiles comprising a level, stored in square chunks of {@link #CHUNK_SIZE} tiles per side, one
+ * byte per tile. Chunks made only of walls are not stored separately, but all refer to a single shared chunk, so the
+ * memory taken by a level grows with its non-wall area rather than its bounding box. Parts of chunks which lie past the
+ * edges of the level are walls.
+ */
+public final class LevelTileGrid {
+
+    /**
+     * Base 2 logarithm of {@link #CHUNK_SIZE}.
+     */
+    public static final int CHUNK_SHIFT = 6;
+
+    /**
+     * Number of tiles along each side of a chunk.
+     */
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /**
+     * Maximum width and height of a level, in tiles.
+     */
+    public static final int MAX_SIZE = 4096;
+
+    private static final LevelTile[] TILES = LevelTile.values();
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final byte[] WALL_CHUNK = new byte[CHUNK_SIZE * CHUNK_SIZE];
+
+    static {
+        Arrays.fill(WALL_CHUNK, (byte) LevelTile.WALL.ordinal());
+    }
+
+    private final int width, height;
+    private final int chunkColumns, chunkRows;
+    private final byte[][] chunks;
+    private final int storedChunks;
+
+    private LevelTileGrid(int width, int height, byte[][] chunks) {
+        this.width = width;
+        this.height = height;
+        this.chunkColumns = chunkCount(width);
+        this.chunkRows = chunkCount(height);
+        this.chunks = chunks;
+
+        int storedChunks = 0;
+        for (byte[] chunk : chunks) {
+            if (chunk != WALL_CHUNK)
+                storedChunks++;
+        }
+
+        this.storedChunks = storedChunks;
+    }
+
+    /**
+     * Creates a grid holding given tiles.
+     *
+     * @param tiles Tiles of the level, indexed by row, then column. Rows shorter than the longest one are padded with
+     *              walls.
+     * @return Grid holding the tiles.
+     * @throws IllegalArgumentException The level is larger than {@link #MAX_SIZE} along either side.
+     */
+    public static LevelTileGrid of(LevelTile[][] tiles) {
+        int width = 0;
+        for (LevelTile[] row : tiles)
+            width = Math.max(width, row.length);
+
+        Builder builder = new Builder(width, tiles.length);
+        for (int y = 0; y < tiles.length; y++) {
+            for (int x = 0; x < tiles[y].length; x++)
+                builder.setTile(x, y, tiles[y][x]);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Gets the size of the level, in tiles.
+     *
+     * @return Size of the level.
+     */
+    public Dimensions getSize() {
+        return new Dimensions(this.width, this.height);
+    }
+
+    /**
+     * Gets the width of the level, in tiles.
+     *
+     * @return Width of the level.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the height of the level, in tiles.
+     *
+     * @return Height of the level.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the number of chunk columns the level is split into.
+     *
+     * @return Number of chunk columns.
+     */
+    public int getChunkColumns() {
+        return this.chunkColumns;
+    }
+
+    /**
+     * Gets the number of chunk rows the level is split into.
+     *
+     * @return Number of chunk rows.
+     */
+    public int getChunkRows() {
+        return this.chunkRows;
+    }
+
+    /**
+     * Gets the number of chunks which hold anything but walls, and are thus stored separately.
+     *
+     * @return Number of stored chunks.
+     */
+    public int getStoredChunkCount() {
+        return this.storedChunks;
+    }
+
+    /**
+     * Gets whether a chunk is made only of walls.
+     *
+     * @param chunkX Column of the chunk.
+     * @param chunkY Row of the chunk.
+     * @return Whether the chunk is made only of walls.
+     */
+    public boolean isWallChunk(int chunkX, int chunkY) {
+        return this.chunks[chunkY * this.chunkColumns + chunkX] == WALL_CHUNK;
+    }
+
+    /**
+     * Gets the tile at given coordinates.
+     *
+     * @param x X coordinate of the tile.
+     * @param y Y coordinate of the tile.
+     * @return Tile at given coordinates.
+     */
+    public LevelTile getTile(int x, int y) {
+        byte[] chunk = this.chunks[(y >>> CHUNK_SHIFT) * this.chunkColumns + (x >>> CHUNK_SHIFT)];
+        return TILES[chunk[(y & CHUNK_MASK) << CHUNK_SHIFT | x & CHUNK_MASK]];
+    }
+
+    /**
+     * Copies the tiles into a new jagged array, covering the whole bounding box of the level.
+     *
+     * @return Tiles of the level, indexed by row, then column.
+     */
+    public LevelTile[][] toArray() {
+        LevelTile[][] tiles = new LevelTile[this.height][this.width];
+        for (int y = 0; y < this.height; y++) {
+            for (int x = 0; x < this.width; x++)
+                tiles[y][x] = this.getTile(x, y);
+        }
+
+        return tiles;
+    }
+
+    private static int chunkCount(int size) {
+        return (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+    }
+
+    /**
+     * Builds a {@link LevelTileGrid} one tile at a time. Tiles which are not set are walls, and a chunk is only
+     * allocated once a tile other than a wall is set in it.
+     */
+    public static final class Builder {
+
+        private final int width, height;
+        private final int chunkColumns;
+        private final byte[][] chunks;
+
+        /**
+         * Creates a builder of a grid of given size, initially made only of walls.
+         *
+         * @param width  Width of the level, in tiles.
+         * @param height Height of the level, in tiles.
+         * @throws IllegalArgumentException The level is larger than {@link #MAX_SIZE} along either side.
+         */
+        public Builder(int width, int height) {
+            if (width < 0 || height < 0 || width > MAX_SIZE || height > MAX_SIZE)
+                throw new IllegalArgumentException(
+                        String.format("Levels can be at most %dx%d tiles.", MAX_SIZE, MAX_SIZE));
+
+            this.width = width;
+            this.height = height;
+            this.chunkColumns = chunkCount(width);
+            this.chunks = new byte[this.chunkColumns * chunkCount(height)][];
+            Arrays.fill(this.chunks, WALL_CHUNK);
+        }
+
+        /**
+         * Sets the tile at given coordinates.
+         *
+         * @param x    X coordinate of the tile.
+         * @param y    Y coordinate of the tile.
+         * @param tile Tile to set.
+         * @return This builder.
+         * @throws IndexOutOfBoundsException The coordinates lie outside of the level.
+         */
+        public Builder setTile(int x, int y, LevelTile tile) {
+            if (x < 0 || y < 0 || x >= this.width || y >= this.height)
+                throw new IndexOutOfBoundsException(String.format("Tile %d,%d lies outside of the level.", x, y));
+
+            int c = (y >>> CHUNK_SHIFT) * this.chunkColumns + (x >>> CHUNK_SHIFT);
+            if (this.chunks[c] == WALL_CHUNK) {
+                if (tile == LevelTile.WALL)
+                    return this;
+
+                this.chunks[c] = WALL_CHUNK.clone();
+            }
+
+            this.chunks[c][(y & CHUNK_MASK) << CHUNK_SHIFT | x & CHUNK_MASK] = (byte) tile.ordinal();
+            return this;
+        }
+
+        /**
+         * Sets a row of tiles from their textual representation, as used in level files.
+         *
+         * @param y    Y coordinate of the row.
+         * @param line Representations of the tiles, starting at X coordinate 0. Tiles past the end of the line are
+         *             left unchanged.
+         * @return This builder.
+         * @throws IllegalArgumentException The line holds an invalid tile representation.
+         */
+        public Builder setRow(int y, CharSequence line) {
+            int length = Math.min(line.length(), this.width);
+            for (int x = 0; x < length; x++)
+                this.setTile(x, y, LevelTile.fromRepresentation(line.charAt(x)));
+
+            return this;
+        }
+
+        /**
+         * Builds the grid. The builder must not be used afterwards.
+         *
+         * @return Grid of the tiles set.
+         */
+        public LevelTileGrid build() {
+            // chunks whose tiles were all set back to walls are shared again
+            for (int c = 0; c < this.chunks.length; c++) {
+                if (this.chunks[c] != WALL_CHUNK && Arrays.equals(this.chunks[c], WALL_CHUNK))
+                    this.chunks[c] = WALL_CHUNK;
+            }
+
+            return new LevelTileGrid(this.width, this.height, this.chunks);
+        }
+    }
+}
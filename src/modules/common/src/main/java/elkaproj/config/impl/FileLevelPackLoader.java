@@ -4,7 +4,7 @@ import elkaproj.Dimensions;
 import elkaproj.config.ILevel;
 import elkaproj.config.ILevelPack;
 import elkaproj.config.ILevelPackLoader;
-import elkaproj.config.LevelTile;
+import elkaproj.config.LevelTileGrid;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -13,7 +13,6 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -82,17 +81,12 @@ class FileLevelPackLoader implements ILevelPackLoader {
                 .orElseThrow(IOException::new);
         int height = lines.size();
 
-        LevelTile[][] tiles = new LevelTile[height][];
-        for (int i = 0; i < height; i++) {
-            tiles[i] = new LevelTile[width];
-            Arrays.fill(tiles[i], LevelTile.WALL);
-            String line = lines.get(i);
-            for (int j = 0; j < width; j++) {
-                tiles[i][j] = LevelTile.fromRepresentation(line.charAt(j));
-            }
-        }
+        // lines shorter than the widest one are padded with walls
+        LevelTileGrid.Builder tiles = new LevelTileGrid.Builder(width, height);
+        for (int i = 0; i < height; i++)
+            tiles.setRow(i, lines.get(i));
 
-        return new XmlLevelImpl.XmlLevel(xdef, new Dimensions(width, height), tiles, xdef.definitionFile);
+        return new XmlLevelImpl.XmlLevel(xdef, new Dimensions(width, height), tiles.build(), xdef.definitionFile);
     }
 
     /**
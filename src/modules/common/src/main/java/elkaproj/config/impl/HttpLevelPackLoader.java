@@ -5,7 +5,7 @@ import elkaproj.Dimensions;
 import elkaproj.config.ILevel;
 import elkaproj.config.ILevelPack;
 import elkaproj.config.ILevelPackLoader;
-import elkaproj.config.LevelTile;
+import elkaproj.config.LevelTileGrid;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -18,7 +18,6 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -96,17 +95,12 @@ class HttpLevelPackLoader implements ILevelPackLoader {
                 .orElseThrow(IOException::new);
         int height = lines.size();
 
-        LevelTile[][] tiles = new LevelTile[height][];
-        for (int i = 0; i < height; i++) {
-            tiles[i] = new LevelTile[width];
-            Arrays.fill(tiles[i], LevelTile.WALL);
-            String line = lines.get(i);
-            for (int j = 0; j < width; j++) {
-                tiles[i][j] = LevelTile.fromRepresentation(line.charAt(j));
-            }
-        }
+        // lines shorter than the widest one are padded with walls
+        LevelTileGrid.Builder tiles = new LevelTileGrid.Builder(width, height);
+        for (int i = 0; i < height; i++)
+            tiles.setRow(i, lines.get(i));
 
-        return new XmlLevelImpl.XmlLevel(xdef, new Dimensions(width, height), tiles, xdef.definitionFile);
+        return new XmlLevelImpl.XmlLevel(xdef, new Dimensions(width, height), tiles.build(), xdef.definitionFile);
     }
 
     /**
@@ -5,6 +5,7 @@ import elkaproj.Dimensions;
 import elkaproj.config.ILevel;
 import elkaproj.config.ILevelPack;
 import elkaproj.config.LevelTile;
+import elkaproj.config.LevelTileGrid;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -23,9 +24,9 @@ class XmlLevelImpl {
         private final int ordinal, bonusTimeThreshold, penaltyTimeThreshold, failTimeThreshold;
         private final String name, originalFile;
         private final Dimensions dimensions;
-        private final LevelTile[][] tiles;
+        private final LevelTileGrid tiles;
 
-        public XmlLevel(XmlLevelMeta xdef, Dimensions dims, LevelTile[][] tiles, String originalFile) {
+        public XmlLevel(XmlLevelMeta xdef, Dimensions dims, LevelTileGrid tiles, String originalFile) {
             this.ordinal = xdef.ordinal;
             this.name = xdef.name;
             this.bonusTimeThreshold = xdef.bonusTime;
@@ -69,13 +70,13 @@ class XmlLevelImpl {
         @Override
         public LevelTile[][] getTiles() {
             // copy to prevent modifications
-            LevelTile[][] tilesCopy = new LevelTile[this.dimensions.getHeight()][];
-            for (int i = 0; i < this.dimensions.getHeight(); i++) {
-                tilesCopy[i] = new LevelTile[this.dimensions.getWidth()];
-                System.arraycopy(this.tiles[i], 0, tilesCopy[i], 0, tilesCopy[i].length);
-            }
+            return this.tiles.toArray();
+        }
 
-            return tilesCopy;
+        @Override
+        public LevelTileGrid getTileGrid() {
+            // the grid is immutable, and can be shared
+            return this.tiles;
         }
 
         public String getOriginalFile() {
@@ -0,0 +1,135 @@
+package elkaproj.game;
+
+import elkaproj.config.GamePowerup;
+
+/**
+ * Compact list of the changes made to a board by a move, an undone move, or a batch of moves. Each change is stored as
+ * three ints (kind, source and target cell, with coordinates packed as in {@link MoveDeltas#pack(int, int)}), and
+ * changes are listed in the order they have to be applied in. The same buffer is reused for every update, so its
+ * contents are only valid for the duration of the event.
+ */
+public class BoardDiff {
+
+    /**
+     * Change kind: the player moved from the source to the target cell.
+     */
+    public static final int PLAYER_MOVED = 0;
+
+    /**
+     * Change kind: a crate moved from the source to the target cell.
+     */
+    public static final int CRATE_MOVED = 1;
+
+    /**
+     * Change kind: a power-up activator was picked up from the cell. Source and target cells are the same.
+     */
+    public static final int POWERUP_CONSUMED = 2;
+
+    /**
+     * Change kind: a power-up activator was put back in the cell, because its pick up was undone. Source and target
+     * cells are the same.
+     */
+    public static final int POWERUP_RESTORED = 3;
+
+    private static final GamePowerup[] POWERUPS = GamePowerup.values();
+
+    private int[] changes = new int[3 * 8];
+    private int count = 0;
+
+    /**
+     * Gets the number of changes.
+     *
+     * @return Number of changes.
+     */
+    public int getChangeCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the kind of a change; one of PLAYER_MOVED, CRATE_MOVED, POWERUP_CONSUMED, POWERUP_RESTORED.
+     *
+     * @param n Number of the change, less than {@link #getChangeCount()}.
+     * @return Kind of the change.
+     */
+    public int getKind(int n) {
+        return this.changes[3 * n] & 0xFF;
+    }
+
+    /**
+     * Gets the power-up a POWERUP_CONSUMED or POWERUP_RESTORED change applies to.
+     *
+     * @param n Number of the change, less than {@link #getChangeCount()}.
+     * @return Power-up of the change, or null for other kinds of changes.
+     */
+    public GamePowerup getPowerup(int n) {
+        int ordinal = this.changes[3 * n] >>> 8;
+        return ordinal == 0 ? null : POWERUPS[ordinal - 1];
+    }
+
+    /**
+     * Gets the packed coordinates of the source cell of a change.
+     *
+     * @param n Number of the change, less than {@link #getChangeCount()}.
+     * @return Packed source coordinates.
+     */
+    public int getFrom(int n) {
+        return this.changes[3 * n + 1];
+    }
+
+    /**
+     * Gets the packed coordinates of the target cell of a change.
+     *
+     * @param n Number of the change, less than {@link #getChangeCount()}.
+     * @return Packed target coordinates.
+     */
+    public int getTo(int n) {
+        return this.changes[3 * n + 2];
+    }
+
+    void clear() {
+        this.count = 0;
+    }
+
+    BoardDiff copy() {
+        BoardDiff copy = new BoardDiff();
+        copy.changes = new int[Math.max(3 * this.count, 3)];
+        System.arraycopy(this.changes, 0, copy.changes, 0, 3 * this.count);
+        copy.count = this.count;
+        return copy;
+    }
+
+    /**
+     * Appends the changes made by a move, or by undoing a move.
+     *
+     * @param deltas Deltas of the move.
+     * @param result Result of the move, as returned by {@link GameBoard#move(GameMovementDirection, java.util.EnumSet)}
+     *               or {@link GameBoard#undo(java.util.EnumSet)}.
+     * @param undo   Whether the move was undone.
+     */
+    void addMove(MoveDeltas deltas, int result, boolean undo) {
+        for (int n = 0; n < deltas.getCrateMoveCount(); n++)
+            this.add(CRATE_MOVED, deltas.getCrateMoveFrom(n), deltas.getCrateMoveTo(n));
+
+        this.add(PLAYER_MOVED, deltas.getPlayerFrom(), deltas.getPlayerTo());
+
+        GamePowerup powerup = GameBoard.getPickedUpPowerup(result);
+        if (powerup != null) {
+            // a pick up happens where the player moved to; undoing it puts the activator back where the player was
+            int cell = undo ? deltas.getPlayerFrom() : deltas.getPlayerTo();
+            this.add((undo ? POWERUP_RESTORED : POWERUP_CONSUMED) | (powerup.ordinal() + 1) << 8, cell, cell);
+        }
+    }
+
+    private void add(int kind, int from, int to) {
+        if (3 * this.count == this.changes.length) {
+            int[] changes = new int[this.changes.length * 2];
+            System.arraycopy(this.changes, 0, changes, 0, this.changes.length);
+            this.changes = changes;
+        }
+
+        int i = 3 * this.count++;
+        this.changes[i] = kind;
+        this.changes[i + 1] = from;
+        this.changes[i + 2] = to;
+    }
+}
@@ -0,0 +1,166 @@
+package elkaproj.game;
+
+import elkaproj.config.LevelTileGrid;
+
+/**
+ * Maps the cells of a level onto indices of the bitsets used by {@link GameBoard}. Following the chunks of the level's
+ * {@link LevelTileGrid}, every chunk which holds anything but walls is given its own slot of 64x64 bits, one long per
+ * row of the chunk, while all chunks made only of walls share a single slot. Bitsets therefore take 512 bytes per
+ * chunk of non-wall area, regardless of the bounding box of the level. Cells of the shared slot have no coordinates of
+ * their own; they are only ever tested for walls, and positions which can lie there, like the player's when using
+ * {@link elkaproj.config.GamePowerup#GHOST}, are kept as coordinates instead.
+ */
+final class BoardLayout {
+
+    private static final int CHUNK_SHIFT = LevelTileGrid.CHUNK_SHIFT;
+    private static final int CHUNK_MASK = LevelTileGrid.CHUNK_SIZE - 1;
+    private static final int SLOT_SHIFT = 2 * CHUNK_SHIFT;
+    // chunks are looked up by shifts alone, as levels are at most this many chunks wide
+    private static final int COLUMN_SHIFT = Integer.numberOfTrailingZeros(LevelTileGrid.MAX_SIZE >>> CHUNK_SHIFT);
+
+    /**
+     * Number of bitset words per slot.
+     */
+    static final int SLOT_WORDS = 1 << (SLOT_SHIFT - 6);
+
+    private final int width, height;
+    private final int chunkColumns;
+    // first index of the slot of every chunk, indexed by chunkY << COLUMN_SHIFT | chunkX
+    private final int[] chunkSlots;
+    // chunk of every slot, or -1 for the slot shared by chunks made only of walls
+    private final int[] slotChunks;
+    private final int wallSlot;
+
+    BoardLayout(LevelTileGrid grid) {
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.chunkColumns = grid.getChunkColumns();
+
+        int chunks = this.chunkColumns * grid.getChunkRows();
+        int storedChunks = grid.getStoredChunkCount();
+        this.wallSlot = storedChunks < chunks ? storedChunks : -1;
+        this.chunkSlots = new int[grid.getChunkRows() << COLUMN_SHIFT];
+        this.slotChunks = new int[storedChunks < chunks ? storedChunks + 1 : storedChunks];
+
+        int slot = 0;
+        for (int c = 0; c < chunks; c++) {
+            int chunkX = c % this.chunkColumns, chunkY = c / this.chunkColumns;
+            if (grid.isWallChunk(chunkX, chunkY)) {
+                this.chunkSlots[chunkY << COLUMN_SHIFT | chunkX] = this.wallSlot << SLOT_SHIFT;
+            } else {
+                this.chunkSlots[chunkY << COLUMN_SHIFT | chunkX] = slot << SLOT_SHIFT;
+                this.slotChunks[slot++] = c;
+            }
+        }
+
+        if (this.wallSlot >= 0)
+            this.slotChunks[this.wallSlot] = -1;
+    }
+
+    /**
+     * Gets the number of bitset words needed to hold a bit for every cell.
+     *
+     * @return Number of words.
+     */
+    int getWordCount() {
+        return this.slotChunks.length * SLOT_WORDS;
+    }
+
+    /**
+     * Gets the slot shared by chunks made only of walls.
+     *
+     * @return Shared slot, or -1 if every chunk holds something other than walls.
+     */
+    int getWallSlot() {
+        return this.wallSlot;
+    }
+
+    /**
+     * Gets the number of slots.
+     *
+     * @return Number of slots.
+     */
+    int getSlotCount() {
+        return this.slotChunks.length;
+    }
+
+    /**
+     * Gets the chunk a slot belongs to.
+     *
+     * @param slot Slot to get the chunk of.
+     * @return Chunk index, i.e. <code>chunkY * chunkColumns + chunkX</code>, or -1 for the shared wall slot.
+     */
+    int getSlotChunk(int slot) {
+        return this.slotChunks[slot];
+    }
+
+    /**
+     * Gets the index of the cell at given coordinates, which must lie within the level.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     * @return Index of the cell.
+     */
+    int indexOf(int x, int y) {
+        return this.chunkSlots[(y >>> CHUNK_SHIFT) << COLUMN_SHIFT | x >>> CHUNK_SHIFT]
+                | (y & CHUNK_MASK) << CHUNK_SHIFT | x & CHUNK_MASK;
+    }
+
+    /**
+     * Gets the offset between the indices of two cells of the same chunk.
+     *
+     * @param dx Difference between the X coordinates of the cells.
+     * @param dy Difference between the Y coordinates of the cells.
+     * @return Offset to add to the index of the first cell to get the index of the second one.
+     */
+    static int offsetOf(int dx, int dy) {
+        return (dy << CHUNK_SHIFT) + dx;
+    }
+
+    /**
+     * Gets whether two cells lie in the same chunk, so that their indices differ by {@link #offsetOf(int, int)}.
+     *
+     * @param x1 X coordinate of the first cell.
+     * @param y1 Y coordinate of the first cell.
+     * @param x2 X coordinate of the second cell.
+     * @param y2 Y coordinate of the second cell.
+     * @return Whether the cells lie in the same chunk.
+     */
+    static boolean isSameChunk(int x1, int y1, int x2, int y2) {
+        return ((x1 ^ x2) | (y1 ^ y2)) >>> CHUNK_SHIFT == 0;
+    }
+
+    /**
+     * Gets the X coordinate of the cell at given index, which must not belong to the shared wall slot.
+     *
+     * @param index Index of the cell.
+     * @return X coordinate of the cell.
+     */
+    int xOf(int index) {
+        return (this.slotChunks[index >>> SLOT_SHIFT] % this.chunkColumns) << CHUNK_SHIFT | index & CHUNK_MASK;
+    }
+
+    /**
+     * Gets the Y coordinate of the cell at given index, which must not belong to the shared wall slot.
+     *
+     * @param index Index of the cell.
+     * @return Y coordinate of the cell.
+     */
+    int yOf(int index) {
+        return (this.slotChunks[index >>> SLOT_SHIFT] / this.chunkColumns) << CHUNK_SHIFT
+                | (index >>> CHUNK_SHIFT) & CHUNK_MASK;
+    }
+
+    /**
+     * Gets whether an index belongs to a cell within the level, outside of the shared wall slot.
+     *
+     * @param index Index to check.
+     * @return Whether the index belongs to a cell of the level.
+     */
+    boolean isCell(int index) {
+        if (index < 0 || (index >>> SLOT_SHIFT) >= this.slotChunks.length || this.slotChunks[index >>> SLOT_SHIFT] < 0)
+            return false;
+
+        return this.xOf(index) < this.width && this.yOf(index) < this.height;
+    }
+}
@@ -0,0 +1,128 @@
+package elkaproj.game;
+
+import elkaproj.config.LevelTile;
+
+/**
+ * Immutable snapshot of the full state of a {@link GameBoard}. Parts of the state which never change during play are
+ * shared with the board, while crates and power-up activators are copied, so a snapshot can be kept or handed to other
+ * threads after the board moves on.
+ */
+public class BoardSnapshot {
+
+    private final GameBoard board;
+    private final long[] crates;
+    private final long[] activators;
+    // packed coordinates of the crates, in the order of the board's crate index
+    private final int[] cratePositions;
+    private final int playerX, playerY;
+
+    BoardSnapshot(GameBoard board, long[] crates, long[] activators) {
+        this.board = board;
+        this.crates = crates.clone();
+        this.activators = activators.clone();
+
+        CrateIndex crateIndex = board.getCrateIndex();
+        this.cratePositions = new int[crateIndex.size()];
+        for (int n = 0; n < this.cratePositions.length; n++) {
+            int index = crateIndex.get(n);
+            this.cratePositions[n] = MoveDeltas.pack(board.xOf(index), board.yOf(index));
+        }
+
+        this.playerX = board.getPlayerX();
+        this.playerY = board.getPlayerY();
+    }
+
+    /**
+     * Gets the width of the board, in tiles.
+     *
+     * @return Width of the board.
+     */
+    public int getWidth() {
+        return this.board.getWidth();
+    }
+
+    /**
+     * Gets the height of the board, in tiles.
+     *
+     * @return Height of the board.
+     */
+    public int getHeight() {
+        return this.board.getHeight();
+    }
+
+    /**
+     * Gets the X coordinate of the player.
+     *
+     * @return X coordinate of the player.
+     */
+    public int getPlayerX() {
+        return this.playerX;
+    }
+
+    /**
+     * Gets the Y coordinate of the player.
+     *
+     * @return Y coordinate of the player.
+     */
+    public int getPlayerY() {
+        return this.playerY;
+    }
+
+    /**
+     * Gets the number of crates on the board.
+     *
+     * @return Number of crates.
+     */
+    public int getCrateCount() {
+        return this.cratePositions.length;
+    }
+
+    /**
+     * Gets the packed coordinates of a crate, as in {@link MoveDeltas#pack(int, int)}. Together with
+     * {@link #getCrateCount()}, this lists the crates without scanning the board.
+     *
+     * @param n Number of the crate, less than {@link #getCrateCount()}.
+     * @return Packed coordinates of the crate.
+     */
+    public int getCratePosition(int n) {
+        return this.cratePositions[n];
+    }
+
+    /**
+     * Gets the static tile at given coordinates, i.e. a wall, target spot or floor.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     * @return Tile at given coordinates.
+     */
+    public LevelTile getTile(int x, int y) {
+        int index = this.board.indexOf(x, y);
+        if (this.board.isWall(index))
+            return LevelTile.WALL;
+
+        return this.board.isTarget(index) ? LevelTile.TARGET_SPOT : LevelTile.FLOOR;
+    }
+
+    /**
+     * Gets whether the cell at given coordinates holds a crate.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     * @return Whether the cell holds a crate.
+     */
+    public boolean hasCrate(int x, int y) {
+        return GameBoard.test(this.crates, this.board.indexOf(x, y));
+    }
+
+    /**
+     * Gets the power-up activator present in the cell at given coordinates.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     * @return Power-up activator tile, or {@link LevelTile#NONE} if there is none.
+     */
+    public LevelTile getPowerupTile(int x, int y) {
+        int index = this.board.indexOf(x, y);
+        return GameBoard.test(this.activators, index) ? this.board.getInitialPowerupTile(index) : LevelTile.NONE;
+    }
+}
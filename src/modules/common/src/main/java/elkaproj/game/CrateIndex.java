@@ -0,0 +1,208 @@
+package elkaproj.game;
+
+import java.util.Arrays;
+
+/**
+ * Packed list of crate positions, together with an index mapping every position back to its slot in the list. Crates
+ * keep their slot as they move, so the list can be iterated in time proportional to the number of crates rather than
+ * the size of the board, and individual crates can be followed from move to move. The index is an open-addressing hash
+ * table sized after the number of crates, so adding, finding and moving a crate take constant time, and the whole
+ * structure takes space in proportion to the number of crates alone.
+ * <p>
+ * Positions are arbitrary non-negative ints; {@link GameBoard} uses cell indices, as given by
+ * {@link GameBoard#indexOf(int, int)}.
+ */
+public final class CrateIndex {
+
+    private static final int EMPTY = -1;
+
+    private int[] positions;
+    private int count = 0;
+
+    // slots of crates, placed by hash of their position; EMPTY marks free buckets
+    private int[] buckets;
+    private int shift;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param capacity Number of crates the index is expected to hold. More crates can be added, at the cost of growing
+     *                 the index.
+     */
+    public CrateIndex(int capacity) {
+        this.positions = new int[Math.max(capacity, 1)];
+        this.allocateBuckets(this.positions.length);
+    }
+
+    /**
+     * Creates a copy of another index.
+     *
+     * @param other Index to copy.
+     */
+    public CrateIndex(CrateIndex other) {
+        this.positions = other.positions.clone();
+        this.count = other.count;
+        this.buckets = other.buckets.clone();
+        this.shift = other.shift;
+    }
+
+    /**
+     * Gets the number of crates in the index.
+     *
+     * @return Number of crates.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Gets the position of the crate in given slot.
+     *
+     * @param slot Slot of the crate, less than {@link #size()}.
+     * @return Position of the crate.
+     */
+    public int get(int slot) {
+        return this.positions[slot];
+    }
+
+    /**
+     * Gets the slot of the crate at given position.
+     *
+     * @param position Position to look up.
+     * @return Slot of the crate, or -1 if there is no crate at the position.
+     */
+    public int slotOf(int position) {
+        int bucket = this.findBucket(position);
+        return bucket < 0 ? -1 : this.buckets[bucket];
+    }
+
+    /**
+     * Gets whether there is a crate at given position.
+     *
+     * @param position Position to check.
+     * @return Whether there is a crate at the position.
+     */
+    public boolean contains(int position) {
+        return this.findBucket(position) >= 0;
+    }
+
+    /**
+     * Adds a crate at given position, in the next free slot.
+     *
+     * @param position Position of the crate.
+     * @return Slot of the crate.
+     * @throws IllegalArgumentException There already is a crate at the position.
+     */
+    public int add(int position) {
+        if (this.contains(position))
+            throw new IllegalArgumentException("There already is a crate at given position.");
+
+        if (this.count == this.positions.length) {
+            int[] positions = new int[this.positions.length * 2];
+            System.arraycopy(this.positions, 0, positions, 0, this.count);
+            this.positions = positions;
+
+            this.allocateBuckets(positions.length);
+            for (int slot = 0; slot < this.count; slot++)
+                this.insert(slot);
+        }
+
+        this.positions[this.count] = position;
+        this.insert(this.count);
+        return this.count++;
+    }
+
+    /**
+     * Moves a crate to another position. The crate keeps its slot.
+     *
+     * @param from Position of the crate.
+     * @param to   Position to move the crate to, which must not hold a crate.
+     * @return Slot of the moved crate.
+     * @throws IllegalArgumentException There is no crate at the source position.
+     */
+    public int move(int from, int to) {
+        int bucket = this.findBucket(from);
+        if (bucket < 0)
+            throw new IllegalArgumentException("There is no crate at given position.");
+
+        int slot = this.buckets[bucket];
+        this.removeBucket(bucket);
+        this.positions[slot] = to;
+        this.insert(slot);
+        return slot;
+    }
+
+    /**
+     * Removes all crates.
+     */
+    public void clear() {
+        Arrays.fill(this.buckets, EMPTY);
+        this.count = 0;
+    }
+
+    /**
+     * Replaces the contents of this index with those of another one, reusing storage where possible.
+     *
+     * @param other Index to copy.
+     */
+    public void copyFrom(CrateIndex other) {
+        if (this.positions.length < other.count)
+            this.positions = new int[other.positions.length];
+
+        if (this.buckets.length != other.buckets.length)
+            this.buckets = new int[other.buckets.length];
+
+        System.arraycopy(other.positions, 0, this.positions, 0, other.count);
+        System.arraycopy(other.buckets, 0, this.buckets, 0, other.buckets.length);
+        this.count = other.count;
+        this.shift = other.shift;
+    }
+
+    private void allocateBuckets(int capacity) {
+        // at most half of the buckets are taken, which keeps probe sequences short
+        int size = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+        this.buckets = new int[size];
+        this.shift = 32 - Integer.numberOfTrailingZeros(size);
+        Arrays.fill(this.buckets, EMPTY);
+    }
+
+    private int home(int position) {
+        return (position * 0x9E3779B9) >>> this.shift;
+    }
+
+    private int findBucket(int position) {
+        int mask = this.buckets.length - 1;
+        for (int bucket = this.home(position); ; bucket = (bucket + 1) & mask) {
+            int slot = this.buckets[bucket];
+            if (slot == EMPTY)
+                return -1;
+
+            if (this.positions[slot] == position)
+                return bucket;
+        }
+    }
+
+    private void insert(int slot) {
+        int mask = this.buckets.length - 1;
+        int bucket = this.home(this.positions[slot]);
+        while (this.buckets[bucket] != EMPTY)
+            bucket = (bucket + 1) & mask;
+
+        this.buckets[bucket] = slot;
+    }
+
+    // shifts back the entries following a removed one, so that no lookup stops at the freed bucket too early
+    private void removeBucket(int bucket) {
+        int mask = this.buckets.length - 1;
+        int free = bucket;
+        for (int next = (free + 1) & mask; this.buckets[next] != EMPTY; next = (next + 1) & mask) {
+            int home = this.home(this.positions[this.buckets[next]]);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                this.buckets[free] = this.buckets[next];
+                free = next;
+            }
+        }
+
+        this.buckets[free] = EMPTY;
+    }
+}
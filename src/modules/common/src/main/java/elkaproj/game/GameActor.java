@@ -0,0 +1,221 @@
+package elkaproj.game;
+
+import elkaproj.DebugWriter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Runs a {@link GameController} on a dedicated game thread. Commands can be submitted from any thread; they are queued
+ * in a lock-free queue and executed one at a time, in submission order, so the controller is never accessed
+ * concurrently. The game thread also ticks the controller's timers, waking up when the next timer event is due. All
+ * handlers registered with the controller are invoked on the game thread; UI components should forward the results to
+ * their own threads, e.g. through a {@link GameEventPipeline}.
+ */
+public class GameActor {
+
+    private static final IGameCommand[] MOVE_COMMANDS;
+
+    static {
+        GameMovementDirection[] directions = GameMovementDirection.values();
+        MOVE_COMMANDS = new IGameCommand[directions.length];
+        for (GameMovementDirection direction : directions)
+            MOVE_COMMANDS[direction.ordinal()] = gameController -> gameController.move(direction);
+    }
+
+    private static final IGameCommand UNDO_COMMAND = GameController::undoMove;
+    private static final IGameCommand REDO_COMMAND = GameController::redoMove;
+    private static final IGameCommand TOGGLE_PAUSE_COMMAND = GameController::togglePause;
+    private static final IGameCommand RESET_LEVEL_COMMAND = GameController::resetLevel;
+    private static final IGameCommand START_GAME_COMMAND = GameController::startGame;
+
+    private final GameController gameController;
+    private final MpscQueue<IGameCommand> commands = new MpscQueue<>();
+    private final long tickInterval;
+    private final Thread gameThread;
+
+    private volatile boolean running = true;
+    private volatile boolean parked = false;
+
+    /**
+     * Creates an actor. Commands submitted before the actor is started are executed once it starts.
+     *
+     * @param gameController Controller to run. Once the actor is started, the controller, including its handler lists,
+     *                       must only be accessed through the actor.
+     * @param tickInterval   Maximum interval between controller ticks, in milliseconds. Timer events are handled when
+     *                       they are due, regardless of the interval.
+     */
+    public GameActor(GameController gameController, long tickInterval) {
+        this.gameController = gameController;
+        this.tickInterval = TimeUnit.MILLISECONDS.toNanos(tickInterval);
+
+        this.gameThread = new Thread(this::run, "game-thread");
+        this.gameThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the game thread.
+     */
+    public void start() {
+        this.gameThread.start();
+    }
+
+    /**
+     * Queues a command for execution on the game thread.
+     *
+     * @param command Command to execute.
+     */
+    public void submit(IGameCommand command) {
+        this.commands.offer(command);
+
+        // the queue is checked again after the flag is set, so either the command is seen or the thread is woken up
+        if (this.parked)
+            LockSupport.unpark(this.gameThread);
+    }
+
+    /**
+     * Queues a query of the controller's state, executed on the game thread.
+     *
+     * @param query Query to execute.
+     * @param <T>   Type of the query's result.
+     * @return Future completed with the query's result.
+     */
+    public <T> CompletableFuture<T> query(Function<GameController, T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        this.submit(gameController -> {
+            try {
+                future.complete(query.apply(gameController));
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Queues a move of the player.
+     *
+     * @param direction Direction to move the player in.
+     */
+    public void move(GameMovementDirection direction) {
+        this.submit(MOVE_COMMANDS[direction.ordinal()]);
+    }
+
+    /**
+     * Queues a batch of moves, written in LURD notation.
+     *
+     * @param lurd Moves to make, in LURD notation.
+     */
+    public void applyMoves(CharSequence lurd) {
+        String moves = lurd.toString();
+        this.submit(gameController -> gameController.applyMoves(moves));
+    }
+
+    /**
+     * Queues undoing the last move.
+     */
+    public void undoMove() {
+        this.submit(UNDO_COMMAND);
+    }
+
+    /**
+     * Queues redoing the last undone move.
+     */
+    public void redoMove() {
+        this.submit(REDO_COMMAND);
+    }
+
+    /**
+     * Queues pausing or resuming the game.
+     */
+    public void togglePause() {
+        this.submit(TOGGLE_PAUSE_COMMAND);
+    }
+
+    /**
+     * Queues resetting the level.
+     */
+    public void resetLevel() {
+        this.submit(RESET_LEVEL_COMMAND);
+    }
+
+    /**
+     * Queues starting the game.
+     */
+    public void startGame() {
+        this.submit(START_GAME_COMMAND);
+    }
+
+    /**
+     * Queues stopping the game.
+     *
+     * @param completed Whether the stop happened as a result of game being completed.
+     */
+    public void stopGame(boolean completed) {
+        this.submit(gameController -> gameController.stopGame(completed));
+    }
+
+    /**
+     * Queues enabling or disabling player inputs.
+     *
+     * @param enable Whether inputs are to be accepted.
+     */
+    public void enableInput(boolean enable) {
+        this.submit(gameController -> gameController.enableInput(enable));
+    }
+
+    /**
+     * Stops the game thread, after it executes the commands queued so far.
+     */
+    public void shutdown() {
+        this.submit(gameController -> this.running = false);
+        if (Thread.currentThread() == this.gameThread || !this.gameThread.isAlive())
+            return;
+
+        try {
+            this.gameThread.join();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        DebugWriter.INSTANCE.logMessage("GAME-THREAD", "Game thread started");
+
+        long nextTick = System.nanoTime() + this.tickInterval;
+        while (this.running) {
+            IGameCommand command;
+            while ((command = this.commands.poll()) != null) {
+                try {
+                    command.execute(this.gameController);
+                } catch (Exception ex) {
+                    DebugWriter.INSTANCE.logError("GAME-THREAD", ex, "Command failed");
+                }
+
+                if (!this.running)
+                    return;
+            }
+
+            long now = System.nanoTime();
+            if (now - nextTick >= 0) {
+                try {
+                    this.gameController.tick();
+                } catch (Exception ex) {
+                    DebugWriter.INSTANCE.logError("GAME-THREAD", ex, "Tick failed");
+                }
+            }
+
+            // the thread sleeps until the controller's next timer event, or the tick interval, whichever comes first
+            long untilEvent = TimeUnit.MILLISECONDS.toNanos(this.gameController.getMillisUntilNextTimerEvent());
+            nextTick = now + Math.min(this.tickInterval, untilEvent);
+
+            this.parked = true;
+            if (this.commands.isEmpty())
+                LockSupport.parkNanos(this, nextTick - now);
+            this.parked = false;
+        }
+    }
+}
@@ -0,0 +1,1143 @@
+package elkaproj.game;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Bitboard representation of the state of a level being played. Every cell of the level is addressed by a single
+ * index, given by {@link #indexOf(int, int)}, and walls, target spots, crates and power-up activators are each stored
+ * as bits of a packed <code>long[]</code> bitset, and active power-ups are a bitmask held in a {@link PowerupSet}, so
+ * that the rules evaluated in {@link #move(GameMovementDirection, PowerupSet)} reduce to shifts, masks and table
+ * lookups.
+ */
+public class GameBoard {
+
+    /**
+     * Move result: the move was not possible, and the player did not move.
+     */
+    public static final int MOVE_BLOCKED = 0;
+
+    /**
+     * Move result flag: the player moved.
+     */
+    public static final int MOVE_ACCEPTED = 1;
+
+    /**
+     * Move result flag: a crate was pushed.
+     */
+    public static final int MOVE_PUSH = 1 << 1;
+
+    /**
+     * Move result flag: a second, stacked crate was pushed using {@link GamePowerup#STRENGTH}.
+     */
+    public static final int MOVE_STRENGTH = 1 << 2;
+
+    /**
+     * Move result flag: a crate was pulled using {@link GamePowerup#PULL}.
+     */
+    public static final int MOVE_PULL = 1 << 3;
+
+    /**
+     * Move result flag: {@link GamePowerup#GHOST} was consumed. This can happen even if the move was blocked.
+     */
+    public static final int MOVE_GHOST = 1 << 4;
+
+    /**
+     * Move result field: ordinal of the picked up power-up plus one, or 0 if none was picked up.
+     *
+     * @see #getPickedUpPowerup(int)
+     */
+    public static final int MOVE_PICKUP_SHIFT = 5;
+
+    /**
+     * Maximum number of moves which can be undone.
+     */
+    public static final int UNDO_CAPACITY = 1 << 16;
+
+    private static final int MOVE_PICKUP_MASK = 0b11 << MOVE_PICKUP_SHIFT;
+    private static final GamePowerup[] POWERUPS = GamePowerup.values();
+    private static final GameMovementDirection[] DIRECTIONS = GameMovementDirection.values();
+
+    private static final int GHOST = 1 << GamePowerup.GHOST.ordinal();
+    private static final int STRENGTH = 1 << GamePowerup.STRENGTH.ordinal();
+    private static final int PULL = 1 << GamePowerup.PULL.ordinal();
+
+    // power-ups consumed by a move, indexed by its STRENGTH, PULL and GHOST result flags
+    private static final int CONSUMED_SHIFT = 2;
+    private static final int[] CONSUMED_POWERUPS = new int[8];
+
+    static {
+        for (int flags = 0; flags < CONSUMED_POWERUPS.length; flags++) {
+            int result = flags << CONSUMED_SHIFT;
+            if ((result & MOVE_STRENGTH) != 0)
+                CONSUMED_POWERUPS[flags] |= STRENGTH;
+            if ((result & MOVE_PULL) != 0)
+                CONSUMED_POWERUPS[flags] |= PULL;
+            if ((result & MOVE_GHOST) != 0)
+                CONSUMED_POWERUPS[flags] |= GHOST;
+        }
+    }
+
+    // journal flags of a move, indexed by its PUSH, STRENGTH, PULL and GHOST result flags
+    private static final int RECORD_FLAGS_SHIFT = 1;
+    private static final int[] RECORD_FLAGS = new int[16];
+
+    static {
+        for (int flags = 0; flags < RECORD_FLAGS.length; flags++) {
+            int result = flags << RECORD_FLAGS_SHIFT;
+            if ((result & MOVE_PUSH) != 0)
+                RECORD_FLAGS[flags] |= MoveJournal.PUSH;
+            if ((result & MOVE_STRENGTH) != 0)
+                RECORD_FLAGS[flags] |= MoveJournal.STRENGTH;
+            if ((result & MOVE_PULL) != 0)
+                RECORD_FLAGS[flags] |= MoveJournal.PULL;
+            if ((result & MOVE_GHOST) != 0)
+                RECORD_FLAGS[flags] |= MoveJournal.GHOST;
+        }
+    }
+
+    // kinds of features hashed into the state hash
+    static final int ZOBRIST_PLAYER = 0;
+    static final int ZOBRIST_CRATE = 1;
+    static final int ZOBRIST_ACTIVATOR = 2;
+    static final int ZOBRIST_POWERUP = 3;
+
+    // indexed by GameMovementDirection ordinal; directions come in opposite pairs, so direction ^ 1 is the opposite one
+    private static final int[] DIRECTION_X = {0, 0, -1, 1};
+    private static final int[] DIRECTION_Y = {-1, 1, 0, 0};
+    // offsets between the indices of neighbouring cells of a chunk
+    private static final int[] DIRECTION_OFFSET = new int[DIRECTION_X.length];
+
+    static {
+        for (int direction = 0; direction < DIRECTION_OFFSET.length; direction++)
+            DIRECTION_OFFSET[direction] = BoardLayout.offsetOf(DIRECTION_X[direction], DIRECTION_Y[direction]);
+    }
+
+    private final ILevel level;
+    private final LevelTemplate template;
+    private final BoardLayout layout;
+    private final int width, height;
+    private final long[] walls;
+    private final long[] targets;
+    private final long[] crates;
+    private final long[] initialActivators;
+    private final long[] activators;
+    // positions of power-up activators present in the level initially, by kind; picked up ones are cleared from activators only
+    private final long[][] powerupActivators;
+
+    private int playerX, playerY, playerIndex;
+    // hash of the crates and activators; the player's key is only added by getStateHash, sparing moves from updating it
+    private long boardHash;
+    private final long initialBoardHash;
+    private final int numCrates;
+    private int numMatched = 0;
+
+    private final MoveDeltas lastMove = new MoveDeltas();
+    private final MoveJournal journal;
+    private GameBoardArrays arrays = null;
+    private CrateIndex crateIndex = null;
+
+    // results of a move in each direction from the player's cell, valid while the power-ups match the key; the results
+    // from the cell the player last came from are kept as long as no move changes a cell, for when the player returns
+    private int[] moveOptions = new int[DIRECTIONS.length];
+    private int moveOptionsKey = -1;
+    private int[] previousOptions = new int[DIRECTIONS.length];
+    private int previousOptionsKey = -1;
+    private int previousOptionsPosition = -1;
+
+    // holds power-ups passed as an EnumSet for the duration of a call
+    private final PowerupSet scratchPowerups = new PowerupSet();
+
+    /**
+     * Creates a board in the initial state of a given level. The level is compiled into a {@link LevelTemplate} the
+     * first time it is used, and the template is reused afterwards.
+     *
+     * @param level           Level to create the board for.
+     * @param enabledPowerups Power-ups which are enabled. Activators of other power-ups are treated as floor.
+     */
+    public GameBoard(ILevel level, EnumSet<GamePowerup> enabledPowerups) {
+        this(level, enabledPowerups, UNDO_CAPACITY);
+    }
+
+    /**
+     * Creates a board in the initial state of a given level, remembering a limited number of moves for undoing them.
+     *
+     * @param level           Level to create the board for.
+     * @param enabledPowerups Power-ups which are enabled. Activators of other power-ups are treated as floor.
+     * @param undoCapacity    Maximum number of moves which can be undone. Every remembered move takes a byte.
+     */
+    public GameBoard(ILevel level, EnumSet<GamePowerup> enabledPowerups, int undoCapacity) {
+        this.level = level;
+        this.journal = new MoveJournal(undoCapacity);
+        this.template = LevelTemplate.of(level);
+        this.layout = this.template.getLayout();
+        this.width = this.template.getWidth();
+        this.height = this.template.getHeight();
+        this.numCrates = this.template.getCrateCount();
+
+        // walls, target spots and initial activator positions never change, and are shared with the template
+        this.walls = this.template.getWalls();
+        this.targets = this.template.getTargets();
+        this.powerupActivators = this.template.getPowerupActivators();
+        this.initialActivators = this.template.getActivators(enabledPowerups);
+
+        this.crates = new long[this.template.getWordCount()];
+        this.activators = new long[this.template.getWordCount()];
+        this.restore();
+
+        // the initial hash is computed once per board; afterwards, it is only updated incrementally, or restored
+        this.initialBoardHash = this.computeStateHash() ^ playerKey(this.playerX, this.playerY, this.width);
+        this.boardHash = this.initialBoardHash;
+    }
+
+    /**
+     * Restores the board to the initial state of its level, and forgets all recorded moves.
+     */
+    public void reset() {
+        this.restore();
+        this.boardHash = this.initialBoardHash;
+    }
+
+    private void restore() {
+        int words = this.template.getWordCount();
+        System.arraycopy(this.template.getCrates(), 0, this.crates, 0, words);
+        if (this.crateIndex != null)
+            this.crateIndex.copyFrom(this.template.getCrateIndex());
+        System.arraycopy(this.initialActivators, 0, this.activators, 0, words);
+
+        this.playerX = this.template.getPlayerX();
+        this.playerY = this.template.getPlayerY();
+        this.playerIndex = this.indexOf(this.playerX, this.playerY);
+        this.numMatched = 0;
+
+        this.journal.clear();
+        this.clearMoveOptions();
+        if (this.arrays != null)
+            this.arrays.reset();
+
+        this.lastMove.beginFullUpdate(MoveDeltas.pack(this.playerX, this.playerY));
+    }
+
+    /**
+     * Writes the state of the board: the player's coordinates, crate positions as gaps between consecutive crates, and
+     * one bit per initial power-up activator, telling whether it is still present. Recorded moves are not written.
+     *
+     * @param out Writer to write the state to.
+     */
+    void writeState(VarIntWriter out) {
+        out.writeVarInt(this.width);
+        out.writeVarInt(this.height);
+        out.writeVarInt(this.playerX);
+        out.writeVarInt(this.playerY);
+
+        int previous = -1;
+        for (int w = 0; w < this.crates.length; w++) {
+            for (long bits = this.crates[w]; bits != 0; bits &= bits - 1) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                out.writeVarInt(index - previous - 1);
+                previous = index;
+            }
+        }
+
+        int packed = 0, count = 0;
+        for (int w = 0; w < this.initialActivators.length; w++) {
+            for (long bits = this.initialActivators[w]; bits != 0; bits &= bits - 1) {
+                if (test(this.activators, (w << 6) + Long.numberOfTrailingZeros(bits)))
+                    packed |= 1 << count;
+
+                if (++count == 8) {
+                    out.writeByte(packed);
+                    packed = count = 0;
+                }
+            }
+        }
+
+        if (count > 0)
+            out.writeByte(packed);
+
+        out.writeLong(this.getStateHash());
+    }
+
+    /**
+     * Restores a state written by {@link #writeState(VarIntWriter)}, and forgets all recorded moves. The board is left
+     * unchanged if the state is invalid.
+     *
+     * @param in Reader to read the state from.
+     * @throws IllegalArgumentException The state is invalid, or was written for a different level.
+     */
+    void readState(VarIntReader in) {
+        if (in.readVarInt() != this.width || in.readVarInt() != this.height)
+            throw new IllegalArgumentException("Snapshot was taken on a board of different size.");
+
+        // GHOST lets the player stand in walls, even in chunks made only of walls, and pulling a crate out of a wall
+        // leaves the crate where the player stood, so neither is kept out of walls
+        int playerX = in.readVarInt(), playerY = in.readVarInt();
+        if (!this.isInBounds(playerX, playerY))
+            throw new IllegalArgumentException("Invalid player position.");
+
+        int playerIndex = this.indexOf(playerX, playerY);
+
+        long[] crates = new long[this.crates.length];
+        int index = -1;
+        for (int n = 0; n < this.numCrates; n++) {
+            index += in.readVarInt() + 1;
+            if (!this.layout.isCell(index) || index == playerIndex)
+                throw new IllegalArgumentException("Invalid crate position.");
+
+            set(crates, index);
+        }
+
+        long[] activators = new long[this.activators.length];
+        int packed = 0, count = 0;
+        for (int w = 0; w < this.initialActivators.length; w++) {
+            for (long bits = this.initialActivators[w]; bits != 0; bits &= bits - 1) {
+                if (count == 0)
+                    packed = in.readByte();
+
+                if ((packed & 1 << count) != 0)
+                    set(activators, (w << 6) + Long.numberOfTrailingZeros(bits));
+
+                count = (count + 1) & 7;
+            }
+        }
+
+        long stateHash = in.readLong();
+        if (this.computeStateHash(playerX, playerY, crates, activators) != stateHash)
+            throw new IllegalArgumentException("Snapshot is corrupted.");
+
+        System.arraycopy(crates, 0, this.crates, 0, crates.length);
+        System.arraycopy(activators, 0, this.activators, 0, activators.length);
+
+        this.playerIndex = playerIndex;
+        this.playerX = playerX;
+        this.playerY = playerY;
+
+        this.numMatched = 0;
+        for (int w = 0; w < this.crates.length; w++)
+            this.numMatched += Long.bitCount(this.crates[w] & this.targets[w]);
+
+        this.boardHash = stateHash ^ playerKey(playerX, playerY, this.width);
+        this.journal.clear();
+        this.clearMoveOptions();
+        this.arrays = null;
+        this.crateIndex = null;
+        this.lastMove.beginFullUpdate(MoveDeltas.pack(this.playerX, this.playerY));
+    }
+
+    /**
+     * Gets the level this board was created for.
+     *
+     * @return Level of the board.
+     */
+    public ILevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the width of the board, in tiles.
+     *
+     * @return Width of the board.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the height of the board, in tiles.
+     *
+     * @return Height of the board.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the index of the cell at given coordinates. Cells are indexed chunk by chunk, following the layout of the
+     * level's {@link elkaproj.config.LevelTileGrid}, so indices of neighbouring cells only differ by a constant within
+     * a chunk, and should always be obtained from this method.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     * @return Index of the cell.
+     */
+    public int indexOf(int x, int y) {
+        return this.layout.indexOf(x, y);
+    }
+
+    /**
+     * Gets the X coordinate of the cell at given index.
+     *
+     * @param index Index of the cell, as given by {@link #indexOf(int, int)}.
+     * @return X coordinate of the cell.
+     */
+    public int xOf(int index) {
+        return this.layout.xOf(index);
+    }
+
+    /**
+     * Gets the Y coordinate of the cell at given index.
+     *
+     * @param index Index of the cell, as given by {@link #indexOf(int, int)}.
+     * @return Y coordinate of the cell.
+     */
+    public int yOf(int index) {
+        return this.layout.yOf(index);
+    }
+
+    /**
+     * Gets the index of the cell the player is standing on. The player can stand in walls using
+     * {@link GamePowerup#GHOST}, including chunks made only of walls, whose cells share indices, so the index is only
+     * meant for looking the cell up; the player's coordinates identify the position.
+     *
+     * @return Index of the player's cell.
+     */
+    public int getPlayerIndex() {
+        return this.playerIndex;
+    }
+
+    /**
+     * Gets the X coordinate of the player.
+     *
+     * @return X coordinate of the player.
+     */
+    public int getPlayerX() {
+        return this.playerX;
+    }
+
+    /**
+     * Gets the Y coordinate of the player.
+     *
+     * @return Y coordinate of the player.
+     */
+    public int getPlayerY() {
+        return this.playerY;
+    }
+
+    /**
+     * Gets the number of crates on the board.
+     *
+     * @return Number of crates.
+     */
+    public int getCrateCount() {
+        return this.numCrates;
+    }
+
+    /**
+     * Gets the positions of the crates on the board, as cell indices. The index is created on first access, and kept up
+     * to date by every move afterwards; until then, pushes only update the bitsets. It must not be modified; iterating
+     * it takes time proportional to the number of crates, regardless of the size of the board.
+     *
+     * @return Index of crate positions.
+     */
+    public CrateIndex getCrateIndex() {
+        if (this.crateIndex == null) {
+            this.crateIndex = new CrateIndex(this.numCrates);
+            for (int w = 0; w < this.crates.length; w++) {
+                for (long bits = this.crates[w]; bits != 0; bits &= bits - 1)
+                    this.crateIndex.add((w << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+
+        return this.crateIndex;
+    }
+
+    /**
+     * Gets the number of crates currently placed on target spots.
+     *
+     * @return Number of matched crates.
+     */
+    public int getMatchedCount() {
+        return this.numMatched;
+    }
+
+    /**
+     * Creates an immutable snapshot of the current state of the board.
+     *
+     * @return Snapshot of the board.
+     */
+    public BoardSnapshot createSnapshot() {
+        return new BoardSnapshot(this, this.crates, this.activators);
+    }
+
+    /**
+     * Creates an immutable, persistent copy of the current state of the board.
+     *
+     * @param powerUps Power-ups active for the player.
+     * @return State of the board.
+     */
+    GameState createState(Set<GamePowerup> powerUps) {
+        return new GameState(this.level, this.crates, this.activators, this.playerX, this.playerY, toMask(powerUps));
+    }
+
+    /**
+     * Gets the Zobrist hash of the state of the board, covering the player's position, crate layout and remaining
+     * power-up activators. The hash of crates and activators is maintained incrementally by every push, pickup and
+     * undo, and the key of the player's position is added on every call.
+     *
+     * @return 64-bit hash of the state of the board.
+     */
+    public long getStateHash() {
+        return this.boardHash ^ playerKey(this.playerX, this.playerY, this.width);
+    }
+
+    /**
+     * Gets the Zobrist key of a feature of the game state. Keys are derived from the feature by a SplitMix64 mix, so no
+     * key tables need to be kept, regardless of the size of the board.
+     *
+     * @param index Index of the cell holding the feature, or the ordinal of an active power-up.
+     * @param kind  Kind of the feature; one of ZOBRIST_* constants.
+     * @return 64-bit key of the feature.
+     */
+    static long zobristKey(int index, int kind) {
+        long z = (((long) index << 2 | kind) + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gets the Zobrist key of the player standing at given coordinates. The player is keyed by coordinates rather than
+     * cell index, as cells of chunks made only of walls, which the player can enter using {@link GamePowerup#GHOST},
+     * share their indices.
+     *
+     * @param x     X coordinate of the player.
+     * @param y     Y coordinate of the player.
+     * @param width Width of the board.
+     * @return 64-bit key of the player's position.
+     */
+    static long playerKey(int x, int y, int width) {
+        return zobristKey(y * width + x, ZOBRIST_PLAYER);
+    }
+
+    long computeStateHash() {
+        return this.computeStateHash(this.playerX, this.playerY, this.crates, this.activators);
+    }
+
+    private long computeStateHash(int playerX, int playerY, long[] crates, long[] activators) {
+        long hash = playerKey(playerX, playerY, this.width);
+        for (int w = 0; w < crates.length; w++) {
+            for (long bits = crates[w]; bits != 0; bits &= bits - 1)
+                hash ^= zobristKey((w << 6) + Long.numberOfTrailingZeros(bits), ZOBRIST_CRATE);
+
+            for (long bits = activators[w]; bits != 0; bits &= bits - 1)
+                hash ^= zobristKey((w << 6) + Long.numberOfTrailingZeros(bits), ZOBRIST_ACTIVATOR);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Gets whether every crate is placed on a target spot.
+     *
+     * @return Whether the level is completed.
+     */
+    public boolean isCompleted() {
+        return this.numMatched == this.numCrates;
+    }
+
+    /**
+     * Gets whether given cell is a wall.
+     *
+     * @param index Index of the cell.
+     * @return Whether the cell is a wall.
+     */
+    public boolean isWall(int index) {
+        return test(this.walls, index);
+    }
+
+    /**
+     * Gets whether given cell is a target spot.
+     *
+     * @param index Index of the cell.
+     * @return Whether the cell is a target spot.
+     */
+    public boolean isTarget(int index) {
+        return test(this.targets, index);
+    }
+
+    /**
+     * Gets whether given cell holds a crate.
+     *
+     * @param index Index of the cell.
+     * @return Whether the cell holds a crate.
+     */
+    public boolean hasCrate(int index) {
+        return test(this.crates, index);
+    }
+
+    /**
+     * Gets the power-up activator present in given cell.
+     *
+     * @param index Index of the cell.
+     * @return Power-up activator tile, or {@link LevelTile#NONE} if there is none.
+     */
+    public LevelTile getPowerupTile(int index) {
+        if (!test(this.activators, index))
+            return LevelTile.NONE;
+
+        return GamePowerup.toTile(this.getInitialPowerup(index));
+    }
+
+    LevelTile getInitialPowerupTile(int index) {
+        return test(this.initialActivators, index) ? GamePowerup.toTile(this.getInitialPowerup(index)) : LevelTile.NONE;
+    }
+
+    /**
+     * Gets the number of moves which can currently be undone.
+     *
+     * @return Number of moves which can be undone.
+     */
+    public int getUndoCount() {
+        return this.journal.getUndoCount();
+    }
+
+    /**
+     * Gets the number of undone moves which can currently be redone.
+     *
+     * @return Number of moves which can be redone.
+     */
+    public int getRedoCount() {
+        return this.journal.getRedoCount();
+    }
+
+    /**
+     * Gets the changes made by the last accepted move. If no move was made yet, this describes a full update. The
+     * returned buffer is reused by subsequent moves.
+     *
+     * @return Changes made by the last move.
+     */
+    public MoveDeltas getLastMove() {
+        return this.lastMove;
+    }
+
+    /**
+     * Gets the layout of the board as a jagged array. The array is created on first access, and kept up to date
+     * afterwards.
+     *
+     * @return Layout of the board.
+     */
+    public LevelTile[][] getTileArray() {
+        return this.getArrays().getBoard();
+    }
+
+    /**
+     * Gets the power-up tiles of the board as a jagged array. The array is created on first access, and kept up to
+     * date afterwards.
+     *
+     * @return Power-up tiles of the board.
+     */
+    public LevelTile[][] getPowerupTileArray() {
+        return this.getArrays().getPowerupTiles();
+    }
+
+    /**
+     * Gets the crate locations as a jagged array. The array is created on first access, and kept up to date
+     * afterwards.
+     *
+     * @return Crate locations.
+     */
+    public boolean[][] getCrateArray() {
+        return this.getArrays().getCrates();
+    }
+
+    private GameBoardArrays getArrays() {
+        if (this.arrays == null)
+            this.arrays = new GameBoardArrays(this, this.level.getTileGrid());
+
+        return this.arrays;
+    }
+
+    /**
+     * Attempts to move the player in given direction, pushing or pulling crates and consuming or picking up power-ups
+     * as necessary.
+     *
+     * @param direction Direction to move the player in.
+     * @param powerUps  Power-ups active for the player. Consumed and picked up power-ups are updated in place.
+     * @return Result of the move; either {@link #MOVE_BLOCKED}, or a combination of MOVE_* flags.
+     */
+    public int move(GameMovementDirection direction, PowerupSet powerUps) {
+        int d = direction.ordinal();
+        int dx = DIRECTION_X[d], dy = DIRECTION_Y[d];
+        int ox = this.playerX, oy = this.playerY;
+        int nx = ox + dx, ny = oy + dy;
+        if (!this.isInBounds(nx, ny))
+            return MOVE_BLOCKED;
+
+        int powerups = powerUps.getMask();
+        int o = this.playerIndex, n = this.neighbourOf(o, ox, oy, d);
+        int result = this.moveOptionsKey == powerups ? this.moveOptions[d] : this.evaluateMove(d, powerups, n);
+        if (result == MOVE_BLOCKED)
+            return MOVE_BLOCKED;
+
+        powerUps.setMask(updatePowerups(powerups, result));
+
+        int record = d;
+        if ((result & MOVE_ACCEPTED) == 0)
+            return this.recordBlocked(record, result);
+
+        this.lastMove.beginMove(MoveDeltas.pack(ox, oy), MoveDeltas.pack(nx, ny));
+        this.stepMoveOptions(ox, oy, nx, ny, result);
+
+        if ((result & MOVE_PUSH) != 0) {
+            int n1 = this.neighbourOf(n, nx, ny, d);
+            if ((result & MOVE_STRENGTH) != 0)
+                this.moveCrate(n1, nx + dx, ny + dy, d);
+
+            // push crate
+            this.moveCrate(n, nx, ny, d, n1);
+        }
+
+        // pull crate
+        if ((result & MOVE_PULL) != 0)
+            this.moveCrate(this.neighbourOf(o, ox, oy, d ^ 1), ox - dx, oy - dy, d, o);
+
+        this.playerX = nx;
+        this.playerY = ny;
+        this.playerIndex = n;
+
+        // pick up power-up
+        GamePowerup pickup = null;
+        if ((result & MOVE_PICKUP_MASK) != 0) {
+            pickup = getPickedUpPowerup(result);
+            clear(this.activators, n);
+            this.boardHash ^= zobristKey(n, ZOBRIST_ACTIVATOR);
+            // a power-up consumed by this move is not held anymore when its activator is reached
+            boolean held = (powerups & ~consumedPowerups(result) & 1 << pickup.ordinal()) != 0;
+            record |= held ? MoveJournal.PICKUP | MoveJournal.PICKUP_HELD : MoveJournal.PICKUP;
+        }
+
+        this.journal.record(record | toRecordFlags(result));
+
+        if (this.arrays != null) {
+            this.arrays.update(this.lastMove);
+            if (pickup != null)
+                this.arrays.setPowerupTile(this.lastMove.getPlayerTo(), LevelTile.NONE);
+        }
+
+        return result;
+    }
+
+    /**
+     * Attempts to move the player in given direction. Equivalent to {@link #move(GameMovementDirection, PowerupSet)},
+     * for power-ups held in an {@link EnumSet}.
+     *
+     * @param direction Direction to move the player in.
+     * @param powerUps  Power-ups active for the player. Consumed and picked up power-ups are updated in place.
+     * @return Result of the move; either {@link #MOVE_BLOCKED}, or a combination of MOVE_* flags.
+     */
+    public int move(GameMovementDirection direction, EnumSet<GamePowerup> powerUps) {
+        int mask = toMask(powerUps);
+        this.scratchPowerups.setMask(mask);
+        int result = this.move(direction, this.scratchPowerups);
+        if (this.scratchPowerups.getMask() != mask)
+            copyMask(this.scratchPowerups.getMask(), powerUps);
+
+        return result;
+    }
+
+    /**
+     * Applies the power-up changes of a move to a bitmask of active power-ups: removes consumed power-ups, and adds the
+     * picked up one.
+     *
+     * @param powerups   Bitmask of power-ups active before the move.
+     * @param moveResult Result of the move, as returned by {@link #move(GameMovementDirection, PowerupSet)}.
+     * @return Bitmask of power-ups active after the move.
+     */
+    public static int updatePowerups(int powerups, int moveResult) {
+        powerups &= ~consumedPowerups(moveResult);
+
+        int pickup = (moveResult & MOVE_PICKUP_MASK) >>> MOVE_PICKUP_SHIFT;
+        return pickup == 0 ? powerups : powerups | 1 << (pickup - 1);
+    }
+
+    /**
+     * Gets the result a move in given direction would have, without making it. Results are cached until the board
+     * changes, so querying every direction after each move costs at most four evaluations of the cells around the
+     * player, and none after returning to the previous cell, e.g. by an undo, if no move changed a cell meanwhile. A
+     * move in a direction whose result is cached applies that result without evaluating the move again.
+     *
+     * @param direction Direction to move the player in.
+     * @param powerUps  Power-ups active for the player. Not changed.
+     * @return Result the move would have, as returned by {@link #move(GameMovementDirection, PowerupSet)}.
+     */
+    public int getMoveOption(GameMovementDirection direction, Set<GamePowerup> powerUps) {
+        return this.getMoveOptions(toMask(powerUps))[direction.ordinal()];
+    }
+
+    /**
+     * Gets the directions in which the player can currently move.
+     *
+     * @param powerUps Power-ups active for the player. Not changed.
+     * @return Bitmask of directions, with bit <code>1 &lt;&lt; direction.ordinal()</code> set for every direction in
+     * which a move would be accepted.
+     */
+    public int getLegalDirections(Set<GamePowerup> powerUps) {
+        return this.getDirections(toMask(powerUps), MOVE_ACCEPTED);
+    }
+
+    /**
+     * Gets the directions in which the player can currently push or pull a crate, including pushes of stacked crates
+     * using {@link GamePowerup#STRENGTH}, and pulls using {@link GamePowerup#PULL}. The kind of each push can be told
+     * from {@link #getMoveOption(GameMovementDirection, Set)}.
+     *
+     * @param powerUps Power-ups active for the player. Not changed.
+     * @return Bitmask of directions, with bit <code>1 &lt;&lt; direction.ordinal()</code> set for every direction in
+     * which a move would push or pull a crate.
+     */
+    public int getPushDirections(Set<GamePowerup> powerUps) {
+        return this.getDirections(toMask(powerUps), MOVE_PUSH | MOVE_PULL);
+    }
+
+    private int getDirections(int powerups, int flags) {
+        int[] options = this.getMoveOptions(powerups);
+        int directions = 0;
+        for (int direction = 0; direction < options.length; direction++) {
+            if ((options[direction] & MOVE_ACCEPTED) != 0 && (options[direction] & flags) != 0)
+                directions |= 1 << direction;
+        }
+
+        return directions;
+    }
+
+    private int[] getMoveOptions(int powerups) {
+        if (this.moveOptionsKey != powerups) {
+            int x = this.playerX, y = this.playerY;
+            for (int direction = 0; direction < this.moveOptions.length; direction++) {
+                int nx = x + DIRECTION_X[direction], ny = y + DIRECTION_Y[direction];
+                this.moveOptions[direction] = this.isInBounds(nx, ny)
+                        ? this.evaluateMove(direction, powerups, this.neighbourOf(this.playerIndex, x, y, direction))
+                        : MOVE_BLOCKED;
+            }
+
+            this.moveOptionsKey = powerups;
+        }
+
+        return this.moveOptions;
+    }
+
+    // keeps the results cached for the cell the player left, and takes those of the cell entered if it is the one the
+    // player last left, unless the move changed a cell; a move changes nothing but the player's position and power-ups
+    // if it neither moves a crate nor picks a power-up up, and the power-ups are covered by the keys
+    private void stepMoveOptions(int fromX, int fromY, int toX, int toY, int result) {
+        if ((result & (MOVE_PUSH | MOVE_PULL | MOVE_PICKUP_MASK)) != 0) {
+            this.clearMoveOptions();
+            return;
+        }
+
+        int key = this.moveOptionsKey;
+        if (key < 0 && this.previousOptionsKey < 0)
+            return;
+
+        int[] options = this.moveOptions;
+        this.moveOptions = this.previousOptions;
+        this.moveOptionsKey = this.previousOptionsPosition == MoveDeltas.pack(toX, toY) ? this.previousOptionsKey : -1;
+        this.previousOptions = options;
+        this.previousOptionsKey = key;
+        this.previousOptionsPosition = MoveDeltas.pack(fromX, fromY);
+    }
+
+    private void clearMoveOptions() {
+        this.moveOptionsKey = -1;
+        this.previousOptionsKey = -1;
+        this.previousOptionsPosition = -1;
+    }
+
+    // evaluates the rules of a move onto given neighbouring cell of the player, without changing the board
+    private int evaluateMove(int direction, int powerups, int n) {
+        int dx = DIRECTION_X[direction], dy = DIRECTION_Y[direction];
+        int ox = this.playerX, oy = this.playerY;
+        int nx = ox + dx, ny = oy + dy;
+
+        // check if wall
+        if (test(this.walls, n) && (powerups & GHOST) == 0)
+            return MOVE_BLOCKED;
+
+        // GHOST is consumed by any move which is not blocked outright, even if it is blocked by crates
+        int result = (powerups & GHOST) != 0 ? MOVE_GHOST : MOVE_BLOCKED;
+
+        // check if crate
+        if (test(this.crates, n)) {
+            // check if stacked wall
+            int x1 = nx + dx, y1 = ny + dy;
+            if (!this.isInBounds(x1, y1))
+                return result;
+
+            int n1 = this.neighbourOf(n, nx, ny, direction);
+            if (test(this.walls, n1))
+                return result;
+
+            // check if stacked crate
+            if (test(this.crates, n1)) {
+                int x2 = x1 + dx, y2 = y1 + dy;
+                if ((powerups & STRENGTH) == 0 || !this.isInBounds(x2, y2))
+                    return result;
+
+                int n2 = this.neighbourOf(n1, x1, y1, direction);
+                if (test(this.walls, n2) || test(this.crates, n2))
+                    return result;
+
+                result |= MOVE_STRENGTH;
+            }
+
+            result |= MOVE_PUSH;
+        }
+
+        // check if PULL is used
+        if ((powerups & PULL) != 0 && this.isInBounds(ox - dx, oy - dy)
+                && test(this.crates, this.neighbourOf(this.playerIndex, ox, oy, direction ^ 1)))
+            result |= MOVE_PULL;
+
+        // check if new position is a power-up activator
+        if (test(this.activators, n))
+            result |= (this.getInitialPowerup(n).ordinal() + 1) << MOVE_PICKUP_SHIFT;
+
+        return result | MOVE_ACCEPTED;
+    }
+
+    /**
+     * Reverts the last move recorded by {@link #move(GameMovementDirection, PowerupSet)}, restoring moved crates,
+     * consumed power-ups and picked up power-up activators. Blocked moves which consumed {@link GamePowerup#GHOST} are
+     * reverted together with the move preceding them. {@link #getLastMove()} describes the reversal.
+     *
+     * @param powerUps Power-ups active for the player. Restored and dropped power-ups are updated in place.
+     * @return Result of the reverted move; either {@link #MOVE_BLOCKED} if there was nothing to revert, or a combination
+     * of MOVE_* flags. If only GHOST was restored, {@link #MOVE_ACCEPTED} is not set.
+     */
+    public int undo(PowerupSet powerUps) {
+        int result = MOVE_BLOCKED;
+        while (this.journal.canUndo() && MoveJournal.isBlocked(this.journal.peekUndo())) {
+            powerUps.setMask(powerUps.getMask() | GHOST);
+            this.journal.stepBack();
+            result = MOVE_GHOST;
+        }
+
+        if (!this.journal.canUndo())
+            return result;
+
+        int powerups = powerUps.getMask();
+        int record = this.journal.peekUndo();
+        this.journal.stepBack();
+
+        int direction = record & MoveJournal.DIRECTION_MASK;
+        int dx = DIRECTION_X[direction], dy = DIRECTION_Y[direction];
+        int nx = this.playerX, ny = this.playerY;
+        int ox = nx - dx, oy = ny - dy;
+        int n = this.playerIndex, o = this.neighbourOf(n, nx, ny, direction ^ 1);
+
+        this.lastMove.beginMove(MoveDeltas.pack(nx, ny), MoveDeltas.pack(ox, oy));
+        result |= MOVE_ACCEPTED;
+
+        // changes are reverted in the reverse order they were made in
+        GamePowerup pickup = null;
+        if ((record & MoveJournal.PICKUP) != 0) {
+            set(this.activators, n);
+            this.boardHash ^= zobristKey(n, ZOBRIST_ACTIVATOR);
+            pickup = this.getInitialPowerup(n);
+            if ((record & MoveJournal.PICKUP_HELD) == 0)
+                powerups &= ~(1 << pickup.ordinal());
+
+            result |= (pickup.ordinal() + 1) << MOVE_PICKUP_SHIFT;
+        }
+
+        if ((record & MoveJournal.PULL) != 0) {
+            powerups |= PULL;
+            this.moveCrate(o, ox, oy, direction ^ 1);
+            result |= MOVE_PULL;
+        }
+
+        if ((record & MoveJournal.PUSH) != 0) {
+            int n1 = this.neighbourOf(n, nx, ny, direction);
+            this.moveCrate(n1, nx + dx, ny + dy, direction ^ 1);
+            result |= MOVE_PUSH;
+
+            if ((record & MoveJournal.STRENGTH) != 0) {
+                powerups |= STRENGTH;
+                int n2 = this.neighbourOf(n1, nx + dx, ny + dy, direction);
+                this.moveCrate(n2, nx + 2 * dx, ny + 2 * dy, direction ^ 1);
+                result |= MOVE_STRENGTH;
+            }
+        }
+
+        if ((record & MoveJournal.GHOST) != 0) {
+            powerups |= GHOST;
+            result |= MOVE_GHOST;
+        }
+
+        powerUps.setMask(powerups);
+        this.stepMoveOptions(nx, ny, ox, oy, result);
+
+        this.playerX = ox;
+        this.playerY = oy;
+        this.playerIndex = o;
+
+        if (this.arrays != null) {
+            this.arrays.update(this.lastMove);
+            if (pickup != null)
+                this.arrays.setPowerupTile(this.lastMove.getPlayerFrom(), GamePowerup.toTile(pickup));
+        }
+
+        return result;
+    }
+
+    /**
+     * Reverts the last recorded move. Equivalent to {@link #undo(PowerupSet)}, for power-ups held in an
+     * {@link EnumSet}.
+     *
+     * @param powerUps Power-ups active for the player. Restored and dropped power-ups are updated in place.
+     * @return Result of the reverted move.
+     */
+    public int undo(EnumSet<GamePowerup> powerUps) {
+        int mask = toMask(powerUps);
+        this.scratchPowerups.setMask(mask);
+        int result = this.undo(this.scratchPowerups);
+        if (this.scratchPowerups.getMask() != mask)
+            copyMask(this.scratchPowerups.getMask(), powerUps);
+
+        return result;
+    }
+
+    /**
+     * Repeats the last move reverted by {@link #undo(PowerupSet)}, along with the blocked moves which were reverted
+     * together with it.
+     *
+     * @param powerUps Power-ups active for the player. Consumed and picked up power-ups are updated in place.
+     * @return Result of the repeated move, as returned by {@link #move(GameMovementDirection, PowerupSet)}, or
+     * {@link #MOVE_BLOCKED} if there was nothing to repeat.
+     */
+    public int redo(PowerupSet powerUps) {
+        if (!this.journal.canRedo())
+            return MOVE_BLOCKED;
+
+        // the board is in the same state as when the move was recorded, so repeating it yields the same record
+        int result = this.move(DIRECTIONS[this.journal.peekRedo() & MoveJournal.DIRECTION_MASK], powerUps);
+        while ((result & MOVE_ACCEPTED) != 0 && this.journal.canRedo() && MoveJournal.isBlocked(this.journal.peekRedo()))
+            result |= this.move(DIRECTIONS[this.journal.peekRedo() & MoveJournal.DIRECTION_MASK], powerUps) & MOVE_GHOST;
+
+        return result;
+    }
+
+    /**
+     * Repeats the last undone move. Equivalent to {@link #redo(PowerupSet)}, for power-ups held in an {@link EnumSet}.
+     *
+     * @param powerUps Power-ups active for the player. Consumed and picked up power-ups are updated in place.
+     * @return Result of the repeated move.
+     */
+    public int redo(EnumSet<GamePowerup> powerUps) {
+        int mask = toMask(powerUps);
+        this.scratchPowerups.setMask(mask);
+        int result = this.redo(this.scratchPowerups);
+        if (this.scratchPowerups.getMask() != mask)
+            copyMask(this.scratchPowerups.getMask(), powerUps);
+
+        return result;
+    }
+
+    /**
+     * Gets the power-up picked up during a move.
+     *
+     * @param moveResult Result of the move, as returned by {@link #move(GameMovementDirection, PowerupSet)}.
+     * @return Picked up power-up, or null if none was picked up.
+     */
+    public static GamePowerup getPickedUpPowerup(int moveResult) {
+        int ordinal = (moveResult & MOVE_PICKUP_MASK) >>> MOVE_PICKUP_SHIFT;
+        return ordinal == 0 ? null : POWERUPS[ordinal - 1];
+    }
+
+    private static int consumedPowerups(int moveResult) {
+        return CONSUMED_POWERUPS[(moveResult >>> CONSUMED_SHIFT) & (CONSUMED_POWERUPS.length - 1)];
+    }
+
+    private static int toMask(Set<GamePowerup> powerUps) {
+        if (powerUps instanceof PowerupSet)
+            return ((PowerupSet) powerUps).getMask();
+
+        if (powerUps.isEmpty())
+            return 0;
+
+        int mask = 0;
+        for (GamePowerup powerup : POWERUPS) {
+            if (powerUps.contains(powerup))
+                mask |= 1 << powerup.ordinal();
+        }
+
+        return mask;
+    }
+
+    private static void copyMask(int mask, EnumSet<GamePowerup> powerUps) {
+        for (GamePowerup powerup : POWERUPS) {
+            if ((mask & 1 << powerup.ordinal()) != 0)
+                powerUps.add(powerup);
+            else
+                powerUps.remove(powerup);
+        }
+    }
+
+    private int recordBlocked(int record, int result) {
+        if (result != MOVE_BLOCKED)
+            this.journal.record(record | MoveJournal.GHOST | MoveJournal.BLOCKED);
+
+        return result;
+    }
+
+    private static int toRecordFlags(int result) {
+        return RECORD_FLAGS[(result >>> RECORD_FLAGS_SHIFT) & (RECORD_FLAGS.length - 1)];
+    }
+
+    private GamePowerup getInitialPowerup(int index) {
+        for (GamePowerup powerup : POWERUPS) {
+            if (test(this.powerupActivators[powerup.ordinal()], index))
+                return powerup;
+        }
+
+        return null;
+    }
+
+    // moves the crate at given cell one step in given direction
+    private void moveCrate(int from, int fromX, int fromY, int direction) {
+        this.moveCrate(from, fromX, fromY, direction, this.neighbourOf(from, fromX, fromY, direction));
+    }
+
+    // moves the crate at given cell one step in given direction, onto the cell at given index
+    private void moveCrate(int from, int fromX, int fromY, int direction, int to) {
+        int toX = fromX + DIRECTION_X[direction], toY = fromY + DIRECTION_Y[direction];
+        clear(this.crates, from);
+        set(this.crates, to);
+        if (this.crateIndex != null)
+            this.crateIndex.move(from, to);
+        this.boardHash ^= zobristKey(from, ZOBRIST_CRATE) ^ zobristKey(to, ZOBRIST_CRATE);
+
+        if (test(this.targets, to) && !test(this.targets, from))
+            this.numMatched++;
+        else if (!test(this.targets, to) && test(this.targets, from))
+            this.numMatched--;
+
+        this.lastMove.addCrateMove(MoveDeltas.pack(fromX, fromY), MoveDeltas.pack(toX, toY));
+    }
+
+    private boolean isInBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < this.width && y < this.height;
+    }
+
+    // index of the cell one step from the cell at given index and coordinates, which must lie within the level; steps
+    // within a chunk only add the direction's offset, and only steps onto another chunk look its slot up
+    private int neighbourOf(int index, int x, int y, int direction) {
+        int nx = x + DIRECTION_X[direction], ny = y + DIRECTION_Y[direction];
+        return BoardLayout.isSameChunk(x, y, nx, ny) ? index + DIRECTION_OFFSET[direction] : this.indexOf(nx, ny);
+    }
+
+    static boolean test(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
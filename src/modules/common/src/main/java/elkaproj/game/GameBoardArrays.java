@@ -0,0 +1,125 @@
+package elkaproj.game;
+
+import elkaproj.config.LevelTile;
+import elkaproj.config.LevelTileGrid;
+
+/**
+ * Mirrors a {@link GameBoard} into the jagged arrays consumed by {@link IGameEventHandler}. The arrays are created on
+ * demand, and afterwards only the cells affected by a move are updated. Since the arrays cover the whole bounding box
+ * of the level, they are best avoided for large levels.
+ */
+class GameBoardArrays {
+
+    private final LevelTile[][] board;
+    private final LevelTile[][] powerupTiles;
+    private final boolean[][] crates;
+    private final LevelTile[][] initialPowerupTiles;
+    private final boolean[][] initialCrates;
+
+    /**
+     * Creates the mirror arrays of a board in its current state.
+     *
+     * @param gameBoard Board to mirror.
+     * @param tiles     Tiles of the level the board was created from.
+     */
+    public GameBoardArrays(GameBoard gameBoard, LevelTileGrid tiles) {
+        int width = gameBoard.getWidth(), height = gameBoard.getHeight();
+        this.board = new LevelTile[height][];
+        this.powerupTiles = new LevelTile[height][];
+        this.crates = new boolean[height][];
+        this.initialPowerupTiles = new LevelTile[height][];
+        this.initialCrates = new boolean[height][];
+
+        for (int y = 0; y < height; y++) {
+            this.board[y] = new LevelTile[width];
+            this.powerupTiles[y] = new LevelTile[width];
+            this.crates[y] = new boolean[width];
+            this.initialPowerupTiles[y] = new LevelTile[width];
+            this.initialCrates[y] = new boolean[width];
+
+            for (int x = 0; x < width; x++) {
+                int i = gameBoard.indexOf(x, y);
+                LevelTile tile = tiles.getTile(x, y);
+                switch (tile) {
+                    case PLAYER:
+                    case CRATE:
+                    case GHOST:
+                    case STRENGTH:
+                    case PULL:
+                        this.board[y][x] = LevelTile.FLOOR;
+                        break;
+
+                    default:
+                        this.board[y][x] = tile;
+                        break;
+                }
+
+                this.powerupTiles[y][x] = gameBoard.getPowerupTile(i);
+                this.crates[y][x] = gameBoard.hasCrate(i);
+                this.initialPowerupTiles[y][x] = gameBoard.getInitialPowerupTile(i);
+                this.initialCrates[y][x] = tile == LevelTile.CRATE;
+            }
+        }
+    }
+
+    /**
+     * Restores the arrays to the initial state of the mirrored board.
+     */
+    public void reset() {
+        for (int y = 0; y < this.crates.length; y++) {
+            System.arraycopy(this.initialPowerupTiles[y], 0, this.powerupTiles[y], 0, this.powerupTiles[y].length);
+            System.arraycopy(this.initialCrates[y], 0, this.crates[y], 0, this.crates[y].length);
+        }
+    }
+
+    /**
+     * Gets the layout of the board.
+     *
+     * @return Layout of the board.
+     */
+    public LevelTile[][] getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Gets the power-up tiles of the board.
+     *
+     * @return Power-up tiles of the board.
+     */
+    public LevelTile[][] getPowerupTiles() {
+        return this.powerupTiles;
+    }
+
+    /**
+     * Gets the crate locations.
+     *
+     * @return Crate locations.
+     */
+    public boolean[][] getCrates() {
+        return this.crates;
+    }
+
+    /**
+     * Applies the crate moves made by a move of the mirrored board.
+     *
+     * @param deltas Changes made by the move.
+     */
+    public void update(MoveDeltas deltas) {
+        // crates are replayed in order, so that a crate pushed onto a vacated cell stays
+        for (int n = 0; n < deltas.getCrateMoveCount(); n++) {
+            int from = deltas.getCrateMoveFrom(n), to = deltas.getCrateMoveTo(n);
+            this.crates[MoveDeltas.unpackY(from)][MoveDeltas.unpackX(from)] = false;
+            this.crates[MoveDeltas.unpackY(to)][MoveDeltas.unpackX(to)] = true;
+        }
+    }
+
+    /**
+     * Sets the power-up tile of a cell, after a power-up was picked up or its pick up was reverted.
+     *
+     * @param packed Packed coordinates of the cell.
+     * @param tile   New power-up tile of the cell.
+     */
+    public void setPowerupTile(int packed, LevelTile tile) {
+        this.powerupTiles[MoveDeltas.unpackY(packed)][MoveDeltas.unpackX(packed)] = tile;
+    }
+}
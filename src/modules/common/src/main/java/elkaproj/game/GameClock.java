@@ -0,0 +1,345 @@
+package elkaproj.game;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Handles counting player level solve time, on the monotonic {@link System#nanoTime()} clock. Besides the elapsed time,
+ * the clock tracks time spent paused, timestamps every move it is told about, and keeps histograms of the intervals
+ * between moves, and of think time: the time from a decision point (the start of the level, an undo, or resuming the
+ * game) to the next move. All timings exclude pauses, and are kept for the current level only. Recording moves never
+ * allocates.
+ * <p>
+ * The clock also schedules timer events: deadlines armed in terms of elapsed time, and changes of the elapsed whole
+ * second. Since both are measured in elapsed time, which does not advance while the clock is paused, pausing suspends
+ * them as well. The clock does not run any threads; its owner polls the events when {@link #getMillisUntilNextEvent()}
+ * says one is due.
+ */
+public class GameClock {
+
+    /**
+     * Number of deadlines which can be armed at once.
+     */
+    public static final int MAX_DEADLINES = 8;
+
+    private final LongSupplier nanoTime;
+
+    private boolean started = false, paused = false;
+    // elapsed time accumulated before the current running period, and the start of that period
+    private long elapsedNanos = 0;
+    private long runningSince = 0;
+    private long pausedNanos = 0;
+    private long pausedSince = 0;
+    private int pauseCount = 0;
+
+    private int moveCount = 0;
+    private long lastMoveNanos = 0;
+    private long decisionNanos = 0;
+    private boolean decisionPending = true;
+    private final LatencyHistogram moveIntervals = new LatencyHistogram();
+    private final LatencyHistogram thinkTimes = new LatencyHistogram();
+
+    // elapsed time of each armed deadline, in milliseconds
+    private final long[] deadlines = new long[MAX_DEADLINES];
+    private int armedDeadlines = 0;
+    private long reportedSecond = -1;
+
+    /**
+     * Initializes the clock.
+     */
+    public GameClock() {
+        this(System::nanoTime);
+    }
+
+    GameClock(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Starts clock, should be executed at the beginning of each level and after resuming game.
+     */
+    public void start() {
+        long now = this.nanoTime.getAsLong();
+        if (this.paused) {
+            this.pausedNanos += now - this.pausedSince;
+            this.paused = false;
+            this.runningSince = now;
+
+            // the player decides on the next move anew after resuming
+            this.decisionNanos = this.elapsedNanos;
+            this.decisionPending = true;
+        } else if (!this.started) {
+            this.started = true;
+            this.runningSince = now;
+        }
+    }
+
+    /**
+     * Stops clock, should be executed when pausing or finishing level
+     *
+     * @param pause Whether the stop is a pause.
+     */
+    public void stop(boolean pause) {
+        if (!this.started)
+            return;
+
+        long now = this.nanoTime.getAsLong();
+        if (this.paused) {
+            if (pause)
+                return;
+
+            this.pausedNanos += now - this.pausedSince;
+            this.paused = false;
+        } else {
+            this.elapsedNanos += now - this.runningSince;
+        }
+
+        if (pause) {
+            this.paused = true;
+            this.pausedSince = now;
+            this.pauseCount++;
+        } else {
+            this.started = false;
+        }
+    }
+
+    /**
+     * Resets clock, should be executed beginning of each level.
+     */
+    public void reset() {
+        this.started = false;
+        this.paused = false;
+        this.elapsedNanos = 0;
+        this.pausedNanos = 0;
+        this.pauseCount = 0;
+
+        this.moveCount = 0;
+        this.lastMoveNanos = 0;
+        this.decisionNanos = 0;
+        this.decisionPending = true;
+        this.moveIntervals.reset();
+        this.thinkTimes.reset();
+
+        this.disarmDeadlines();
+    }
+
+    /**
+     * Resets clock to a given elapsed time. The clock is left stopped, move timings are cleared, and all deadlines are
+     * disarmed.
+     *
+     * @param elapsedMillis Number of milliseconds that elapsed, excluding pauses.
+     */
+    public void restore(long elapsedMillis) {
+        this.reset();
+        this.elapsedNanos = TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+        this.lastMoveNanos = this.elapsedNanos;
+        this.decisionNanos = this.elapsedNanos;
+    }
+
+    /**
+     * Gets whether the clock is counting time, i.e. it was started, and is neither paused nor stopped.
+     *
+     * @return Whether the clock is running.
+     */
+    public boolean isRunning() {
+        return this.started && !this.paused;
+    }
+
+    /**
+     * Gets the amount of seconds that elapsed, excluding pauses.
+     *
+     * @return Number of seconds that elapsed since the timer was started, excluding pauses.
+     */
+    public long getElapsedSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(this.getElapsedNanos());
+    }
+
+    /**
+     * Gets the amount of milliseconds that elapsed, excluding pauses.
+     *
+     * @return Number of milliseconds that elapsed since the timer was started, excluding pauses.
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.getElapsedNanos());
+    }
+
+    /**
+     * Gets the amount of nanoseconds that elapsed, excluding pauses.
+     *
+     * @return Number of nanoseconds that elapsed since the timer was started, excluding pauses.
+     */
+    public long getElapsedNanos() {
+        if (!this.isRunning())
+            return this.elapsedNanos;
+
+        return this.elapsedNanos + this.nanoTime.getAsLong() - this.runningSince;
+    }
+
+    /**
+     * Gets the amount of nanoseconds the clock spent paused.
+     *
+     * @return Number of nanoseconds spent paused, including the current pause.
+     */
+    public long getPausedNanos() {
+        if (!this.paused)
+            return this.pausedNanos;
+
+        return this.pausedNanos + this.nanoTime.getAsLong() - this.pausedSince;
+    }
+
+    /**
+     * Gets the number of times the clock was paused.
+     *
+     * @return Number of pauses.
+     */
+    public int getPauseCount() {
+        return this.pauseCount;
+    }
+
+    /**
+     * Timestamps a move made by the player, and records the time since the previous move, as well as the think time if
+     * the move follows a decision point. A batch of moves made at once counts as a single move.
+     */
+    public void recordMove() {
+        long now = this.getElapsedNanos();
+        this.moveIntervals.record(now - this.lastMoveNanos);
+        if (this.decisionPending) {
+            this.thinkTimes.record(now - this.decisionNanos);
+            this.decisionPending = false;
+        }
+
+        this.lastMoveNanos = now;
+        this.moveCount++;
+    }
+
+    /**
+     * Marks a decision point, e.g. an undo, after which the time to the next move is recorded as think time.
+     */
+    public void recordDecisionPoint() {
+        this.decisionNanos = this.getElapsedNanos();
+        this.decisionPending = true;
+    }
+
+    /**
+     * Gets the number of moves recorded on the current level.
+     *
+     * @return Number of recorded moves.
+     */
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    /**
+     * Gets the timestamp of the last recorded move.
+     *
+     * @return Elapsed time at which the last move was made, in nanoseconds, excluding pauses, or 0 if no moves were
+     * recorded.
+     */
+    public long getLastMoveNanos() {
+        return this.moveCount == 0 ? 0 : this.lastMoveNanos;
+    }
+
+    /**
+     * Gets the histogram of intervals between consecutive moves on the current level. The first move is measured from
+     * the start of the level. The histogram is updated in place; use {@link LatencyHistogram#copy()} to keep it.
+     *
+     * @return Histogram of move intervals.
+     */
+    public LatencyHistogram getMoveIntervals() {
+        return this.moveIntervals;
+    }
+
+    /**
+     * Gets the histogram of think times on the current level: times from a decision point to the next move. The
+     * histogram is updated in place; use {@link LatencyHistogram#copy()} to keep it.
+     *
+     * @return Histogram of think times.
+     */
+    public LatencyHistogram getThinkTimes() {
+        return this.thinkTimes;
+    }
+
+    /**
+     * Arms a deadline, which expires once given amount of time elapses. Re-arming a deadline replaces its previous
+     * time.
+     *
+     * @param deadline      Number of the deadline, from 0 to {@link #MAX_DEADLINES} - 1.
+     * @param elapsedMillis Elapsed time at which the deadline expires, in milliseconds, excluding pauses.
+     */
+    public void armDeadline(int deadline, long elapsedMillis) {
+        if (deadline < 0 || deadline >= MAX_DEADLINES)
+            throw new IllegalArgumentException("Invalid deadline number.");
+
+        this.deadlines[deadline] = elapsedMillis;
+        this.armedDeadlines |= 1 << deadline;
+    }
+
+    /**
+     * Disarms all deadlines, and schedules a report of the current second.
+     */
+    public void disarmDeadlines() {
+        this.armedDeadlines = 0;
+        this.reportedSecond = -1;
+    }
+
+    /**
+     * Disarms and returns the deadlines which expired.
+     *
+     * @return Bitmask of expired deadlines, with bit <code>1 &lt;&lt; deadline</code> set for every expired deadline.
+     */
+    public int pollDeadlines() {
+        if (this.armedDeadlines == 0)
+            return 0;
+
+        long elapsed = this.getElapsedMillis();
+        int expired = 0;
+        for (int armed = this.armedDeadlines; armed != 0; armed &= armed - 1) {
+            int deadline = Integer.numberOfTrailingZeros(armed);
+            if (elapsed >= this.deadlines[deadline])
+                expired |= 1 << deadline;
+        }
+
+        this.armedDeadlines &= ~expired;
+        return expired;
+    }
+
+    /**
+     * Checks whether the elapsed whole second changed since it was last reported, and marks it as reported.
+     *
+     * @return Whether the elapsed second changed, or was not reported yet.
+     */
+    public boolean pollSecond() {
+        long second = this.getElapsedSeconds();
+        if (second == this.reportedSecond)
+            return false;
+
+        this.reportedSecond = second;
+        return true;
+    }
+
+    /**
+     * Gets the time until the next timer event: expiry of a deadline, or change of the elapsed whole second.
+     *
+     * @return Number of milliseconds until the next event, 0 if an event is due, or {@link Long#MAX_VALUE} if the clock
+     * is not running and no event is due.
+     */
+    public long getMillisUntilNextEvent() {
+        long elapsed = this.getElapsedMillis();
+        if (TimeUnit.MILLISECONDS.toSeconds(elapsed) != this.reportedSecond)
+            return 0;
+
+        // while the clock is not running, only deadlines which already expired are due
+        boolean running = this.isRunning();
+        long next = running ? TimeUnit.SECONDS.toMillis(this.reportedSecond + 1) : Long.MAX_VALUE;
+        for (int armed = this.armedDeadlines; armed != 0; armed &= armed - 1) {
+            long deadline = this.deadlines[Integer.numberOfTrailingZeros(armed)];
+            if (deadline <= elapsed)
+                return 0;
+
+            if (running)
+                next = Math.min(next, deadline);
+        }
+
+        return running ? next - elapsed : Long.MAX_VALUE;
+    }
+}
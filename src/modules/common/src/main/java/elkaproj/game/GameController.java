@@ -0,0 +1,1201 @@
+package elkaproj.game;
+
+import elkaproj.DebugWriter;
+import elkaproj.config.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implements game logic.
+ */
+public class GameController {
+
+    private static final GamePowerup[] POWERUPS = GamePowerup.values();
+    private static final int POWERUP_CONSUMED = GameBoard.MOVE_STRENGTH | GameBoard.MOVE_PULL | GameBoard.MOVE_GHOST;
+    private static final int STATE_VERSION = 5;
+    private static final int STATE_FLAG_LEVEL_RESET = 1;
+
+    // deadlines armed in the game clock for the time thresholds of the current level
+    private static final int DEADLINE_BONUS = 0;
+    private static final int DEADLINE_PENALTY = 1;
+    private static final int DEADLINE_FAIL = 2;
+
+    private final IConfiguration configuration;
+    private final ILevelPack levelPack;
+    private final Executor preparationExecutor;
+    private final int undoCapacity;
+
+    private final ArrayList<IGameLifecycleHandler> lifecycleHandlers = new ArrayList<>();
+    private final ArrayList<IGameEventHandler> gameEventHandlers = new ArrayList<>();
+    private final ArrayList<ILevelScoreUpdateHandler> levelScoreUpdateHandlers = new ArrayList<>();
+    private final ArrayList<ITimerUpdateHandler> timerUpdateHandlers = new ArrayList<>();
+    private final ArrayList<IBoardDiffHandler> boardDiffHandlers = new ArrayList<>();
+    private final ArrayList<IMoveResultHandler> moveResultHandlers = new ArrayList<>();
+    private final ArrayList<IPlayerInputHandler> playerInputHandlers = new ArrayList<>();
+    private final BoardDiff boardDiff = new BoardDiff();
+    private final MoveResult moveResult = new MoveResult();
+    private boolean moveInProgress = false;
+
+    private int currentLives = 0;
+    private int currentStreak = 0;
+    private int currentLevelNumber = -1;
+    private boolean currentLevelReset = false;
+    private ILevel currentLevel = null;
+    private int currentScore = 0;
+    private int totalScore = 0;
+    private final PowerupSet powerUps = new PowerupSet();
+    private final GameClock gameClock;
+    private boolean gamePaused = false;
+    private GameBoard board = null;
+    private boolean acceptsInput = true;
+
+    // board of the level after the current one, prepared in the background while the current level is played
+    private FutureTask<GameBoard> nextBoard = null;
+    private int nextBoardLevelNumber = -1;
+
+    /**
+     * Initializes the controller. Boards of upcoming levels are prepared in the common fork-join pool.
+     *
+     * @param configuration Configuration to use for this game.
+     * @param levelPack     Level pack the player will play through.
+     */
+    public GameController(IConfiguration configuration, ILevelPack levelPack) {
+        this(configuration, levelPack, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes the controller.
+     *
+     * @param configuration       Configuration to use for this game.
+     * @param levelPack           Level pack the player will play through.
+     * @param preparationExecutor Executor which loads the next level and prepares its board while the current level is
+     *                            played, so that moving to the next level only swaps the boards. If the executor has
+     *                            not started the preparation by the time the level is needed, it is done on the
+     *                            controller's thread instead.
+     */
+    public GameController(IConfiguration configuration, ILevelPack levelPack, Executor preparationExecutor) {
+        this(configuration, levelPack, preparationExecutor, GameBoard.UNDO_CAPACITY);
+    }
+
+    /**
+     * Initializes the controller with a limited undo history, for hosting many games at once.
+     *
+     * @param configuration       Configuration to use for this game.
+     * @param levelPack           Level pack the player will play through.
+     * @param preparationExecutor Executor which prepares the board of the next level.
+     * @param undoCapacity        Maximum number of moves which can be undone. Every remembered move takes a byte of
+     *                            each board.
+     * @see GameBoard#UNDO_CAPACITY
+     */
+    public GameController(IConfiguration configuration, ILevelPack levelPack, Executor preparationExecutor, int undoCapacity) {
+        this(configuration, levelPack, preparationExecutor, undoCapacity, new GameClock());
+    }
+
+    GameController(IConfiguration configuration, ILevelPack levelPack, Executor preparationExecutor, GameClock gameClock) {
+        this(configuration, levelPack, preparationExecutor, GameBoard.UNDO_CAPACITY, gameClock);
+    }
+
+    GameController(IConfiguration configuration, ILevelPack levelPack, Executor preparationExecutor, int undoCapacity, GameClock gameClock) {
+        this.configuration = configuration;
+        this.levelPack = levelPack;
+        this.preparationExecutor = preparationExecutor;
+        this.undoCapacity = undoCapacity;
+        this.gameClock = gameClock;
+    }
+
+    /**
+     * Gets the configuration for this controller.
+     *
+     * @return Configuration for the controller.
+     */
+    public IConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    /**
+     * Gets the number of remaining lives.
+     *
+     * @return Number of remaining lives.
+     */
+    public int getCurrentLives() {
+        return this.currentLives;
+    }
+
+    /**
+     * Gets active power-ups (out of the list of 3). The returned set is a read-only view, which is updated in place as
+     * power-ups are picked up and consumed.
+     *
+     * @return Active power-ups.
+     */
+    public PowerupSet getPowerUps() {
+        return this.powerUps;
+    }
+
+    /**
+     * Gets the max number of lives the player can have.
+     *
+     * @return Maximum number of lives a player can have.
+     */
+    public int getMaxLives() {
+        return this.configuration.getMaxLives();
+    }
+
+    /**
+     * Gets the current level score.
+     *
+     * @return Current level score.
+     */
+    public int getCurrentScore() {
+        return this.currentScore;
+    }
+
+    /**
+     * Gets the current level.
+     *
+     * @return Current level.
+     */
+    public ILevel getCurrentLevel() {
+        return this.currentLevel;
+    }
+
+    /**
+     * Gets the board of the level currently being played.
+     *
+     * @return Current board.
+     */
+    public GameBoard getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Gets the positions of the crates on the current board, as cell indices of {@link #getBoard()}. The index is
+     * updated in constant time by every push and pull, so renderers and analyzers can visit just the crates rather than
+     * scanning the board. The index must not be modified.
+     *
+     * @return Index of crate positions.
+     */
+    public CrateIndex getCrateIndex() {
+        return this.board.getCrateIndex();
+    }
+
+    /**
+     * Gets the clock timing the current level, which holds the elapsed and paused time, and move timing statistics.
+     * The clock runs whenever a level is being played, while its deadlines, which enforce the time thresholds of the
+     * level, are only armed if timers are active. When the level is completed, its statistics remain available to
+     * level score handlers, and are cleared once the next level starts. The clock must not be modified.
+     *
+     * @return Clock of the current level.
+     */
+    public GameClock getGameClock() {
+        return this.gameClock;
+    }
+
+    /**
+     * Gets a 64-bit Zobrist hash of the state of the current level: the player's position, crate layout, remaining
+     * power-up activators and active power-ups. The hash is maintained incrementally as moves are made, so it can be
+     * used for transposition tables or repetition detection at no extra cost.
+     *
+     * @return Hash of the state of the current level.
+     */
+    public long getStateHash() {
+        long hash = this.board.getStateHash();
+        for (int mask = this.powerUps.getMask(); mask != 0; mask &= mask - 1)
+            hash ^= GameBoard.zobristKey(Integer.numberOfTrailingZeros(mask), GameBoard.ZOBRIST_POWERUP);
+
+        return hash;
+    }
+
+    /**
+     * Gets the total score across all levels.
+     *
+     * @return Total score across all level.
+     */
+    public int getTotalScore() {
+        return this.totalScore;
+    }
+
+    /**
+     * Gets a copy of the current active powerups. Prefer {@link #getPowerUps()} where a read-only view suffices.
+     *
+     * @return Active powerups.
+     */
+    public EnumSet<GamePowerup> getActivePowerups() {
+        return this.powerUps.toEnumSet();
+    }
+
+    /**
+     * Gets whether a game is active.
+     *
+     * @return Whether a game is active.
+     */
+    public boolean isGameRunning() {
+        return this.currentLevelNumber >= 0;
+    }
+
+    /**
+     * Gets whether the game is paused.
+     *
+     * @return Whether the game is paused.
+     */
+    public boolean isPaused() {
+        return this.gamePaused;
+    }
+
+    /**
+     * Adds a game lifecycle event handler.
+     *
+     * @param lifecycleHandler Game lifecycle event handler.
+     */
+    public void addLifecycleHandler(IGameLifecycleHandler lifecycleHandler) {
+        this.lifecycleHandlers.add(lifecycleHandler);
+    }
+
+    /**
+     * Removes a game lifecycle event handler.
+     *
+     * @param lifecycleHandler Game lifecycle event handler.
+     */
+    public void removeLifecycleHandler(IGameLifecycleHandler lifecycleHandler) {
+        this.lifecycleHandlers.remove(lifecycleHandler);
+    }
+
+    /**
+     * Adds a game event handler.
+     *
+     * @param gameEventHandler Game event handler.
+     */
+
+    public void addGameEventHandler(IGameEventHandler gameEventHandler) {
+        this.gameEventHandlers.add(gameEventHandler);
+    }
+
+    /**
+     * Removes a game event handler.
+     *
+     * @param gameEventHandler Game event handler.
+     */
+    public void removeGameEventHandler(IGameEventHandler gameEventHandler) {
+        this.gameEventHandlers.remove(gameEventHandler);
+    }
+
+    /**
+     * Adds a score update handler.
+     *
+     * @param scoreUpdateHandler Score update handler.
+     */
+    public void addLevelScoreEventHandler(ILevelScoreUpdateHandler scoreUpdateHandler) {
+        this.levelScoreUpdateHandlers.add(scoreUpdateHandler);
+    }
+
+    /**
+     * Removes a score update handler.
+     *
+     * @param scoreUpdateHandler Score update handler.
+     */
+    public void removeLevelScoreUpdateHandler(ILevelScoreUpdateHandler scoreUpdateHandler) {
+        this.levelScoreUpdateHandlers.remove(scoreUpdateHandler);
+    }
+
+    /**
+     * Adds a score update handler.
+     *
+     * @param timerUpdateHandler Timer update handler.
+     */
+    public void addTimerUpdateHandler(ITimerUpdateHandler timerUpdateHandler) {
+        this.timerUpdateHandlers.add(timerUpdateHandler);
+    }
+
+    /**
+     * Removes a score update handler.
+     *
+     * @param timerUpdateHandler Timer update handler.
+     */
+    public void removeTimerUpdateHandler(ITimerUpdateHandler timerUpdateHandler) {
+        this.timerUpdateHandlers.remove(timerUpdateHandler);
+    }
+
+    /**
+     * Adds a board diff handler.
+     *
+     * @param boardDiffHandler Board diff handler.
+     */
+    public void addBoardDiffHandler(IBoardDiffHandler boardDiffHandler) {
+        this.boardDiffHandlers.add(boardDiffHandler);
+    }
+
+    /**
+     * Removes a board diff handler.
+     *
+     * @param boardDiffHandler Board diff handler.
+     */
+    public void removeBoardDiffHandler(IBoardDiffHandler boardDiffHandler) {
+        this.boardDiffHandlers.remove(boardDiffHandler);
+    }
+
+    /**
+     * Adds a move result handler. If the handler is also registered as a lifecycle, game event or level score update
+     * handler, events caused by moves are only delivered to it as a single {@link MoveResult}.
+     *
+     * @param moveResultHandler Move result handler.
+     */
+    public void addMoveResultHandler(IMoveResultHandler moveResultHandler) {
+        this.moveResultHandlers.add(moveResultHandler);
+    }
+
+    /**
+     * Removes a move result handler.
+     *
+     * @param moveResultHandler Move result handler.
+     */
+    public void removeMoveResultHandler(IMoveResultHandler moveResultHandler) {
+        this.moveResultHandlers.remove(moveResultHandler);
+    }
+
+    /**
+     * Adds a player input handler.
+     *
+     * @param playerInputHandler Player input handler.
+     */
+    public void addPlayerInputHandler(IPlayerInputHandler playerInputHandler) {
+        this.playerInputHandlers.add(playerInputHandler);
+    }
+
+    /**
+     * Removes a player input handler.
+     *
+     * @param playerInputHandler Player input handler.
+     */
+    public void removePlayerInputHandler(IPlayerInputHandler playerInputHandler) {
+        this.playerInputHandlers.remove(playerInputHandler);
+    }
+
+    /**
+     * Moves to the next level.
+     *
+     * @return Whether a new level was loaded. If false, it means there are no more levels available.
+     */
+    public boolean nextLevel() {
+        this.gameClock.stop(false);
+
+        ILevel previousLevel = this.currentLevel;
+        int previousScore = this.currentScore;
+
+        if (previousLevel != null) {
+            if (configuration.areTimersActive()) {
+                long elapsed = this.gameClock.getElapsedSeconds();
+
+                if (elapsed < previousLevel.getBonusTimeThreshold() && !this.currentLevelReset)
+                    previousScore = (int) Math.ceil(previousScore * 0.9);
+                else if (elapsed > previousLevel.getPenaltyTimeThreshold())
+                    previousScore = (int) (previousScore * 1.1);
+
+                this.currentScore = previousScore;
+            }
+
+            this.onLevelScoreUpdated(previousLevel, previousScore);
+        }
+
+        boolean success = this.nextLevelInternal();
+        if (success) {
+            this.gameClock.reset();
+            if (configuration.areTimersActive())
+                this.armTimers();
+            this.gameClock.start();
+
+            this.onNextLevel(previousLevel, previousScore, this.currentLevel, this.totalScore);
+
+            if (++this.currentStreak >= this.configuration.getLifeRecoveryThreshold()) {
+                this.currentLives += this.configuration.getLifeRecoveryCount();
+                this.currentLives = Math.min(this.currentLives, this.configuration.getMaxLives());
+                this.currentStreak = 0;
+                this.powerUps.setMask(0);
+                this.onLivesUpdated(this.currentLives, this.configuration.getMaxLives());
+                this.onPowerupsUpdated(this.powerUps);
+            }
+        }
+
+        return success;
+    }
+
+    private boolean nextLevelInternal() {
+        if (++this.currentLevelNumber >= this.levelPack.getCount())
+            return false;
+
+        GameBoard preparedBoard = this.takePreparedBoard(this.currentLevelNumber);
+        this.currentLevel = preparedBoard != null
+                ? preparedBoard.getLevel()
+                : this.levelPack.getLevel(this.currentLevelNumber);
+        this.totalScore += this.currentScore;
+        this.currentScore = 0;
+        this.acceptsInput = true;
+        this.currentLevelReset = false;
+
+        if (preparedBoard != null) {
+            this.board = preparedBoard;
+            this.powerUps.setMask(0);
+        } else {
+            this.prepareLevel();
+        }
+
+        this.prepareNextLevel();
+
+        this.onScoreUpdated(this.currentScore, this.totalScore);
+        this.onBoardUpdated(this.currentLevel, this.board, this.board.getLastMove());
+        this.onBoardSnapshot();
+
+        return true;
+    }
+
+    private void prepareLevel() {
+        this.acceptsInput = true;
+        this.powerUps.setMask(0);
+
+        // boards restore themselves from the level's template; a new board is only needed when the level changes
+        if (this.board != null && this.board.getLevel() == this.currentLevel)
+            this.board.reset();
+        else
+            this.board = new GameBoard(this.currentLevel, this.configuration.getActivePowerups(), this.undoCapacity);
+    }
+
+    private void prepareNextLevel() {
+        int levelNumber = this.currentLevelNumber + 1;
+        if (this.nextBoard != null && this.nextBoardLevelNumber == levelNumber)
+            return;
+
+        this.cancelPreparedBoard();
+        if (levelNumber >= this.levelPack.getCount())
+            return;
+
+        ILevelPack levelPack = this.levelPack;
+        EnumSet<GamePowerup> enabledPowerups = this.configuration.getActivePowerups();
+        int undoCapacity = this.undoCapacity;
+        this.nextBoard = new FutureTask<>(() -> new GameBoard(levelPack.getLevel(levelNumber), enabledPowerups, undoCapacity));
+        this.nextBoardLevelNumber = levelNumber;
+
+        try {
+            this.preparationExecutor.execute(this.nextBoard);
+        } catch (RejectedExecutionException ex) {
+            // the board is prepared on demand instead
+        }
+    }
+
+    private GameBoard takePreparedBoard(int levelNumber) {
+        FutureTask<GameBoard> nextBoard = this.nextBoard;
+        if (nextBoard == null || this.nextBoardLevelNumber != levelNumber)
+            return null;
+
+        this.nextBoard = null;
+
+        // runs the preparation here if the executor has not started it yet; otherwise waits for it to finish
+        nextBoard.run();
+        try {
+            return nextBoard.get();
+        } catch (ExecutionException ex) {
+            // the level is loaded again on the controller's thread, which reports the failure to the caller
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void cancelPreparedBoard() {
+        if (this.nextBoard != null)
+            this.nextBoard.cancel(false);
+
+        this.nextBoard = null;
+    }
+
+    /**
+     * Resets and starts the game.
+     */
+    public void startGame() {
+        if (!this.nextLevelInternal())
+            throw new IllegalStateException("Failed to start the game, are any levels defined?");
+
+        this.currentLives = this.configuration.getStartingLives();
+        this.currentStreak = 0;
+        this.currentScore = 0;
+        this.totalScore = 0;
+        this.currentLevelReset = false;
+        this.powerUps.setMask(0);
+
+        this.gameClock.reset();
+        if (this.configuration.areTimersActive())
+            this.armTimers();
+        this.gameClock.start();
+
+        this.onGameStarted(this.currentLevel, this.currentLives);
+        this.onLivesUpdated(this.currentLives, this.configuration.getMaxLives());
+        this.onPowerupsUpdated(this.powerUps);
+        this.onScoreUpdated(this.currentScore, this.totalScore);
+    }
+
+    /**
+     * Stops the game, if applicable.
+     *
+     * @param completed Whether the stop happened as a result of game being completed. False indicates the game was interrupted manually.
+     */
+    public void stopGame(boolean completed) {
+        if (this.currentLevelNumber < 0)
+            return;
+
+        this.totalScore += this.currentScore;
+        this.onGameStopped(this.totalScore, completed);
+
+        this.cancelPreparedBoard();
+        this.currentLives = 0;
+        this.currentStreak = 0;
+        this.currentLevelNumber = -1;
+        this.currentLevel = null;
+        this.currentScore = 0;
+        this.totalScore = 0;
+    }
+
+    /**
+     * Pauses or resumes game.
+     */
+    public void togglePause() {
+        this.gamePaused = !this.gamePaused;
+        this.enableInput(!this.gamePaused);
+
+        DebugWriter.INSTANCE.logMessage("GAME", "Pause status: %b", this.gamePaused);
+        if (this.gamePaused) {
+            this.gameClock.stop(true);
+            this.onGamePaused();
+        } else {
+            this.gameClock.start();
+            this.onGameResumed();
+        }
+    }
+
+    /**
+     * Resets level.
+     */
+    public void resetLevel() {
+        this.currentStreak = 0;
+        this.prepareLevel();
+
+        this.powerUps.setMask(0);
+        this.onPowerupsUpdated(this.powerUps);
+
+        this.currentLevelReset = true;
+
+        this.acceptsInput = !this.gamePaused;
+
+        this.gameClock.reset();
+        if (this.configuration.areTimersActive())
+            this.armTimers();
+
+        if (!this.gamePaused)
+            this.gameClock.start();
+
+        boolean livesLeft = this.currentLives > 0;
+        if (livesLeft) {
+            this.currentLives--;
+            this.onLivesUpdated(this.getCurrentLives(), this.getMaxLives());
+
+            this.onBoardUpdated(this.currentLevel, this.board, this.board.getLastMove());
+            this.onBoardSnapshot();
+        }
+
+        this.onLevelReset(this.currentLevel);
+        if (!livesLeft)
+            this.stopGame(false);
+    }
+
+    /**
+     * Gets the result a move in given direction would have, without making it.
+     *
+     * @param direction Direction to move the player in.
+     * @return Result the move would have, as returned by {@link GameBoard#move(GameMovementDirection, PowerupSet)}, or
+     * {@link GameBoard#MOVE_BLOCKED} if no game is running or inputs are disabled.
+     */
+    public int getMoveOption(GameMovementDirection direction) {
+        if (this.currentLevelNumber < 0 || !this.acceptsInput)
+            return GameBoard.MOVE_BLOCKED;
+
+        return this.board.getMoveOption(direction, this.powerUps);
+    }
+
+    /**
+     * Gets the directions in which the player can currently move. The result is kept up to date by the board as moves
+     * are made, so it can be queried after every move instead of attempting moves speculatively.
+     *
+     * @return Bitmask of directions, with bit <code>1 &lt;&lt; direction.ordinal()</code> set for every direction in
+     * which a move would be accepted, or 0 if no game is running or inputs are disabled.
+     */
+    public int getLegalDirections() {
+        if (this.currentLevelNumber < 0 || !this.acceptsInput)
+            return 0;
+
+        return this.board.getLegalDirections(this.powerUps);
+    }
+
+    /**
+     * Gets the directions in which the player can currently push or pull a crate, including pushes of stacked crates
+     * using {@link GamePowerup#STRENGTH}, and pulls using {@link GamePowerup#PULL}.
+     *
+     * @return Bitmask of directions, with bit <code>1 &lt;&lt; direction.ordinal()</code> set for every direction in
+     * which a move would push or pull a crate, or 0 if no game is running or inputs are disabled.
+     */
+    public int getPushDirections() {
+        if (this.currentLevelNumber < 0 || !this.acceptsInput)
+            return 0;
+
+        return this.board.getPushDirections(this.powerUps);
+    }
+
+    /**
+     * Forks the current position of the board into an immutable {@link GameState}, which can be explored, e.g. on other
+     * threads, without affecting the game.
+     *
+     * @return State of the current position.
+     * @throws IllegalStateException No game is running.
+     */
+    public GameState fork() {
+        if (this.currentLevelNumber < 0)
+            throw new IllegalStateException("No game is running.");
+
+        return this.board.createState(this.powerUps);
+    }
+
+    /**
+     * Saves the state of the game in a compact binary form: level, lives, streak, scores, active power-ups, elapsed
+     * level time and the state of the board. Undo history is not saved. The layout starts with a version number, and
+     * uses variable-length integers throughout, so typical states take tens of bytes, and even large boards only take a
+     * few kilobytes.
+     *
+     * @return Saved state.
+     * @throws IllegalStateException No game is running.
+     */
+    public byte[] saveState() {
+        if (this.currentLevelNumber < 0)
+            throw new IllegalStateException("No game is running.");
+
+        VarIntWriter out = new VarIntWriter(64);
+        out.writeVarInt(STATE_VERSION);
+        out.writeVarInt(this.currentLevelNumber);
+        out.writeVarInt(this.currentLives);
+        out.writeVarInt(this.currentStreak);
+        out.writeSignedVarInt(this.currentScore);
+        out.writeSignedVarInt(this.totalScore);
+        out.writeByte(this.currentLevelReset ? STATE_FLAG_LEVEL_RESET : 0);
+
+        out.writeVarInt(this.powerUps.getMask());
+        out.writeVarLong(this.gameClock.getElapsedMillis());
+        this.board.writeState(out);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Restores a state saved with {@link #saveState()}. The board is restored in place, without preparing the level from
+     * scratch, and handlers are notified as if the level was reset. If no game is running, it is started.
+     *
+     * @param state Saved state.
+     * @throws IllegalArgumentException The state is invalid, or does not match the level pack. The game is left
+     *                                  unchanged.
+     */
+    public void restoreState(byte[] state) {
+        VarIntReader in = new VarIntReader(state);
+        int version = in.readVarInt();
+        if (version != STATE_VERSION)
+            throw new IllegalArgumentException(String.format("Unsupported state version: %d.", version));
+
+        int levelNumber = in.readVarInt();
+        if (levelNumber >= this.levelPack.getCount())
+            throw new IllegalArgumentException("Level is not in the level pack.");
+
+        int lives = in.readVarInt();
+        int streak = in.readVarInt();
+        int score = in.readSignedVarInt();
+        int totalScore = in.readSignedVarInt();
+        int flags = in.readByte();
+        int powerups = in.readVarInt();
+        long elapsed = in.readVarLong();
+        if ((powerups >>> POWERUPS.length) != 0)
+            throw new IllegalArgumentException("Unknown power-ups.");
+
+        // the board is only replaced once its state was read successfully
+        ILevel level = this.levelPack.getLevel(levelNumber);
+        GameBoard board = this.board != null && this.board.getLevel() == level
+                ? this.board
+                : new GameBoard(level, this.configuration.getActivePowerups(), this.undoCapacity);
+        board.readState(in);
+
+        boolean started = this.currentLevelNumber < 0;
+        this.board = board;
+        this.currentLevelNumber = levelNumber;
+        this.currentLevel = level;
+        this.currentLives = lives;
+        this.currentStreak = streak;
+        this.currentScore = score;
+        this.totalScore = totalScore;
+        this.currentLevelReset = (flags & STATE_FLAG_LEVEL_RESET) != 0;
+        this.acceptsInput = !this.gamePaused;
+
+        this.powerUps.setMask(powerups);
+        this.prepareNextLevel();
+
+        this.gameClock.restore(elapsed);
+        if (this.configuration.areTimersActive())
+            this.armTimers();
+
+        if (!this.gamePaused)
+            this.gameClock.start();
+
+        if (started)
+            this.onGameStarted(this.currentLevel, this.currentLives);
+
+        this.onLivesUpdated(this.currentLives, this.configuration.getMaxLives());
+        this.onPowerupsUpdated(this.powerUps);
+        this.onScoreUpdated(this.currentScore, this.totalScore);
+        this.onBoardUpdated(this.currentLevel, this.board, this.board.getLastMove());
+        this.onBoardSnapshot();
+        this.onStateRestored(state);
+    }
+
+    /**
+     * Sets whether player inputs are accepted.
+     *
+     * @param enable Whether inputs are to be accepted.
+     */
+    public void enableInput(boolean enable) {
+        this.acceptsInput = enable;
+    }
+
+    /**
+     * Move the player in a direction.
+     *
+     * @param direction Direction to move the player in.
+     */
+    public void move(GameMovementDirection direction) {
+        if (this.currentLevelNumber < 0 || !this.acceptsInput)
+            return;
+
+        this.beginMove(false);
+        int result = this.board.move(direction, this.powerUps);
+        if (result != GameBoard.MOVE_BLOCKED)
+            this.onMoveApplied(direction, result);
+
+        this.applyMove(result);
+        this.completeMove();
+    }
+
+    /**
+     * Makes a sequence of moves, written in LURD notation, in a single batch. The sequence stops at the first move which
+     * is blocked or is not a LURD character, or once the level is completed. Instead of notifying handlers after each
+     * move, a single notification is sent after the last one, with the board update coalesced into a full update.
+     *
+     * @param lurd Moves to make, in LURD notation.
+     * @return Number of moves made.
+     */
+    public int applyMoves(CharSequence lurd) {
+        if (this.currentLevelNumber < 0 || !this.acceptsInput)
+            return 0;
+
+        boolean collectDiff = !this.boardDiffHandlers.isEmpty();
+        this.boardDiff.clear();
+        this.beginMove(false);
+
+        int count = 0, results = GameBoard.MOVE_BLOCKED;
+        for (int i = 0; i < lurd.length(); i++) {
+            GameMovementDirection direction = GameMovementDirection.fromLurd(lurd.charAt(i));
+            if (direction == null)
+                break;
+
+            int result = this.board.move(direction, this.powerUps);
+            results |= result;
+            if (result != GameBoard.MOVE_BLOCKED)
+                this.onMoveApplied(direction, result);
+
+            if ((result & GameBoard.MOVE_ACCEPTED) == 0)
+                break;
+
+            count++;
+            if (collectDiff)
+                this.boardDiff.addMove(this.board.getLastMove(), result, false);
+
+            if (this.board.isCompleted())
+                break;
+        }
+
+        if (changesPowerups(results))
+            this.onPowerupsUpdated(this.powerUps);
+
+        if (count > 0) {
+            this.gameClock.recordMove();
+
+            this.currentScore += count;
+            this.board.getLastMove().beginFullUpdate(MoveDeltas.pack(this.board.getPlayerX(), this.board.getPlayerY()));
+            this.moveResult.setMoves(results, count);
+
+            this.onScoreUpdated(this.currentScore, this.totalScore);
+            this.onBoardUpdated(this.currentLevel, this.board, this.board.getLastMove());
+            this.onBoardDiff();
+            this.checkCompleted();
+        }
+
+        this.completeMove();
+        return count;
+    }
+
+    /**
+     * Undoes the last move made on the current level. The score and power-ups are restored to their state from before
+     * the move.
+     */
+    public void undoMove() {
+        if (this.currentLevelNumber < 0 || !this.acceptsInput)
+            return;
+
+        int result = this.board.undo(this.powerUps);
+        if (result == GameBoard.MOVE_BLOCKED)
+            return;
+
+        this.onUndoApplied(result);
+
+        this.beginMove(true);
+        this.moveResult.setMoves(result, 0);
+
+        if (changesPowerups(result))
+            this.onPowerupsUpdated(this.powerUps);
+
+        if ((result & GameBoard.MOVE_ACCEPTED) != 0) {
+            this.gameClock.recordDecisionPoint();
+
+            this.currentScore--;
+            this.moveResult.setMoves(result, 1);
+
+            this.onScoreUpdated(this.currentScore, this.totalScore);
+            this.onMoveUndone(this.currentLevel, this.board, this.board.getLastMove());
+            this.onBoardDiff(result, true);
+        }
+
+        this.completeMove();
+    }
+
+    /**
+     * Redoes the last move undone with {@link #undoMove()}. Making any other move discards the moves which could be
+     * redone.
+     */
+    public void redoMove() {
+        if (this.currentLevelNumber < 0 || !this.acceptsInput)
+            return;
+
+        this.beginMove(false);
+        int result = this.board.redo(this.powerUps);
+        if (result != GameBoard.MOVE_BLOCKED)
+            this.onRedoApplied(result);
+
+        this.applyMove(result);
+        this.completeMove();
+    }
+
+    private void applyMove(int result) {
+        if ((result & GameBoard.MOVE_ACCEPTED) == 0)
+            return;
+
+        this.gameClock.recordMove();
+
+        this.currentScore++;
+        this.moveResult.setMoves(result, 1);
+
+        // check if a power-up was picked up
+        if (GameBoard.getPickedUpPowerup(result) != null)
+            this.onPowerupsUpdated(this.powerUps);
+
+        this.onScoreUpdated(this.currentScore, this.totalScore);
+        this.onBoardUpdated(this.currentLevel, this.board, this.board.getLastMove());
+        this.onBoardDiff(result, false);
+        this.checkCompleted();
+    }
+
+    private void checkCompleted() {
+        if (this.board.isCompleted()) {
+            if (!this.nextLevel()) {
+                this.stopGame(true);
+            }
+        }
+    }
+
+    // while a move is in progress, events are also recorded in the move result, and handlers which consume move results
+    // are skipped by the dispatchers
+    private void beginMove(boolean undo) {
+        this.moveInProgress = true;
+        this.moveResult.begin(this.currentLevel, undo, this.currentScore, this.totalScore, this.currentLives, this.configuration.getMaxLives());
+    }
+
+    private void completeMove() {
+        this.moveInProgress = false;
+        this.onInputCompleted();
+
+        if (!this.moveResult.isChanged() || this.moveResultHandlers.isEmpty())
+            return;
+
+        if (!this.moveResult.arePowerupsChanged())
+            this.moveResult.setActivePowerups(this.powerUps);
+
+        for (int i = 0; i < this.moveResultHandlers.size(); i++) {
+            this.moveResultHandlers.get(i).onMoveResult(this.moveResult);
+        }
+    }
+
+    private boolean consumesMoveResult(Object handler) {
+        return handler instanceof IMoveResultHandler && this.moveResultHandlers.contains(handler);
+    }
+
+    private static boolean changesPowerups(int result) {
+        return (result & POWERUP_CONSUMED) != 0 || GameBoard.getPickedUpPowerup(result) != null;
+    }
+
+    /**
+     * Ticks game events. Timer handlers are only notified when the elapsed whole second changes, or a time threshold of
+     * the level is crossed, so ticking more often than necessary is cheap.
+     *
+     * @see #getMillisUntilNextTimerEvent()
+     */
+    public void tick() {
+        if (this.currentLevel == null || !this.configuration.areTimersActive())
+            return;
+
+        int expired = this.gameClock.pollDeadlines();
+        if (this.gameClock.pollSecond() || expired != 0) {
+            this.onTimerUpdated(this.gameClock.getElapsedSeconds(),
+                    this.currentLevel.getBonusTimeThreshold(),
+                    this.currentLevel.getPenaltyTimeThreshold(),
+                    this.currentLevel.getFailTimeThreshold());
+        }
+
+        if ((expired & 1 << DEADLINE_FAIL) != 0) {
+            this.acceptsInput = false;
+            this.gameClock.stop(false);
+            this.gameClock.reset();
+            this.onFailTimerExceeded();
+        }
+    }
+
+    /**
+     * Gets the time until {@link #tick()} has a timer event to handle. While the game is paused, or timers are inactive,
+     * no events are scheduled.
+     *
+     * @return Number of milliseconds until the next timer event, 0 if an event is due, or {@link Long#MAX_VALUE} if no
+     * event is scheduled.
+     */
+    public long getMillisUntilNextTimerEvent() {
+        if (this.currentLevel == null || !this.configuration.areTimersActive())
+            return Long.MAX_VALUE;
+
+        return this.gameClock.getMillisUntilNextEvent();
+    }
+
+    private void armTimers() {
+        // elapsed time is compared in whole seconds; bonus is lost at the threshold, penalty and failure start after it
+        this.gameClock.armDeadline(DEADLINE_BONUS, TimeUnit.SECONDS.toMillis(this.currentLevel.getBonusTimeThreshold()));
+        this.gameClock.armDeadline(DEADLINE_PENALTY, TimeUnit.SECONDS.toMillis(this.currentLevel.getPenaltyTimeThreshold() + 1L));
+        this.gameClock.armDeadline(DEADLINE_FAIL, TimeUnit.SECONDS.toMillis(this.currentLevel.getFailTimeThreshold() + 1L));
+    }
+
+    // event dispatchers
+    private void onGameStarted(ILevel currentLevel, int currentLives) {
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            this.lifecycleHandlers.get(i).onGameStarted(currentLevel, currentLives);
+        }
+    }
+
+    private void onGameStopped(int totalScore, boolean completed) {
+        if (this.moveInProgress)
+            this.moveResult.setGameStopped(totalScore, completed);
+
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            IGameLifecycleHandler handler = this.lifecycleHandlers.get(i);
+            if (this.moveInProgress && this.consumesMoveResult(handler))
+                continue;
+
+            handler.onGameStopped(totalScore, completed);
+        }
+    }
+
+    private void onNextLevel(ILevel previousLevel, int previousLevelScore, ILevel currentLevel, int totalScore) {
+        if (this.moveInProgress)
+            this.moveResult.setNextLevel(currentLevel, totalScore);
+
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            IGameLifecycleHandler handler = this.lifecycleHandlers.get(i);
+            if (this.moveInProgress && this.consumesMoveResult(handler))
+                continue;
+
+            handler.onNextLevel(previousLevel, previousLevelScore, currentLevel, totalScore);
+        }
+    }
+
+    private void onLivesUpdated(int currentLives, int maxLives) {
+        if (this.moveInProgress)
+            this.moveResult.setLives(currentLives, maxLives);
+
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            IGameLifecycleHandler handler = this.lifecycleHandlers.get(i);
+            if (this.moveInProgress && this.consumesMoveResult(handler))
+                continue;
+
+            handler.onLivesUpdated(currentLives, maxLives);
+        }
+    }
+
+    private void onScoreUpdated(int currentScore, int totalScore) {
+        if (this.moveInProgress)
+            this.moveResult.setScore(currentScore, totalScore);
+
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            IGameLifecycleHandler handler = this.lifecycleHandlers.get(i);
+            if (this.moveInProgress && this.consumesMoveResult(handler))
+                continue;
+
+            handler.onScoreUpdated(currentScore, totalScore);
+        }
+    }
+
+    private void onPowerupsUpdated(PowerupSet activePowerups) {
+        if (this.moveInProgress)
+            this.moveResult.setPowerups(activePowerups);
+
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            IGameLifecycleHandler handler = this.lifecycleHandlers.get(i);
+            if (this.moveInProgress && this.consumesMoveResult(handler))
+                continue;
+
+            handler.onPowerupsUpdated(activePowerups);
+        }
+    }
+
+    private void onLevelReset(ILevel currentLevel) {
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            this.lifecycleHandlers.get(i).onLevelReset(currentLevel);
+        }
+    }
+
+    private void onGamePaused() {
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            this.lifecycleHandlers.get(i).onGamePaused();
+        }
+    }
+
+    private void onGameResumed() {
+        for (int i = 0; i < this.lifecycleHandlers.size(); i++) {
+            this.lifecycleHandlers.get(i).onGameResumed();
+        }
+    }
+
+    private void onMoveApplied(GameMovementDirection direction, int result) {
+        for (int i = 0; i < this.playerInputHandlers.size(); i++) {
+            this.playerInputHandlers.get(i).onMoveApplied(direction, result);
+        }
+    }
+
+    private void onUndoApplied(int result) {
+        for (int i = 0; i < this.playerInputHandlers.size(); i++) {
+            this.playerInputHandlers.get(i).onUndoApplied(result);
+        }
+    }
+
+    private void onRedoApplied(int result) {
+        for (int i = 0; i < this.playerInputHandlers.size(); i++) {
+            this.playerInputHandlers.get(i).onRedoApplied(result);
+        }
+    }
+
+    private void onInputCompleted() {
+        for (int i = 0; i < this.playerInputHandlers.size(); i++) {
+            this.playerInputHandlers.get(i).onInputCompleted();
+        }
+    }
+
+    private void onStateRestored(byte[] state) {
+        for (int i = 0; i < this.playerInputHandlers.size(); i++) {
+            this.playerInputHandlers.get(i).onStateRestored(state);
+        }
+    }
+
+    private void onBoardUpdated(ILevel currentLevel, GameBoard board, MoveDeltas deltas) {
+        if (this.moveInProgress)
+            this.moveResult.setBoard(board, deltas);
+
+        for (int i = 0; i < this.gameEventHandlers.size(); i++) {
+            IGameEventHandler handler = this.gameEventHandlers.get(i);
+            if (this.moveInProgress && this.consumesMoveResult(handler))
+                continue;
+
+            handler.onBoardUpdated(currentLevel, board, deltas);
+        }
+    }
+
+    private void onMoveUndone(ILevel currentLevel, GameBoard board, MoveDeltas deltas) {
+        if (this.moveInProgress)
+            this.moveResult.setBoard(board, deltas);
+
+        for (int i = 0; i < this.gameEventHandlers.size(); i++) {
+            IGameEventHandler handler = this.gameEventHandlers.get(i);
+            if (this.moveInProgress && this.consumesMoveResult(handler))
+                continue;
+
+            handler.onMoveUndone(currentLevel, board, deltas);
+        }
+    }
+
+    private void onBoardSnapshot() {
+        if (this.boardDiffHandlers.isEmpty())
+            return;
+
+        BoardSnapshot snapshot = this.board.createSnapshot();
+        for (int i = 0; i < this.boardDiffHandlers.size(); i++) {
+            this.boardDiffHandlers.get(i).onBoardSnapshot(this.currentLevel, snapshot);
+        }
+    }
+
+    private void onBoardDiff(int result, boolean undo) {
+        if (this.boardDiffHandlers.isEmpty())
+            return;
+
+        this.boardDiff.clear();
+        this.boardDiff.addMove(this.board.getLastMove(), result, undo);
+        this.onBoardDiff();
+    }
+
+    private void onBoardDiff() {
+        for (int i = 0; i < this.boardDiffHandlers.size(); i++) {
+            this.boardDiffHandlers.get(i).onBoardDiff(this.currentLevel, this.boardDiff);
+        }
+    }
+
+    private void onLevelScoreUpdated(ILevel level, int score) {
+        if (this.moveInProgress)
+            this.moveResult.setLevelCompleted(score);
+
+        for (int i = 0; i < this.levelScoreUpdateHandlers.size(); i++) {
+            ILevelScoreUpdateHandler handler = this.levelScoreUpdateHandlers.get(i);
+            if (this.moveInProgress && this.consumesMoveResult(handler))
+                continue;
+
+            handler.onLevelScoreUpdated(level, score);
+        }
+    }
+
+    private void onTimerUpdated(long current, long bonus, long penalty, long fail) {
+        for (int i = 0; i < this.timerUpdateHandlers.size(); i++) {
+            this.timerUpdateHandlers.get(i).onTimerUpdated(current, bonus, penalty, fail);
+        }
+    }
+
+    private void onFailTimerExceeded() {
+        for (int i = 0; i < this.timerUpdateHandlers.size(); i++) {
+            this.timerUpdateHandlers.get(i).onFailTimerExceeded();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package elkaproj.game;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+
+import java.util.EnumSet;
+
+/**
+ * Immutable event published through a {@link GameEventPipeline}. Every event carries the full game status after it
+ * (level, scores, lives, power-ups and pause state), so consumers which only display the status can skip straight to
+ * the latest event. Board events carry either a full snapshot, or the changes made since the previous board event.
+ */
+public final class GameEvent {
+
+    /**
+     * Event kind: a level was started or reset, or a consumer fell behind; {@link #getSnapshot()} holds the full board.
+     */
+    public static final int SNAPSHOT = 0;
+
+    /**
+     * Event kind: a move was made or undone, or a batch of moves was made; {@link #getDiff()} holds the changes.
+     */
+    public static final int DIFF = 1;
+
+    /**
+     * Event kind: only the game status changed.
+     */
+    public static final int STATUS = 2;
+
+    /**
+     * Event kind: the game was stopped.
+     */
+    public static final int STOPPED = 3;
+
+    private static final GamePowerup[] POWERUPS = GamePowerup.values();
+
+    private final long sequence;
+    private final int kind;
+    private final ILevel level;
+    private final BoardSnapshot snapshot;
+    private final BoardDiff diff;
+    private final boolean undo;
+    private final int currentScore;
+    private final int totalScore;
+    private final int currentLives;
+    private final int maxLives;
+    private final int powerups;
+    private final boolean paused;
+    private final boolean completed;
+
+    GameEvent(long sequence, int kind, ILevel level, BoardSnapshot snapshot, BoardDiff diff, boolean undo,
+              int currentScore, int totalScore, int currentLives, int maxLives, int powerups, boolean paused, boolean completed) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.level = level;
+        this.snapshot = snapshot;
+        this.diff = diff;
+        this.undo = undo;
+        this.currentScore = currentScore;
+        this.totalScore = totalScore;
+        this.currentLives = currentLives;
+        this.maxLives = maxLives;
+        this.powerups = powerups;
+        this.paused = paused;
+        this.completed = completed;
+    }
+
+    /**
+     * Gets the sequence number of this event in its pipeline.
+     *
+     * @return Sequence number.
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Gets the kind of this event; one of SNAPSHOT, DIFF, STATUS, STOPPED.
+     *
+     * @return Kind of the event.
+     */
+    public int getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Gets the level being played.
+     *
+     * @return Current level, or null if the game was stopped.
+     */
+    public ILevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the full state of the board.
+     *
+     * @return Board snapshot, or null if this is not a SNAPSHOT event.
+     */
+    public BoardSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Gets the changes made to the board since the previous board event.
+     *
+     * @return Board changes, or null if this is not a DIFF event.
+     */
+    public BoardDiff getDiff() {
+        return this.diff;
+    }
+
+    /**
+     * Gets whether the changes were made by undoing a move.
+     *
+     * @return Whether a move was undone.
+     */
+    public boolean isUndo() {
+        return this.undo;
+    }
+
+    /**
+     * Gets the current level score.
+     *
+     * @return Current level score.
+     */
+    public int getCurrentScore() {
+        return this.currentScore;
+    }
+
+    /**
+     * Gets the total score.
+     *
+     * @return Total score.
+     */
+    public int getTotalScore() {
+        return this.totalScore;
+    }
+
+    /**
+     * Gets the number of remaining lives.
+     *
+     * @return Number of remaining lives.
+     */
+    public int getCurrentLives() {
+        return this.currentLives;
+    }
+
+    /**
+     * Gets the max number of lives the player can have.
+     *
+     * @return Maximum number of lives.
+     */
+    public int getMaxLives() {
+        return this.maxLives;
+    }
+
+    /**
+     * Gets whether a power-up is active.
+     *
+     * @param powerup Power-up to check.
+     * @return Whether the power-up is active.
+     */
+    public boolean hasPowerup(GamePowerup powerup) {
+        return (this.powerups & (1 << powerup.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the active power-ups.
+     *
+     * @return New set of active power-ups.
+     */
+    public EnumSet<GamePowerup> getActivePowerups() {
+        EnumSet<GamePowerup> activePowerups = EnumSet.noneOf(GamePowerup.class);
+        for (GamePowerup powerup : POWERUPS) {
+            if (this.hasPowerup(powerup))
+                activePowerups.add(powerup);
+        }
+
+        return activePowerups;
+    }
+
+    /**
+     * Gets whether the game is paused.
+     *
+     * @return Whether the game is paused.
+     */
+    public boolean isPaused() {
+        return this.paused;
+    }
+
+    /**
+     * Gets whether a STOPPED event was caused by the game being completed.
+     *
+     * @return Whether the game was completed.
+     */
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    boolean hasSameStatus(int currentScore, int totalScore, int currentLives, int maxLives, int powerups, boolean paused) {
+        return this.currentScore == currentScore
+                && this.totalScore == totalScore
+                && this.currentLives == currentLives
+                && this.maxLives == maxLives
+                && this.powerups == powerups
+                && this.paused == paused;
+    }
+}
@@ -0,0 +1,272 @@
+package elkaproj.game;
+
+import elkaproj.config.ILevel;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free, single-producer ring buffer of {@link GameEvent}s. The pipeline registers itself with a controller and
+ * publishes one event per move, level change or status change on the thread driving the controller. Any number of
+ * consumers read the events on their own threads through a {@link Cursor}. The producer never waits for consumers: a
+ * consumer which falls more than a full ring behind skips the events it missed and receives a fresh snapshot with the
+ * next published event.
+ */
+public class GameEventPipeline implements IGameLifecycleHandler, IMoveResultHandler, IBoardDiffHandler {
+
+    private final GameController gameController;
+    private final AtomicReferenceArray<GameEvent> events;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+    private volatile boolean resyncRequested = false;
+
+    // producer state
+    private GameEvent lastEvent = null;
+    private BoardDiff pendingDiff = null;
+
+    /**
+     * Creates a pipeline and registers it with a controller.
+     *
+     * @param gameController Controller to publish events of.
+     * @param capacity       Number of events kept in the ring. Rounded up to a power of 2.
+     */
+    public GameEventPipeline(GameController gameController, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30.");
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+
+        this.gameController = gameController;
+        this.events = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+
+        gameController.addLifecycleHandler(this);
+        gameController.addMoveResultHandler(this);
+        gameController.addBoardDiffHandler(this);
+    }
+
+    /**
+     * Gets the number of events kept in the ring.
+     *
+     * @return Capacity of the ring.
+     */
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * Gets the number of events published so far.
+     *
+     * @return Number of published events.
+     */
+    public long getPublishedCount() {
+        return this.published.get();
+    }
+
+    /**
+     * Creates a cursor, which reads events published from now on. If a game is running, a snapshot is published with the
+     * next event, so the new consumer receives the full board. Cursors should be created on the thread driving the
+     * controller, or before the game is started.
+     *
+     * @return New cursor.
+     */
+    public Cursor createCursor() {
+        if (this.gameController.isGameRunning())
+            this.resyncRequested = true;
+
+        return new Cursor(this, this.published.get());
+    }
+
+    @Override
+    public void onGameStarted(ILevel currentLevel, int currentLives) {
+        this.publishStatus();
+    }
+
+    @Override
+    public void onGameStopped(int totalScore, boolean completed) {
+        this.publishStopped(totalScore, completed);
+    }
+
+    @Override
+    public void onNextLevel(ILevel previousLevel, int previousLevelScore, ILevel currentLevel, int totalScore) {
+        this.publishStatus();
+    }
+
+    @Override
+    public void onLivesUpdated(int currentLives, int maxLives) {
+        this.publishStatus();
+    }
+
+    @Override
+    public void onScoreUpdated(int currentScore, int totalScore) {
+        this.publishStatus();
+    }
+
+    @Override
+    public void onPowerupsUpdated(PowerupSet activePowerups) {
+        this.publishStatus();
+    }
+
+    @Override
+    public void onGamePaused() {
+        this.publishStatus();
+    }
+
+    @Override
+    public void onGameResumed() {
+        this.publishStatus();
+    }
+
+    @Override
+    public void onBoardSnapshot(ILevel currentLevel, BoardSnapshot snapshot) {
+        // a snapshot supersedes changes made on the previous level
+        this.pendingDiff = null;
+        this.publish(GameEvent.SNAPSHOT, currentLevel, snapshot, null, false, this.gameController.getCurrentScore(),
+                this.gameController.getTotalScore(), this.gameController.getCurrentLives(), this.gameController.getPowerUps().getMask());
+    }
+
+    @Override
+    public void onBoardDiff(ILevel currentLevel, BoardDiff diff) {
+        // published along with the status once the move is complete
+        this.pendingDiff = diff.copy();
+    }
+
+    @Override
+    public void onMoveResult(MoveResult result) {
+        ILevel level = result.getNextLevel() != null ? result.getNextLevel() : result.getLevel();
+        int powerups = result.getActivePowerups() != null ? result.getActivePowerups().getMask() : 0;
+
+        if (this.pendingDiff != null) {
+            this.publish(GameEvent.DIFF, level, null, this.pendingDiff, result.isUndo(), result.getCurrentScore(),
+                    result.getTotalScore(), result.getCurrentLives(), powerups);
+            this.pendingDiff = null;
+        }
+
+        if (result.isGameStopped())
+            this.publishStopped(result.getTotalScore(), result.isGameCompleted());
+        else
+            this.publishStatus(level, result.getCurrentScore(), result.getTotalScore(), result.getCurrentLives(), powerups);
+    }
+
+    private void publishStatus() {
+        if (!this.gameController.isGameRunning())
+            return;
+
+        this.publishStatus(this.gameController.getCurrentLevel(), this.gameController.getCurrentScore(),
+                this.gameController.getTotalScore(), this.gameController.getCurrentLives(), this.gameController.getPowerUps().getMask());
+    }
+
+    private void publishStatus(ILevel level, int currentScore, int totalScore, int currentLives, int powerups) {
+        GameEvent last = this.lastEvent;
+        if (last != null && last.getKind() != GameEvent.STOPPED && last.getLevel() == level
+                && last.hasSameStatus(currentScore, totalScore, currentLives, this.gameController.getMaxLives(), powerups, this.gameController.isPaused()))
+            return;
+
+        this.publish(GameEvent.STATUS, level, null, null, false, currentScore, totalScore, currentLives, powerups);
+    }
+
+    private void publishStopped(int totalScore, boolean completed) {
+        this.pendingDiff = null;
+        this.resyncRequested = false;
+        this.publish(new GameEvent(this.published.get(), GameEvent.STOPPED, null, null, null, false,
+                0, totalScore, 0, this.gameController.getMaxLives(), 0, false, completed));
+    }
+
+    private void publish(int kind, ILevel level, BoardSnapshot snapshot, BoardDiff diff, boolean undo,
+                         int currentScore, int totalScore, int currentLives, int powerups) {
+        // consumers which fell behind, or just joined, need the full board before any further changes
+        if (this.resyncRequested) {
+            this.resyncRequested = false;
+            if (kind != GameEvent.SNAPSHOT && this.gameController.isGameRunning()) {
+                this.publish(GameEvent.SNAPSHOT, level, this.gameController.getBoard().createSnapshot(), null, false,
+                        currentScore, totalScore, currentLives, powerups);
+
+                // the snapshot already includes the changes
+                if (kind == GameEvent.DIFF)
+                    return;
+            }
+        }
+
+        this.publish(new GameEvent(this.published.get(), kind, level, snapshot, diff, undo, currentScore, totalScore,
+                currentLives, this.gameController.getMaxLives(), powerups, this.gameController.isPaused(), false));
+    }
+
+    private void publish(GameEvent event) {
+        long sequence = event.getSequence();
+
+        // the slot is written before the sequence is advanced, so consumers never see an unpublished slot
+        this.events.lazySet((int) (sequence & this.mask), event);
+        this.published.lazySet(sequence + 1);
+        this.lastEvent = event;
+    }
+
+    /**
+     * Reads events from a pipeline. Each cursor must only be used by a single consumer thread.
+     */
+    public static class Cursor {
+
+        private final GameEventPipeline pipeline;
+        private long next;
+        private long missed = 0;
+        private boolean awaitingSnapshot = true;
+
+        private Cursor(GameEventPipeline pipeline, long next) {
+            this.pipeline = pipeline;
+            this.next = next;
+        }
+
+        /**
+         * Gets the next event, without blocking. Until the cursor receives its first snapshot, and again after it falls
+         * behind, DIFF events are skipped, since they would apply to a board the consumer does not have.
+         *
+         * @return Next event, or null if no new events were published.
+         */
+        public GameEvent poll() {
+            while (true) {
+                long available = this.pipeline.published.get();
+                if (this.next >= available)
+                    return null;
+
+                if (available - this.next > this.pipeline.events.length()) {
+                    this.skipTo(available);
+                    continue;
+                }
+
+                GameEvent event = this.pipeline.events.get((int) (this.next & this.pipeline.mask));
+                if (event.getSequence() != this.next) {
+                    // the producer lapped this cursor since the sequence was read
+                    this.skipTo(this.pipeline.published.get());
+                    continue;
+                }
+
+                this.next++;
+                if (event.getKind() == GameEvent.SNAPSHOT) {
+                    this.awaitingSnapshot = false;
+                } else if (event.getKind() == GameEvent.DIFF && this.awaitingSnapshot) {
+                    this.missed++;
+                    continue;
+                }
+
+                return event;
+            }
+        }
+
+        /**
+         * Gets the number of events this cursor skipped, because it fell behind the producer.
+         *
+         * @return Number of skipped events.
+         */
+        public long getMissedCount() {
+            return this.missed;
+        }
+
+        private void skipTo(long sequence) {
+            this.missed += sequence - this.next;
+            this.next = sequence;
+            this.awaitingSnapshot = true;
+            this.pipeline.resyncRequested = true;
+        }
+    }
+}
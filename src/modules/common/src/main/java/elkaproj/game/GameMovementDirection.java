@@ -0,0 +1,55 @@
+package elkaproj.game;
+
+/**
+ * Represents a move direction.
+ */
+public enum GameMovementDirection {
+    /**
+     * Defines an attempt to move up.
+     */
+    UP,
+
+    /**
+     * Defines an attempt to move down.
+     */
+    DOWN,
+
+    /**
+     * Defines an attempt to move left.
+     */
+    LEFT,
+
+    /**
+     * Defines an attempt to move right.
+     */
+    RIGHT;
+
+    /**
+     * Gets the direction denoted by a character of LURD notation. Both lower case (moves) and upper case (pushes)
+     * letters are accepted.
+     *
+     * @param c Character to parse.
+     * @return Direction denoted by the character, or null if it is not a LURD character.
+     */
+    public static GameMovementDirection fromLurd(char c) {
+        switch (c) {
+            case 'u':
+            case 'U':
+                return UP;
+
+            case 'd':
+            case 'D':
+                return DOWN;
+
+            case 'l':
+            case 'L':
+                return LEFT;
+
+            case 'r':
+            case 'R':
+                return RIGHT;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,521 @@
+package elkaproj.game;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * Persistent, immutable state of a level being played, for exploring many lines of play at once, e.g. by solvers or
+ * hint searches. A state is advanced with {@link #step(GameState, GameMovementDirection)}, which applies the same
+ * rules as {@link GameBoard#move(GameMovementDirection, PowerupSet)}, but returns a new state instead of changing the
+ * existing one. Parts of the level which never change are shared through its {@link LevelTemplate}, crates are
+ * stored one board row per array, with rows grouped in blocks of 64, so a step copies only the table of blocks, the
+ * blocks and rows it changes, and shares the rest with its parent, and remaining power-up activators are kept as a
+ * sorted list of cell indices.
+ * Since states are never modified, they can be kept, branched from and handed to other threads freely.
+ */
+public final class GameState {
+
+    private static final GamePowerup[] POWERUPS = GamePowerup.values();
+
+    // indexed by GameMovementDirection ordinal
+    private static final int[] DIRECTION_X = {0, 0, -1, 1};
+    private static final int[] DIRECTION_Y = {-1, 1, 0, 0};
+
+    private static final int GHOST = 1 << GamePowerup.GHOST.ordinal();
+    private static final int STRENGTH = 1 << GamePowerup.STRENGTH.ordinal();
+    private static final int PULL = 1 << GamePowerup.PULL.ordinal();
+
+    // rows of crates held by each block
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+
+    private final ILevel level;
+    private final LevelTemplate template;
+    private final BoardLayout layout;
+    private final int width, height;
+
+    // crates of each row, indexed by block, then by row within the block, then by x; blocks and rows which are not
+    // changed by a step are shared with the parent state
+    private final long[][][] crateBlocks;
+    // sorted indices of remaining power-up activators; copied only when an activator is picked up
+    private final int[] activators;
+
+    private final int playerX, playerY;
+    private final int powerups;
+    private final int numMatched;
+    private final int moveCount;
+    private final int lastResult;
+    private final long stateHash;
+
+    GameState(ILevel level, long[] crates, long[] activators, int playerX, int playerY, int powerups) {
+        this.level = level;
+        this.template = LevelTemplate.of(level);
+        this.layout = this.template.getLayout();
+        this.width = this.template.getWidth();
+        this.height = this.template.getHeight();
+
+        // rows without crates all share a single empty row
+        long[] empty = new long[(this.width + 63) >>> 6];
+        this.crateBlocks = new long[(this.height + BLOCK_MASK) >>> BLOCK_SHIFT][][];
+        for (int b = 0; b < this.crateBlocks.length; b++) {
+            this.crateBlocks[b] = new long[BLOCK_MASK + 1][];
+            Arrays.fill(this.crateBlocks[b], empty);
+        }
+
+        long[] targets = this.template.getTargets();
+        int numMatched = 0;
+        for (int w = 0; w < crates.length; w++) {
+            for (long bits = crates[w]; bits != 0; bits &= bits - 1) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                int x = this.layout.xOf(index), y = this.layout.yOf(index);
+                long[][] block = this.crateBlocks[y >>> BLOCK_SHIFT];
+                if (block[y & BLOCK_MASK] == empty)
+                    block[y & BLOCK_MASK] = new long[empty.length];
+
+                GameBoard.set(block[y & BLOCK_MASK], x);
+                if (GameBoard.test(targets, index))
+                    numMatched++;
+            }
+        }
+
+        int numActivators = 0;
+        for (long bits : activators)
+            numActivators += Long.bitCount(bits);
+
+        this.activators = new int[numActivators];
+        numActivators = 0;
+        for (int w = 0; w < activators.length; w++) {
+            for (long bits = activators[w]; bits != 0; bits &= bits - 1)
+                this.activators[numActivators++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+
+        long stateHash = GameBoard.playerKey(playerX, playerY, this.width);
+        for (int w = 0; w < crates.length; w++) {
+            for (long bits = crates[w]; bits != 0; bits &= bits - 1)
+                stateHash ^= GameBoard.zobristKey((w << 6) + Long.numberOfTrailingZeros(bits), GameBoard.ZOBRIST_CRATE);
+        }
+
+        for (int index : this.activators)
+            stateHash ^= GameBoard.zobristKey(index, GameBoard.ZOBRIST_ACTIVATOR);
+
+        for (GamePowerup powerup : POWERUPS) {
+            if ((powerups & 1 << powerup.ordinal()) != 0)
+                stateHash ^= GameBoard.zobristKey(powerup.ordinal(), GameBoard.ZOBRIST_POWERUP);
+        }
+
+        this.playerX = playerX;
+        this.playerY = playerY;
+        this.powerups = powerups;
+        this.numMatched = numMatched;
+        this.moveCount = 0;
+        this.lastResult = GameBoard.MOVE_BLOCKED;
+        this.stateHash = stateHash;
+    }
+
+    private GameState(GameState parent, long[][][] crateBlocks, int[] activators, int playerX, int playerY, int powerups,
+                      int numMatched, int moveCount, int lastResult, long stateHash) {
+        this.level = parent.level;
+        this.template = parent.template;
+        this.layout = parent.layout;
+        this.width = parent.width;
+        this.height = parent.height;
+        this.crateBlocks = crateBlocks;
+        this.activators = activators;
+        this.playerX = playerX;
+        this.playerY = playerY;
+        this.powerups = powerups;
+        this.numMatched = numMatched;
+        this.moveCount = moveCount;
+        this.lastResult = lastResult;
+        this.stateHash = stateHash;
+    }
+
+    /**
+     * Creates a state in the initial position of a given level, with no active power-ups.
+     *
+     * @param level           Level to create the state for.
+     * @param enabledPowerups Power-ups which are enabled. Activators of other power-ups are treated as floor.
+     * @return Initial state of the level.
+     */
+    public static GameState initial(ILevel level, EnumSet<GamePowerup> enabledPowerups) {
+        LevelTemplate template = LevelTemplate.of(level);
+        return new GameState(level, template.getCrates(), template.getActivators(enabledPowerups),
+                template.getPlayerX(), template.getPlayerY(), 0);
+    }
+
+    /**
+     * Attempts to move the player in given direction, following the same rules as
+     * {@link GameBoard#move(GameMovementDirection, PowerupSet)}. The given state is not changed.
+     *
+     * @param state     State to move from.
+     * @param direction Direction to move the player in.
+     * @return State after the move. If the move was blocked without consuming {@link GamePowerup#GHOST}, this is the
+     * given state itself. The result of the move is available through {@link #getLastResult()}.
+     */
+    public static GameState step(GameState state, GameMovementDirection direction) {
+        int dx = DIRECTION_X[direction.ordinal()], dy = DIRECTION_Y[direction.ordinal()];
+        int ox = state.playerX, oy = state.playerY;
+        int nx = ox + dx, ny = oy + dy;
+        if (!state.isInBounds(nx, ny))
+            return state;
+
+        long[] walls = state.template.getWalls();
+        int n = state.layout.indexOf(nx, ny);
+        int powerups = state.powerups;
+        long stateHash = state.stateHash;
+
+        // check if wall
+        if (GameBoard.test(walls, n) && (powerups & GHOST) == 0)
+            return state;
+
+        int result = GameBoard.MOVE_BLOCKED;
+        if ((powerups & GHOST) != 0) {
+            powerups &= ~GHOST;
+            stateHash ^= GameBoard.zobristKey(GamePowerup.GHOST.ordinal(), GameBoard.ZOBRIST_POWERUP);
+            result = GameBoard.MOVE_GHOST;
+        }
+
+        // check if crate
+        boolean push = state.hasCrate(nx, ny), strength = false;
+        if (push) {
+            // check if stacked wall
+            if (state.isSolid(nx + dx, ny + dy))
+                return state.blocked(powerups, result, stateHash);
+
+            // check if stacked crate
+            if (state.hasCrate(nx + dx, ny + dy)) {
+                if ((powerups & STRENGTH) == 0)
+                    return state.blocked(powerups, result, stateHash);
+
+                if (state.isSolid(nx + 2 * dx, ny + 2 * dy) || state.hasCrate(nx + 2 * dx, ny + 2 * dy))
+                    return state.blocked(powerups, result, stateHash);
+
+                strength = true;
+            }
+        }
+
+        boolean pull = (powerups & PULL) != 0 && state.isInBounds(ox - dx, oy - dy) && state.hasCrate(ox - dx, oy - dy);
+        long[][][] crateBlocks = push || pull ? state.crateBlocks.clone() : state.crateBlocks;
+        int numMatched = state.numMatched;
+
+        if (strength) {
+            powerups &= ~STRENGTH;
+            stateHash ^= GameBoard.zobristKey(GamePowerup.STRENGTH.ordinal(), GameBoard.ZOBRIST_POWERUP);
+            numMatched += state.moveCrate(crateBlocks, nx + dx, ny + dy, nx + 2 * dx, ny + 2 * dy);
+            stateHash ^= state.crateKeys(nx + dx, ny + dy, nx + 2 * dx, ny + 2 * dy);
+            result |= GameBoard.MOVE_STRENGTH;
+        }
+
+        // push crate
+        if (push) {
+            numMatched += state.moveCrate(crateBlocks, nx, ny, nx + dx, ny + dy);
+            stateHash ^= state.crateKeys(nx, ny, nx + dx, ny + dy);
+            result |= GameBoard.MOVE_PUSH;
+        }
+
+        // pull crate
+        if (pull) {
+            powerups &= ~PULL;
+            stateHash ^= GameBoard.zobristKey(GamePowerup.PULL.ordinal(), GameBoard.ZOBRIST_POWERUP);
+            numMatched += state.moveCrate(crateBlocks, ox - dx, oy - dy, ox, oy);
+            stateHash ^= state.crateKeys(ox - dx, oy - dy, ox, oy);
+            result |= GameBoard.MOVE_PULL;
+        }
+
+        stateHash ^= GameBoard.playerKey(ox, oy, state.width) ^ GameBoard.playerKey(nx, ny, state.width);
+        result |= GameBoard.MOVE_ACCEPTED;
+
+        // check if new position is a power-up activator
+        int[] activators = state.activators;
+        int activator = Arrays.binarySearch(activators, n);
+        if (activator >= 0) {
+            activators = new int[state.activators.length - 1];
+            System.arraycopy(state.activators, 0, activators, 0, activator);
+            System.arraycopy(state.activators, activator + 1, activators, activator, activators.length - activator);
+            stateHash ^= GameBoard.zobristKey(n, GameBoard.ZOBRIST_ACTIVATOR);
+
+            GamePowerup pickup = state.getInitialPowerup(n);
+            if ((powerups & 1 << pickup.ordinal()) == 0) {
+                powerups |= 1 << pickup.ordinal();
+                stateHash ^= GameBoard.zobristKey(pickup.ordinal(), GameBoard.ZOBRIST_POWERUP);
+            }
+
+            result |= (pickup.ordinal() + 1) << GameBoard.MOVE_PICKUP_SHIFT;
+        }
+
+        return new GameState(state, crateBlocks, activators, nx, ny, powerups, numMatched, state.moveCount + 1, result,
+                stateHash);
+    }
+
+    /**
+     * Attempts to move the player in given direction. Equivalent to {@link #step(GameState, GameMovementDirection)}.
+     *
+     * @param direction Direction to move the player in.
+     * @return State after the move.
+     */
+    public GameState step(GameMovementDirection direction) {
+        return step(this, direction);
+    }
+
+    /**
+     * Gets the level this state belongs to.
+     *
+     * @return Level of the state.
+     */
+    public ILevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the width of the board, in tiles.
+     *
+     * @return Width of the board.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the height of the board, in tiles.
+     *
+     * @return Height of the board.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the X coordinate of the player.
+     *
+     * @return X coordinate of the player.
+     */
+    public int getPlayerX() {
+        return this.playerX;
+    }
+
+    /**
+     * Gets the Y coordinate of the player.
+     *
+     * @return Y coordinate of the player.
+     */
+    public int getPlayerY() {
+        return this.playerY;
+    }
+
+    /**
+     * Gets the static tile at given coordinates, i.e. a wall, target spot or floor.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     * @return Tile at given coordinates.
+     */
+    public LevelTile getTile(int x, int y) {
+        int index = this.layout.indexOf(x, y);
+        if (GameBoard.test(this.template.getWalls(), index))
+            return LevelTile.WALL;
+
+        return GameBoard.test(this.template.getTargets(), index) ? LevelTile.TARGET_SPOT : LevelTile.FLOOR;
+    }
+
+    /**
+     * Gets whether the cell at given coordinates holds a crate.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     * @return Whether the cell holds a crate.
+     */
+    public boolean hasCrate(int x, int y) {
+        return GameBoard.test(this.crateBlocks[y >>> BLOCK_SHIFT][y & BLOCK_MASK], x);
+    }
+
+    /**
+     * Gets the power-up activator present at given coordinates.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     * @return Power-up activator tile, or {@link LevelTile#NONE} if there is none.
+     */
+    public LevelTile getPowerupTile(int x, int y) {
+        int index = this.layout.indexOf(x, y);
+        return Arrays.binarySearch(this.activators, index) >= 0
+                ? GamePowerup.toTile(this.getInitialPowerup(index))
+                : LevelTile.NONE;
+    }
+
+    /**
+     * Gets whether given power-up is active.
+     *
+     * @param powerup Power-up to check.
+     * @return Whether the power-up is active.
+     */
+    public boolean hasPowerup(GamePowerup powerup) {
+        return (this.powerups & 1 << powerup.ordinal()) != 0;
+    }
+
+    /**
+     * Gets the active power-ups.
+     *
+     * @return New set of active power-ups.
+     */
+    public EnumSet<GamePowerup> getActivePowerups() {
+        return PowerupSet.toEnumSet(this.powerups);
+    }
+
+    /**
+     * Gets the active power-ups as a bitmask.
+     *
+     * @return Bitmask of active power-ups, with bit <code>1 &lt;&lt; powerup.ordinal()</code> set for every active
+     * power-up.
+     */
+    public int getPowerupMask() {
+        return this.powerups;
+    }
+
+    /**
+     * Gets the number of crates currently placed on target spots.
+     *
+     * @return Number of matched crates.
+     */
+    public int getMatchedCount() {
+        return this.numMatched;
+    }
+
+    /**
+     * Gets whether every crate is placed on a target spot.
+     *
+     * @return Whether the level is completed.
+     */
+    public boolean isCompleted() {
+        return this.numMatched == this.template.getCrateCount();
+    }
+
+    /**
+     * Gets the number of moves made since the initial, or forked, state.
+     *
+     * @return Number of moves.
+     */
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    /**
+     * Gets the result of the move which produced this state, as returned by
+     * {@link GameBoard#move(GameMovementDirection, PowerupSet)}.
+     *
+     * @return Result of the last move, or {@link GameBoard#MOVE_BLOCKED} for an initial, or forked, state.
+     */
+    public int getLastResult() {
+        return this.lastResult;
+    }
+
+    /**
+     * Gets the Zobrist hash of the state, covering the player's position, crate layout, remaining power-up activators
+     * and active power-ups. Equal to {@link GameController#getStateHash()} in the same position.
+     *
+     * @return 64-bit hash of the state.
+     */
+    public long getStateHash() {
+        return this.stateHash;
+    }
+
+    /**
+     * Gets whether another state is the same position of the same level. The number of moves made and the result of
+     * the last move are not compared.
+     *
+     * @param obj Object to compare to.
+     * @return Whether the states are equal.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof GameState))
+            return false;
+
+        GameState other = (GameState) obj;
+        if (this.stateHash != other.stateHash || this.level != other.level || this.playerX != other.playerX
+                || this.playerY != other.playerY || this.powerups != other.powerups
+                || !Arrays.equals(this.activators, other.activators))
+            return false;
+
+        for (int b = 0; b < this.crateBlocks.length; b++) {
+            long[][] block = this.crateBlocks[b], otherBlock = other.crateBlocks[b];
+            if (block == otherBlock)
+                continue;
+
+            for (int r = 0; r < block.length; r++) {
+                if (block[r] != otherBlock[r] && !Arrays.equals(block[r], otherBlock[r]))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (this.stateHash ^ (this.stateHash >>> 32));
+    }
+
+    private GameState blocked(int powerups, int result, long stateHash) {
+        // blocked moves only change the state if GHOST was consumed
+        if (result == GameBoard.MOVE_BLOCKED)
+            return this;
+
+        return new GameState(this, this.crateBlocks, this.activators, this.playerX, this.playerY, powerups,
+                this.numMatched, this.moveCount, result, stateHash);
+    }
+
+    private int moveCrate(long[][][] crateBlocks, int fromX, int fromY, int toX, int toY) {
+        GameBoard.clear(this.copyRow(crateBlocks, fromY), fromX);
+        GameBoard.set(this.copyRow(crateBlocks, toY), toX);
+
+        long[] targets = this.template.getTargets();
+        boolean fromTarget = GameBoard.test(targets, this.layout.indexOf(fromX, fromY));
+        boolean toTarget = GameBoard.test(targets, this.layout.indexOf(toX, toY));
+        return fromTarget == toTarget ? 0 : toTarget ? 1 : -1;
+    }
+
+    private long[] copyRow(long[][][] crateBlocks, int y) {
+        // a block, and a row within it, are copied the first time they are changed, and shared with the parent state
+        // until then
+        int b = y >>> BLOCK_SHIFT, r = y & BLOCK_MASK;
+        long[][] block = crateBlocks[b];
+        if (block == this.crateBlocks[b])
+            crateBlocks[b] = block = block.clone();
+
+        long[] row = block[r];
+        if (row == this.crateBlocks[b][r])
+            block[r] = row = row.clone();
+
+        return row;
+    }
+
+    private long crateKeys(int fromX, int fromY, int toX, int toY) {
+        return GameBoard.zobristKey(this.layout.indexOf(fromX, fromY), GameBoard.ZOBRIST_CRATE)
+                ^ GameBoard.zobristKey(this.layout.indexOf(toX, toY), GameBoard.ZOBRIST_CRATE);
+    }
+
+    private GamePowerup getInitialPowerup(int index) {
+        long[][] powerupActivators = this.template.getPowerupActivators();
+        for (GamePowerup powerup : POWERUPS) {
+            if (GameBoard.test(powerupActivators[powerup.ordinal()], index))
+                return powerup;
+        }
+
+        return null;
+    }
+
+    private boolean isInBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < this.width && y < this.height;
+    }
+
+    private boolean isSolid(int x, int y) {
+        return !this.isInBounds(x, y) || GameBoard.test(this.template.getWalls(), this.layout.indexOf(x, y));
+    }
+}
@@ -0,0 +1,26 @@
+package elkaproj.game;
+
+import elkaproj.config.ILevel;
+
+/**
+ * Receives board updates as a full snapshot when a level is started or reset, followed by compact lists of changed
+ * cells. Unlike {@link IGameEventHandler}, consumers never need to rescan the whole board to find out what changed.
+ */
+public interface IBoardDiffHandler {
+
+    /**
+     * Triggered when a level is started or reset. Subsequent diffs apply to this snapshot.
+     *
+     * @param currentLevel Level on which the game occurs.
+     * @param snapshot     Full state of the board.
+     */
+    void onBoardSnapshot(ILevel currentLevel, BoardSnapshot snapshot);
+
+    /**
+     * Triggered whenever a move is made or undone, or a batch of moves is made.
+     *
+     * @param currentLevel Level on which the game occurs.
+     * @param diff         Changes made to the board. This buffer is reused, and is only valid for the duration of the call.
+     */
+    void onBoardDiff(ILevel currentLevel, BoardDiff diff);
+}
@@ -0,0 +1,14 @@
+package elkaproj.game;
+
+/**
+ * Command executed on the game thread of a {@link GameActor}.
+ */
+public interface IGameCommand {
+
+    /**
+     * Executes the command.
+     *
+     * @param gameController Controller of the game. Must not be used outside of the call.
+     */
+    void execute(GameController gameController);
+}
@@ -0,0 +1,48 @@
+package elkaproj.game;
+
+import elkaproj.Dimensions;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+
+import java.util.Set;
+
+public interface IGameEventHandler {
+
+    /**
+     * Triggered whenever the board is updated.
+     *
+     * @param currentLevel   Level on which the game occurs.
+     * @param board          Layout of the board.
+     * @param powerupTiles   Power-up tiles of the board.
+     * @param crates         Crate locations.
+     * @param playerPosition Player's current position.
+     * @param deltas         Crate deltas.
+     */
+    default void onBoardUpdated(ILevel currentLevel, LevelTile[][] board, LevelTile[][] powerupTiles, boolean[][] crates, Dimensions playerPosition, Set<Dimensions.Delta> deltas) {
+    }
+
+    /**
+     * Triggered whenever the board is updated. Handlers which override this method receive the board state and its
+     * changes without any per-move allocations; by default, it forwards the update to
+     * {@link #onBoardUpdated(ILevel, LevelTile[][], LevelTile[][], boolean[][], Dimensions, Set)}.
+     *
+     * @param currentLevel Level on which the game occurs.
+     * @param board        State of the board.
+     * @param deltas       Changes made to the board. This buffer is reused, and is only valid for the duration of the call.
+     */
+    default void onBoardUpdated(ILevel currentLevel, GameBoard board, MoveDeltas deltas) {
+        this.onBoardUpdated(currentLevel, board.getTileArray(), board.getPowerupTileArray(), board.getCrateArray(), deltas.getPlayerPosition(), deltas.getCrateDeltas());
+    }
+
+    /**
+     * Triggered whenever a move is undone. The deltas describe the reversal, i.e. the player and crates moving back to
+     * their previous positions. By default, it is handled like any other board update.
+     *
+     * @param currentLevel Level on which the game occurs.
+     * @param board        State of the board.
+     * @param deltas       Changes made to the board. This buffer is reused, and is only valid for the duration of the call.
+     */
+    default void onMoveUndone(ILevel currentLevel, GameBoard board, MoveDeltas deltas) {
+        this.onBoardUpdated(currentLevel, board, deltas);
+    }
+}
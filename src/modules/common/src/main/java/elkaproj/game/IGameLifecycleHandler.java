@@ -1,10 +1,7 @@
 package elkaproj.game;
 
-import elkaproj.config.GamePowerup;
 import elkaproj.config.ILevel;
 
-import java.util.EnumSet;
-
 /**
  * Implementations of this interface handle events about game lifecycle.
  */
@@ -39,6 +36,15 @@ public interface IGameLifecycleHandler {
     default void onNextLevel(ILevel previousLevel, int previousLevelScore, ILevel currentLevel, int totalScore) {
     }
 
+    /**
+     * Triggered whenever the current level is reset by the player, after the board was restored. If no lives were left,
+     * the game is stopped right afterwards.
+     *
+     * @param currentLevel The level which was reset.
+     */
+    default void onLevelReset(ILevel currentLevel) {
+    }
+
     /**
      * Triggered whenever the number of lives the player has changes.
      *
@@ -60,9 +66,10 @@ public interface IGameLifecycleHandler {
     /**
      * Triggered whenever powerups are updated.
      *
-     * @param activePowerups Player's currently-active powerups.
+     * @param activePowerups Player's currently-active powerups. This is a read-only view, which is only valid for the
+     *                       duration of the call.
      */
-    default void onPowerupsUpdated(EnumSet<GamePowerup> activePowerups) {
+    default void onPowerupsUpdated(PowerupSet activePowerups) {
     }
 
     /**
@@ -0,0 +1,17 @@
+package elkaproj.game;
+
+/**
+ * Receives a single notification with every change resulting from a move. Objects which are also registered as
+ * {@link IGameLifecycleHandler}, {@link IGameEventHandler} or {@link ILevelScoreUpdateHandler} do not receive the
+ * separate score, power-up, lives, board, level and game stop events caused by a move; those are only reported
+ * through {@link MoveResult}. Events not caused by moves, such as game start or level reset, are delivered as usual.
+ */
+public interface IMoveResultHandler {
+
+    /**
+     * Triggered once after a move is made, undone or redone, or a batch of moves is made.
+     *
+     * @param result Changes resulting from the move. This object is reused, and is only valid for the duration of the call.
+     */
+    void onMoveResult(MoveResult result);
+}
@@ -0,0 +1,48 @@
+package elkaproj.game;
+
+/**
+ * Receives every player input which changed the state of the game, in the order the controller applied them. Repeating
+ * the inputs on a controller with the same configuration and level pack, together with the lifecycle events of
+ * {@link IGameLifecycleHandler}, reproduces the game exactly, so this is what replays are recorded from.
+ */
+public interface IPlayerInputHandler {
+
+    /**
+     * Triggered after a move was applied to the board. This includes every move of a batch, and moves which were
+     * blocked, but consumed {@link elkaproj.config.GamePowerup#GHOST}. Moves which changed nothing are not reported.
+     *
+     * @param direction Direction of the move.
+     * @param result    Result of the move, as returned by {@link GameBoard#move(GameMovementDirection, PowerupSet)}.
+     */
+    void onMoveApplied(GameMovementDirection direction, int result);
+
+    /**
+     * Triggered after a move was undone.
+     *
+     * @param result Result of the reverted move, as returned by {@link GameBoard#undo(PowerupSet)}.
+     */
+    void onUndoApplied(int result);
+
+    /**
+     * Triggered after an undone move was made again.
+     *
+     * @param result Result of the repeated move, as returned by {@link GameBoard#redo(PowerupSet)}.
+     */
+    void onRedoApplied(int result);
+
+    /**
+     * Triggered after the controller finished processing a move, undo or redo, once all of its effects, such as score
+     * changes or moving to the next level, were applied. A batch of moves is processed as a single input.
+     */
+    default void onInputCompleted() {
+    }
+
+    /**
+     * Triggered after the state of the game was restored from a saved state. The saved state replaces everything that
+     * happened before, including the undo history.
+     *
+     * @param state Saved state, as returned by {@link GameController#saveState()}. Must not be modified.
+     */
+    default void onStateRestored(byte[] state) {
+    }
+}
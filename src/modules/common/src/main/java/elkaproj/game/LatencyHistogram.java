@@ -0,0 +1,150 @@
+package elkaproj.game;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations, in nanoseconds. Durations are counted in log-linear buckets: every power of two is split into
+ * 16 buckets of equal width, so percentiles are reported within 1/16 of their value, for any duration. Count, sum,
+ * minimum and maximum are tracked exactly. All buckets are allocated up front, so recording never allocates. Histograms
+ * are not thread-safe; use {@link #copy()} to hand one to another thread.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos Duration, in nanoseconds. Negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+
+        this.counts[bucketOf(nanos)]++;
+        this.count++;
+        this.total += nanos;
+        this.min = Math.min(this.min, nanos);
+        this.max = Math.max(this.max, nanos);
+    }
+
+    /**
+     * Removes all recorded durations.
+     */
+    public void reset() {
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.total = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+
+    /**
+     * Creates a copy of this histogram.
+     *
+     * @return Copy of the histogram.
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        System.arraycopy(this.counts, 0, copy.counts, 0, BUCKETS);
+        copy.count = this.count;
+        copy.total = this.total;
+        copy.min = this.min;
+        copy.max = this.max;
+        return copy;
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return Number of recorded durations.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the sum of recorded durations.
+     *
+     * @return Sum of recorded durations, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return this.total;
+    }
+
+    /**
+     * Gets the shortest recorded duration.
+     *
+     * @return Shortest duration, in nanoseconds, or 0 if none were recorded.
+     */
+    public long getMinNanos() {
+        return this.count == 0 ? 0 : this.min;
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return Longest duration, in nanoseconds, or 0 if none were recorded.
+     */
+    public long getMaxNanos() {
+        return this.max;
+    }
+
+    /**
+     * Gets the mean of recorded durations.
+     *
+     * @return Mean duration, in nanoseconds, or 0 if none were recorded.
+     */
+    public long getMeanNanos() {
+        return this.count == 0 ? 0 : this.total / this.count;
+    }
+
+    /**
+     * Gets a percentile of recorded durations.
+     *
+     * @param percentile Percentile to get, from 0 to 100.
+     * @return Upper bound of the bucket holding the percentile, capped at the longest duration, in nanoseconds, or 0 if
+     * none were recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (this.count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(this.count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += this.counts[bucket];
+            if (seen >= rank)
+                return Math.min(this.max, Math.max(this.min, upperBoundOf(bucket)));
+        }
+
+        return this.max;
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int) nanos;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+}
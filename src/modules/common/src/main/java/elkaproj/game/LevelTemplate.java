@@ -0,0 +1,220 @@
+package elkaproj.game;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+import elkaproj.config.LevelTileGrid;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Compiled initial state of a level, in the bitboard layout used by {@link GameBoard}. A template is compiled once per
+ * level and shared by all boards created for it: parts of the state which never change during play are referenced
+ * directly, while the rest is restored from the template by bulk copies. Bitsets are laid out by a {@link BoardLayout},
+ * so they take space in proportion to the non-wall area of the level.
+ */
+public final class LevelTemplate {
+
+    private static final GamePowerup[] POWERUPS = GamePowerup.values();
+
+    // keyed by identity of the level; entries are dropped once the level is no longer referenced
+    private static final Map<ILevel, LevelTemplate> TEMPLATES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int width, height, words;
+    private final BoardLayout layout;
+    private final long[] walls;
+    private final long[] targets;
+    private final long[] crates;
+    private final CrateIndex crateIndex;
+    private final long[] activators;
+    private final long[][] powerupActivators;
+    private final int numCrates;
+    private final int playerX, playerY;
+
+    private LevelTemplate(ILevel level) {
+        LevelTileGrid grid = level.getTileGrid();
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.layout = new BoardLayout(grid);
+
+        this.words = this.layout.getWordCount();
+        this.walls = new long[this.words];
+        this.targets = new long[this.words];
+        this.crates = new long[this.words];
+        this.activators = new long[this.words];
+        this.powerupActivators = new long[POWERUPS.length][this.words];
+
+        // only chunks holding anything but walls are visited, so compiling takes time proportional to their area
+        int numCrates = 0, playerX = 0, playerY = 0;
+        for (int slot = 0; slot < this.layout.getSlotCount(); slot++) {
+            int chunk = this.layout.getSlotChunk(slot);
+            if (chunk < 0) {
+                Arrays.fill(this.walls, slot * BoardLayout.SLOT_WORDS, (slot + 1) * BoardLayout.SLOT_WORDS, -1L);
+                continue;
+            }
+
+            int chunkX = (chunk % grid.getChunkColumns()) * LevelTileGrid.CHUNK_SIZE;
+            int chunkY = (chunk / grid.getChunkColumns()) * LevelTileGrid.CHUNK_SIZE;
+            for (int y = chunkY; y < chunkY + LevelTileGrid.CHUNK_SIZE; y++) {
+                for (int x = chunkX; x < chunkX + LevelTileGrid.CHUNK_SIZE; x++) {
+                    int i = this.layout.indexOf(x, y);
+
+                    // parts of chunks past the edges of the level are walls
+                    LevelTile tile = x < this.width && y < this.height ? grid.getTile(x, y) : LevelTile.WALL;
+                    switch (tile) {
+                        case WALL:
+                            GameBoard.set(this.walls, i);
+                            break;
+
+                        case TARGET_SPOT:
+                            GameBoard.set(this.targets, i);
+                            break;
+
+                        case CRATE:
+                            GameBoard.set(this.crates, i);
+                            numCrates++;
+                            break;
+
+                        case PLAYER:
+                            playerX = x;
+                            playerY = y;
+                            break;
+
+                        case GHOST:
+                        case STRENGTH:
+                        case PULL:
+                            GamePowerup powerup = GamePowerup.fromTile(tile);
+                            GameBoard.set(this.activators, i);
+                            GameBoard.set(this.powerupActivators[powerup.ordinal()], i);
+                            break;
+                    }
+                }
+            }
+        }
+
+        this.numCrates = numCrates;
+        this.crateIndex = new CrateIndex(numCrates);
+        for (int w = 0; w < this.words; w++) {
+            for (long bits = this.crates[w]; bits != 0; bits &= bits - 1)
+                this.crateIndex.add((w << 6) + Long.numberOfTrailingZeros(bits));
+        }
+
+        this.playerX = playerX;
+        this.playerY = playerY;
+    }
+
+    /**
+     * Gets the template of given level, compiling it if this is the first time the level is used.
+     *
+     * @param level Level to get the template of.
+     * @return Template of the level.
+     */
+    public static LevelTemplate of(ILevel level) {
+        LevelTemplate template = TEMPLATES.get(level);
+        if (template != null)
+            return template;
+
+        // levels are compiled outside of the lock, so a large one does not hold up boards of other levels; threads
+        // compiling the same level at once all get the template stored first
+        template = new LevelTemplate(level);
+        LevelTemplate stored = TEMPLATES.putIfAbsent(level, template);
+        return stored != null ? stored : template;
+    }
+
+    /**
+     * Gets the width of the level, in tiles.
+     *
+     * @return Width of the level.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the height of the level, in tiles.
+     *
+     * @return Height of the level.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the number of crates in the level.
+     *
+     * @return Number of crates.
+     */
+    public int getCrateCount() {
+        return this.numCrates;
+    }
+
+    /**
+     * Gets the X coordinate of the player's starting position.
+     *
+     * @return X coordinate of the starting position.
+     */
+    public int getPlayerX() {
+        return this.playerX;
+    }
+
+    /**
+     * Gets the Y coordinate of the player's starting position.
+     *
+     * @return Y coordinate of the starting position.
+     */
+    public int getPlayerY() {
+        return this.playerY;
+    }
+
+    BoardLayout getLayout() {
+        return this.layout;
+    }
+
+    int getWordCount() {
+        return this.words;
+    }
+
+    long[] getWalls() {
+        return this.walls;
+    }
+
+    long[] getTargets() {
+        return this.targets;
+    }
+
+    long[] getCrates() {
+        return this.crates;
+    }
+
+    CrateIndex getCrateIndex() {
+        return this.crateIndex;
+    }
+
+    long[][] getPowerupActivators() {
+        return this.powerupActivators;
+    }
+
+    /**
+     * Computes the initial power-up activators of the level, limited to enabled power-ups.
+     *
+     * @param enabledPowerups Power-ups which are enabled.
+     * @return Bitset of initial power-up activators. If all power-ups are enabled, this is shared with the template.
+     */
+    long[] getActivators(EnumSet<GamePowerup> enabledPowerups) {
+        if (enabledPowerups.size() == POWERUPS.length)
+            return this.activators;
+
+        long[] activators = new long[this.words];
+        for (GamePowerup powerup : enabledPowerups) {
+            long[] bits = this.powerupActivators[powerup.ordinal()];
+            for (int w = 0; w < this.words; w++)
+                activators[w] |= bits[w];
+        }
+
+        return activators;
+    }
+}
@@ -0,0 +1,172 @@
+package elkaproj.game;
+
+import elkaproj.Dimensions;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Describes the changes made to a board by a single move, or a full board update (level start or reset). Coordinates
+ * are packed into single ints (see {@link #pack(int, int)}), and the same buffer is reused for every move, so its
+ * contents are only valid until the next move. {@link Dimensions}-based accessors are provided as lazily created
+ * views for consumers that need them.
+ */
+public class MoveDeltas {
+
+    private boolean fullUpdate = true;
+    private int playerFrom, playerTo;
+    private final int[] crateFrom = new int[3], crateTo = new int[3];
+    private int crateMoveCount = 0;
+
+    private Dimensions playerPosition = null;
+    private Set<Dimensions.Delta> crateDeltas = null;
+
+    /**
+     * Packs a pair of coordinates into a single int.
+     *
+     * @param x X coordinate, between 0 and 65535.
+     * @param y Y coordinate, between 0 and 32767.
+     * @return Packed coordinates.
+     */
+    public static int pack(int x, int y) {
+        return (y << 16) | x;
+    }
+
+    /**
+     * Gets the X coordinate of packed coordinates.
+     *
+     * @param packed Packed coordinates.
+     * @return X coordinate.
+     */
+    public static int unpackX(int packed) {
+        return packed & 0xFFFF;
+    }
+
+    /**
+     * Gets the Y coordinate of packed coordinates.
+     *
+     * @param packed Packed coordinates.
+     * @return Y coordinate.
+     */
+    public static int unpackY(int packed) {
+        return packed >>> 16;
+    }
+
+    /**
+     * Gets whether this is a full update, i.e. the whole board may have changed, for example because a level was
+     * started or reset, or a batch of moves was made. In such case no crate moves are described, and the player's
+     * previous position is unknown.
+     *
+     * @return Whether this is a full update.
+     */
+    public boolean isFullUpdate() {
+        return this.fullUpdate;
+    }
+
+    /**
+     * Gets the packed coordinates the player moved from.
+     *
+     * @return Packed coordinates the player moved from.
+     */
+    public int getPlayerFrom() {
+        return this.playerFrom;
+    }
+
+    /**
+     * Gets the packed coordinates the player moved to.
+     *
+     * @return Packed coordinates the player moved to.
+     */
+    public int getPlayerTo() {
+        return this.playerTo;
+    }
+
+    /**
+     * Gets the number of crates moved.
+     *
+     * @return Number of crates moved.
+     */
+    public int getCrateMoveCount() {
+        return this.crateMoveCount;
+    }
+
+    /**
+     * Gets the packed coordinates a crate was moved from.
+     *
+     * @param n Number of the crate move, less than {@link #getCrateMoveCount()}.
+     * @return Packed source coordinates of the crate move.
+     */
+    public int getCrateMoveFrom(int n) {
+        return this.crateFrom[n];
+    }
+
+    /**
+     * Gets the packed coordinates a crate was moved to.
+     *
+     * @param n Number of the crate move, less than {@link #getCrateMoveCount()}.
+     * @return Packed target coordinates of the crate move.
+     */
+    public int getCrateMoveTo(int n) {
+        return this.crateTo[n];
+    }
+
+    /**
+     * Gets the player's current position. The object is created on first access after each move.
+     *
+     * @return Player's current position.
+     */
+    public Dimensions getPlayerPosition() {
+        if (this.playerPosition == null)
+            this.playerPosition = toDimensions(this.playerTo);
+
+        return this.playerPosition;
+    }
+
+    /**
+     * Gets the crate moves as a set of deltas. The set is created on first access after each move.
+     *
+     * @return Set of crate deltas, or null if no crates were moved.
+     */
+    public Set<Dimensions.Delta> getCrateDeltas() {
+        if (this.crateMoveCount == 0)
+            return null;
+
+        if (this.crateDeltas == null) {
+            HashSet<Dimensions.Delta> deltas = new HashSet<>(this.crateMoveCount);
+            for (int n = 0; n < this.crateMoveCount; n++) {
+                deltas.add(new Dimensions.Delta(toDimensions(this.crateFrom[n]), toDimensions(this.crateTo[n])));
+            }
+
+            this.crateDeltas = deltas;
+        }
+
+        return this.crateDeltas;
+    }
+
+    void beginFullUpdate(int player) {
+        this.fullUpdate = true;
+        this.playerFrom = player;
+        this.playerTo = player;
+        this.crateMoveCount = 0;
+        this.playerPosition = null;
+        this.crateDeltas = null;
+    }
+
+    void beginMove(int playerFrom, int playerTo) {
+        this.fullUpdate = false;
+        this.playerFrom = playerFrom;
+        this.playerTo = playerTo;
+        this.crateMoveCount = 0;
+        this.playerPosition = null;
+        this.crateDeltas = null;
+    }
+
+    void addCrateMove(int from, int to) {
+        this.crateFrom[this.crateMoveCount] = from;
+        this.crateTo[this.crateMoveCount++] = to;
+    }
+
+    private static Dimensions toDimensions(int packed) {
+        return new Dimensions(unpackX(packed), unpackY(packed));
+    }
+}
@@ -0,0 +1,164 @@
+package elkaproj.game;
+
+/**
+ * Journal of the moves made on a {@link GameBoard}, used to undo and redo them. Every move is recorded as a single
+ * byte, holding its direction and everything it changed, so that it can be reversed in constant time, without
+ * evaluating the rules again or copying any tiles. Records are kept in a ring buffer; once it is full, the oldest moves
+ * are forgotten.
+ */
+class MoveJournal {
+
+    /**
+     * Record bits: ordinal of the direction of the move.
+     */
+    public static final int DIRECTION_MASK = 0b11;
+
+    /**
+     * Record flag: a crate was pushed.
+     */
+    public static final int PUSH = 1 << 2;
+
+    /**
+     * Record flag: a second crate was pushed, consuming {@link elkaproj.config.GamePowerup#STRENGTH}.
+     */
+    public static final int STRENGTH = 1 << 3;
+
+    /**
+     * Record flag: a crate was pulled, consuming {@link elkaproj.config.GamePowerup#PULL}.
+     */
+    public static final int PULL = 1 << 4;
+
+    /**
+     * Record flag: {@link elkaproj.config.GamePowerup#GHOST} was consumed.
+     */
+    public static final int GHOST = 1 << 5;
+
+    /**
+     * Record flag: a power-up activator was picked up. The kind of the power-up is not recorded, as it is determined by
+     * the cell the player moved to.
+     */
+    public static final int PICKUP = 1 << 6;
+
+    /**
+     * Record flag, set together with {@link #PICKUP}: the picked up power-up was already active.
+     */
+    public static final int PICKUP_HELD = 1 << 7;
+
+    /**
+     * Record flag, set without {@link #PICKUP}: the move was blocked, but consumed GHOST nonetheless. Such records are
+     * undone and redone together with the move preceding them.
+     */
+    public static final int BLOCKED = 1 << 7;
+
+    private final byte[] records;
+    private final int mask;
+    private int first = 0, position = 0, limit = 0;
+
+    /**
+     * Creates a new, empty journal.
+     *
+     * @param capacity Maximum number of moves remembered by the journal. Rounded up to a power of two.
+     */
+    public MoveJournal(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.records = new byte[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets whether a record denotes a blocked move.
+     *
+     * @param record Record to check.
+     * @return Whether the record denotes a blocked move.
+     */
+    public static boolean isBlocked(int record) {
+        return (record & (BLOCKED | PICKUP)) == BLOCKED;
+    }
+
+    /**
+     * Records a move at the current position. If the record matches the one which would be redone next, the redo
+     * history is kept, otherwise it is discarded.
+     *
+     * @param record Record of the move.
+     */
+    public void record(int record) {
+        int index = this.position & this.mask;
+        if (this.position == this.limit || this.records[index] != (byte) record) {
+            this.records[index] = (byte) record;
+            this.limit = this.position + 1;
+        }
+
+        if (++this.position - this.first > this.records.length)
+            this.first++;
+    }
+
+    /**
+     * Gets whether there is a move to undo.
+     *
+     * @return Whether there is a move to undo.
+     */
+    public boolean canUndo() {
+        return this.position != this.first;
+    }
+
+    /**
+     * Gets whether there is a move to redo.
+     *
+     * @return Whether there is a move to redo.
+     */
+    public boolean canRedo() {
+        return this.position != this.limit;
+    }
+
+    /**
+     * Gets the number of moves which can be undone.
+     *
+     * @return Number of moves which can be undone.
+     */
+    public int getUndoCount() {
+        return this.position - this.first;
+    }
+
+    /**
+     * Gets the number of moves which can be redone.
+     *
+     * @return Number of moves which can be redone.
+     */
+    public int getRedoCount() {
+        return this.limit - this.position;
+    }
+
+    /**
+     * Gets the record of the move which would be undone next. Only valid if {@link #canUndo()} is true.
+     *
+     * @return Record of the move.
+     */
+    public int peekUndo() {
+        return this.records[(this.position - 1) & this.mask] & 0xFF;
+    }
+
+    /**
+     * Gets the record of the move which would be redone next. Only valid if {@link #canRedo()} is true.
+     *
+     * @return Record of the move.
+     */
+    public int peekRedo() {
+        return this.records[this.position & this.mask] & 0xFF;
+    }
+
+    /**
+     * Moves the position back by one record, after the move it describes was undone.
+     */
+    public void stepBack() {
+        this.position--;
+    }
+
+    /**
+     * Forgets all recorded moves.
+     */
+    public void clear() {
+        this.first = 0;
+        this.position = 0;
+        this.limit = 0;
+    }
+}
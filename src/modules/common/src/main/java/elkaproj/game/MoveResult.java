@@ -0,0 +1,284 @@
+package elkaproj.game;
+
+import elkaproj.config.ILevel;
+
+/**
+ * Every change resulting from a single player action: a move, an undone or redone move, or a batch of moves. This
+ * includes the board update, score, power-ups, lives, and the completion of the level or of the whole game, which
+ * {@link IMoveResultHandler}s receive in one notification instead of a sequence of separate events. The controller
+ * reuses the same instance for every action, so its contents are only valid for the duration of the event.
+ */
+public class MoveResult {
+
+    private ILevel level;
+    private int result;
+    private int moveCount;
+    private boolean undo;
+    private boolean changed;
+
+    private GameBoard board;
+    private MoveDeltas deltas;
+
+    private int currentScore;
+    private int totalScore;
+
+    private boolean powerupsChanged;
+    private PowerupSet activePowerups;
+
+    private boolean livesChanged;
+    private int currentLives;
+    private int maxLives;
+
+    private boolean levelCompleted;
+    private int completedLevelScore;
+    private ILevel nextLevel;
+
+    private boolean gameStopped;
+    private boolean gameCompleted;
+
+    MoveResult() {
+    }
+
+    /**
+     * Gets the level the action was made on. If the action completed the level, this is the completed level.
+     *
+     * @return Level the action was made on.
+     */
+    public ILevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the combined result flags of the action, as returned by {@link GameBoard#move(GameMovementDirection, PowerupSet)}.
+     *
+     * @return Result flags.
+     */
+    public int getResult() {
+        return this.result;
+    }
+
+    /**
+     * Gets the number of moves made, or undone, by the action.
+     *
+     * @return Number of moves.
+     */
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    /**
+     * Gets whether the action undid a move.
+     *
+     * @return Whether a move was undone.
+     */
+    public boolean isUndo() {
+        return this.undo;
+    }
+
+    /**
+     * Gets the board after the action. If the action caused the next level to be loaded, this is the board of the new
+     * level.
+     *
+     * @return Current board, or null if the board was not updated.
+     */
+    public GameBoard getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Gets the changes made to the board. If the action caused the next level to be loaded, or was a batch of moves,
+     * this is a full update.
+     *
+     * @return Changes made to the board, or null if the board was not updated.
+     */
+    public MoveDeltas getDeltas() {
+        return this.deltas;
+    }
+
+    /**
+     * Gets the current level score after the action.
+     *
+     * @return Current level score.
+     */
+    public int getCurrentScore() {
+        return this.currentScore;
+    }
+
+    /**
+     * Gets the total score after the action.
+     *
+     * @return Total score.
+     */
+    public int getTotalScore() {
+        return this.totalScore;
+    }
+
+    /**
+     * Gets whether the set of active power-ups changed.
+     *
+     * @return Whether active power-ups changed.
+     */
+    public boolean arePowerupsChanged() {
+        return this.powerupsChanged;
+    }
+
+    /**
+     * Gets the power-ups active after the action, as a read-only view.
+     *
+     * @return Active power-ups.
+     */
+    public PowerupSet getActivePowerups() {
+        return this.activePowerups;
+    }
+
+    /**
+     * Gets whether the number of lives changed.
+     *
+     * @return Whether the number of lives changed.
+     */
+    public boolean areLivesChanged() {
+        return this.livesChanged;
+    }
+
+    /**
+     * Gets the number of remaining lives after the action.
+     *
+     * @return Number of remaining lives.
+     */
+    public int getCurrentLives() {
+        return this.currentLives;
+    }
+
+    /**
+     * Gets the max number of lives the player can have.
+     *
+     * @return Maximum number of lives.
+     */
+    public int getMaxLives() {
+        return this.maxLives;
+    }
+
+    /**
+     * Gets whether the action completed the level.
+     *
+     * @return Whether the level was completed.
+     */
+    public boolean isLevelCompleted() {
+        return this.levelCompleted;
+    }
+
+    /**
+     * Gets the final score of the completed level.
+     *
+     * @return Score of the completed level, or 0 if the level was not completed.
+     */
+    public int getCompletedLevelScore() {
+        return this.completedLevelScore;
+    }
+
+    /**
+     * Gets the level loaded after the completed one.
+     *
+     * @return Next level, or null if no level was loaded.
+     */
+    public ILevel getNextLevel() {
+        return this.nextLevel;
+    }
+
+    /**
+     * Gets whether the game was stopped as a result of the action.
+     *
+     * @return Whether the game was stopped.
+     */
+    public boolean isGameStopped() {
+        return this.gameStopped;
+    }
+
+    /**
+     * Gets whether the game was stopped because the last level was completed.
+     *
+     * @return Whether the game was completed.
+     */
+    public boolean isGameCompleted() {
+        return this.gameCompleted;
+    }
+
+    boolean isChanged() {
+        return this.changed;
+    }
+
+    void begin(ILevel level, boolean undo, int currentScore, int totalScore, int currentLives, int maxLives) {
+        this.level = level;
+        this.result = GameBoard.MOVE_BLOCKED;
+        this.moveCount = 0;
+        this.undo = undo;
+        this.changed = false;
+        this.board = null;
+        this.deltas = null;
+        this.currentScore = currentScore;
+        this.totalScore = totalScore;
+        this.powerupsChanged = false;
+        this.activePowerups = null;
+        this.livesChanged = false;
+        this.currentLives = currentLives;
+        this.maxLives = maxLives;
+        this.levelCompleted = false;
+        this.completedLevelScore = 0;
+        this.nextLevel = null;
+        this.gameStopped = false;
+        this.gameCompleted = false;
+    }
+
+    void setMoves(int result, int moveCount) {
+        this.result = result;
+        this.moveCount = moveCount;
+    }
+
+    void setBoard(GameBoard board, MoveDeltas deltas) {
+        this.board = board;
+        this.deltas = deltas;
+        this.changed = true;
+    }
+
+    void setScore(int currentScore, int totalScore) {
+        this.currentScore = currentScore;
+        this.totalScore = totalScore;
+        this.changed = true;
+    }
+
+    void setPowerups(PowerupSet activePowerups) {
+        this.powerupsChanged = true;
+        this.activePowerups = activePowerups;
+        this.changed = true;
+    }
+
+    void setActivePowerups(PowerupSet activePowerups) {
+        this.activePowerups = activePowerups;
+    }
+
+    void setLives(int currentLives, int maxLives) {
+        this.livesChanged = true;
+        this.currentLives = currentLives;
+        this.maxLives = maxLives;
+        this.changed = true;
+    }
+
+    void setLevelCompleted(int score) {
+        this.levelCompleted = true;
+        this.completedLevelScore = score;
+        this.changed = true;
+    }
+
+    void setNextLevel(ILevel nextLevel, int totalScore) {
+        this.nextLevel = nextLevel;
+        this.totalScore = totalScore;
+        this.changed = true;
+    }
+
+    void setGameStopped(int totalScore, boolean completed) {
+        this.gameStopped = true;
+        this.gameCompleted = completed;
+        this.totalScore = totalScore;
+        this.changed = true;
+    }
+}
@@ -0,0 +1,67 @@
+package elkaproj.game;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded, lock-free queue for many producer threads and a single consumer thread. Producers link new nodes by
+ * swapping the tail, so offering never blocks or retries; the consumer follows the links from its own head.
+ *
+ * @param <E> Type of queued elements.
+ */
+class MpscQueue<E> {
+
+    private final AtomicReference<Node<E>> tail;
+    private Node<E> head;
+
+    MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Appends an element. Can be called from any thread.
+     *
+     * @param element Element to append.
+     */
+    void offer(E element) {
+        Node<E> node = new Node<>(element);
+        Node<E> previous = this.tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Removes the first element. Must only be called from the consumer thread.
+     *
+     * @return First element, or null if the queue is empty, or the first element is not linked yet.
+     */
+    E poll() {
+        Node<E> next = this.head.next;
+        if (next == null)
+            return null;
+
+        E element = next.element;
+        next.element = null;
+        this.head = next;
+        return element;
+    }
+
+    /**
+     * Gets whether there are no elements to poll. Must only be called from the consumer thread.
+     *
+     * @return Whether the queue is empty.
+     */
+    boolean isEmpty() {
+        return this.head.next == null;
+    }
+
+    private static class Node<E> {
+
+        private E element;
+        private volatile Node<E> next;
+
+        private Node(E element) {
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package elkaproj.game;
+
+import elkaproj.config.GamePowerup;
+
+import java.util.AbstractSet;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of power-ups stored as a bitmask, with bit <code>1 &lt;&lt; powerup.ordinal()</code> set for every power-up in
+ * the set. The set is read-only outside of this package: the game updates it in place, and hands it to handlers as a
+ * view of the player's active power-ups, so no copies are made as power-ups are picked up and consumed. Handlers which
+ * need to keep the power-ups should copy the mask, or use {@link #toEnumSet()}.
+ */
+public final class PowerupSet extends AbstractSet<GamePowerup> {
+
+    private static final GamePowerup[] POWERUPS = GamePowerup.values();
+
+    /**
+     * Mask of all power-ups.
+     */
+    public static final int ALL = (1 << POWERUPS.length) - 1;
+
+    private int mask = 0;
+
+    PowerupSet() {
+    }
+
+    /**
+     * Gets the bitmask of power-ups in the set.
+     *
+     * @return Bitmask of power-ups.
+     */
+    public int getMask() {
+        return this.mask;
+    }
+
+    void setMask(int mask) {
+        this.mask = mask & ALL;
+    }
+
+    /**
+     * Gets whether the set contains a power-up.
+     *
+     * @param powerup Power-up to check.
+     * @return Whether the power-up is in the set.
+     */
+    public boolean has(GamePowerup powerup) {
+        return (this.mask & 1 << powerup.ordinal()) != 0;
+    }
+
+    /**
+     * Copies the set into a new, modifiable {@link EnumSet}.
+     *
+     * @return Copy of the set.
+     */
+    public EnumSet<GamePowerup> toEnumSet() {
+        return toEnumSet(this.mask);
+    }
+
+    /**
+     * Converts a bitmask of power-ups into a new {@link EnumSet}.
+     *
+     * @param mask Bitmask of power-ups.
+     * @return Set of power-ups in the mask.
+     */
+    public static EnumSet<GamePowerup> toEnumSet(int mask) {
+        EnumSet<GamePowerup> powerups = EnumSet.noneOf(GamePowerup.class);
+        for (GamePowerup powerup : POWERUPS) {
+            if ((mask & 1 << powerup.ordinal()) != 0)
+                powerups.add(powerup);
+        }
+
+        return powerups;
+    }
+
+    /**
+     * Converts a set of power-ups into a bitmask.
+     *
+     * @param powerups Set of power-ups.
+     * @return Bitmask of power-ups in the set.
+     */
+    public static int toMask(Iterable<GamePowerup> powerups) {
+        if (powerups instanceof PowerupSet)
+            return ((PowerupSet) powerups).mask;
+
+        int mask = 0;
+        for (GamePowerup powerup : powerups)
+            mask |= 1 << powerup.ordinal();
+
+        return mask;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof GamePowerup && this.has((GamePowerup) o);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.mask == 0;
+    }
+
+    @Override
+    public int size() {
+        return Integer.bitCount(this.mask);
+    }
+
+    @Override
+    public Iterator<GamePowerup> iterator() {
+        return new Iterator<GamePowerup>() {
+
+            private int remaining = PowerupSet.this.mask;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining != 0;
+            }
+
+            @Override
+            public GamePowerup next() {
+                if (this.remaining == 0)
+                    throw new NoSuchElementException();
+
+                int ordinal = Integer.numberOfTrailingZeros(this.remaining);
+                this.remaining &= this.remaining - 1;
+                return POWERUPS[ordinal];
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package elkaproj.game;
+
+/**
+ * Layout of replay logs written by {@link ReplayRecorder} and played by {@link ReplayPlayer}. A log starts with the 4 bytes of {@link #MAGIC} and the
+ * format version as a variable-length integer, followed by records. Every record starts with a tag byte, holding the
+ * record kind in its low 4 bits, followed by the time elapsed since the previous record, in milliseconds of level time
+ * of the {@link GameClock}, as a variable-length integer. Some kinds carry further fields:
+ * <ul>
+ *     <li>{@link #MOVE}: the direction's ordinal in bits 4-5 of the tag, and {@link #FLAG_BLOCKED} if the move was
+ *     blocked, but consumed {@link elkaproj.config.GamePowerup#GHOST}.</li>
+ *     <li>{@link #LEVEL}: the ordinal of the level started, as a variable-length integer.</li>
+ *     <li>{@link #STOP}: {@link #FLAG_COMPLETED} in the tag if the game was completed, and the total score, as a
+ *     zig-zag variable-length integer.</li>
+ *     <li>{@link #RESTORE}: the length of the saved state, as a variable-length integer, and the saved state, as written
+ *     by {@link GameController#saveState()}.</li>
+ *     <li>{@link #KEYFRAME}: the same fields as {@link #RESTORE}. Keyframes hold the state after the records before
+ *     them, and are only written after moves, so seeking can start from them instead of the beginning of the log.</li>
+ *     <li>{@link #GAP}: the number of records dropped, as a variable-length integer. A {@link #START} or
+ *     {@link #RESTORE} record always follows a gap, so the game can be followed again from there on.</li>
+ * </ul>
+ * A typical move takes 2 or 3 bytes.
+ */
+final class ReplayFormat {
+
+    static final byte[] MAGIC = {'E', 'R', 'P', 'L'};
+    static final int VERSION = 5;
+
+    static final int KIND_MASK = 0x0F;
+    static final int DIRECTION_SHIFT = 4;
+    static final int DIRECTION_MASK = 0b11;
+    static final int FLAG_COMPLETED = 1 << 4;
+    static final int FLAG_BLOCKED = 1 << 6;
+
+    // record kinds
+    static final int MOVE = 0;
+    static final int UNDO = 1;
+    static final int REDO = 2;
+    static final int RESET = 3;
+    static final int PAUSE = 4;
+    static final int RESUME = 5;
+    static final int LEVEL = 6;
+    static final int START = 7;
+    static final int STOP = 8;
+    static final int RESTORE = 9;
+    static final int GAP = 10;
+    static final int KEYFRAME = 11;
+
+    private ReplayFormat() {
+    }
+}
@@ -0,0 +1,556 @@
+package elkaproj.game;
+
+import elkaproj.config.IConfiguration;
+import elkaproj.config.ILevelPack;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Plays a replay log written by {@link ReplayRecorder} on a headless {@link GameController}. Handlers registered with
+ * the player's controller, such as a {@link GameEventPipeline}, see the recorded game as it is played, so it can be
+ * rendered like a live one. The log is indexed once, when the player is created; playback can run at the recorded
+ * pace, at any multiple of it, or as fast as possible, and can be moved to any point in time.
+ * <p>
+ * Seeking restores the nearest keyframe or restored state before the target, unless the current position is closer, and
+ * plays the records from there on, so its cost is bounded by the keyframe interval of the recording, rather than the
+ * length of the log. Saved states do not hold the undo history, so a keyframe is only used for targets which do not
+ * undo moves made before it; if an undo played later needs that history, the game is restored from an older one.
+ * <p>
+ * The controller's clock is driven by the recorded time deltas rather than the wall clock, so level times, and the
+ * scores depending on them, match the recording.
+ * Like the controller, a player must only be accessed by one thread at a time, e.g. the game thread of a
+ * {@link GameActor} running its controller.
+ */
+public class ReplayPlayer {
+
+    /**
+     * Playback speed at which all records are played at once.
+     */
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    private static final GameMovementDirection[] DIRECTIONS = GameMovementDirection.values();
+
+    private final GameController gameController;
+    private final LongSupplier nanoTime;
+    private final byte[] log;
+
+    // per record: offset in the log, time since the start of the log in milliseconds, and the keyframe or restored state
+    // the state after the record can be restored from, or -1 if it can only be reached from the start
+    private final int recordCount;
+    private final int[] offsets;
+    private final long[] times;
+    private final int[] anchors;
+    private final BitSet pausedAfter = new BitSet();
+    private final int keyframeCount;
+
+    private int next = 0;
+    // keyframe or restored state the game was restored from, or -1 if it was played from the start
+    private int base = -1;
+    private long clockNanos = 0;
+
+    private boolean playing = false;
+    private double speed = 1;
+    private long positionNanos = 0;
+    private long playingSince = 0;
+
+    /**
+     * Creates a player, and indexes the log. The controller is created with given configuration and level pack, which
+     * must be the same as those the game was recorded with.
+     *
+     * @param configuration Configuration the game was recorded with.
+     * @param levelPack     Level pack the game was recorded with.
+     * @param log           Replay log. A log cut off in the middle of a record, e.g. because the recording was
+     *                      interrupted, is played up to its last complete record. Must not be modified.
+     * @throws IllegalArgumentException The log is not a replay log, or uses an unsupported version of the format.
+     */
+    public ReplayPlayer(IConfiguration configuration, ILevelPack levelPack, byte[] log) {
+        this(configuration, levelPack, log, System::nanoTime);
+    }
+
+    ReplayPlayer(IConfiguration configuration, ILevelPack levelPack, byte[] log, LongSupplier nanoTime) {
+        this.gameController = new GameController(configuration, levelPack, ForkJoinPool.commonPool(), new GameClock(() -> this.clockNanos));
+        this.nanoTime = nanoTime;
+        this.log = log;
+
+        VarIntReader in = new VarIntReader(log);
+        for (byte b : ReplayFormat.MAGIC) {
+            if (!in.hasRemaining() || in.readByte() != (b & 0xFF))
+                throw new IllegalArgumentException("Not a replay log.");
+        }
+
+        int version = in.readVarInt();
+        if (version != ReplayFormat.VERSION)
+            throw new IllegalArgumentException(String.format("Unsupported replay version: %d.", version));
+
+        int[] offsets = new int[64];
+        long[] times = new long[64];
+        int[] anchors = new int[64];
+        int count = 0, keyframes = 0;
+        long time = 0;
+
+        // keyframes which can be restored, with the undo depth and generation of the undo history they were made at;
+        // an undo below a keyframe's depth in the same generation needs history the keyframe does not hold
+        int[] stack = new int[16], stackDepths = new int[16], stackGenerations = new int[16];
+        int stackSize = 0;
+        int depth = 0, generation = 0;
+        boolean paused = false;
+
+        while (in.hasRemaining()) {
+            int offset = in.getPosition();
+            int tag = in.readByte();
+            int kind = tag & ReplayFormat.KIND_MASK;
+            if (kind > ReplayFormat.KEYFRAME)
+                throw new IllegalArgumentException(String.format("Unknown record kind: %d.", kind));
+
+            try {
+                time += in.readVarLong();
+                skipFields(in, kind);
+            } catch (IllegalArgumentException ex) {
+                break;
+            }
+
+            boolean anchor = false;
+            switch (kind) {
+                case ReplayFormat.MOVE:
+                    // blocked moves are undone together with the move before them
+                    if ((tag & ReplayFormat.FLAG_BLOCKED) == 0)
+                        depth++;
+                    break;
+
+                case ReplayFormat.REDO:
+                    depth++;
+                    break;
+
+                case ReplayFormat.UNDO:
+                    depth--;
+                    while (stackSize > 0 && stackGenerations[stackSize - 1] == generation && stackDepths[stackSize - 1] > depth)
+                        stackSize--;
+
+                    depth = Math.max(depth, 0);
+                    break;
+
+                case ReplayFormat.PAUSE:
+                    paused = true;
+                    break;
+
+                case ReplayFormat.RESUME:
+                    paused = false;
+                    break;
+
+                case ReplayFormat.KEYFRAME:
+                    anchor = true;
+                    keyframes++;
+                    break;
+
+                case ReplayFormat.RESTORE:
+                    anchor = true;
+                    keyframes++;
+                    generation++;
+                    depth = 0;
+                    break;
+
+                // these clear the undo history
+                case ReplayFormat.RESET:
+                case ReplayFormat.LEVEL:
+                case ReplayFormat.START:
+                case ReplayFormat.STOP:
+                    generation++;
+                    depth = 0;
+                    break;
+            }
+
+            if (anchor) {
+                if (stackSize == stack.length) {
+                    stack = Arrays.copyOf(stack, stackSize * 2);
+                    stackDepths = Arrays.copyOf(stackDepths, stackSize * 2);
+                    stackGenerations = Arrays.copyOf(stackGenerations, stackSize * 2);
+                }
+
+                stack[stackSize] = count;
+                stackDepths[stackSize] = depth;
+                stackGenerations[stackSize] = generation;
+                stackSize++;
+            }
+
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                times = Arrays.copyOf(times, count * 2);
+                anchors = Arrays.copyOf(anchors, count * 2);
+            }
+
+            offsets[count] = offset;
+            times[count] = time;
+            anchors[count] = stackSize > 0 ? stack[stackSize - 1] : -1;
+            if (paused)
+                this.pausedAfter.set(count);
+
+            count++;
+        }
+
+        this.recordCount = count;
+        this.offsets = offsets;
+        this.times = times;
+        this.anchors = anchors;
+        this.keyframeCount = keyframes;
+    }
+
+    private static void skipFields(VarIntReader in, int kind) {
+        switch (kind) {
+            case ReplayFormat.LEVEL:
+            case ReplayFormat.GAP:
+                in.readVarLong();
+                break;
+
+            case ReplayFormat.STOP:
+                in.readVarInt();
+                break;
+
+            case ReplayFormat.RESTORE:
+            case ReplayFormat.KEYFRAME:
+                in.skip(in.readVarInt());
+                break;
+        }
+    }
+
+    /**
+     * Gets the controller the log is played on. Handlers can be registered with it, but it must not be controlled
+     * directly.
+     *
+     * @return Controller playing the log.
+     */
+    public GameController getGameController() {
+        return this.gameController;
+    }
+
+    /**
+     * Gets the number of records in the log.
+     *
+     * @return Number of records.
+     */
+    public int getRecordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * Gets the number of records played, i.e. the number of the next record to play.
+     *
+     * @return Number of played records.
+     */
+    public int getPlayedRecordCount() {
+        return this.next;
+    }
+
+    /**
+     * Gets the number of keyframes and restored states in the log, which seeking can start from.
+     *
+     * @return Number of keyframes.
+     */
+    public int getKeyframeCount() {
+        return this.keyframeCount;
+    }
+
+    /**
+     * Gets the duration of the log: the time of its last record.
+     *
+     * @return Duration, in milliseconds.
+     */
+    public long getDuration() {
+        return this.recordCount == 0 ? 0 : this.times[this.recordCount - 1];
+    }
+
+    /**
+     * Gets the current position of the playback.
+     *
+     * @return Time since the start of the log, in milliseconds.
+     */
+    public long getPosition() {
+        return TimeUnit.NANOSECONDS.toMillis(this.getPositionNanos());
+    }
+
+    /**
+     * Gets whether the playback is running.
+     *
+     * @return Whether the log is being played.
+     */
+    public boolean isPlaying() {
+        return this.playing;
+    }
+
+    /**
+     * Gets whether all records were played.
+     *
+     * @return Whether the end of the log was reached.
+     */
+    public boolean isFinished() {
+        return this.next == this.recordCount;
+    }
+
+    /**
+     * Gets the playback speed.
+     *
+     * @return Multiple of the recorded pace the log is played at.
+     */
+    public double getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Sets the playback speed.
+     *
+     * @param speed Multiple of the recorded pace to play the log at, or {@link #MAX_SPEED} to play it as fast as
+     *              possible.
+     */
+    public void setSpeed(double speed) {
+        if (!(speed > 0))
+            throw new IllegalArgumentException("Speed must be positive.");
+
+        this.positionNanos = this.getPositionNanos();
+        this.playingSince = this.nanoTime.getAsLong();
+        this.speed = speed;
+    }
+
+    /**
+     * Starts or resumes the playback. Records become due as time passes, and are played by {@link #update()}.
+     */
+    public void play() {
+        if (this.playing)
+            return;
+
+        this.playing = true;
+        this.playingSince = this.nanoTime.getAsLong();
+    }
+
+    /**
+     * Pauses the playback. This does not pause the recorded game.
+     */
+    public void pause() {
+        this.positionNanos = this.getPositionNanos();
+        this.playing = false;
+    }
+
+    /**
+     * Plays the records which became due since the last update. Once the last record is played, the playback stops.
+     */
+    public void update() {
+        if (!this.playing)
+            return;
+
+        long position = this.getPositionNanos();
+        while (this.next < this.recordCount && TimeUnit.MILLISECONDS.toNanos(this.times[this.next]) <= position)
+            this.apply(this.next);
+
+        this.clockNanos = position;
+        if (this.next == this.recordCount) {
+            this.positionNanos = position;
+            this.playing = false;
+        }
+    }
+
+    /**
+     * Gets the time until the next record is due.
+     *
+     * @return Number of milliseconds until {@link #update()} has a record to play, 0 if one is due, or
+     * {@link Long#MAX_VALUE} if the playback is paused or finished.
+     */
+    public long getMillisUntilNextRecord() {
+        if (!this.playing || this.next == this.recordCount)
+            return Long.MAX_VALUE;
+
+        long remaining = TimeUnit.MILLISECONDS.toNanos(this.times[this.next]) - this.getPositionNanos();
+        if (remaining <= 0 || this.speed == MAX_SPEED)
+            return 0;
+
+        return (long) Math.ceil(remaining / this.speed / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Plays the next record, regardless of its time, and moves the position to it.
+     *
+     * @return Whether a record was played; false if the end of the log was reached.
+     */
+    public boolean step() {
+        if (this.next == this.recordCount)
+            return false;
+
+        this.apply(this.next);
+        this.moveTo(this.clockNanos);
+        return true;
+    }
+
+    /**
+     * Plays all remaining records at once, and moves the position to the end of the log.
+     */
+    public void playToEnd() {
+        while (this.next < this.recordCount)
+            this.apply(this.next);
+
+        this.moveTo(TimeUnit.MILLISECONDS.toNanos(this.getDuration()));
+    }
+
+    /**
+     * Moves the playback to given time. The game is brought to its state after all records up to that time, starting
+     * from the last usable keyframe before it, or from the current position if it is closer. The playback keeps
+     * running if it was.
+     *
+     * @param millis Time since the start of the log, in milliseconds. Clamped to the duration of the log.
+     */
+    public void seek(long millis) {
+        long position = Math.max(0, Math.min(millis, this.getDuration()));
+
+        // number of records at or before the target
+        int low = 0, high = this.recordCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.times[middle] <= position)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        int target = low;
+        int anchor = target == 0 ? -1 : this.anchors[target - 1];
+        if (target < this.next || anchor >= this.next)
+            this.restore(anchor);
+
+        while (this.next < target)
+            this.apply(this.next);
+
+        this.moveTo(TimeUnit.MILLISECONDS.toNanos(position));
+    }
+
+    private void restore(int anchor) {
+        // a keyframe the controller rejects is skipped, and the game is played to it from the anchor before it instead
+        while (anchor >= 0 && !this.tryRestore(anchor))
+            anchor = anchor == 0 ? -1 : this.anchors[anchor - 1];
+
+        if (anchor < 0) {
+            this.clockNanos = 0;
+            if (this.gameController.isGameRunning())
+                this.gameController.stopGame(false);
+
+            this.setGamePaused(false);
+            this.next = 0;
+        }
+
+        this.base = anchor;
+    }
+
+    private boolean tryRestore(int anchor) {
+        this.clockNanos = TimeUnit.MILLISECONDS.toNanos(this.times[anchor]);
+        this.setGamePaused(this.pausedAfter.get(anchor));
+        try {
+            this.gameController.restoreState(this.readState(anchor));
+        } catch (IllegalArgumentException ex) {
+            // a restored state the recorded game accepted is not expected to fail, so only keyframes are skipped
+            if ((this.log[this.offsets[anchor]] & ReplayFormat.KIND_MASK) != ReplayFormat.KEYFRAME)
+                throw ex;
+
+            return false;
+        }
+
+        this.next = anchor + 1;
+        return true;
+    }
+
+    private void apply(int record) {
+        int tag = this.log[this.offsets[record]] & 0xFF;
+        this.clockNanos = TimeUnit.MILLISECONDS.toNanos(this.times[record]);
+        this.next = record + 1;
+
+        GameController gameController = this.gameController;
+        switch (tag & ReplayFormat.KIND_MASK) {
+            case ReplayFormat.MOVE:
+                gameController.move(DIRECTIONS[tag >>> ReplayFormat.DIRECTION_SHIFT & ReplayFormat.DIRECTION_MASK]);
+                break;
+
+            case ReplayFormat.UNDO:
+                // an undo reaching before the keyframe the game was restored from needs history the keyframe lacks, so
+                // the game is restored from an older one
+                if (this.anchors[record] < this.base) {
+                    this.restore(this.anchors[record]);
+                    while (this.next <= record)
+                        this.apply(this.next);
+
+                    return;
+                }
+
+                gameController.undoMove();
+                break;
+
+            case ReplayFormat.REDO:
+                gameController.redoMove();
+                break;
+
+            case ReplayFormat.RESET:
+                gameController.resetLevel();
+                break;
+
+            case ReplayFormat.PAUSE:
+                this.setGamePaused(true);
+                break;
+
+            case ReplayFormat.RESUME:
+                this.setGamePaused(false);
+                break;
+
+            case ReplayFormat.START:
+                // a game is only still running if its stop was lost in a gap
+                if (gameController.isGameRunning())
+                    gameController.stopGame(false);
+
+                gameController.startGame();
+                break;
+
+            case ReplayFormat.STOP:
+                // completed games were already stopped by their last move
+                if (gameController.isGameRunning())
+                    gameController.stopGame((tag & ReplayFormat.FLAG_COMPLETED) != 0);
+                break;
+
+            case ReplayFormat.RESTORE:
+                gameController.restoreState(this.readState(record));
+                break;
+
+            // levels are completed by the moves before them, the state after a gap is restored by the next record, and
+            // keyframes are only restored when seeking
+        }
+    }
+
+    private byte[] readState(int record) {
+        int offset = this.offsets[record];
+        VarIntReader in = new VarIntReader(this.log, offset, this.log.length - offset);
+        in.readByte();
+        in.readVarLong();
+
+        int length = in.readVarInt();
+        int start = in.getPosition();
+        return Arrays.copyOfRange(this.log, start, start + length);
+    }
+
+    private void setGamePaused(boolean paused) {
+        if (this.gameController.isPaused() != paused)
+            this.gameController.togglePause();
+    }
+
+    private void moveTo(long positionNanos) {
+        this.clockNanos = positionNanos;
+        this.positionNanos = positionNanos;
+        this.playingSince = this.nanoTime.getAsLong();
+    }
+
+    private long getPositionNanos() {
+        if (!this.playing)
+            return this.positionNanos;
+
+        long end = TimeUnit.MILLISECONDS.toNanos(this.getDuration());
+        if (this.speed == MAX_SPEED)
+            return end;
+
+        double played = (this.nanoTime.getAsLong() - this.playingSince) * this.speed;
+        return (long) Math.min(this.positionNanos + played, end);
+    }
+}
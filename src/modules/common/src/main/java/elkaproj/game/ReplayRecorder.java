@@ -0,0 +1,352 @@
+package elkaproj.game;
+
+import elkaproj.DebugWriter;
+import elkaproj.config.ILevel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records a game into a compact binary replay log, laid out as described by {@link ReplayFormat}. The recorder
+ * registers itself with a controller, and encodes every input and lifecycle event on the thread driving the controller
+ * into a bounded ring buffer, which a background thread drains into the output stream. The thread driving the
+ * controller never waits for the output: when the ring is full, records are dropped and counted, and the log is marked
+ * with a gap, followed by a full saved state, at the next start of a game, level reset or state restore.
+ * <p>
+ * Every game start, and every given number of moves, is followed by a keyframe holding a full saved state, which lets
+ * a {@link ReplayPlayer} seek without playing the log from the start. Keyframes which do not fit in the ring are skipped,
+ * without marking a gap.
+ * <p>
+ * Time deltas are measured with the controller's {@link GameClock}, which runs while a level is played, whether or not
+ * timers are active, and stops while the game is paused.
+ */
+public class ReplayRecorder implements IPlayerInputHandler, IGameLifecycleHandler, Closeable {
+
+    /**
+     * Number of moves between keyframes used by default.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 256;
+
+    private static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final GameController gameController;
+    private final OutputStream output;
+    private final int keyframeInterval;
+    private final byte[] ring;
+    private final int mask;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final Thread writerThread;
+
+    private volatile boolean closed = false;
+    private volatile boolean parked = false;
+    private volatile IOException failure = null;
+
+    // producer state
+    private final VarIntWriter record = new VarIntWriter(64);
+    private long lastMillis = 0;
+    private boolean inSync;
+    private long gapSize = 0;
+    private long droppedCount = 0;
+    private int movesSinceKeyframe = 0;
+
+    /**
+     * Creates a recorder, which writes a keyframe every {@link #DEFAULT_KEYFRAME_INTERVAL} moves, registers it with a
+     * controller, and starts its writer thread.
+     *
+     * @param gameController Controller to record the game of.
+     * @param output         Stream to write the log to. It is closed together with the recorder.
+     * @param capacity       Size of the ring buffer, in bytes.
+     * @see #ReplayRecorder(GameController, OutputStream, int, int)
+     */
+    public ReplayRecorder(GameController gameController, OutputStream output, int capacity) {
+        this(gameController, output, capacity, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Creates a recorder, registers it with a controller, and starts its writer thread. The recorder should be created
+     * on the thread driving the controller, or before the game is started; if a game is already running, recording
+     * starts at the next start of a game, level reset or state restore.
+     *
+     * @param gameController   Controller to record the game of.
+     * @param output           Stream to write the log to. It is closed together with the recorder.
+     * @param capacity         Size of the ring buffer, in bytes. Rounded up to a power of 2. It must be large enough to
+     *                         hold a saved state of the largest level, or the log is not resynchronized after a gap, and
+     *                         keyframes are skipped.
+     * @param keyframeInterval Number of moves between keyframes, or 0 to write no keyframes. Shorter intervals make
+     *                         seeking faster, at the cost of a saved state per keyframe.
+     */
+    public ReplayRecorder(GameController gameController, OutputStream output, int capacity, int keyframeInterval) {
+        if (capacity < 16 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 16 and 2^30.");
+
+        if (keyframeInterval < 0)
+            throw new IllegalArgumentException("Keyframe interval must not be negative.");
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+
+        this.gameController = gameController;
+        this.output = output;
+        this.keyframeInterval = keyframeInterval;
+        this.ring = new byte[size];
+        this.mask = size - 1;
+        this.inSync = !gameController.isGameRunning();
+
+        for (byte b : ReplayFormat.MAGIC)
+            this.record.writeByte(b);
+
+        this.record.writeVarInt(ReplayFormat.VERSION);
+        this.offer();
+        this.record.reset();
+
+        gameController.addLifecycleHandler(this);
+        gameController.addPlayerInputHandler(this);
+
+        this.writerThread = new Thread(this::run, "replay-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Gets the number of bytes of the log recorded so far, including those not written to the stream yet.
+     *
+     * @return Number of recorded bytes.
+     */
+    public long getRecordedByteCount() {
+        return this.written.get();
+    }
+
+    /**
+     * Gets the number of records dropped so far, because the ring buffer was full. Must be called on the thread driving
+     * the controller.
+     *
+     * @return Number of dropped records.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount;
+    }
+
+    /**
+     * Stops recording, waits for the writer thread to write out the recorded records, and closes the stream. The
+     * recorder stays registered with the controller, but ignores further events.
+     *
+     * @throws IOException Writing the log failed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            LockSupport.unpark(this.writerThread);
+
+            try {
+                this.writerThread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            this.output.close();
+        }
+
+        if (this.failure != null)
+            throw this.failure;
+    }
+
+    @Override
+    public void onMoveApplied(GameMovementDirection direction, int result) {
+        boolean accepted = (result & GameBoard.MOVE_ACCEPTED) != 0;
+        this.begin(ReplayFormat.MOVE | direction.ordinal() << ReplayFormat.DIRECTION_SHIFT | (accepted ? 0 : ReplayFormat.FLAG_BLOCKED));
+        this.commit(false);
+
+        if (accepted)
+            this.movesSinceKeyframe++;
+    }
+
+    @Override
+    public void onUndoApplied(int result) {
+        this.begin(ReplayFormat.UNDO);
+        this.commit(false);
+    }
+
+    @Override
+    public void onRedoApplied(int result) {
+        this.begin(ReplayFormat.REDO);
+        this.commit(false);
+    }
+
+    @Override
+    public void onInputCompleted() {
+        // the keyframe follows the records of the move's effects, such as moving to the next level
+        if (this.keyframeInterval > 0 && this.movesSinceKeyframe >= this.keyframeInterval && this.gameController.isGameRunning())
+            this.writeKeyframe();
+    }
+
+    @Override
+    public void onStateRestored(byte[] state) {
+        this.beginGap();
+        this.beginState(ReplayFormat.RESTORE, state);
+        this.commit(true);
+        this.movesSinceKeyframe = 0;
+    }
+
+    @Override
+    public void onGameStarted(ILevel currentLevel, int currentLives) {
+        this.beginGap();
+        this.begin(ReplayFormat.START);
+        this.commit(true);
+
+        if (this.keyframeInterval > 0)
+            this.writeKeyframe();
+    }
+
+    @Override
+    public void onGameStopped(int totalScore, boolean completed) {
+        this.begin(ReplayFormat.STOP | (completed ? ReplayFormat.FLAG_COMPLETED : 0));
+        this.record.writeSignedVarInt(totalScore);
+        this.commit(false);
+    }
+
+    @Override
+    public void onNextLevel(ILevel previousLevel, int previousLevelScore, ILevel currentLevel, int totalScore) {
+        this.begin(ReplayFormat.LEVEL);
+        this.record.writeVarInt(currentLevel.getOrdinal());
+        this.commit(false);
+    }
+
+    @Override
+    public void onLevelReset(ILevel currentLevel) {
+        if (this.inSync || !this.gameController.isGameRunning()) {
+            this.begin(ReplayFormat.RESET);
+            this.commit(false);
+            return;
+        }
+
+        // after a gap, the state after the reset replaces the reset itself
+        this.beginGap();
+        this.beginState(ReplayFormat.RESTORE, this.gameController.saveState());
+        this.commit(true);
+    }
+
+    @Override
+    public void onGamePaused() {
+        this.begin(ReplayFormat.PAUSE);
+        this.commit(false);
+    }
+
+    @Override
+    public void onGameResumed() {
+        this.begin(ReplayFormat.RESUME);
+        this.commit(false);
+    }
+
+    private void begin(int tag) {
+        long now = this.gameController.getGameClock().getElapsedMillis();
+        this.record.writeByte(tag);
+        this.record.writeVarLong(Math.max(now - this.lastMillis, 0));
+        this.lastMillis = now;
+    }
+
+    private boolean beginGap() {
+        if (this.inSync)
+            return false;
+
+        this.begin(ReplayFormat.GAP);
+        this.record.writeVarLong(this.gapSize);
+        return true;
+    }
+
+    private void beginState(int kind, byte[] state) {
+        this.begin(kind);
+        this.record.writeVarInt(state.length);
+        for (byte b : state)
+            this.record.writeByte(b);
+    }
+
+    private void writeKeyframe() {
+        this.movesSinceKeyframe = 0;
+        boolean resync = this.beginGap();
+        this.beginState(ReplayFormat.KEYFRAME, this.gameController.saveState());
+        if (resync) {
+            this.commit(true);
+            return;
+        }
+
+        // keyframes are optional, so one which does not fit leaves the log in sync
+        this.offer();
+        this.record.reset();
+    }
+
+    // hands the records begun since the last commit to the writer thread; once a record is dropped, records are only
+    // accepted again if they resynchronize the log
+    private void commit(boolean resync) {
+        if ((this.inSync || resync) && this.offer()) {
+            this.inSync = true;
+            this.gapSize = 0;
+        } else {
+            this.inSync = false;
+            this.gapSize++;
+            this.droppedCount++;
+        }
+
+        this.record.reset();
+    }
+
+    private boolean offer() {
+        int length = this.record.getLength();
+        long position = this.written.get();
+        if (this.closed || this.failure != null || length > this.ring.length - (position - this.drained.get()))
+            return false;
+
+        int offset = (int) position & this.mask;
+        int first = Math.min(length, this.ring.length - offset);
+        System.arraycopy(this.record.getBuffer(), 0, this.ring, offset, first);
+        System.arraycopy(this.record.getBuffer(), first, this.ring, 0, length - first);
+        this.written.lazySet(position + length);
+
+        // the writer drains the ring periodically on its own, and is only woken up early once the ring is half full
+        if (this.parked && position + length - this.drained.get() > this.ring.length >>> 1)
+            LockSupport.unpark(this.writerThread);
+
+        return true;
+    }
+
+    private void run() {
+        boolean dirty = false;
+        try {
+            while (true) {
+                // closing is checked first, so records made before the recorder was closed are always written
+                boolean closed = this.closed;
+                long position = this.drained.get(), available = this.written.get();
+                if (position == available) {
+                    if (dirty)
+                        this.output.flush();
+
+                    dirty = false;
+                    if (closed)
+                        break;
+
+                    this.parked = true;
+                    if (!this.closed && this.written.get() == position)
+                        LockSupport.parkNanos(this, FLUSH_INTERVAL);
+
+                    this.parked = false;
+                    continue;
+                }
+
+                int offset = (int) position & this.mask;
+                int length = (int) Math.min(available - position, this.ring.length - offset);
+                this.output.write(this.ring, offset, length);
+                this.drained.lazySet(position + length);
+                dirty = true;
+            }
+        } catch (IOException ex) {
+            this.failure = ex;
+            DebugWriter.INSTANCE.logError("REPLAY", ex, "Failed to write replay log.");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package elkaproj.game;
+
+/**
+ * Reads values written by a {@link VarIntWriter}. Reading past the end of the data, or an overlong integer, throws
+ * {@link IllegalArgumentException}.
+ */
+class VarIntReader {
+
+    private final byte[] buffer;
+    private final int end;
+    private int position;
+
+    VarIntReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    VarIntReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    int readByte() {
+        if (this.position >= this.end)
+            throw new IllegalArgumentException("Unexpected end of data.");
+
+        return this.buffer[this.position++] & 0xFF;
+    }
+
+    int readVarInt() {
+        long value = this.readVarLong();
+        if ((value >>> 32) != 0)
+            throw new IllegalArgumentException("Integer out of range.");
+
+        return (int) value;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = this.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IllegalArgumentException("Integer too long.");
+    }
+
+    int readSignedVarInt() {
+        int value = this.readVarInt();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    long readLong() {
+        long value = 0;
+        for (int i = 0; i < 8; i++)
+            value |= (long) this.readByte() << (i << 3);
+
+        return value;
+    }
+
+    void skip(int length) {
+        if (length < 0 || length > this.end - this.position)
+            throw new IllegalArgumentException("Unexpected end of data.");
+
+        this.position += length;
+    }
+
+    int getPosition() {
+        return this.position;
+    }
+
+    boolean hasRemaining() {
+        return this.position < this.end;
+    }
+}
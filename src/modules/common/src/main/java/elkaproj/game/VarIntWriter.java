@@ -0,0 +1,63 @@
+package elkaproj.game;
+
+import java.util.Arrays;
+
+/**
+ * Writes unsigned LEB128 variable-length integers into a growable byte array. Values below 128 take a single byte.
+ */
+class VarIntWriter {
+
+    private byte[] buffer;
+    private int length = 0;
+
+    VarIntWriter(int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    void writeByte(int value) {
+        if (this.length == this.buffer.length)
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+
+        this.buffer[this.length++] = (byte) value;
+    }
+
+    void writeVarInt(int value) {
+        this.writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            this.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        this.writeByte((int) value);
+    }
+
+    void writeSignedVarInt(int value) {
+        // zig-zag encoding keeps small negative values small
+        this.writeVarInt(value << 1 ^ value >> 31);
+    }
+
+    void writeLong(long value) {
+        for (int i = 0; i < 8; i++)
+            this.writeByte((int) (value >>> (i << 3)));
+    }
+
+    int getLength() {
+        return this.length;
+    }
+
+    void reset() {
+        this.length = 0;
+    }
+
+    // the first getLength() bytes are valid; the array is replaced as the writer grows
+    byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.length);
+    }
+}
@@ -0,0 +1,137 @@
+package elkaproj.game.simulation;
+
+import elkaproj.config.IConfiguration;
+import elkaproj.config.IConfigurationLoader;
+import elkaproj.config.ILevelPack;
+import elkaproj.config.ILevelPackLoader;
+import elkaproj.game.GameController;
+import elkaproj.game.GameMovementDirection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+/**
+ * Runs headless games of a level pack, without any UI attached. Every game is played by its own
+ * {@link GameController} on the supplied executor, with moves provided by an {@link IMoveSource}, and the outcomes of
+ * all games are aggregated into a {@link SimulationReport}.
+ */
+public class GameSimulator {
+
+    private final IConfiguration configuration;
+    private final ILevelPack levelPack;
+    private final Executor executor;
+    private final long moveLimit;
+
+    /**
+     * Creates a new simulator.
+     *
+     * @param configuration Configuration of the simulated games.
+     * @param levelPack     Level pack to play through.
+     * @param executor      Executor to run the games on. Games are independent of one another, so they run in parallel
+     *                      on multi-threaded executors.
+     * @param moveLimit     Maximum number of moves made on a single level, after which the game is abandoned.
+     */
+    public GameSimulator(IConfiguration configuration, ILevelPack levelPack, Executor executor, long moveLimit) {
+        this.configuration = configuration;
+        this.levelPack = levelPack;
+        this.executor = executor;
+        this.moveLimit = moveLimit;
+    }
+
+    /**
+     * Creates a new simulator for the configuration and level pack provided by a configuration loader.
+     *
+     * @param loader    Loader to load the configuration and level pack with.
+     * @param executor  Executor to run the games on.
+     * @param moveLimit Maximum number of moves made on a single level, after which the game is abandoned.
+     * @return Created simulator.
+     * @throws IOException Loading the level pack failed.
+     */
+    public static GameSimulator load(IConfigurationLoader loader, Executor executor, long moveLimit) throws IOException {
+        IConfiguration configuration = loader.load();
+        try (ILevelPackLoader levelPackLoader = loader.getLevelPackLoader()) {
+            return new GameSimulator(configuration, levelPackLoader.loadPack(configuration.getLevelPackId()), executor, moveLimit);
+        }
+    }
+
+    /**
+     * Gets the level pack the games are played on.
+     *
+     * @return Simulated level pack.
+     */
+    public ILevelPack getLevelPack() {
+        return this.levelPack;
+    }
+
+    /**
+     * Runs a number of games, and waits for all of them to finish.
+     *
+     * @param games       Number of games to run.
+     * @param moveSources Creates the move source of each game, given the number of the game.
+     * @return Aggregated results of the games.
+     */
+    public SimulationReport run(int games, IntFunction<IMoveSource> moveSources) {
+        long start = System.nanoTime();
+
+        List<CompletableFuture<SimulatedGame>> futures = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            int game = i;
+            futures.add(CompletableFuture.supplyAsync(() -> this.simulate(moveSources.apply(game)), this.executor));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        long elapsed = System.nanoTime() - start;
+
+        int levelCount = this.levelPack.getCount(), gamesCompleted = 0;
+        long moves = 0, levelsCompleted = 0;
+        int[] attempts = new int[levelCount], completions = new int[levelCount], abandons = new int[levelCount];
+        long[] levelMoves = new long[levelCount], scores = new long[levelCount];
+        for (CompletableFuture<SimulatedGame> future : futures) {
+            SimulatedGame game = future.join();
+            moves += game.totalMoves;
+            if (game.completed)
+                gamesCompleted++;
+
+            for (int level = 0; level < levelCount; level++) {
+                attempts[level] += game.attempts[level];
+                completions[level] += game.completions[level];
+                abandons[level] += game.abandons[level];
+                levelMoves[level] += game.moves[level];
+                scores[level] += game.scores[level];
+                levelsCompleted += game.completions[level];
+            }
+        }
+
+        List<LevelResult> levelResults = new ArrayList<>(levelCount);
+        for (int level = 0; level < levelCount; level++)
+            levelResults.add(new LevelResult(this.levelPack.getLevel(level), attempts[level], completions[level], abandons[level], levelMoves[level], scores[level]));
+
+        return new SimulationReport(games, gamesCompleted, moves, levelsCompleted, elapsed, levelResults);
+    }
+
+    private SimulatedGame simulate(IMoveSource moveSource) {
+        SimulatedGame game = new SimulatedGame(this.levelPack.getCount());
+        GameController controller = new GameController(this.configuration, this.levelPack, this.executor);
+        controller.addGameEventHandler(game);
+        controller.addLevelScoreEventHandler(game);
+
+        controller.startGame();
+        while (controller.isGameRunning()) {
+            GameMovementDirection direction = game.getLevelMoves() < this.moveLimit ? moveSource.nextMove(controller) : null;
+            if (direction == null) {
+                game.abandon();
+                controller.stopGame(false);
+                break;
+            }
+
+            game.countMove();
+            controller.move(direction);
+        }
+
+        return game;
+    }
+}
@@ -0,0 +1,19 @@
+package elkaproj.game.simulation;
+
+import elkaproj.game.GameController;
+import elkaproj.game.GameMovementDirection;
+
+/**
+ * Provides moves for a simulated game. Each simulated game gets its own instance, so implementations do not need to be
+ * thread-safe.
+ */
+public interface IMoveSource {
+
+    /**
+     * Gets the next move to make.
+     *
+     * @param controller Controller of the simulated game, which can be used to inspect the state of the game.
+     * @return Next move to make, or null to abandon the game.
+     */
+    GameMovementDirection nextMove(GameController controller);
+}
@@ -0,0 +1,92 @@
+package elkaproj.game.simulation;
+
+import elkaproj.config.ILevel;
+
+/**
+ * Aggregated outcomes of a single level across all simulated games.
+ */
+public class LevelResult {
+
+    private final ILevel level;
+    private final int attempts, completions, abandons;
+    private final long moves, score;
+
+    LevelResult(ILevel level, int attempts, int completions, int abandons, long moves, long score) {
+        this.level = level;
+        this.attempts = attempts;
+        this.completions = completions;
+        this.abandons = abandons;
+        this.moves = moves;
+        this.score = score;
+    }
+
+    /**
+     * Gets the level these results are for.
+     *
+     * @return Level of the results.
+     */
+    public ILevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the number of times the level was started.
+     *
+     * @return Number of attempts.
+     */
+    public int getAttempts() {
+        return this.attempts;
+    }
+
+    /**
+     * Gets the number of times the level was completed.
+     *
+     * @return Number of completions.
+     */
+    public int getCompletions() {
+        return this.completions;
+    }
+
+    /**
+     * Gets the number of times the game was abandoned on this level, either by the move source or because the move
+     * limit was reached.
+     *
+     * @return Number of abandons.
+     */
+    public int getAbandons() {
+        return this.abandons;
+    }
+
+    /**
+     * Gets the total number of accepted moves made on this level.
+     *
+     * @return Total number of accepted moves.
+     */
+    public long getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Gets the total score of all completions of this level.
+     *
+     * @return Total score.
+     */
+    public long getScore() {
+        return this.score;
+    }
+
+    /**
+     * Gets the average score of a completion of this level.
+     *
+     * @return Average score, or 0 if the level was never completed.
+     */
+    public double getAverageScore() {
+        return this.completions == 0 ? 0 : this.score / (double) this.completions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d attempts, %d completions, %d abandons, %d moves, %.1f avg score",
+                this.level.getName(), this.attempts, this.completions, this.abandons, this.moves, this.getAverageScore());
+    }
+}
@@ -0,0 +1,30 @@
+package elkaproj.game.simulation;
+
+import elkaproj.game.GameController;
+import elkaproj.game.GameMovementDirection;
+
+import java.util.Random;
+
+/**
+ * Bot which moves in random directions. It never abandons the game on its own, so it should be used with a move limit.
+ */
+public class RandomMoveSource implements IMoveSource {
+
+    private static final GameMovementDirection[] DIRECTIONS = GameMovementDirection.values();
+
+    private final Random random;
+
+    /**
+     * Creates a new random bot.
+     *
+     * @param seed Seed of the random number generator, so that simulations can be repeated.
+     */
+    public RandomMoveSource(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public GameMovementDirection nextMove(GameController controller) {
+        return DIRECTIONS[this.random.nextInt(DIRECTIONS.length)];
+    }
+}
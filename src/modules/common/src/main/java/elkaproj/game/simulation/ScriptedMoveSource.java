@@ -0,0 +1,47 @@
+package elkaproj.game.simulation;
+
+import elkaproj.config.ILevel;
+import elkaproj.game.GameController;
+import elkaproj.game.GameMovementDirection;
+
+/**
+ * Plays scripted moves, written in LURD notation. Each level of the pack gets its own script; characters which are not
+ * LURD characters, such as whitespace, are skipped.
+ */
+public class ScriptedMoveSource implements IMoveSource {
+
+    private final CharSequence[] scripts;
+    private ILevel level = null;
+    private int levelNumber = -1;
+    private int position = 0;
+
+    /**
+     * Creates a new scripted move source.
+     *
+     * @param scripts Scripts of subsequent levels of the pack, in LURD notation.
+     */
+    public ScriptedMoveSource(CharSequence... scripts) {
+        this.scripts = scripts;
+    }
+
+    @Override
+    public GameMovementDirection nextMove(GameController controller) {
+        if (controller.getCurrentLevel() != this.level) {
+            this.level = controller.getCurrentLevel();
+            this.levelNumber++;
+            this.position = 0;
+        }
+
+        if (this.levelNumber >= this.scripts.length)
+            return null;
+
+        CharSequence script = this.scripts[this.levelNumber];
+        while (this.position < script.length()) {
+            GameMovementDirection direction = GameMovementDirection.fromLurd(script.charAt(this.position++));
+            if (direction != null)
+                return direction;
+        }
+
+        return null;
+    }
+}
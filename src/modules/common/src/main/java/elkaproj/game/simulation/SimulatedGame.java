@@ -0,0 +1,81 @@
+package elkaproj.game.simulation;
+
+import elkaproj.config.ILevel;
+import elkaproj.game.GameBoard;
+import elkaproj.game.IGameEventHandler;
+import elkaproj.game.ILevelScoreUpdateHandler;
+import elkaproj.game.MoveDeltas;
+
+/**
+ * Collects the per-level statistics of a single simulated game. Statistics of a game are only accessed by the thread
+ * running it, until they are merged into a {@link SimulationReport}.
+ */
+class SimulatedGame implements IGameEventHandler, ILevelScoreUpdateHandler {
+
+    final int[] attempts, completions, abandons;
+    final long[] moves, scores;
+    long totalMoves = 0;
+    boolean completed = false;
+
+    private int levelNumber = 0;
+    private long levelMoves = 0;
+
+    /**
+     * Creates empty statistics of a game.
+     *
+     * @param levelCount Number of levels in the simulated pack.
+     */
+    public SimulatedGame(int levelCount) {
+        this.attempts = new int[levelCount];
+        this.completions = new int[levelCount];
+        this.abandons = new int[levelCount];
+        this.moves = new long[levelCount];
+        this.scores = new long[levelCount];
+    }
+
+    /**
+     * Gets the number of moves made on the current attempt at the current level, including blocked ones.
+     *
+     * @return Number of moves made on the current level.
+     */
+    public long getLevelMoves() {
+        return this.levelMoves;
+    }
+
+    /**
+     * Records a move made by the move source.
+     */
+    public void countMove() {
+        this.totalMoves++;
+        this.levelMoves++;
+    }
+
+    /**
+     * Records the current level as abandoned.
+     */
+    public void abandon() {
+        this.abandons[this.levelNumber]++;
+    }
+
+    @Override
+    public void onBoardUpdated(ILevel currentLevel, GameBoard board, MoveDeltas deltas) {
+        // full updates mark the beginning of an attempt at a level
+        if (deltas.isFullUpdate()) {
+            this.attempts[this.levelNumber]++;
+            this.levelMoves = 0;
+        } else {
+            this.moves[this.levelNumber]++;
+        }
+    }
+
+    @Override
+    public void onLevelScoreUpdated(ILevel level, int score) {
+        this.completions[this.levelNumber]++;
+        this.scores[this.levelNumber] += score;
+
+        if (++this.levelNumber == this.attempts.length) {
+            this.levelNumber--;
+            this.completed = true;
+        }
+    }
+}
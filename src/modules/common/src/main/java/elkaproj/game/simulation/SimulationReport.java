@@ -0,0 +1,108 @@
+package elkaproj.game.simulation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Aggregated results of a simulation run.
+ */
+public class SimulationReport {
+
+    private final int games, gamesCompleted;
+    private final long moves, levelsCompleted, elapsedNanos;
+    private final List<LevelResult> levelResults;
+
+    SimulationReport(int games, int gamesCompleted, long moves, long levelsCompleted, long elapsedNanos, List<LevelResult> levelResults) {
+        this.games = games;
+        this.gamesCompleted = gamesCompleted;
+        this.moves = moves;
+        this.levelsCompleted = levelsCompleted;
+        this.elapsedNanos = elapsedNanos;
+        this.levelResults = Collections.unmodifiableList(levelResults);
+    }
+
+    /**
+     * Gets the number of simulated games.
+     *
+     * @return Number of simulated games.
+     */
+    public int getGames() {
+        return this.games;
+    }
+
+    /**
+     * Gets the number of games in which every level was completed.
+     *
+     * @return Number of completed games.
+     */
+    public int getGamesCompleted() {
+        return this.gamesCompleted;
+    }
+
+    /**
+     * Gets the total number of moves made, including blocked ones.
+     *
+     * @return Total number of moves.
+     */
+    public long getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Gets the total number of level completions.
+     *
+     * @return Total number of completed levels.
+     */
+    public long getLevelsCompleted() {
+        return this.levelsCompleted;
+    }
+
+    /**
+     * Gets the wall-clock duration of the simulation.
+     *
+     * @return Duration of the simulation, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Gets the number of moves made per second, across all games.
+     *
+     * @return Moves per second.
+     */
+    public double getMovesPerSecond() {
+        return this.moves / (this.elapsedNanos / 1e9);
+    }
+
+    /**
+     * Gets the number of levels completed per second, across all games.
+     *
+     * @return Levels per second.
+     */
+    public double getLevelsPerSecond() {
+        return this.levelsCompleted / (this.elapsedNanos / 1e9);
+    }
+
+    /**
+     * Gets the outcomes of every level of the pack, in pack order.
+     *
+     * @return Per-level outcomes.
+     */
+    public List<LevelResult> getLevelResults() {
+        return this.levelResults;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d games (%d completed) in %.3f s: %d moves (%.0f moves/s), %d levels (%.1f levels/s)%n",
+                this.games, this.gamesCompleted, this.elapsedNanos / 1e9,
+                this.moves, this.getMovesPerSecond(), this.levelsCompleted, this.getLevelsPerSecond()));
+
+        for (LevelResult levelResult : this.levelResults)
+            sb.append("  ").append(levelResult).append(System.lineSeparator());
+
+        return sb.toString();
+    }
+}
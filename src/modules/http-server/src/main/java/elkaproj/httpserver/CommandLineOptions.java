@@ -20,6 +20,9 @@ public class CommandLineOptions {
     @CommandLineArgument(name = "bind", shorthand = 'b', type = CommandLineArgumentType.STRING, defaultValue = "0.0.0.0", helpText = "IP address to bind to.")
     private String bindAddress;
 
+    @CommandLineArgument(name = "threads", shorthand = 't', type = CommandLineArgumentType.NUMBER, defaultValue = "32", helpText = "Number of threads handling requests.")
+    private int threads;
+
     @CommandLineArgument(name = "config", shorthand = 'c', type = CommandLineArgumentType.STRING, defaultValue = "config.xml", helpText = "Configuration file to load DB config from.")
     private String configurationFile;
 
@@ -65,6 +68,15 @@ public class CommandLineOptions {
         return this.bindAddress;
     }
 
+    /**
+     * Gets the number of threads handling requests.
+     *
+     * @return Number of threads handling requests.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
     /**
      * Gets the path to DB configuration file.
      *
@@ -19,6 +19,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Entrypoint for the server.
@@ -84,15 +86,20 @@ public class Entry {
         // here register all modules
         createContexts(http, serviceProvider);
 
+        // requests are handled on a pool of threads, as handlers block on the DB and on commands of game sessions, and
+        // one slow request would otherwise hold up every other
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(opts.getThreads(), 1));
+
         // add shutdown hook
         HttpServer finalHttp = http;
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             DebugWriter.INSTANCE.logMessage("HTTP", "Shutting down...");
             finalHttp.stop(0);
+            executor.shutdown();
         }));
 
         // start http
-        http.setExecutor(null);
+        http.setExecutor(executor);
         http.start();
     }
 
@@ -73,12 +73,12 @@ public class GameLevelDataHandler implements HttpHandler {
                 if (level.getOrdinal() != levelId)
                     continue;
 
-                LevelTile[][] tiles = level.getTiles();
+                LevelTileGrid tiles = level.getTileGrid();
                 try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
                     try (OutputStreamWriter osw = new OutputStreamWriter(baos, StandardCharsets.UTF_8)) {
-                        for (LevelTile[] tile : tiles) {
-                            for (LevelTile levelTile : tile) {
-                                osw.write(levelTile.getRepresentation());
+                        for (int y = 0; y < tiles.getHeight(); y++) {
+                            for (int x = 0; x < tiles.getWidth(); x++) {
+                                osw.write(tiles.getTile(x, y).getRepresentation());
                             }
 
                             osw.write('\n');
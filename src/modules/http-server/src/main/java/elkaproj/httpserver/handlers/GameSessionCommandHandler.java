@@ -0,0 +1,134 @@
+package elkaproj.httpserver.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import elkaproj.game.GameController;
+import elkaproj.httpserver.ServiceProvider;
+import elkaproj.httpserver.services.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs commands of clients in games hosted on the server. Commands are posted to /sessions/commands/:id/:command, where
+ * the command is one of move, undo, redo, reset or pause. Moves are sent in the body, in LURD notation, and the result
+ * of a move command is the number of moves made. Every command responds with the state of the game after it.
+ */
+@Handler("/sessions/commands")
+public class GameSessionCommandHandler implements HttpHandler {
+
+    private static final String ROUTE_TEMPLATE = "/sessions/commands/:id/:command";
+
+    /**
+     * Maximum number of moves sent in a single command.
+     */
+    public static final int MAX_MOVES = 4096;
+
+    private final ServiceProvider serviceProvider;
+    private final IService<GameSessionManager> gameSessionManagerService;
+    private final IService<GameSessionWriterService> gameSessionWriterService;
+    private final IService<EndpointParserService> endpointParserService;
+    private final IService<ErrorHandlerService> errorHandlerService;
+
+    private GameSessionCommandHandler(
+            ServiceProvider serviceProvider,
+            @Inject(GameSessionManager.class) IService<GameSessionManager> gameSessionManagerService,
+            @Inject(GameSessionWriterService.class) IService<GameSessionWriterService> gameSessionWriterService,
+            @Inject(EndpointParserService.class) IService<EndpointParserService> endpointParserService,
+            @Inject(ErrorHandlerService.class) IService<ErrorHandlerService> errorHandlerService) {
+        this.serviceProvider = serviceProvider;
+        this.gameSessionManagerService = gameSessionManagerService;
+        this.gameSessionWriterService = gameSessionWriterService;
+        this.endpointParserService = endpointParserService;
+        this.errorHandlerService = errorHandlerService;
+    }
+
+    @Override
+    public void handle(HttpExchange httpExchange) throws IOException {
+        if (!httpExchange.getRequestMethod().equals("POST")) {
+            this.errorHandlerService.getInstance(this.serviceProvider).write400(httpExchange);
+            return;
+        }
+
+        EndpointParserService eps = this.endpointParserService.getInstance(this.serviceProvider);
+        Map<String, String> args = eps.parse(httpExchange.getRequestURI().getPath(), ROUTE_TEMPLATE);
+        if (args == null || !args.containsKey("id") || !args.containsKey("command")) {
+            this.errorHandlerService.getInstance(this.serviceProvider).write404(httpExchange);
+            return;
+        }
+
+        GameSession session = this.gameSessionManagerService.getInstance(this.serviceProvider).getSession(args.get("id"));
+        if (session == null) {
+            this.errorHandlerService.getInstance(this.serviceProvider).write404(httpExchange);
+            return;
+        }
+
+        ToIntFunction<GameController> command;
+        switch (args.get("command")) {
+            case "move":
+                String lurd = this.readMoves(httpExchange);
+                if (lurd == null) {
+                    this.errorHandlerService.getInstance(this.serviceProvider).write400(httpExchange);
+                    return;
+                }
+
+                command = controller -> controller.applyMoves(lurd);
+                break;
+
+            case "undo":
+                command = controller -> {
+                    controller.undoMove();
+                    return 0;
+                };
+                break;
+
+            case "redo":
+                command = controller -> {
+                    controller.redoMove();
+                    return 0;
+                };
+                break;
+
+            case "reset":
+                command = controller -> {
+                    if (controller.isGameRunning())
+                        controller.resetLevel();
+                    return 0;
+                };
+                break;
+
+            case "pause":
+                command = controller -> {
+                    if (controller.isGameRunning())
+                        controller.togglePause();
+                    return 0;
+                };
+                break;
+
+            default:
+                this.errorHandlerService.getInstance(this.serviceProvider).write404(httpExchange);
+                return;
+        }
+
+        this.gameSessionWriterService.getInstance(this.serviceProvider).write(httpExchange, session.submit(command));
+    }
+
+    private String readMoves(HttpExchange httpExchange) throws IOException {
+        try (InputStream is = httpExchange.getRequestBody()) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[512];
+            int read;
+            while ((read = is.read(buffer)) > 0) {
+                baos.write(buffer, 0, read);
+                if (baos.size() > MAX_MOVES)
+                    return null;
+            }
+
+            return baos.toString(StandardCharsets.US_ASCII.name()).trim();
+        }
+    }
+}
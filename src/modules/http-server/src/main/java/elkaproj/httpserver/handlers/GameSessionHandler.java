@@ -0,0 +1,128 @@
+package elkaproj.httpserver.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import elkaproj.DebugWriter;
+import elkaproj.httpserver.ServiceProvider;
+import elkaproj.httpserver.services.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Creates, inspects and closes games hosted on the server. A session is created by posting the ID of a level pack to
+ * /sessions; its state is read with GET /sessions/:id, and it is closed with DELETE /sessions/:id.
+ */
+@Handler("/sessions")
+public class GameSessionHandler implements HttpHandler {
+
+    private static final String ROUTE_TEMPLATE = "/sessions/:id?";
+
+    private final ServiceProvider serviceProvider;
+    private final IService<GameSessionManager> gameSessionManagerService;
+    private final IService<GameSessionWriterService> gameSessionWriterService;
+    private final IService<EndpointParserService> endpointParserService;
+    private final IService<ErrorHandlerService> errorHandlerService;
+
+    private GameSessionHandler(
+            ServiceProvider serviceProvider,
+            @Inject(GameSessionManager.class) IService<GameSessionManager> gameSessionManagerService,
+            @Inject(GameSessionWriterService.class) IService<GameSessionWriterService> gameSessionWriterService,
+            @Inject(EndpointParserService.class) IService<EndpointParserService> endpointParserService,
+            @Inject(ErrorHandlerService.class) IService<ErrorHandlerService> errorHandlerService) {
+        this.serviceProvider = serviceProvider;
+        this.gameSessionManagerService = gameSessionManagerService;
+        this.gameSessionWriterService = gameSessionWriterService;
+        this.endpointParserService = endpointParserService;
+        this.errorHandlerService = errorHandlerService;
+    }
+
+    @Override
+    public void handle(HttpExchange httpExchange) throws IOException {
+        EndpointParserService eps = this.endpointParserService.getInstance(this.serviceProvider);
+        Map<String, String> args = eps.parse(httpExchange.getRequestURI().getPath(), ROUTE_TEMPLATE);
+        if (args == null) {
+            this.errorHandlerService.getInstance(this.serviceProvider).write404(httpExchange);
+            return;
+        }
+
+        String id = args.get("id");
+        switch (httpExchange.getRequestMethod()) {
+            case "POST":
+                if (id == null) {
+                    this.create(httpExchange);
+                    return;
+                }
+                break;
+
+            case "GET":
+                if (id != null) {
+                    this.get(httpExchange, id);
+                    return;
+                }
+                break;
+
+            case "DELETE":
+                if (id != null) {
+                    this.close(httpExchange, id);
+                    return;
+                }
+                break;
+        }
+
+        this.errorHandlerService.getInstance(this.serviceProvider).write400(httpExchange);
+    }
+
+    private void create(HttpExchange httpExchange) throws IOException {
+        String pack;
+        try (InputStream is = httpExchange.getRequestBody()) {
+            try (Scanner s = new Scanner(is)) {
+                pack = s.next();
+            }
+        } catch (Exception ex) {
+            this.errorHandlerService.getInstance(this.serviceProvider).write400(httpExchange);
+            return;
+        }
+
+        GameSessionManager manager = this.gameSessionManagerService.getInstance(this.serviceProvider);
+        GameSession session;
+        try {
+            session = manager.createSession(pack);
+        } catch (Exception ex) {
+            DebugWriter.INSTANCE.logError("LDR-FILE", ex, "Error while loading level pack.");
+            this.errorHandlerService.getInstance(this.serviceProvider).write404(httpExchange);
+            return;
+        }
+
+        if (session == null) {
+            this.errorHandlerService.getInstance(this.serviceProvider).write503(httpExchange);
+            return;
+        }
+
+        this.gameSessionWriterService.getInstance(this.serviceProvider).write(httpExchange, session.submit(controller -> 0));
+    }
+
+    private void get(HttpExchange httpExchange, String id) throws IOException {
+        GameSession session = this.gameSessionManagerService.getInstance(this.serviceProvider).getSession(id);
+        if (session == null) {
+            this.errorHandlerService.getInstance(this.serviceProvider).write404(httpExchange);
+            return;
+        }
+
+        this.gameSessionWriterService.getInstance(this.serviceProvider).write(httpExchange, session.submit(controller -> 0));
+    }
+
+    private void close(HttpExchange httpExchange, String id) throws IOException {
+        if (!this.gameSessionManagerService.getInstance(this.serviceProvider).closeSession(id)) {
+            this.errorHandlerService.getInstance(this.serviceProvider).write404(httpExchange);
+            return;
+        }
+
+        httpExchange.sendResponseHeaders(204, -1);
+        httpExchange.close();
+
+        DebugWriter.INSTANCE.logMessage("GAME-SESS", "Closed session %s", id);
+    }
+}
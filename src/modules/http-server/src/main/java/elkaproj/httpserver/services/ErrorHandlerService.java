@@ -33,6 +33,22 @@ public class ErrorHandlerService {
         }
     }
 
+    /**
+     * Writes a 503 error.
+     *
+     * @param t Context.
+     * @throws IOException Exception occured during writing.
+     */
+    public void write503(HttpExchange t) throws IOException {
+        byte[] bytes = this.byteEncoderService.encode("Service unavailable");
+
+        t.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+        t.sendResponseHeaders(503, bytes.length);
+        try (OutputStream os = t.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
     /**
      * Writes a 404 error.
      *
@@ -0,0 +1,180 @@
+package elkaproj.httpserver.services;
+
+import elkaproj.config.IConfiguration;
+import elkaproj.config.ILevelPack;
+import elkaproj.game.GameController;
+import elkaproj.game.ITimerUpdateHandler;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * A game played on the server, on behalf of a client. The session owns its {@link GameController}, which is only ever
+ * touched by commands submitted to the session. Commands are queued, and run one at a time on a shared executor, so
+ * sessions need no threads of their own, and a session never runs on two threads at once.
+ */
+public class GameSession implements ITimerUpdateHandler {
+
+    // commands run in one go before the session yields its executor thread to other sessions
+    private static final int BATCH_SIZE = 16;
+
+    private final String id;
+    private final Executor executor;
+    private final int maxPendingCommands;
+    private final Queue<Command> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCommands = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile long lastAccessMillis;
+    private volatile boolean closed = false;
+
+    // only accessed by commands
+    private final GameController controller;
+    private boolean levelFailed = false;
+
+    GameSession(String id, IConfiguration configuration, ILevelPack levelPack, Executor executor, int undoCapacity, int maxPendingCommands) {
+        this.id = id;
+        this.executor = executor;
+        this.maxPendingCommands = maxPendingCommands;
+        this.lastAccessMillis = System.currentTimeMillis();
+
+        // boards of upcoming levels are prepared on demand, so a session only ever holds a single board
+        this.controller = new GameController(configuration, levelPack, task -> {
+            throw new RejectedExecutionException();
+        }, undoCapacity);
+        this.controller.addTimerUpdateHandler(this);
+    }
+
+    /**
+     * Gets the ID of this session.
+     *
+     * @return ID of the session.
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets the time at which a command was last submitted to this session.
+     *
+     * @return Time of the last access, in milliseconds since the epoch.
+     */
+    public long getLastAccessMillis() {
+        return this.lastAccessMillis;
+    }
+
+    /**
+     * Gets whether this session was closed.
+     *
+     * @return Whether the session was closed.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Queues a command for the game of this session. Before the command runs, the game's timers are ticked, so that a
+     * level which ran out of time is reset first, like it would be for a local player.
+     *
+     * @param command Command to run, given the controller of the game. Its result is passed on in the snapshot.
+     * @return Snapshot of the game taken right after the command ran. Completes exceptionally with
+     * {@link RejectedExecutionException} if the session is closed, or too many of its commands are pending.
+     */
+    public CompletableFuture<GameSessionSnapshot> submit(ToIntFunction<GameController> command) {
+        CompletableFuture<GameSessionSnapshot> result = new CompletableFuture<>();
+        if (this.closed) {
+            result.completeExceptionally(new RejectedExecutionException("Session is closed."));
+            return result;
+        }
+
+        if (this.pendingCommands.incrementAndGet() > this.maxPendingCommands) {
+            this.pendingCommands.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException("Session is busy."));
+            return result;
+        }
+
+        this.lastAccessMillis = System.currentTimeMillis();
+        this.commands.offer(new Command(command, result));
+        this.schedule();
+        return result;
+    }
+
+    /**
+     * Closes this session. Commands already queued still run, but no new ones are accepted.
+     */
+    public void close() {
+        this.closed = true;
+    }
+
+    @Override
+    public void onFailTimerExceeded() {
+        this.levelFailed = true;
+    }
+
+    private void schedule() {
+        if (!this.scheduled.compareAndSet(false, true))
+            return;
+
+        try {
+            this.executor.execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+            // the executor was shut down, so no command will ever run
+            Command command;
+            while ((command = this.commands.poll()) != null) {
+                this.pendingCommands.decrementAndGet();
+                command.result.completeExceptionally(ex);
+            }
+
+            // like after draining, commands queued while the flag was still set would otherwise never be failed
+            this.scheduled.set(false);
+            if (!this.commands.isEmpty())
+                this.schedule();
+        }
+    }
+
+    private void drain() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Command command = this.commands.poll();
+            if (command == null)
+                break;
+
+            this.pendingCommands.decrementAndGet();
+            this.run(command);
+        }
+
+        // a command queued after the last poll sees the flag still set, so the session has to check again once it's clear
+        this.scheduled.set(false);
+        if (!this.commands.isEmpty())
+            this.schedule();
+    }
+
+    private void run(Command command) {
+        try {
+            this.controller.tick();
+            if (this.levelFailed) {
+                this.levelFailed = false;
+                this.controller.resetLevel();
+            }
+
+            int value = command.function.applyAsInt(this.controller);
+            command.result.complete(new GameSessionSnapshot(this.id, this.controller, value));
+        } catch (Throwable t) {
+            command.result.completeExceptionally(t);
+        }
+    }
+
+    private static class Command {
+        public final ToIntFunction<GameController> function;
+        public final CompletableFuture<GameSessionSnapshot> result;
+
+        public Command(ToIntFunction<GameController> function, CompletableFuture<GameSessionSnapshot> result) {
+            this.function = function;
+            this.result = result;
+        }
+    }
+}
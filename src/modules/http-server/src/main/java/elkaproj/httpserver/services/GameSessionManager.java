@@ -0,0 +1,176 @@
+package elkaproj.httpserver.services;
+
+import elkaproj.DebugWriter;
+import elkaproj.config.IConfiguration;
+import elkaproj.config.IConfigurationLoader;
+import elkaproj.config.ILevelPack;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts games played on the server. The server owns the state of each game, and clients only send their commands.
+ * Sessions are lightweight: they share level packs, and the compiled templates of their levels, run their commands on
+ * a shared pool of threads, only hold the board of the level being played, and remember a limited number of moves for
+ * undoing them. Sessions nobody sent a command to for a while are evicted.
+ */
+@Service(kind = ServiceKind.SINGLETON)
+public class GameSessionManager {
+
+    /**
+     * Maximum number of sessions hosted at once.
+     */
+    public static final int MAX_SESSIONS = 10000;
+
+    /**
+     * Maximum number of moves which can be undone in a session.
+     */
+    public static final int UNDO_CAPACITY = 1024;
+
+    /**
+     * Maximum number of commands queued for a session.
+     */
+    public static final int MAX_PENDING_COMMANDS = 32;
+
+    /**
+     * Time after which a session nobody sent a command to is evicted, in milliseconds.
+     */
+    public static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private static final long EVICTION_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final IConfigurationLoader configurationLoader;
+    private final ConcurrentHashMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+    // counts sessions hosted or being created, so that concurrent creations can't exceed the maximum between checking
+    // it and adding their session
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final HashMap<String, ILevelPack> levelPacks = new HashMap<>();
+    private final ExecutorService executor;
+    private final ScheduledExecutorService evictionExecutor;
+    private IConfiguration configuration = null;
+
+    private GameSessionManager(IConfigurationLoader configurationLoader) {
+        this.configurationLoader = configurationLoader;
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), createThreadFactory("Game session"));
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(createThreadFactory("Game session eviction"));
+        this.evictionExecutor.scheduleWithFixedDelay(() -> this.evictIdleSessions(System.currentTimeMillis()), EVICTION_INTERVAL_MILLIS, EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a session, and starts its game.
+     *
+     * @param levelPackId ID of the level pack to play.
+     * @return Created session, or null if the maximum number of sessions is hosted already.
+     * @throws IOException The level pack couldn't be loaded.
+     */
+    public GameSession createSession(String levelPackId) throws IOException {
+        if (this.sessionCount.incrementAndGet() > MAX_SESSIONS) {
+            this.sessionCount.decrementAndGet();
+            return null;
+        }
+
+        GameSession session;
+        try {
+            ILevelPack levelPack = this.loadLevelPack(levelPackId);
+            session = new GameSession(UUID.randomUUID().toString(), this.loadConfiguration(), levelPack,
+                    this.executor, UNDO_CAPACITY, MAX_PENDING_COMMANDS);
+        } catch (IOException | RuntimeException ex) {
+            this.sessionCount.decrementAndGet();
+            throw ex;
+        }
+
+        this.sessions.put(session.getId(), session);
+        session.submit(controller -> {
+            controller.startGame();
+            return 0;
+        });
+
+        DebugWriter.INSTANCE.logMessage("GAME-SESS", "Created session %s for %s", session.getId(), levelPackId);
+        return session;
+    }
+
+    /**
+     * Gets a session by its ID.
+     *
+     * @param id ID of the session.
+     * @return Session, or null if there is no such session.
+     */
+    public GameSession getSession(String id) {
+        return this.sessions.get(id);
+    }
+
+    /**
+     * Closes a session, and stops hosting it.
+     *
+     * @param id ID of the session.
+     * @return Whether the session existed.
+     */
+    public boolean closeSession(String id) {
+        GameSession session = this.sessions.remove(id);
+        if (session == null)
+            return false;
+
+        this.sessionCount.decrementAndGet();
+        session.close();
+        return true;
+    }
+
+    /**
+     * Gets the number of sessions hosted.
+     *
+     * @return Number of sessions.
+     */
+    public int getSessionCount() {
+        return this.sessionCount.get();
+    }
+
+    private synchronized IConfiguration loadConfiguration() {
+        if (this.configuration == null)
+            this.configuration = this.configurationLoader.load();
+
+        return this.configuration;
+    }
+
+    private synchronized ILevelPack loadLevelPack(String id) throws IOException {
+        ILevelPack levelPack = this.levelPacks.get(id);
+        if (levelPack == null) {
+            levelPack = this.configurationLoader.getLevelPackLoader().loadPack(id);
+            this.levelPacks.put(id, levelPack);
+        }
+
+        return levelPack;
+    }
+
+    // evicts sessions idle for longer than the timeout at given time, in milliseconds since the epoch
+    void evictIdleSessions(long now) {
+        long threshold = now - IDLE_TIMEOUT_MILLIS;
+        int evicted = 0;
+        for (GameSession session : this.sessions.values()) {
+            if (session.getLastAccessMillis() < threshold && this.sessions.remove(session.getId(), session)) {
+                this.sessionCount.decrementAndGet();
+                session.close();
+                evicted++;
+            }
+        }
+
+        if (evicted > 0)
+            DebugWriter.INSTANCE.logMessage("GAME-SESS", "Evicted %d idle sessions, %d left", evicted, this.sessionCount.get());
+    }
+
+    private static ThreadFactory createThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + " " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
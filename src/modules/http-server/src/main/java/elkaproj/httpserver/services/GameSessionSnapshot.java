@@ -0,0 +1,142 @@
+package elkaproj.httpserver.services;
+
+import elkaproj.game.GameController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * State of a {@link GameSession} at some point, which can be read without touching the session's game.
+ */
+public class GameSessionSnapshot {
+
+    private final String sessionId;
+    private final boolean running;
+    private final boolean paused;
+    private final int level;
+    private final int lives;
+    private final int score;
+    private final int totalScore;
+    private final int result;
+    private final byte[] state;
+
+    GameSessionSnapshot(String sessionId, GameController controller, int result) {
+        this.sessionId = sessionId;
+        this.running = controller.isGameRunning();
+        this.paused = controller.isPaused();
+        this.level = this.running ? controller.getCurrentLevel().getOrdinal() : -1;
+        this.lives = controller.getCurrentLives();
+        this.score = controller.getCurrentScore();
+        this.totalScore = controller.getTotalScore();
+        this.result = result;
+        this.state = this.running ? controller.saveState() : null;
+    }
+
+    /**
+     * Gets the ID of the session.
+     *
+     * @return ID of the session.
+     */
+    public String getSessionId() {
+        return this.sessionId;
+    }
+
+    /**
+     * Gets whether the game was running.
+     *
+     * @return Whether the game was running.
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Gets whether the game was paused.
+     *
+     * @return Whether the game was paused.
+     */
+    public boolean isPaused() {
+        return this.paused;
+    }
+
+    /**
+     * Gets the ordinal of the level being played.
+     *
+     * @return Ordinal of the current level, or -1 if the game was not running.
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the number of lives the player had.
+     *
+     * @return Number of lives.
+     */
+    public int getLives() {
+        return this.lives;
+    }
+
+    /**
+     * Gets the score of the current level.
+     *
+     * @return Score of the current level.
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Gets the total score of the game.
+     *
+     * @return Total score.
+     */
+    public int getTotalScore() {
+        return this.totalScore;
+    }
+
+    /**
+     * Gets the result of the command after which the snapshot was taken, such as the number of moves made.
+     *
+     * @return Result of the command.
+     */
+    public int getResult() {
+        return this.result;
+    }
+
+    /**
+     * Gets the state of the game, as saved by {@link GameController#saveState()}. Clients playing the same level pack
+     * can restore it into their own controller to mirror the game.
+     *
+     * @return Saved state, or null if the game was not running.
+     */
+    public byte[] getState() {
+        return this.state;
+    }
+
+    /**
+     * Writes the snapshot as lines of key=value pairs, with the saved state encoded in base64.
+     *
+     * @param outputStream Stream to write the snapshot to.
+     * @throws IOException Exception occurred during writing.
+     */
+    public void serialize(OutputStream outputStream) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        writer.write("session=" + this.sessionId + "\n");
+        writer.write("running=" + this.running + "\n");
+        writer.write("paused=" + this.paused + "\n");
+        writer.write("level=" + this.level + "\n");
+        writer.write("lives=" + this.lives + "\n");
+        writer.write("score=" + this.score + "\n");
+        writer.write("total=" + this.totalScore + "\n");
+        writer.write("result=" + this.result + "\n");
+        if (this.state != null)
+            writer.write("state=" + Base64.getEncoder().encodeToString(this.state) + "\n");
+
+        writer.flush();
+    }
+}
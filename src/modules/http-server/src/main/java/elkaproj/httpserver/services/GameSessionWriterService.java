@@ -0,0 +1,69 @@
+package elkaproj.httpserver.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import elkaproj.DebugWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes the results of commands sent to game sessions.
+ */
+@Service(kind = ServiceKind.SINGLETON)
+public class GameSessionWriterService {
+
+    private static final long COMMAND_TIMEOUT_MILLIS = 5000;
+
+    private final ErrorHandlerService errorHandlerService;
+
+    private GameSessionWriterService(ErrorHandlerService errorHandlerService) {
+        this.errorHandlerService = errorHandlerService;
+    }
+
+    /**
+     * Waits for a command to run, and writes the snapshot taken after it. Sessions which are closed, or have too many
+     * commands pending, get a 503 error.
+     *
+     * @param t        Context.
+     * @param snapshot Snapshot which completes once the command ran.
+     * @throws IOException Exception occured during writing.
+     */
+    public void write(HttpExchange t, CompletableFuture<GameSessionSnapshot> snapshot) throws IOException {
+        GameSessionSnapshot result;
+        try {
+            result = snapshot.get(COMMAND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RejectedExecutionException) {
+                this.errorHandlerService.write503(t);
+                return;
+            }
+
+            DebugWriter.INSTANCE.logError("GAME-SESS", ex.getCause(), "Session command failed.");
+            this.errorHandlerService.write500(t);
+            return;
+        } catch (TimeoutException ex) {
+            this.errorHandlerService.write503(t);
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.errorHandlerService.write500(t);
+            return;
+        }
+
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            result.serialize(baos);
+
+            t.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+            try (OutputStream os = t.getResponseBody()) {
+                t.sendResponseHeaders(200, baos.size());
+                os.write(baos.toByteArray());
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package elkaproj.solver;
+
+import elkaproj.config.commandline.CommandLineArgument;
+import elkaproj.config.commandline.CommandLineArgumentType;
+
+/**
+ * Represents commandline options passed to the program.
+ */
+public class CommandLineOptions {
+
+    @CommandLineArgument(name = "help", shorthand = 'h', type = CommandLineArgumentType.FLAG, helpText = "Displays help.")
+    private boolean help;
+
+    @CommandLineArgument(name = "debug", shorthand = 'd', type = CommandLineArgumentType.FLAG, helpText = "Enables debug mode. This prints details to the console.")
+    private boolean debug;
+
+    @CommandLineArgument(name = "game-data", shorthand = 'g', type = CommandLineArgumentType.STRING, defaultValue = "config", helpText = "Location of game's configuration data.")
+    private String gameData;
+
+    @CommandLineArgument(name = "pack", shorthand = 'p', type = CommandLineArgumentType.STRING, defaultValue = "", helpText = "ID of the level pack to validate. Defaults to the configured pack.")
+    private String levelPackId;
+
+    @CommandLineArgument(name = "output", shorthand = 'o', type = CommandLineArgumentType.STRING, defaultValue = "", helpText = "File to write the XML report to. Defaults to standard output.")
+    private String output;
+
+    @CommandLineArgument(name = "threads", shorthand = 'j', type = CommandLineArgumentType.NUMBER, defaultValue = "0", helpText = "Number of worker threads. Defaults to the number of processors.")
+    private int threads;
+
+    @CommandLineArgument(name = "timeout", shorthand = 't', type = CommandLineArgumentType.NUMBER, defaultValue = "60", helpText = "Limit of CPU time of the search of each level, summed over threads, in seconds.")
+    private int timeout;
+
+    @CommandLineArgument(name = "max-nodes", shorthand = 'n', type = CommandLineArgumentType.NUMBER, defaultValue = "10000000", helpText = "Maximum number of states searched for each level.")
+    private int maxNodes;
+
+    @CommandLineArgument(name = "memory", shorthand = 'm', type = CommandLineArgumentType.NUMBER, defaultValue = "256", helpText = "Approximate memory for the search of each level, in MiB. Levels are searched concurrently, each with its own memory.")
+    private int memory;
+
+    public CommandLineOptions() {
+    }
+
+    /**
+     * Gets whether to display help.
+     *
+     * @return Whether to display help.
+     */
+    public boolean isHelp() {
+        return this.help;
+    }
+
+    /**
+     * Gets whether to write detailed debug information.
+     *
+     * @return Whether to write detailed debug information.
+     */
+    public boolean isDebug() {
+        return this.debug;
+    }
+
+    /**
+     * Gets the game data directory location.
+     *
+     * @return Path to game data directory.
+     */
+    public String getGameDataLocation() {
+        return this.gameData;
+    }
+
+    /**
+     * Gets the ID of the level pack to validate.
+     *
+     * @return ID of the level pack, or an empty string to validate the configured one.
+     */
+    public String getLevelPackId() {
+        return this.levelPackId;
+    }
+
+    /**
+     * Gets the path of the file to write the report to.
+     *
+     * @return Path to the report file, or an empty string to write to standard output.
+     */
+    public String getOutput() {
+        return this.output;
+    }
+
+    /**
+     * Gets the number of worker threads.
+     *
+     * @return Number of worker threads, or 0 to use one per processor.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Gets the time limit of the search of each level.
+     *
+     * @return Time limit, in seconds.
+     */
+    public int getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Gets the maximum number of states searched for each level.
+     *
+     * @return Maximum number of states.
+     */
+    public int getMaxNodes() {
+        return this.maxNodes;
+    }
+
+    /**
+     * Gets the approximate memory for the search of each level.
+     *
+     * @return Memory, in MiB.
+     */
+    public int getMemory() {
+        return this.memory;
+    }
+}
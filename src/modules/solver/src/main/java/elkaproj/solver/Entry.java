@@ -0,0 +1,102 @@
+package elkaproj.solver;
+
+import elkaproj.DebugWriter;
+import elkaproj.Inspector;
+import elkaproj.config.IConfiguration;
+import elkaproj.config.IConfigurationLoader;
+import elkaproj.config.ILevelPack;
+import elkaproj.config.commandline.CommandLineParser;
+import elkaproj.config.impl.FileConfigurationLoader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrypoint for the level pack validator. Exits with status 0 if every level of the pack is valid, 1 if any is not,
+ * and 2 if the pack could not be validated at all.
+ */
+public class Entry {
+
+    private static final int EXIT_INVALID = 1;
+    private static final int EXIT_ERROR = 2;
+
+    private Entry() {
+    }
+
+    public static void main(String[] args) {
+        // parse commandline options
+        CommandLineParser<CommandLineOptions> clp = new CommandLineParser<>(CommandLineOptions.class);
+        CommandLineOptions opts = clp.parse(args);
+
+        // print help and quit if requested
+        if (opts.isHelp()) {
+            clp.printHelp(System.out);
+            return;
+        }
+
+        // enable debug, if applicable, and inspect options
+        if (opts.isDebug()) {
+            DebugWriter.setEnabled(true);
+            DebugWriter.INSTANCE.logMessage("INIT", "Application initializing...");
+            Inspector.INSTANCE.inspect(opts);
+        }
+
+        // load the level pack
+        IConfiguration configuration;
+        ILevelPack levelPack;
+        try (IConfigurationLoader configurationLoader = new FileConfigurationLoader(new File(opts.getGameDataLocation(), "config.xml"))) {
+            configuration = configurationLoader.load();
+            if (configuration == null) {
+                System.exit(EXIT_ERROR);
+                return;
+            }
+
+            String levelPackId = opts.getLevelPackId().isEmpty() ? configuration.getLevelPackId() : opts.getLevelPackId();
+            levelPack = configurationLoader.getLevelPackLoader().loadPack(levelPackId);
+        } catch (Exception ex) {
+            DebugWriter.INSTANCE.logError("INIT", ex, "Couldn't load level pack.");
+            System.exit(EXIT_ERROR);
+            return;
+        }
+
+        // validate all levels
+        int threads = opts.getThreads() > 0 ? opts.getThreads() : Runtime.getRuntime().availableProcessors();
+        SolverBudget budget = new SolverBudget(opts.getMaxNodes(), (long) opts.getMemory() << 20, TimeUnit.SECONDS.toMillis(opts.getTimeout()));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        DebugWriter.INSTANCE.logMessage("VALIDATE", "Validating %d levels of pack %s on %d threads...", levelPack.getCount(), levelPack.getId(), threads);
+
+        ValidationReport report;
+        try {
+            report = new PackValidator(configuration.getActivePowerups(), budget, pool).validate(levelPack);
+        } finally {
+            pool.shutdown();
+        }
+
+        for (ValidationReport.LevelReport level : report.levels) {
+            DebugWriter.INSTANCE.logMessage("VALIDATE", "Level %d: %s, issues %d, %d moves, %d pushes, %d nodes, %d ms, %d ms of CPU",
+                    level.ordinal, level.status, level.issues.length, level.moves, level.pushes, level.nodes, level.elapsedMillis,
+                    level.cpuMillis);
+        }
+
+        // write the report
+        try {
+            if (opts.getOutput().isEmpty()) {
+                report.serialize(System.out);
+                System.out.flush();
+            } else {
+                try (OutputStream os = new FileOutputStream(opts.getOutput())) {
+                    report.serialize(os);
+                }
+            }
+        } catch (Exception ex) {
+            DebugWriter.INSTANCE.logError("REPORT", ex, "Couldn't write report.");
+            System.exit(EXIT_ERROR);
+            return;
+        }
+
+        System.exit(report.valid ? 0 : EXIT_INVALID);
+    }
+}
@@ -0,0 +1,218 @@
+package elkaproj.solver;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.game.GameBoard;
+
+import java.util.Arrays;
+
+/**
+ * Finds the successors of search states. Moves are evaluated with the same rules as
+ * {@link GameBoard#move(elkaproj.game.GameMovementDirection, elkaproj.game.PowerupSet)}, on packed states. Moves which
+ * change nothing but the player's cell are walked through, and only moves which change anything else, such as pushing
+ * a crate or picking up a power-up, lead to successors. Each expander holds scratch space, and is used by a single
+ * thread at a time.
+ */
+final class Expander {
+
+    static final int GHOST = 1 << GamePowerup.GHOST.ordinal();
+    static final int STRENGTH = 1 << GamePowerup.STRENGTH.ordinal();
+    static final int PULL = 1 << GamePowerup.PULL.ordinal();
+
+    static final int CRATE_MOVED = GameBoard.MOVE_PUSH | GameBoard.MOVE_PULL;
+
+    private static final int SIDE_EFFECTS = GameBoard.MOVE_PUSH | GameBoard.MOVE_STRENGTH | GameBoard.MOVE_PULL
+            | GameBoard.MOVE_GHOST | 0b11 << GameBoard.MOVE_PICKUP_SHIFT;
+    private static final String LURD = "udlr";
+
+    private final SolverLevel level;
+    private final int[] queue;
+    private final int[] visited;
+    private final int[] parentDirections;
+    private int stamp = 0;
+
+    private final int[] eventCells, eventDirections, eventResults;
+    private int eventCount = 0;
+    private int normalizedCell = -1;
+
+    Expander(SolverLevel level) {
+        this.level = level;
+
+        int cells = level.getCellCount();
+        this.queue = new int[cells];
+        this.visited = new int[cells];
+        this.parentDirections = new int[cells];
+        this.eventCells = new int[cells * 4];
+        this.eventDirections = new int[cells * 4];
+        this.eventResults = new int[cells * 4];
+    }
+
+    /**
+     * Walks through every cell the player can reach from a state without side effects, and collects the moves from
+     * those cells which have any.
+     *
+     * @param node State to explore.
+     */
+    void explore(SearchNode node) {
+        if (++this.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.visited, 0);
+            this.stamp = 1;
+        }
+
+        int head = 0, tail = 0, lowest = node.playerCell;
+        this.queue[tail++] = node.playerCell;
+        this.visited[node.playerCell] = this.stamp;
+        this.eventCount = 0;
+
+        while (head < tail) {
+            int cell = this.queue[head++];
+            lowest = Math.min(lowest, cell);
+
+            for (int d = 0; d < 4; d++) {
+                int result = this.evaluate(node, cell, d);
+                if (result == GameBoard.MOVE_BLOCKED)
+                    continue;
+
+                if ((result & SIDE_EFFECTS) != 0) {
+                    this.eventCells[this.eventCount] = cell;
+                    this.eventDirections[this.eventCount] = d;
+                    this.eventResults[this.eventCount] = result;
+                    this.eventCount++;
+                    continue;
+                }
+
+                int next = this.level.neighbour(cell, d);
+                if (this.visited[next] != this.stamp) {
+                    this.visited[next] = this.stamp;
+                    this.parentDirections[next] = d;
+                    this.queue[tail++] = next;
+                }
+            }
+        }
+
+        // without PULL or GHOST, walking is reversible, so any cell of the region stands for all of them; otherwise
+        // cells can be reachable one way only, and only the exact cell identifies the state
+        boolean reversible = (node.powerups & (PULL | GHOST)) == 0 && !this.level.isWall(node.playerCell);
+        this.normalizedCell = reversible ? lowest : node.playerCell;
+    }
+
+    /**
+     * Gets the player cell identifying the state last explored.
+     *
+     * @return Normalized player cell.
+     */
+    int getNormalizedCell() {
+        return this.normalizedCell;
+    }
+
+    /**
+     * Gets the number of moves with side effects found by the last exploration.
+     *
+     * @return Number of moves.
+     */
+    int getEventCount() {
+        return this.eventCount;
+    }
+
+    /**
+     * Makes a move found by the last exploration of a state.
+     *
+     * @param node  State which was explored last.
+     * @param event Index of the move.
+     * @return State after the move.
+     */
+    SearchNode apply(SearchNode node, int event) {
+        int cell = this.eventCells[event], d = this.eventDirections[event], result = this.eventResults[event];
+        long[] crates = node.crates.clone();
+        long activators = node.activators;
+        int player = cell;
+
+        if ((result & GameBoard.MOVE_ACCEPTED) != 0) {
+            int next = this.level.neighbour(cell, d);
+            if ((result & GameBoard.MOVE_STRENGTH) != 0) {
+                int second = this.level.neighbour(next, d);
+                moveCrate(crates, second, this.level.neighbour(second, d));
+            }
+
+            if ((result & GameBoard.MOVE_PUSH) != 0)
+                moveCrate(crates, next, this.level.neighbour(next, d));
+
+            if ((result & GameBoard.MOVE_PULL) != 0)
+                moveCrate(crates, this.level.neighbour(cell, d ^ 1), cell);
+
+            if (GameBoard.getPickedUpPowerup(result) != null)
+                activators &= ~(1L << this.level.getActivatorIndex(next));
+
+            player = next;
+        }
+
+        int cost = node.cost + ((result & CRATE_MOVED) != 0 ? 1 : 0);
+        return new SearchNode(node, cell, d, result, crates, activators, GameBoard.updatePowerups(node.powerups, result), player, cost);
+    }
+
+    /**
+     * Writes the moves leading from the state last explored to another state, in LURD notation.
+     *
+     * @param node State reached from the state last explored.
+     * @param lurd Builder to append the moves to.
+     */
+    void appendMoves(SearchNode node, StringBuilder lurd) {
+        // the walk is traced back from the cell the move is made from, so it is collected in reverse
+        int steps = 0;
+        for (int cell = node.eventCell; cell != node.parent.playerCell; steps++) {
+            int d = this.parentDirections[cell];
+            this.queue[steps] = d;
+            cell = this.level.neighbour(cell, d ^ 1);
+        }
+
+        while (steps > 0)
+            lurd.append(LURD.charAt(this.queue[--steps]));
+
+        char move = LURD.charAt(node.eventDirection);
+        lurd.append((node.eventResult & CRATE_MOVED) != 0 ? Character.toUpperCase(move) : move);
+    }
+
+    private int evaluate(SearchNode node, int cell, int d) {
+        int next = this.level.neighbour(cell, d);
+        if (next < 0)
+            return GameBoard.MOVE_BLOCKED;
+
+        int powerups = node.powerups;
+        long[] crates = node.crates;
+        if (this.level.isWall(next) && (powerups & GHOST) == 0)
+            return GameBoard.MOVE_BLOCKED;
+
+        // GHOST is consumed by any move which is not blocked outright, even if it is blocked by crates
+        int result = (powerups & GHOST) != 0 ? GameBoard.MOVE_GHOST : GameBoard.MOVE_BLOCKED;
+
+        if (SolverLevel.test(crates, next)) {
+            int first = this.level.neighbour(next, d);
+            if (this.level.isSolid(first))
+                return result;
+
+            if (SolverLevel.test(crates, first)) {
+                int second = this.level.neighbour(first, d);
+                if ((powerups & STRENGTH) == 0 || this.level.isSolid(second) || SolverLevel.test(crates, second))
+                    return result;
+
+                result |= GameBoard.MOVE_STRENGTH;
+            }
+
+            result |= GameBoard.MOVE_PUSH;
+        }
+
+        int behind = this.level.neighbour(cell, d ^ 1);
+        if ((powerups & PULL) != 0 && behind >= 0 && SolverLevel.test(crates, behind))
+            result |= GameBoard.MOVE_PULL;
+
+        int activator = this.level.getActivatorIndex(next);
+        if (activator >= 0 && (node.activators & 1L << activator) != 0)
+            result |= (this.level.getActivatorPowerup(activator) + 1) << GameBoard.MOVE_PICKUP_SHIFT;
+
+        return result | GameBoard.MOVE_ACCEPTED;
+    }
+
+    private static void moveCrate(long[] crates, int from, int to) {
+        SolverLevel.clear(crates, from);
+        SolverLevel.set(crates, to);
+    }
+}
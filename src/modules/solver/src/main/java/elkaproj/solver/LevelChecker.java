@@ -0,0 +1,96 @@
+package elkaproj.solver;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+import elkaproj.config.LevelTileGrid;
+
+import java.util.ArrayDeque;
+import java.util.EnumSet;
+
+/**
+ * Checks the structure of levels, without searching for solutions.
+ */
+public final class LevelChecker {
+
+    private LevelChecker() {
+    }
+
+    /**
+     * Checks a level for structural problems. Enclosure is checked by walking from each player spawn over tiles other
+     * than walls, without using power-ups.
+     *
+     * @param level           Level to check.
+     * @param enabledPowerups Power-ups which are enabled. Activators of other power-ups are treated as floor.
+     * @return Problems found, empty if there are none.
+     */
+    public static EnumSet<LevelIssue> check(ILevel level, EnumSet<GamePowerup> enabledPowerups) {
+        LevelTileGrid grid = level.getTileGrid();
+        int width = grid.getWidth(), height = grid.getHeight();
+
+        int players = 0, crates = 0, targets = 0, activators = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        boolean[] visited = new boolean[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                LevelTile tile = grid.getTile(x, y);
+                switch (tile) {
+                    case PLAYER:
+                        players++;
+                        visited[y * width + x] = true;
+                        queue.add(y * width + x);
+                        break;
+
+                    case CRATE:
+                        crates++;
+                        break;
+
+                    case TARGET_SPOT:
+                        targets++;
+                        break;
+
+                    case GHOST:
+                    case STRENGTH:
+                    case PULL:
+                        if (enabledPowerups.contains(GamePowerup.fromTile(tile)))
+                            activators++;
+                        break;
+                }
+            }
+        }
+
+        EnumSet<LevelIssue> issues = EnumSet.noneOf(LevelIssue.class);
+        if (players == 0)
+            issues.add(LevelIssue.NO_PLAYER);
+        else if (players > 1)
+            issues.add(LevelIssue.MULTIPLE_PLAYERS);
+
+        if (crates == 0)
+            issues.add(LevelIssue.NO_CRATES);
+
+        if (crates != targets)
+            issues.add(LevelIssue.CRATE_TARGET_MISMATCH);
+
+        if (activators > SolverLevel.MAX_ACTIVATORS)
+            issues.add(LevelIssue.TOO_MANY_ACTIVATORS);
+
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int x = cell % width, y = cell / width;
+            if (x == 0 || y == 0 || x == width - 1 || y == height - 1) {
+                issues.add(LevelIssue.NOT_ENCLOSED);
+                break;
+            }
+
+            int[] neighbours = {cell - width, cell + width, cell - 1, cell + 1};
+            for (int next : neighbours) {
+                if (!visited[next] && grid.getTile(next % width, next / width) != LevelTile.WALL) {
+                    visited[next] = true;
+                    queue.add(next);
+                }
+            }
+        }
+
+        return issues;
+    }
+}
@@ -0,0 +1,36 @@
+package elkaproj.solver;
+
+/**
+ * Structural problems of a level, which make it unfit for publishing regardless of whether it can be solved.
+ */
+public enum LevelIssue {
+    /**
+     * The level has no player spawn.
+     */
+    NO_PLAYER,
+
+    /**
+     * The level has more than one player spawn.
+     */
+    MULTIPLE_PLAYERS,
+
+    /**
+     * The level has no crates, so there is nothing to solve.
+     */
+    NO_CRATES,
+
+    /**
+     * The number of crates differs from the number of target spots.
+     */
+    CRATE_TARGET_MISMATCH,
+
+    /**
+     * The player can walk up to the edge of the level, as the walls around the player's area are not closed.
+     */
+    NOT_ENCLOSED,
+
+    /**
+     * The level has more power-up activators than the solver supports, so its solvability can't be checked.
+     */
+    TOO_MANY_ACTIVATORS
+}
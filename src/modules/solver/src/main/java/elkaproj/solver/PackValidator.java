@@ -0,0 +1,92 @@
+package elkaproj.solver;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.config.ILevelPack;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Validates every level of a level pack: checks its structure, and searches for a solution with the fewest pushes.
+ * Each level is a fork-join task, and the search of a level runs in the same pool as part of its task, so idle workers
+ * steal both whole levels and parts of searches of levels in progress.
+ */
+public class PackValidator {
+
+    private final EnumSet<GamePowerup> enabledPowerups;
+    private final SolverBudget budget;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new validator.
+     *
+     * @param enabledPowerups Power-ups which are enabled. Activators of other power-ups are treated as floor.
+     * @param budget          Limits of the search of each level. The time limit of a level is the CPU time spent on its
+     *                        own search, so it doesn't depend on how many other levels are searched at once.
+     * @param pool            Pool to validate levels in.
+     */
+    public PackValidator(EnumSet<GamePowerup> enabledPowerups, SolverBudget budget, ForkJoinPool pool) {
+        this.enabledPowerups = enabledPowerups;
+        this.budget = budget;
+        this.pool = pool;
+    }
+
+    /**
+     * Validates every level of a level pack.
+     *
+     * @param pack Level pack to validate.
+     * @return Results of validation, with levels in the order of the pack.
+     */
+    public ValidationReport validate(ILevelPack pack) {
+        long start = System.nanoTime();
+        List<LevelTask> tasks = new ArrayList<>(pack.getCount());
+        for (ILevel level : pack)
+            tasks.add(new LevelTask(level));
+
+        this.pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        ValidationReport.LevelReport[] levels = new ValidationReport.LevelReport[tasks.size()];
+        for (int i = 0; i < levels.length; i++)
+            levels[i] = tasks.get(i).getRawResult();
+
+        return new ValidationReport(pack.getId(), pack.getName(), levels, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Validates a single level. Levels with structural issues are not searched.
+     *
+     * @param level Level to validate.
+     * @return Results of validation.
+     */
+    public ValidationReport.LevelReport validate(ILevel level) {
+        EnumSet<LevelIssue> issues = LevelChecker.check(level, this.enabledPowerups);
+        SolverResult result = issues.isEmpty()
+                ? new Solver(level, this.enabledPowerups).solve(this.budget, this.pool)
+                : null;
+
+        return new ValidationReport.LevelReport(level.getOrdinal(), level.getName(), issues.toArray(new LevelIssue[0]), result);
+    }
+
+    private class LevelTask extends RecursiveTask<ValidationReport.LevelReport> {
+        private final ILevel level;
+
+        public LevelTask(ILevel level) {
+            this.level = level;
+        }
+
+        @Override
+        protected ValidationReport.LevelReport compute() {
+            return PackValidator.this.validate(this.level);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package elkaproj.solver;
+
+import java.util.Arrays;
+
+/**
+ * Key of a search state in the transposition table: the crate bitset, followed by the activators still present, and
+ * the held power-ups together with the player cell. Where the player can walk around freely, the cell is normalized
+ * to the lowest one of the region the player can reach, so that states differing only in where the player stands in
+ * that region share a key.
+ */
+final class PackedState {
+
+    private final long[] words;
+    private final int hash;
+
+    PackedState(long[] crates, long activators, int powerups, int playerCell) {
+        this.words = Arrays.copyOf(crates, crates.length + 2);
+        this.words[crates.length] = activators;
+        this.words[crates.length + 1] = (long) powerups << 32 | playerCell;
+
+        long hash = 0;
+        for (long word : this.words)
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+
+        this.hash = (int) (hash ^ hash >>> 32);
+    }
+
+    /**
+     * Estimates the memory taken by a key, and its entry in the transposition table.
+     *
+     * @param crateWords Number of words of the crate bitset.
+     * @return Estimated size, in bytes.
+     */
+    static long estimateEntrySize(int crateWords) {
+        // table node, key object, key array header and the boxed depth
+        return 32 + 24 + 16 + 8L * (crateWords + 2) + 16;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof PackedState))
+            return false;
+
+        PackedState other = (PackedState) o;
+        return this.hash == other.hash && Arrays.equals(this.words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+}
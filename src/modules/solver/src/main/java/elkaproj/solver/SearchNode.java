@@ -0,0 +1,28 @@
+package elkaproj.solver;
+
+/**
+ * State reached during the search, linked to the state it was reached from. Unlike its {@link PackedState} key, a node
+ * holds the exact cell of the player, so that the moves leading to it can be written out once a solution is found.
+ */
+final class SearchNode {
+
+    final SearchNode parent;
+    final int eventCell, eventDirection, eventResult;
+    final long[] crates;
+    final long activators;
+    final int powerups;
+    final int playerCell;
+    final int cost;
+
+    SearchNode(SearchNode parent, int eventCell, int eventDirection, int eventResult, long[] crates, long activators, int powerups, int playerCell, int cost) {
+        this.parent = parent;
+        this.eventCell = eventCell;
+        this.eventDirection = eventDirection;
+        this.eventResult = eventResult;
+        this.crates = crates;
+        this.activators = activators;
+        this.powerups = powerups;
+        this.playerCell = playerCell;
+        this.cost = cost;
+    }
+}
@@ -0,0 +1,341 @@
+package elkaproj.solver;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Searches for solutions of a level with IDA*, finding solutions with the fewest pushes, where a push is any move
+ * which moves crates. Power-ups are played by the same rules as in the game, so solutions may rely on them.
+ * <p>
+ * Search states are made of the crate bitset, the power-up activators still present, the held power-ups and the
+ * player cell, normalized to the region the player can walk around in freely. Walking through the region is not
+ * searched; only pushes and other moves with side effects lead to new states. Each iteration of the search is split
+ * into fork-join tasks, which idle workers steal from one another, and states visited in an iteration are shared
+ * between the tasks through a transposition table bounded by the memory budget.
+ * <p>
+ * The time limit of a search is the CPU time spent on it, summed over the threads taking part. Workers of a pool run
+ * tasks of several searches in turn, so each thread charges its time to the search whose task it is running, and a
+ * search takes as long as its own work, however many other searches share the pool.
+ */
+public class Solver {
+
+    // states expanded inline, rather than forked, once this many tasks are queued by the worker
+    private static final int SURPLUS_TASKS = 2;
+
+    // number of states expanded by a thread between checks of the time limit
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final ThreadLocal<SearchClock> CLOCKS = ThreadLocal.withInitial(SearchClock::new);
+
+    private final SolverLevel level;
+    private final ThreadLocal<Expander> expanders;
+
+    /**
+     * Compiles a level for searching.
+     *
+     * @param level           Level to solve.
+     * @param enabledPowerups Power-ups which are enabled. Activators of other power-ups are treated as floor.
+     * @throws IllegalArgumentException The level has no player, or too many power-up activators.
+     */
+    public Solver(ILevel level, EnumSet<GamePowerup> enabledPowerups) {
+        this.level = new SolverLevel(level, enabledPowerups);
+        this.expanders = ThreadLocal.withInitial(() -> new Expander(this.level));
+    }
+
+    /**
+     * Searches for a solution in the common fork-join pool.
+     *
+     * @param budget Limits of the search.
+     * @return Result of the search.
+     */
+    public SolverResult solve(SolverBudget budget) {
+        return this.solve(budget, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Searches for a solution. If called from a task running in the pool, the search runs as part of that task.
+     *
+     * @param budget Limits of the search.
+     * @param pool   Pool to run the search in.
+     * @return Result of the search.
+     */
+    public SolverResult solve(SolverBudget budget, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        SearchNode root = new SearchNode(null, -1, -1, 0, this.level.getInitialCrates().clone(),
+                this.level.getInitialActivators(), 0, this.level.getPlayerCell(), 0);
+
+        if (this.level.isCompleted(root.crates))
+            return new SolverResult(SolverStatus.SOLVED, "", 0, 0, 0, System.nanoTime() - start, 0);
+
+        int threshold = this.estimate(root);
+        if (this.level.getCrateCount() > this.level.getTargetCount() || threshold == SolverLevel.UNREACHABLE)
+            return new SolverResult(SolverStatus.UNSOLVABLE, null, -1, -1, 0, System.nanoTime() - start, 0);
+
+        long maxEntries = budget.getMaxMemoryBytes() / PackedState.estimateEntrySize(this.level.getWordCount());
+        long maxNanos = TimeUnit.MILLISECONDS.toNanos(budget.getMaxMillis());
+        Search search = new Search(budget.getMaxNodes(), maxEntries, maxNanos);
+        while (true) {
+            search.beginIteration(threshold);
+
+            SearchTask task = new SearchTask(search, root);
+            if (ForkJoinTask.getPool() == pool)
+                task.invoke();
+            else
+                pool.invoke(task);
+
+            SearchNode solution = search.solution.get();
+            long elapsed = System.nanoTime() - start, cpu = search.cpuNanos.get();
+            if (solution != null)
+                return new SolverResult(SolverStatus.SOLVED, this.writeSolution(solution), solution.cost, solution.cost, search.nodes.get(), elapsed, cpu);
+
+            if (search.exceeded)
+                return new SolverResult(SolverStatus.BUDGET_EXCEEDED, null, -1, threshold, search.nodes.get(), elapsed, cpu);
+
+            // threads which expanded fewer states than the clock interval didn't check the time themselves
+            if (search.timedOut || cpu > maxNanos)
+                return new SolverResult(SolverStatus.TIMED_OUT, null, -1, threshold, search.nodes.get(), elapsed, cpu);
+
+            threshold = search.nextThreshold.get();
+            if (threshold == SolverLevel.UNREACHABLE)
+                return new SolverResult(SolverStatus.UNSOLVABLE, null, -1, -1, search.nodes.get(), elapsed, cpu);
+        }
+    }
+
+    /**
+     * Estimates the number of pushes left, never overestimating it. While crates can only be pushed, each crate takes at
+     * least as many pushes as it is away from the nearest target; crates on dead squares can't be completed at all.
+     * PULL and GHOST let crates go where pushes can't, so Manhattan distances are used while they can be picked up, and
+     * as STRENGTH and PULL let a single move move two crates, the sum is halved while they can be.
+     */
+    private int estimate(SearchNode node) {
+        int available = node.powerups | this.level.getAvailablePowerups(node.activators);
+        boolean pushesOnly = (available & (Expander.PULL | Expander.GHOST)) == 0;
+
+        int sum = 0;
+        long[] crates = node.crates;
+        for (int w = 0; w < crates.length; w++) {
+            for (long bits = crates[w]; bits != 0; bits &= bits - 1) {
+                int cell = (w << 6) + Long.numberOfTrailingZeros(bits);
+                int distance = pushesOnly ? this.level.getPushDistance(cell) : this.level.getManhattanDistance(cell);
+                if (distance == SolverLevel.UNREACHABLE)
+                    return SolverLevel.UNREACHABLE;
+
+                sum += distance;
+            }
+        }
+
+        return (available & (Expander.STRENGTH | Expander.PULL)) != 0 ? (sum + 1) / 2 : sum;
+    }
+
+    private String writeSolution(SearchNode solution) {
+        ArrayList<SearchNode> path = new ArrayList<>();
+        for (SearchNode node = solution; node.parent != null; node = node.parent)
+            path.add(node);
+
+        Expander expander = new Expander(this.level);
+        StringBuilder lurd = new StringBuilder();
+        for (int i = path.size() - 1; i >= 0; i--) {
+            SearchNode node = path.get(i);
+            expander.explore(node.parent);
+            expander.appendMoves(node, lurd);
+        }
+
+        return lurd.toString();
+    }
+
+    /**
+     * State of a search shared by its tasks.
+     */
+    private static class Search {
+        private final long maxNodes;
+        private final long maxEntries;
+        private final ConcurrentHashMap<PackedState, Integer> visited = new ConcurrentHashMap<>();
+        private final AtomicLong entries = new AtomicLong();
+        private final AtomicLong nodes = new AtomicLong();
+        private final AtomicInteger nextThreshold = new AtomicInteger();
+        private final AtomicReference<SearchNode> solution = new AtomicReference<>();
+        private final AtomicLong cpuNanos = new AtomicLong();
+        private final long maxNanos;
+        private volatile boolean exceeded = false;
+        private volatile boolean timedOut = false;
+        private int threshold;
+
+        public Search(long maxNodes, long maxEntries, long maxNanos) {
+            this.maxNodes = maxNodes;
+            this.maxEntries = maxEntries;
+            this.maxNanos = maxNanos;
+        }
+
+        public void beginIteration(int threshold) {
+            this.threshold = threshold;
+            this.nextThreshold.set(SolverLevel.UNREACHABLE);
+            this.visited.clear();
+            this.entries.set(0);
+        }
+
+        public boolean isStopped() {
+            return this.exceeded || this.timedOut || this.solution.get() != null;
+        }
+
+        /**
+         * Counts an expanded state, and checks whether the search is still within its budget.
+         */
+        public boolean expand(SearchClock clock) {
+            long nodes = this.nodes.incrementAndGet();
+            if (nodes > this.maxNodes) {
+                this.exceeded = true;
+                return false;
+            }
+
+            if (++clock.expanded % CLOCK_INTERVAL == 0) {
+                clock.switchTo(this);
+                if (this.cpuNanos.get() > this.maxNanos) {
+                    this.timedOut = true;
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Records a visit of a state, unless it was already visited with no more pushes in this iteration, in which case
+         * its successors were searched with at least as much of the threshold left.
+         */
+        public boolean visit(PackedState key, int cost) {
+            Integer previous = this.visited.get(key);
+            if (previous != null) {
+                if (previous <= cost)
+                    return false;
+
+                this.visited.put(key, cost);
+                return true;
+            }
+
+            if (this.entries.get() < this.maxEntries && this.visited.putIfAbsent(key, cost) == null)
+                this.entries.incrementAndGet();
+
+            return true;
+        }
+
+        public void deferTo(int cost) {
+            int current;
+            while (cost < (current = this.nextThreshold.get()) && !this.nextThreshold.compareAndSet(current, cost)) {
+                // retry
+            }
+        }
+    }
+
+    private class SearchTask extends RecursiveAction {
+        private final Search search;
+        private final SearchNode node;
+
+        public SearchTask(Search search, SearchNode node) {
+            this.search = search;
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+            // tasks of the same search run within one another while joining, and are timed as one
+            SearchClock clock = CLOCKS.get();
+            Search outer = clock.search;
+            if (outer == this.search) {
+                this.search(this.node, clock);
+                return;
+            }
+
+            clock.switchTo(this.search);
+            try {
+                this.search(this.node, clock);
+            } finally {
+                clock.switchTo(outer);
+            }
+        }
+
+        private void search(SearchNode node, SearchClock clock) {
+            Search search = this.search;
+            if (search.isStopped())
+                return;
+
+            Expander expander = Solver.this.expanders.get();
+            expander.explore(node);
+            if (!search.visit(new PackedState(node.crates, node.activators, node.powerups, expander.getNormalizedCell()), node.cost))
+                return;
+
+            if (!search.expand(clock))
+                return;
+
+            // successors are created before searching any of them, as searching reuses the expander
+            List<SearchNode> children = new ArrayList<>(expander.getEventCount());
+            for (int i = 0; i < expander.getEventCount(); i++) {
+                SearchNode child = expander.apply(node, i);
+                int estimate = Solver.this.estimate(child);
+                if (estimate == SolverLevel.UNREACHABLE)
+                    continue;
+
+                int cost = child.cost + estimate;
+                if (cost > search.threshold) {
+                    search.deferTo(cost);
+                    continue;
+                }
+
+                if (estimate == 0 && Solver.this.level.isCompleted(child.crates)) {
+                    search.solution.compareAndSet(null, child);
+                    return;
+                }
+
+                children.add(child);
+            }
+
+            if (children.size() > 1 && getSurplusQueuedTaskCount() < SURPLUS_TASKS) {
+                List<SearchTask> tasks = new ArrayList<>(children.size());
+                for (SearchNode child : children)
+                    tasks.add(new SearchTask(search, child));
+
+                invokeAll(tasks);
+                return;
+            }
+
+            for (SearchNode child : children)
+                this.search(child, clock);
+        }
+    }
+
+    /**
+     * Measures the CPU time a thread spends on each search it runs tasks of.
+     */
+    private static class SearchClock {
+        private Search search;
+        private long startNanos;
+        private int expanded;
+
+        /**
+         * Charges the time since the last switch to the search which was running, and starts timing the given one.
+         */
+        public void switchTo(Search search) {
+            long now = CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+            if (this.search != null)
+                this.search.cpuNanos.addAndGet(now - this.startNanos);
+
+            this.search = search;
+            this.startNanos = now;
+        }
+    }
+}
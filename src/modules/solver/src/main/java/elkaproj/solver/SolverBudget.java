@@ -0,0 +1,71 @@
+package elkaproj.solver;
+
+/**
+ * Limits of a single search.
+ */
+public class SolverBudget {
+
+    /**
+     * Budget suitable for the levels shipped with the game: ten million expanded states, and 256 MiB of remembered
+     * states.
+     */
+    public static final SolverBudget DEFAULT = new SolverBudget(10_000_000, 256L << 20);
+
+    private final long maxNodes;
+    private final long maxMemoryBytes;
+    private final long maxMillis;
+
+    /**
+     * Creates a new budget, without a time limit.
+     *
+     * @param maxNodes       Maximum number of states expanded, across all search iterations.
+     * @param maxMemoryBytes Approximate maximum size of the table of states visited in a search iteration. Once the table
+     *                       is full, the search goes on without remembering further states, which makes it slower, but
+     *                       not wrong.
+     */
+    public SolverBudget(long maxNodes, long maxMemoryBytes) {
+        this(maxNodes, maxMemoryBytes, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new budget.
+     *
+     * @param maxNodes       Maximum number of states expanded, across all search iterations.
+     * @param maxMemoryBytes Approximate maximum size of the table of states visited in a search iteration.
+     * @param maxMillis      Maximum CPU time the search may take, summed over the threads taking part in it, in
+     *                       milliseconds.
+     */
+    public SolverBudget(long maxNodes, long maxMemoryBytes, long maxMillis) {
+        this.maxNodes = maxNodes;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Gets the maximum number of states expanded.
+     *
+     * @return Maximum number of states.
+     */
+    public long getMaxNodes() {
+        return this.maxNodes;
+    }
+
+    /**
+     * Gets the approximate maximum size of the table of visited states.
+     *
+     * @return Maximum size, in bytes.
+     */
+    public long getMaxMemoryBytes() {
+        return this.maxMemoryBytes;
+    }
+
+    /**
+     * Gets the maximum CPU time the search may take, summed over the threads taking part in it. Unlike the time it
+     * takes to complete, it doesn't depend on how many threads search, or on other searches sharing them.
+     *
+     * @return Maximum CPU time, in milliseconds, or {@link Long#MAX_VALUE} if there is no limit.
+     */
+    public long getMaxMillis() {
+        return this.maxMillis;
+    }
+}
@@ -0,0 +1,307 @@
+package elkaproj.solver;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+import elkaproj.config.LevelTileGrid;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * Static parts of a level, compiled for searching. Cells are numbered row by row, and sets of cells are packed into
+ * bitsets of longs. Distance tables used by the search heuristic are computed once per level.
+ */
+final class SolverLevel {
+
+    /**
+     * Distance of a cell from which no target can be reached.
+     */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Maximum number of power-up activators in a level, as their presence is packed into a single long.
+     */
+    static final int MAX_ACTIVATORS = 64;
+
+    // indexed by GameMovementDirection ordinal
+    private static final int[] DIRECTION_X = {0, 0, -1, 1};
+    private static final int[] DIRECTION_Y = {-1, 1, 0, 0};
+
+    private final int width, height, cells, words;
+    private final long[] walls;
+    private final long[] targets;
+    private final long[] initialCrates;
+    private final int crateCount, targetCount;
+    private final int playerCell;
+    private final int[] neighbours;
+    private final int[] activatorIndices;
+    private final int[] activatorPowerups;
+    private final long initialActivators;
+    private final int[] pushDistances;
+    private final int[] manhattanDistances;
+
+    SolverLevel(ILevel level, EnumSet<GamePowerup> enabledPowerups) {
+        LevelTileGrid grid = level.getTileGrid();
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.cells = this.width * this.height;
+        this.words = (this.cells + 63) >>> 6;
+
+        this.walls = new long[this.words];
+        this.targets = new long[this.words];
+        this.initialCrates = new long[this.words];
+        this.activatorIndices = new int[this.cells];
+        Arrays.fill(this.activatorIndices, -1);
+
+        int[] activatorPowerups = new int[MAX_ACTIVATORS];
+        int crates = 0, targets = 0, activators = 0, player = -1;
+        for (int y = 0; y < this.height; y++) {
+            for (int x = 0; x < this.width; x++) {
+                int cell = y * this.width + x;
+                LevelTile tile = grid.getTile(x, y);
+                switch (tile) {
+                    case WALL:
+                        set(this.walls, cell);
+                        break;
+
+                    case TARGET_SPOT:
+                        set(this.targets, cell);
+                        targets++;
+                        break;
+
+                    case CRATE:
+                        set(this.initialCrates, cell);
+                        crates++;
+                        break;
+
+                    case PLAYER:
+                        player = cell;
+                        break;
+
+                    case GHOST:
+                    case STRENGTH:
+                    case PULL:
+                        // activators of disabled power-ups are floor, like on the game board
+                        GamePowerup powerup = GamePowerup.fromTile(tile);
+                        if (!enabledPowerups.contains(powerup))
+                            break;
+
+                        if (activators == MAX_ACTIVATORS)
+                            throw new IllegalArgumentException(String.format("Levels with more than %d power-up activators are not supported.", MAX_ACTIVATORS));
+
+                        this.activatorIndices[cell] = activators;
+                        activatorPowerups[activators++] = powerup.ordinal();
+                        break;
+                }
+            }
+        }
+
+        if (player < 0)
+            throw new IllegalArgumentException("Level has no player.");
+
+        this.crateCount = crates;
+        this.targetCount = targets;
+        this.playerCell = player;
+        this.activatorPowerups = Arrays.copyOf(activatorPowerups, activators);
+        this.initialActivators = activators == MAX_ACTIVATORS ? -1L : (1L << activators) - 1;
+
+        this.neighbours = new int[this.cells * DIRECTION_X.length];
+        for (int cell = 0; cell < this.cells; cell++) {
+            int x = cell % this.width, y = cell / this.width;
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nx = x + DIRECTION_X[d], ny = y + DIRECTION_Y[d];
+                boolean inBounds = nx >= 0 && ny >= 0 && nx < this.width && ny < this.height;
+                this.neighbours[cell * DIRECTION_X.length + d] = inBounds ? ny * this.width + nx : -1;
+            }
+        }
+
+        this.pushDistances = this.computePushDistances();
+        this.manhattanDistances = this.computeManhattanDistances();
+    }
+
+    int getWidth() {
+        return this.width;
+    }
+
+    int getCellCount() {
+        return this.cells;
+    }
+
+    int getWordCount() {
+        return this.words;
+    }
+
+    int getCrateCount() {
+        return this.crateCount;
+    }
+
+    int getTargetCount() {
+        return this.targetCount;
+    }
+
+    int getPlayerCell() {
+        return this.playerCell;
+    }
+
+    long[] getInitialCrates() {
+        return this.initialCrates;
+    }
+
+    long getInitialActivators() {
+        return this.initialActivators;
+    }
+
+    /**
+     * Gets the cell next to a given one.
+     *
+     * @param cell      Cell to start from.
+     * @param direction Ordinal of the direction to go in.
+     * @return Neighbouring cell, or -1 if it lies outside the level.
+     */
+    int neighbour(int cell, int direction) {
+        return this.neighbours[cell * DIRECTION_X.length + direction];
+    }
+
+    boolean isWall(int cell) {
+        return test(this.walls, cell);
+    }
+
+    boolean isSolid(int cell) {
+        return cell < 0 || test(this.walls, cell);
+    }
+
+    /**
+     * Gets the index of the power-up activator on a cell.
+     *
+     * @param cell Cell to check.
+     * @return Index of the activator, or -1 if there is none.
+     */
+    int getActivatorIndex(int cell) {
+        return this.activatorIndices[cell];
+    }
+
+    /**
+     * Gets the power-up an activator grants.
+     *
+     * @param activator Index of the activator.
+     * @return Ordinal of the power-up.
+     */
+    int getActivatorPowerup(int activator) {
+        return this.activatorPowerups[activator];
+    }
+
+    /**
+     * Gets the bitmask of power-ups which can be picked up from the activators still present.
+     *
+     * @param activators Bitmask of activators still present.
+     * @return Bitmask of power-ups, indexed by ordinal.
+     */
+    int getAvailablePowerups(long activators) {
+        int powerups = 0;
+        for (long bits = activators; bits != 0; bits &= bits - 1)
+            powerups |= 1 << this.activatorPowerups[Long.numberOfTrailingZeros(bits)];
+
+        return powerups;
+    }
+
+    /**
+     * Checks whether all crates are on targets.
+     *
+     * @param crates Crate bitset.
+     * @return Whether the level is completed.
+     */
+    boolean isCompleted(long[] crates) {
+        for (int w = 0; w < this.words; w++) {
+            if ((crates[w] & ~this.targets[w]) != 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the minimum number of pushes needed to bring a crate from a cell onto any target, ignoring other crates and
+     * power-ups.
+     *
+     * @param cell Cell of the crate.
+     * @return Number of pushes, or {@link #UNREACHABLE} if no target can be reached, making the cell a dead square.
+     */
+    int getPushDistance(int cell) {
+        return this.pushDistances[cell];
+    }
+
+    /**
+     * Gets the Manhattan distance from a cell to the nearest target, which bounds the number of crate moves when
+     * power-ups let crates go where pushes can't.
+     *
+     * @param cell Cell of the crate.
+     * @return Distance to the nearest target, or {@link #UNREACHABLE} if the level has no targets.
+     */
+    int getManhattanDistance(int cell) {
+        return this.manhattanDistances[cell];
+    }
+
+    private int[] computePushDistances() {
+        // crates are pulled away from targets: a crate can be pushed from a cell onto the one next to it if both the
+        // cell and the one behind it, where the player stands, are not walls
+        int[] distances = new int[this.cells];
+        Arrays.fill(distances, UNREACHABLE);
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int cell = 0; cell < this.cells; cell++) {
+            if (test(this.targets, cell)) {
+                distances[cell] = 0;
+                queue.add(cell);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int from = this.neighbour(cell, d ^ 1);
+                if (this.isSolid(from) || distances[from] != UNREACHABLE)
+                    continue;
+
+                int player = this.neighbour(from, d ^ 1);
+                if (this.isSolid(player))
+                    continue;
+
+                distances[from] = distances[cell] + 1;
+                queue.add(from);
+            }
+        }
+
+        return distances;
+    }
+
+    private int[] computeManhattanDistances() {
+        int[] distances = new int[this.cells];
+        Arrays.fill(distances, UNREACHABLE);
+        for (int target = 0; target < this.cells; target++) {
+            if (!test(this.targets, target))
+                continue;
+
+            int tx = target % this.width, ty = target / this.width;
+            for (int cell = 0; cell < this.cells; cell++) {
+                int distance = Math.abs(cell % this.width - tx) + Math.abs(cell / this.width - ty);
+                distances[cell] = Math.min(distances[cell], distance);
+            }
+        }
+
+        return distances;
+    }
+
+    static boolean test(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
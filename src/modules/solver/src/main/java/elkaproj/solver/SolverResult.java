@@ -0,0 +1,102 @@
+package elkaproj.solver;
+
+/**
+ * Result of a search for the solution of a level.
+ */
+public class SolverResult {
+
+    private final SolverStatus status;
+    private final String solution;
+    private final int pushes;
+    private final int lowerBound;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final long cpuNanos;
+
+    SolverResult(SolverStatus status, String solution, int pushes, int lowerBound, long nodes, long elapsedNanos, long cpuNanos) {
+        this.status = status;
+        this.solution = solution;
+        this.pushes = pushes;
+        this.lowerBound = lowerBound;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.cpuNanos = cpuNanos;
+    }
+
+    /**
+     * Gets the outcome of the search.
+     *
+     * @return Outcome of the search.
+     */
+    public SolverStatus getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Gets the solution, in LURD notation: lower case letters are moves, and upper case letters are moves which push or
+     * pull crates. Making the moves with {@link elkaproj.game.GameController#move(elkaproj.game.GameMovementDirection)}
+     * completes the level, provided the same power-ups are enabled.
+     *
+     * @return Solution, or null if none was found.
+     */
+    public String getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Gets the number of moves of the solution.
+     *
+     * @return Number of moves, or -1 if no solution was found.
+     */
+    public int getMoves() {
+        return this.solution == null ? -1 : this.solution.length();
+    }
+
+    /**
+     * Gets the number of moves of the solution which move crates. Solutions take the fewest possible pushes, but not
+     * necessarily the fewest moves.
+     *
+     * @return Number of pushes, or -1 if no solution was found.
+     */
+    public int getPushes() {
+        return this.pushes;
+    }
+
+    /**
+     * Gets the number of pushes every solution was proven to take at least. For solved levels, this is the number of
+     * pushes of the solution.
+     *
+     * @return Lower bound of the number of pushes, or -1 if the level can't be completed.
+     */
+    public int getLowerBound() {
+        return this.lowerBound;
+    }
+
+    /**
+     * Gets the number of states expanded by the search.
+     *
+     * @return Number of states.
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Gets the time the search took.
+     *
+     * @return Time of the search, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Gets the CPU time spent on the search, summed over the threads which took part in it. This is the time counted
+     * against the time limit of the budget.
+     *
+     * @return CPU time of the search, in nanoseconds.
+     */
+    public long getCpuNanos() {
+        return this.cpuNanos;
+    }
+}
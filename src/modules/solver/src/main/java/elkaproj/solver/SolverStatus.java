@@ -0,0 +1,28 @@
+package elkaproj.solver;
+
+/**
+ * Outcome of a search.
+ */
+public enum SolverStatus {
+    /**
+     * A solution with the fewest possible pushes was found.
+     */
+    SOLVED,
+
+    /**
+     * Every reachable state was searched, and the level can't be completed.
+     */
+    UNSOLVABLE,
+
+    /**
+     * The search ran out of its budget before finding a solution. Solutions, if any, take at least as many pushes as
+     * the reported lower bound.
+     */
+    BUDGET_EXCEEDED,
+
+    /**
+     * The search ran out of time before finding a solution. Like with {@link #BUDGET_EXCEEDED}, solutions take at
+     * least as many pushes as the reported lower bound.
+     */
+    TIMED_OUT
+}
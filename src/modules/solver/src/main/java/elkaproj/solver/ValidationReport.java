@@ -0,0 +1,133 @@
+package elkaproj.solver;
+
+import elkaproj.config.IXmlSerializable;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Results of validating every level of a level pack.
+ */
+@XmlRootElement(name = "validation")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ValidationReport implements IXmlSerializable {
+
+    @XmlElement(name = "level-pack")
+    public String levelPackId;
+
+    @XmlElement(name = "level-pack-name")
+    public String levelPackName;
+
+    @XmlElement(name = "valid")
+    public boolean valid;
+
+    @XmlElement(name = "elapsed-ms")
+    public long elapsedMillis;
+
+    @XmlElement(name = "level")
+    public LevelReport[] levels;
+
+    public ValidationReport() {
+    }
+
+    ValidationReport(String levelPackId, String levelPackName, LevelReport[] levels, long elapsedMillis) {
+        this.levelPackId = levelPackId;
+        this.levelPackName = levelPackName;
+        this.levels = levels;
+        this.elapsedMillis = elapsedMillis;
+
+        this.valid = true;
+        for (LevelReport level : levels)
+            this.valid &= level.isValid();
+    }
+
+    @Override
+    public void serialize(OutputStream os) throws IOException, JAXBException {
+        JAXBContext jaxbctx = JAXBContext.newInstance(this.getClass());
+        Marshaller jaxb = jaxbctx.createMarshaller();
+        jaxb.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            jaxb.marshal(this, baos);
+            os.write(baos.toByteArray());
+        }
+    }
+
+    /**
+     * Results of validating a single level. Levels with structural issues are not searched, and have no status. Push
+     * counts of solved levels are optimal, while move counts are those of the solution found, which need not have the
+     * fewest moves; levels which weren't solved within the budget only have a lower bound on pushes.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class LevelReport {
+
+        @XmlElement(name = "ordinal")
+        public int ordinal;
+
+        @XmlElement(name = "name")
+        public String name;
+
+        @XmlElement(name = "issue")
+        public LevelIssue[] issues;
+
+        @XmlElement(name = "status")
+        public SolverStatus status;
+
+        @XmlElement(name = "moves")
+        public int moves = -1;
+
+        @XmlElement(name = "pushes")
+        public int pushes = -1;
+
+        @XmlElement(name = "push-lower-bound")
+        public int pushLowerBound = -1;
+
+        @XmlElement(name = "nodes")
+        public long nodes;
+
+        @XmlElement(name = "elapsed-ms")
+        public long elapsedMillis;
+
+        @XmlElement(name = "cpu-ms")
+        public long cpuMillis;
+
+        @XmlElement(name = "solution")
+        public String solution;
+
+        public LevelReport() {
+        }
+
+        LevelReport(int ordinal, String name, LevelIssue[] issues, SolverResult result) {
+            this.ordinal = ordinal;
+            this.name = name;
+            this.issues = issues;
+
+            if (result != null) {
+                this.status = result.getStatus();
+                this.moves = result.getMoves();
+                this.pushes = result.getPushes();
+                this.pushLowerBound = result.getLowerBound();
+                this.nodes = result.getNodes();
+                this.elapsedMillis = result.getElapsedNanos() / 1_000_000;
+                this.cpuMillis = result.getCpuNanos() / 1_000_000;
+                this.solution = result.getSolution();
+            }
+        }
+
+        /**
+         * Gets whether the level has no structural issues, and was solved.
+         *
+         * @return Whether the level is valid.
+         */
+        public boolean isValid() {
+            return this.issues.length == 0 && this.status == SolverStatus.SOLVED;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package elkaproj;
+
+import elkaproj.game.GameBoardBenchmark;
+import elkaproj.game.simulation.GameSimulatorBenchmark;
+
+/**
+ * Runs the throughput benchmarks of the game core, and prints their results. Results depend on the machine running
+ * them, so they are kept out of the unit tests, which only check behaviour; run them with <code>gradle benchmark</code>.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) {
+        GameBoardBenchmark.run();
+        GameSimulatorBenchmark.run();
+    }
+}
@@ -0,0 +1,86 @@
+package elkaproj.game;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+/**
+ * Compares the throughput of {@link GameBoard} with the jagged-array rules it replaced, on a large level: making moves,
+ * and restarting the level.
+ */
+public final class GameBoardBenchmark {
+
+    private static final GameMovementDirection[] DIRECTIONS = GameMovementDirection.values();
+
+    // rounds run before the measured one, letting the JIT compile both implementations
+    private static final int WARMUP_ROUNDS = 3;
+    // moves are made in short rounds, going on from where the previous round stopped, and the fastest round of each
+    // implementation is reported, as slower ones only add the noise of the machine
+    private static final int MOVE_ROUNDS = 100;
+    private static final int MOVES_PER_ROUND = 1 << 18;
+
+    private GameBoardBenchmark() {
+    }
+
+    /**
+     * Runs the benchmarks, and prints their results.
+     */
+    public static void run() {
+        ILevel level = GameBoardTests.createLargeLevel(1024, 1024, 100000, new Random(42));
+        GameMovementDirection[] moves = new GameMovementDirection[1 << 16];
+        Random random = new Random(7);
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+
+        // power-ups are held in a PowerupSet, as simulations and bots do, rather than passed through the EnumSet adapter
+        PowerupSet powerUps = new PowerupSet();
+        GameBoard bitboardBoard = new GameBoard(level, EnumSet.allOf(GamePowerup.class));
+        GameBoardTests.ReferenceBoard referenceBoard = new GameBoardTests.ReferenceBoard(level);
+        long referenceTime = Long.MAX_VALUE, bitboardTime = Long.MAX_VALUE;
+        for (int round = 0; round < MOVE_ROUNDS; round++) {
+            referenceTime = Math.min(referenceTime, measureMoves(referenceBoard, moves));
+            bitboardTime = Math.min(bitboardTime, measureMoves(bitboardBoard, powerUps, moves));
+        }
+
+        double reference = MOVES_PER_ROUND / (referenceTime / 1e9), bitboard = MOVES_PER_ROUND / (bitboardTime / 1e9);
+        System.out.printf("1024x1024 moves: jagged arrays %.0f moves/s, bitboard %.0f moves/s (%.2fx)%n", reference,
+                bitboard, bitboard / reference);
+
+        // the reference restarts a level by rebuilding it from its tiles, while boards restore it from the template
+        int count = 50;
+        long rebuild = 0, reset = 0;
+        GameBoard board = new GameBoard(level, EnumSet.allOf(GamePowerup.class));
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                new GameBoardTests.ReferenceBoard(level);
+            rebuild = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                board.reset();
+            reset = System.nanoTime() - start;
+        }
+
+        System.out.printf("1024x1024 reset: rebuild from tiles %.3f ms, template restore %.3f ms (%.0fx)%n",
+                rebuild / 1e6 / count, reset / 1e6 / count, rebuild / (double) reset);
+    }
+
+    private static long measureMoves(GameBoard board, PowerupSet powerUps, GameMovementDirection[] moves) {
+        long start = System.nanoTime();
+        for (int i = 0; i < MOVES_PER_ROUND; i++)
+            board.move(moves[i & (moves.length - 1)], powerUps);
+
+        return System.nanoTime() - start;
+    }
+
+    private static long measureMoves(GameBoardTests.ReferenceBoard board, GameMovementDirection[] moves) {
+        long start = System.nanoTime();
+        for (int i = 0; i < MOVES_PER_ROUND; i++)
+            board.move(moves[i & (moves.length - 1)]);
+
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,40 @@
+package elkaproj.game.simulation;
+
+import elkaproj.game.TestLevel;
+import elkaproj.game.TestLevelPack;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures the throughput of {@link GameSimulator}, running games of random moves on every available processor.
+ */
+public final class GameSimulatorBenchmark {
+
+    private static final TestLevelPack PACK = new TestLevelPack(
+            new TestLevel(0,
+                    "######",
+                    "#S_PX#",
+                    "#____#",
+                    "######"),
+            new TestLevel(1,
+                    "#######",
+                    "#X_P_S#",
+                    "#######"));
+
+    private GameSimulatorBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark, and prints the report of the simulation.
+     */
+    public static void run() {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            GameSimulator simulator = new GameSimulator(PACK, PACK, executor, 10000);
+            System.out.print(simulator.run(256, RandomMoveSource::new));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
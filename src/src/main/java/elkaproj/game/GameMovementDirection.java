@@ -1,26 +0,0 @@
-package elkaproj.game;
-
-/**
- * Represents a move direction.
- */
-public enum GameMovementDirection {
-    /**
-     * Defines an attempt to move up.
-     */
-    UP,
-
-    /**
-     * Defines an attempt to move down.
-     */
-    DOWN,
-
-    /**
-     * Defines an attempt to move left.
-     */
-    LEFT,
-
-    /**
-     * Defines an attempt to move right.
-     */
-    RIGHT
-}
@@ -3,12 +3,18 @@ package elkaproj.ui;
 import elkaproj.DebugWriter;
 import elkaproj.Dimensions;
 import elkaproj.Entry;
-import elkaproj.config.ILevel;
+import elkaproj.config.GamePowerup;
 import elkaproj.config.LevelTile;
-import elkaproj.game.GameController;
+import elkaproj.game.BoardDiff;
+import elkaproj.game.BoardSnapshot;
+import elkaproj.game.CrateIndex;
+import elkaproj.game.GameActor;
+import elkaproj.game.GameEvent;
+import elkaproj.game.GameEventPipeline;
 import elkaproj.game.GameMovementDirection;
-import elkaproj.game.IGameEventHandler;
-import elkaproj.game.IGameLifecycleHandler;
+import elkaproj.game.IGameCommand;
+import elkaproj.game.MoveDeltas;
+import elkaproj.game.ReplayPlayer;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
@@ -17,36 +23,53 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.image.BufferStrategy;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
- * Root canvas, on which the actual game will be drawn.
+ * Root canvas, on which the actual game will be drawn. The board drawn is a copy maintained by the animation thread from
+ * the events of a {@link GameEventPipeline}, so input handling and rendering never contend for the same state. The view
+ * can also show a replay, played on the controller of a {@link ReplayPlayer}; the keys then control the playback.
+ * <p>
+ * Tiles are read from the last {@link BoardSnapshot}, with power-ups changed since then kept aside, and only the tiles
+ * within the window are drawn. Levels too large to fit the window scroll to keep the player in view.
  */
-public class GuiGameView extends Canvas implements IGameEventHandler, IGameLifecycleHandler, KeyListener {
+public class GuiGameView extends Canvas implements KeyListener {
+
+    private static final long REPLAY_SEEK_STEP = 10000;
+    private static final int MIN_TILE_SIZE = 16;
 
     private final float animationFrameDelay;
     private final int animationDuration = 150;
 
-    private final GameController gameController;
+    private final GameActor gameActor;
+    private final GameEventPipeline.Cursor events;
+    private final ReplayPlayer replayPlayer;
+    private final IGameCommand replayUpdateCommand;
 
+    // owned by the animation thread
     private Dimensions levelSize = null;
 
     private boolean isRunning = false;
-    private LevelTile[][] board = null;
-    private LevelTile[][] powerupTiles = null;
-    private boolean[][] crates = null;
+    private boolean isPaused = false;
+    private BoardSnapshot snapshot = null;
+    // power-up tiles changed since the snapshot, keyed by packed coordinates
+    private final Map<Integer, LevelTile> powerupChanges = new HashMap<>();
+    // keyed by packed coordinates, so only the crates are visited when drawing
+    private CrateIndex crates = null;
     private Dimensions playerPosition = null;
     private Dimensions.Delta playerDelta = null;
     private Set<Dimensions.Delta> crateDeltas = null;
-    private final ReentrantLock boardLock = new ReentrantLock();
+    private boolean animatingUndo = false;
 
     private final BoardTimer boardTimer;
     private final Thread animationThread;
 
     private long lastInputLockout = 0;
+    private volatile boolean inputLocked = false;
 
     private final Image tileFloor, tileWall, tileTarget, tileCrate, tilePlayer, tileGhost, tilePull, tileStrength;
 
@@ -57,16 +80,34 @@ public class GuiGameView extends Canvas implements IGameEventHandler, IGameLifec
     /**
      * Initializes the game canvas.
      *
-     * @param gameController Controller, which handles the gameplay component itself.
+     * @param gameActor      Actor running the controller, which handles the gameplay component itself.
+     * @param eventPipeline  Pipeline publishing the controller's events.
      * @param pauseString    String displayed when game is paused.
      * @param savingString   String displayed when scores are saving.
      * @throws IOException Loading tile graphics failed.
      */
-    public GuiGameView(GameController gameController, String pauseString, String savingString) throws IOException {
+    public GuiGameView(GameActor gameActor, GameEventPipeline eventPipeline, String pauseString, String savingString) throws IOException {
+        this(gameActor, eventPipeline, null, pauseString, savingString);
+    }
+
+    /**
+     * Initializes the game canvas, showing a replay. The arrow keys seek and change the playback speed, space pauses and
+     * resumes the playback, and home moves it to the start.
+     *
+     * @param gameActor     Actor running the controller of the replay player. The player is only accessed through it.
+     * @param eventPipeline Pipeline publishing the events of the replay player's controller.
+     * @param replayPlayer  Player to show the replay of, or null to show a live game.
+     * @param pauseString   String displayed when game is paused.
+     * @param savingString  String displayed when scores are saving.
+     * @throws IOException Loading tile graphics failed.
+     */
+    public GuiGameView(GameActor gameActor, GameEventPipeline eventPipeline, ReplayPlayer replayPlayer, String pauseString, String savingString) throws IOException {
         this.pauseString = pauseString;
         this.savingString = savingString;
-        this.gameController = gameController;
-        this.gameController.addGameEventHandler(this);
+        this.gameActor = gameActor;
+        this.events = eventPipeline.createCursor();
+        this.replayPlayer = replayPlayer;
+        this.replayUpdateCommand = replayPlayer != null ? gameController -> replayPlayer.update() : null;
         this.addKeyListener(this);
         this.setFocusable(true);
 
@@ -132,124 +173,139 @@ public class GuiGameView extends Canvas implements IGameEventHandler, IGameLifec
     }
 
     private void redrawGame(Graphics2D g) {
-        try {
-            this.boardLock.lock();
-
-            long currentTime = System.currentTimeMillis();
-            this.gameController.enableInput(!this.gameController.isPaused() && currentTime + this.animationDuration >= this.lastInputLockout);
-
-            int tileSize = this.computeTileSize();
-            Dimensions tileStart = this.computeTileStart(tileSize);
-
-            float animationOffsetPercent = this.computeAnimationOffset(currentTime);
-            int animationOffset = (int) (animationOffsetPercent * tileSize);
-
-            Dimension size = this.getSize();
-
-            g.setColor(Color.BLACK);
-            g.fillRect(0, 0, size.width, size.height);
-
-            this.drawBoardLayer(g, this.board, tileStart, tileSize);
-            this.drawPowerupLayer(g, this.powerupTiles, tileStart, tileSize);
-            this.drawCrateLayer(g,
-                    this.crates,
-                    this.playerDelta != null ? this.playerDelta : new Dimensions.Delta(this.playerPosition, this.playerPosition),
-                    this.crateDeltas,
-                    tileStart,
-                    tileSize,
-                    animationOffset);
-
-            Font f;
-            FontMetrics fm;
-            int h, w;
-            if (this.gameController.isPaused() || this.showSaving) {
-                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_GASP);
-            }
+        long currentTime = System.currentTimeMillis();
+        this.inputLocked = false;
+
+        int tileSize = this.computeTileSize();
+        Dimensions tileStart = this.computeTileStart(tileSize);
+
+        float animationOffsetPercent = this.computeAnimationOffset(currentTime);
+        int animationOffset = (int) (animationOffsetPercent * tileSize);
+
+        Dimension size = this.getSize();
+
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, size.width, size.height);
+
+        Rectangle visible = this.computeVisibleTiles(tileStart, tileSize);
+        this.drawBoardLayer(g, this.snapshot, tileStart, tileSize, visible);
+        this.drawPowerupLayer(g, this.snapshot, tileStart, tileSize, visible);
+        this.drawCrateLayer(g,
+                this.crates,
+                this.playerDelta != null ? this.playerDelta : new Dimensions.Delta(this.playerPosition, this.playerPosition),
+                this.crateDeltas,
+                tileStart,
+                tileSize,
+                visible,
+                animationOffset);
+
+        Font f;
+        FontMetrics fm;
+        int h, w;
+        if (this.isPaused || this.showSaving) {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_GASP);
+        }
 
-            if (this.gameController.isPaused()) {
-                f = Entry.IBMPlexBoldItalic.deriveFont(36f);
-                fm = g.getFontMetrics(f);
+        if (this.isPaused) {
+            f = Entry.IBMPlexBoldItalic.deriveFont(36f);
+            fm = g.getFontMetrics(f);
 
-                h = fm.getHeight();
-                w = fm.stringWidth(this.pauseString);
+            h = fm.getHeight();
+            w = fm.stringWidth(this.pauseString);
 
-                g.setColor(new Color(33, 33, 33));
-                g.fillRect(16, 16, w + 24, h + 24);
+            g.setColor(new Color(33, 33, 33));
+            g.fillRect(16, 16, w + 24, h + 24);
 
-                g.setColor(Color.WHITE);
-                g.setFont(f);
-                g.drawString(this.pauseString, 28, 28 + h - fm.getDescent());
-            }
+            g.setColor(Color.WHITE);
+            g.setFont(f);
+            g.drawString(this.pauseString, 28, 28 + h - fm.getDescent());
+        }
 
-            if (this.showSaving) {
-                f = Entry.IBMPlexBoldItalic.deriveFont(16f);
-                fm = g.getFontMetrics(f);
+        if (this.showSaving) {
+            f = Entry.IBMPlexBoldItalic.deriveFont(16f);
+            fm = g.getFontMetrics(f);
 
-                h = fm.getHeight();
-                w = fm.stringWidth(this.savingString);
+            h = fm.getHeight();
+            w = fm.stringWidth(this.savingString);
 
-                g.setColor(new Color(33, 33, 33));
-                g.fillRect(0, size.height - h - 24, w + 24, h + 24);
+            g.setColor(new Color(33, 33, 33));
+            g.fillRect(0, size.height - h - 24, w + 24, h + 24);
 
-                g.setColor(Color.WHITE);
-                g.setFont(f);
-                g.drawString(this.savingString, 12, size.height - 12 - fm.getDescent());
-            }
-        } finally {
-            this.boardLock.unlock();
+            g.setColor(Color.WHITE);
+            g.setFont(f);
+            g.drawString(this.savingString, 12, size.height - 12 - fm.getDescent());
         }
     }
 
-    private void drawBoardLayer(Graphics2D g, LevelTile[][] board, Dimensions tileStart, int tileSize) {
+    private void drawBoardLayer(Graphics2D g, BoardSnapshot snapshot, Dimensions tileStart, int tileSize, Rectangle visible) {
         int w = tileStart.getWidth();
         int h = tileStart.getHeight();
 
-        for (int y = 0; y < this.levelSize.getHeight(); y++) {
-            for (int x = 0; x < this.levelSize.getWidth(); x++) {
-                this.drawBoardTileAt(g, x, y, w, h, board[y][x], tileSize);
+        for (int y = visible.y; y < visible.y + visible.height; y++) {
+            for (int x = visible.x; x < visible.x + visible.width; x++) {
+                this.drawBoardTileAt(g, x, y, w, h, snapshot.getTile(x, y), tileSize);
             }
         }
     }
 
-    private void drawPowerupLayer(Graphics2D g, LevelTile[][] powerups, Dimensions tileStart, int tileSize) {
+    private void drawPowerupLayer(Graphics2D g, BoardSnapshot snapshot, Dimensions tileStart, int tileSize, Rectangle visible) {
         int w = tileStart.getWidth();
         int h = tileStart.getHeight();
 
-        for (int y = 0; y < this.levelSize.getHeight(); y++) {
-            for (int x = 0; x < this.levelSize.getWidth(); x++) {
-                if (powerups[y][x] != LevelTile.NONE)
-                    this.drawBoardTileAt(g, x, y, w, h, powerups[y][x], tileSize);
+        // power-ups of the snapshot, unless changed since
+        for (int y = visible.y; y < visible.y + visible.height; y++) {
+            for (int x = visible.x; x < visible.x + visible.width; x++) {
+                LevelTile tile = snapshot.getPowerupTile(x, y);
+                if (tile != LevelTile.NONE && !this.powerupChanges.containsKey(MoveDeltas.pack(x, y)))
+                    this.drawBoardTileAt(g, x, y, w, h, tile, tileSize);
             }
         }
+
+        for (Map.Entry<Integer, LevelTile> change : this.powerupChanges.entrySet()) {
+            int x = MoveDeltas.unpackX(change.getKey()), y = MoveDeltas.unpackY(change.getKey());
+            if (change.getValue() != LevelTile.NONE && visible.contains(x, y))
+                this.drawBoardTileAt(g, x, y, w, h, change.getValue(), tileSize);
+        }
     }
 
-    private void drawCrateLayer(Graphics2D g, boolean[][] crates, Dimensions.Delta playerDelta, Set<Dimensions.Delta> crateDeltas, Dimensions tileStart, int tileSize, int animationOffset) {
+    private void drawCrateLayer(Graphics2D g, CrateIndex crates, Dimensions.Delta playerDelta, Set<Dimensions.Delta> crateDeltas, Dimensions tileStart, int tileSize, Rectangle visible, int animationOffset) {
         int w = tileStart.getWidth();
         int h = tileStart.getHeight();
 
+        // undone moves are animated with translucent sprites, rewinding back to the previous positions
+        Composite composite = g.getComposite();
+        Composite movingComposite = this.animatingUndo ? AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.6f) : composite;
+
         int x = playerDelta.getTo().getWidth(), y = playerDelta.getTo().getHeight();
         if (animationOffset >= tileSize) {
             g.drawImage(this.tilePlayer, w + x * tileSize, h + y * tileSize, tileSize, tileSize, null);
         } else {
+            g.setComposite(movingComposite);
             g.drawImage(this.tilePlayer, (w + playerDelta.getFrom().getWidth() * tileSize) + playerDelta.getXChange() * animationOffset, (h + playerDelta.getFrom().getHeight() * tileSize) + playerDelta.getYChange() * animationOffset, tileSize, tileSize, null);
+            g.setComposite(composite);
         }
 
         Set<Dimensions> forbiddenCrates = crateDeltas != null ? crateDeltas.stream()
                 .map(Dimensions.Delta::getTo)
                 .collect(Collectors.toSet()) : new HashSet<>();
 
-        for (y = 0; y < this.levelSize.getHeight(); y++) {
-            for (x = 0; x < this.levelSize.getWidth(); x++) {
-                if (crates[y][x] && (animationOffset >= tileSize || !forbiddenCrates.contains(new Dimensions(x, y))))
-                    g.drawImage(this.tileCrate, w + x * tileSize, h + y * tileSize, tileSize, tileSize, null);
-            }
+        for (int n = 0; n < crates.size(); n++) {
+            x = MoveDeltas.unpackX(crates.get(n));
+            y = MoveDeltas.unpackY(crates.get(n));
+            if (!visible.contains(x, y))
+                continue;
+
+            if (animationOffset >= tileSize || !forbiddenCrates.contains(new Dimensions(x, y)))
+                g.drawImage(this.tileCrate, w + x * tileSize, h + y * tileSize, tileSize, tileSize, null);
         }
 
         if (animationOffset < tileSize && crateDeltas != null) {
+            g.setComposite(movingComposite);
             for (Dimensions.Delta crateDelta : crateDeltas) {
                 int cx = crateDelta.getFrom().getWidth(), cy = crateDelta.getFrom().getHeight();
                 g.drawImage(this.tileCrate, (w + cx * tileSize) + animationOffset * crateDelta.getXChange(), (h + cy * tileSize) + animationOffset * crateDelta.getYChange(), tileSize, tileSize, null);
             }
+            g.setComposite(composite);
         }
     }
 
@@ -284,28 +340,92 @@ public class GuiGameView extends Canvas implements IGameEventHandler, IGameLifec
         g.drawImage(image, w + x * tileSize, h + y * tileSize, tileSize, tileSize, null);
     }
 
-    @Override
-    public void onBoardUpdated(ILevel currentLevel, LevelTile[][] board, LevelTile[][] powerupTiles, boolean[][] crates, Dimensions playerPosition, Set<Dimensions.Delta> deltas) {
-        try {
-            this.boardLock.lock();
+    private void processEvents() {
+        GameEvent event;
+        while ((event = this.events.poll()) != null) {
+            switch (event.getKind()) {
+                case GameEvent.SNAPSHOT:
+                    this.applySnapshot(event.getSnapshot());
+                    break;
+
+                case GameEvent.DIFF:
+                    this.applyDiff(event.getDiff(), event.isUndo());
+                    break;
+
+                case GameEvent.STOPPED:
+                    // a replay keeps its last board on screen, since seeking back starts the game again
+                    if (this.replayPlayer != null)
+                        break;
+
+                    this.isRunning = false;
+                    this.bs = null;
+                    break;
+            }
+
+            this.isPaused = event.isPaused();
+        }
+    }
+
+    private void applySnapshot(BoardSnapshot snapshot) {
+        int width = snapshot.getWidth(), height = snapshot.getHeight();
+
+        this.snapshot = snapshot;
+        this.powerupChanges.clear();
+
+        this.crates = new CrateIndex(snapshot.getCrateCount());
+        for (int n = 0; n < snapshot.getCrateCount(); n++)
+            this.crates.add(snapshot.getCratePosition(n));
+
+        this.playerPosition = new Dimensions(snapshot.getPlayerX(), snapshot.getPlayerY());
+        this.playerDelta = null;
+        this.crateDeltas = null;
+        this.animatingUndo = false;
 
-            this.board = board;
-            this.powerupTiles = powerupTiles;
-            this.crates = crates;
-            if (this.playerPosition != null)
-                this.playerDelta = new Dimensions.Delta(this.playerPosition, playerPosition);
-            this.playerPosition = playerPosition;
-            this.crateDeltas = deltas;
+        this.levelSize = new Dimensions(width, height);
 
-            this.levelSize = currentLevel.getSize();
+        this.isRunning = true;
 
-            this.isRunning = true;
+        this.lastInputLockout = System.currentTimeMillis();
+    }
 
-            this.lastInputLockout = System.currentTimeMillis();
-            this.gameController.enableInput(false);
-        } finally {
-            this.boardLock.unlock();
+    private void applyDiff(BoardDiff diff, boolean undo) {
+        Dimensions.Delta playerDelta = null;
+        Set<Dimensions.Delta> crateDeltas = new HashSet<>();
+        int playerMoves = 0;
+
+        for (int n = 0; n < diff.getChangeCount(); n++) {
+            int from = diff.getFrom(n), to = diff.getTo(n);
+            int fromX = MoveDeltas.unpackX(from), fromY = MoveDeltas.unpackY(from);
+            int toX = MoveDeltas.unpackX(to), toY = MoveDeltas.unpackY(to);
+
+            switch (diff.getKind(n)) {
+                case BoardDiff.PLAYER_MOVED:
+                    playerMoves++;
+                    playerDelta = new Dimensions.Delta(new Dimensions(fromX, fromY), new Dimensions(toX, toY));
+                    this.playerPosition = playerDelta.getTo();
+                    break;
+
+                case BoardDiff.CRATE_MOVED:
+                    this.crates.move(from, to);
+                    crateDeltas.add(new Dimensions.Delta(new Dimensions(fromX, fromY), new Dimensions(toX, toY)));
+                    break;
+
+                case BoardDiff.POWERUP_CONSUMED:
+                    this.powerupChanges.put(to, LevelTile.NONE);
+                    break;
+
+                case BoardDiff.POWERUP_RESTORED:
+                    this.powerupChanges.put(to, GamePowerup.toTile(diff.getPowerup(n)));
+                    break;
+            }
         }
+
+        // only single moves are animated, batches are drawn in their final state
+        this.playerDelta = playerMoves == 1 ? playerDelta : null;
+        this.crateDeltas = playerMoves == 1 ? crateDeltas : null;
+        this.animatingUndo = undo;
+
+        this.lastInputLockout = System.currentTimeMillis();
     }
 
     private int computeTileSize() {
@@ -317,7 +437,8 @@ public class GuiGameView extends Canvas implements IGameEventHandler, IGameLifec
         int dim = Math.min(w, h);
         dim = dim - (dim % 16); // round to tile size
 
-        return dim;
+        // levels which don't fit the window at the smallest tile size are scrolled instead
+        return Math.max(dim, MIN_TILE_SIZE);
     }
 
     private float computeAnimationOffset(long currentTime) {
@@ -331,16 +452,30 @@ public class GuiGameView extends Canvas implements IGameEventHandler, IGameLifec
     private Dimensions computeTileStart(int tileSize) {
         Dimension windowSize = this.getSize();
 
-        int w = (windowSize.width - 16 - tileSize * this.levelSize.getWidth()) / 2 + 8;
-        int h = (windowSize.height - 16 - tileSize * this.levelSize.getHeight()) / 2 + 8;
+        int w = computeTileOffset(windowSize.width, this.levelSize.getWidth(), this.playerPosition.getWidth(), tileSize);
+        int h = computeTileOffset(windowSize.height, this.levelSize.getHeight(), this.playerPosition.getHeight(), tileSize);
 
         return new Dimensions(w, h);
     }
 
-    @Override
-    public void onGameStopped(int totalScore, boolean completed) {
-        this.isRunning = false;
-        this.bs = null;
+    private static int computeTileOffset(int windowSize, int levelSize, int playerPosition, int tileSize) {
+        if (tileSize * levelSize <= windowSize - 16)
+            return (windowSize - 16 - tileSize * levelSize) / 2 + 8;
+
+        // center on the player, without scrolling past the edges of the level
+        int offset = windowSize / 2 - playerPosition * tileSize - tileSize / 2;
+        return Math.max(windowSize - 8 - tileSize * levelSize, Math.min(8, offset));
+    }
+
+    private Rectangle computeVisibleTiles(Dimensions tileStart, int tileSize) {
+        Dimension windowSize = this.getSize();
+
+        int x0 = Math.max(0, -tileStart.getWidth() / tileSize);
+        int y0 = Math.max(0, -tileStart.getHeight() / tileSize);
+        int x1 = Math.min(this.levelSize.getWidth(), (windowSize.width - tileStart.getWidth() + tileSize - 1) / tileSize);
+        int y1 = Math.min(this.levelSize.getHeight(), (windowSize.height - tileStart.getHeight() + tileSize - 1) / tileSize);
+
+        return new Rectangle(x0, y0, Math.max(0, x1 - x0), Math.max(0, y1 - y0));
     }
 
     @Override
@@ -353,37 +488,93 @@ public class GuiGameView extends Canvas implements IGameEventHandler, IGameLifec
 
     @Override
     public void keyReleased(KeyEvent keyEvent) {
+        if (this.replayPlayer != null) {
+            this.controlReplay(keyEvent);
+            return;
+        }
+
+        switch (keyEvent.getKeyCode()) {
+            case KeyEvent.VK_LEFT:
+                this.submitInput(() -> this.gameActor.move(GameMovementDirection.LEFT));
+                break;
+
+            case KeyEvent.VK_RIGHT:
+                this.submitInput(() -> this.gameActor.move(GameMovementDirection.RIGHT));
+                break;
+
+            case KeyEvent.VK_UP:
+                this.submitInput(() -> this.gameActor.move(GameMovementDirection.UP));
+                break;
+
+            case KeyEvent.VK_DOWN:
+                this.submitInput(() -> this.gameActor.move(GameMovementDirection.DOWN));
+                break;
+
+            case KeyEvent.VK_Z:
+                if (keyEvent.isControlDown()) {
+                    this.submitInput(this.gameActor::undoMove);
+                }
+                break;
+
+            case KeyEvent.VK_Y:
+                if (keyEvent.isControlDown()) {
+                    this.submitInput(this.gameActor::redoMove);
+                }
+                break;
+
+            case KeyEvent.VK_SPACE:
+                this.gameActor.togglePause();
+                break;
+        }
+    }
+
+    private void controlReplay(KeyEvent keyEvent) {
+        ReplayPlayer player = this.replayPlayer;
         switch (keyEvent.getKeyCode()) {
             case KeyEvent.VK_LEFT:
-                this.gameController.move(GameMovementDirection.LEFT);
-                this.gameController.enableInput(false);
+                this.gameActor.submit(gameController -> player.seek(player.getPosition() - REPLAY_SEEK_STEP));
                 break;
 
             case KeyEvent.VK_RIGHT:
-                this.gameController.move(GameMovementDirection.RIGHT);
-                this.gameController.enableInput(false);
+                this.gameActor.submit(gameController -> player.seek(player.getPosition() + REPLAY_SEEK_STEP));
                 break;
 
             case KeyEvent.VK_UP:
-                this.gameController.move(GameMovementDirection.UP);
-                this.gameController.enableInput(false);
+                this.gameActor.submit(gameController -> player.setSpeed(player.getSpeed() * 2));
                 break;
 
             case KeyEvent.VK_DOWN:
-                this.gameController.move(GameMovementDirection.DOWN);
-                this.gameController.enableInput(false);
+                this.gameActor.submit(gameController -> player.setSpeed(player.getSpeed() / 2));
+                break;
+
+            case KeyEvent.VK_HOME:
+                this.gameActor.submit(gameController -> player.seek(0));
                 break;
 
             case KeyEvent.VK_SPACE:
-                this.gameController.togglePause();
+                this.gameActor.submit(gameController -> {
+                    if (player.isPlaying())
+                        player.pause();
+                    else
+                        player.play();
+                });
                 break;
         }
     }
 
+    // at most one move is sent per frame, the same as when the controller's input was locked until the next frame
+    private void submitInput(Runnable input) {
+        if (!this.inputLocked)
+            input.run();
+
+        this.inputLocked = true;
+    }
+
     private static class BoardTimer implements Runnable {
 
         private final GuiGameView guiGameView;
         private boolean run = true;
+        private long lastReplayUpdate = 0;
 
         public BoardTimer(GuiGameView guiGameView) {
             this.guiGameView = guiGameView;
@@ -399,10 +590,15 @@ public class GuiGameView extends Canvas implements IGameEventHandler, IGameLifec
 
                     Thread.yield();
 
-                    if (!this.guiGameView.gameController.isGameRunning() || !this.guiGameView.isRunning)
-                        continue;
+                    // replays are played on the game thread, and advanced at most once per frame
+                    if (this.guiGameView.replayPlayer != null && nt - this.lastReplayUpdate >= this.guiGameView.animationFrameDelay * 1e6) {
+                        this.lastReplayUpdate = nt;
+                        this.guiGameView.gameActor.submit(this.guiGameView.replayUpdateCommand);
+                    }
 
-                    this.guiGameView.gameController.tick();
+                    this.guiGameView.processEvents();
+                    if (!this.guiGameView.isRunning)
+                        continue;
 
                     BufferStrategy bs = this.guiGameView.bs;
                     if (bs == null)
@@ -50,6 +50,16 @@ public class GuiMenuBar extends JMenuBar implements IGameLifecycleHandler {
         mGameReset.setActionCommand(GuiRootFrame.COMMAND_RESET);
         mGame.add(mGameReset);
 
+        JMenuItem mGameUndo = new JMenuItem("@menu.game.items.undo");
+        mGameUndo.addActionListener(actionListener);
+        mGameUndo.setActionCommand(GuiRootFrame.COMMAND_UNDO);
+        mGame.add(mGameUndo);
+
+        JMenuItem mGameRedo = new JMenuItem("@menu.game.items.redo");
+        mGameRedo.addActionListener(actionListener);
+        mGameRedo.setActionCommand(GuiRootFrame.COMMAND_REDO);
+        mGame.add(mGameRedo);
+
         JMenuItem mGameScoreboard = new JMenuItem("@menu.game.items.scoreboard");
         mGameScoreboard.addActionListener(actionListener);
         mGameScoreboard.setActionCommand(GuiRootFrame.COMMAND_SCOREBOARD);
@@ -67,11 +77,11 @@ public class GuiMenuBar extends JMenuBar implements IGameLifecycleHandler {
 
     @Override
     public void onGamePaused() {
-        this.mGamePause.setText("@menu.game.items.resume");
+        SwingUtilities.invokeLater(() -> this.mGamePause.setText("@menu.game.items.resume"));
     }
 
     @Override
     public void onGameResumed() {
-        this.mGamePause.setText("@menu.game.items.pause");
+        SwingUtilities.invokeLater(() -> this.mGamePause.setText("@menu.game.items.pause"));
     }
 }
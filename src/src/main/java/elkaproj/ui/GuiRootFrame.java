@@ -3,7 +3,9 @@ package elkaproj.ui;
 import elkaproj.DebugWriter;
 import elkaproj.config.*;
 import elkaproj.config.language.Language;
+import elkaproj.game.GameActor;
 import elkaproj.game.GameController;
+import elkaproj.game.GameEventPipeline;
 import elkaproj.game.IGameLifecycleHandler;
 import elkaproj.game.ILevelScoreUpdateHandler;
 import elkaproj.game.ITimerUpdateHandler;
@@ -34,11 +36,16 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
     public static final String COMMAND_STOP = "PROZEkt_stop";
     public static final String COMMAND_MAINMENU = "PROZEkt_mainmenu";
     public static final String COMMAND_RESET = "PROZEkt_reset";
+    public static final String COMMAND_UNDO = "PROZEkt_undo";
+    public static final String COMMAND_REDO = "PROZEkt_redo";
     public static final String COMMAND_SCOREBOARD = "PROZEkt_highscores";
     public static final String COMMAND_AUTHORS = "PROZEkt_authors";
     public static final String COMMAND_CONFIRM_PLAYERNAME = "PROZEkt_confirm_playername";
     public static final String COMMAND_NEW_GAME = "PROZEkt_new_game";
 
+    private static final int EVENT_PIPELINE_CAPACITY = 1024;
+    private static final long GAME_TICK_INTERVAL = 100;
+
     private final Language language;
 
     private final GuiStatusPanel statusPanel;
@@ -50,6 +57,8 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
 
     private final GuiGameView gameView;
     private final GameController gameController;
+    private final GameEventPipeline eventPipeline;
+    private final GameActor gameActor;
 
     private final IScoreboardStore scoreboardStore;
     private final IScoreboard scoreboard;
@@ -81,6 +90,8 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
         this.gameController.addLifecycleHandler(this);
         this.gameController.addLevelScoreEventHandler(this);
         this.gameController.addTimerUpdateHandler(this);
+        this.eventPipeline = new GameEventPipeline(this.gameController, EVENT_PIPELINE_CAPACITY);
+        this.gameActor = new GameActor(this.gameController, GAME_TICK_INTERVAL);
 
         // set the listener so we can close the application
         this.addWindowListener(new GameFrameWindowAdapter(this));
@@ -100,16 +111,20 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
         this.setActiveView(this.playerNameView);
 
         this.mainMenuView = new GuiMainMenuView(this);
-        this.gameView = new GuiGameView(this.gameController,
+        this.gameView = new GuiGameView(this.gameActor,
+                this.eventPipeline,
                 this.language.getValue("misc.paused"),
                 this.language.getValue("misc.saving"));
 
-        this.statusPanel = new GuiStatusPanel(this.gameController, this.getSize(), this.language);
+        this.statusPanel = new GuiStatusPanel(this.gameController, this.eventPipeline, this.getSize(), this.language);
         this.add(this.statusPanel, BorderLayout.SOUTH);
 
         this.scoreboardStore = scoreboardStore;
         this.scoreboard = scoreboard;
         this.scoreboardView = new GuiScoreboardView(this, this.scoreboardStore, this.scoreboard, levelPack, this.language);
+
+        // from now on, the controller is only accessed on the game thread
+        this.gameActor.start();
     }
 
     private void localize(Component[] components) {
@@ -174,6 +189,7 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
         switch (actionEvent.getActionCommand()) {
             case COMMAND_EXIT:
                 this.gameView.performShutdown();
+                this.gameActor.shutdown();
                 this.dispose();
                 break;
 
@@ -190,11 +206,11 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
                 break;
 
             case COMMAND_NEW_GAME:
-                this.gameController.startGame();
+                this.gameActor.startGame();
                 break;
 
             case COMMAND_STOP:
-                this.gameController.stopGame(false);
+                this.gameActor.stopGame(false);
                 break;
 
             case COMMAND_AUTHORS:
@@ -209,11 +225,19 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
                 break;
 
             case COMMAND_RESET:
-                this.gameController.resetLevel();
+                this.gameActor.resetLevel();
+                break;
+
+            case COMMAND_UNDO:
+                this.gameActor.undoMove();
+                break;
+
+            case COMMAND_REDO:
+                this.gameActor.redoMove();
                 break;
 
             case COMMAND_PAUSE_RESUME:
-                this.gameController.togglePause();
+                this.gameActor.togglePause();
                 break;
 
             case COMMAND_MAINMENU:
@@ -224,19 +248,23 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
 
     @Override
     public void onGameStarted(ILevel currentLevel, int currentLives) {
-        this.setActiveView(this.gameView);
-        this.gameView.updateBufferStrategy();
+        SwingUtilities.invokeLater(() -> {
+            this.setActiveView(this.gameView);
+            this.gameView.updateBufferStrategy();
+        });
     }
 
     @Override
     public void onGameStopped(int totalScore, boolean completed) {
-        if (completed)
-            JOptionPane.showMessageDialog(this,
-                    String.format(this.language.getValue(STRING_WIN_DIALOG_CONTENTS_L10N_ID), totalScore),
-                    this.language.getValue(STRING_WIN_DIALOG_TITLE_L10N_ID),
-                    JOptionPane.INFORMATION_MESSAGE);
+        SwingUtilities.invokeLater(() -> {
+            if (completed)
+                JOptionPane.showMessageDialog(this,
+                        String.format(this.language.getValue(STRING_WIN_DIALOG_CONTENTS_L10N_ID), totalScore),
+                        this.language.getValue(STRING_WIN_DIALOG_TITLE_L10N_ID),
+                        JOptionPane.INFORMATION_MESSAGE);
 
-        this.setActiveView(this.mainMenuView);
+            this.setActiveView(this.mainMenuView);
+        });
     }
 
     @Override
@@ -263,7 +291,7 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
                     this.language.getValue(STRING_SLOTH_DIALOG_TITLE_L10N_ID),
                     JOptionPane.INFORMATION_MESSAGE);
 
-            this.gameController.resetLevel();
+            this.gameActor.resetLevel();
         });
     }
 
@@ -294,6 +322,7 @@ public class GuiRootFrame extends JFrame implements ActionListener, IGameLifecyc
         public void windowClosing(WindowEvent windowEvent) {
             System.exit(0);
             this.guiRootFrame.gameView.performShutdown();
+            this.guiRootFrame.gameActor.shutdown();
         }
 
         @Override
@@ -4,7 +4,8 @@ import elkaproj.config.GamePowerup;
 import elkaproj.config.ILevel;
 import elkaproj.config.language.Language;
 import elkaproj.game.GameController;
-import elkaproj.game.IGameLifecycleHandler;
+import elkaproj.game.GameEvent;
+import elkaproj.game.GameEventPipeline;
 import elkaproj.game.ITimerUpdateHandler;
 
 import javax.swing.*;
@@ -14,22 +15,26 @@ import java.util.EnumSet;
 import java.util.stream.Collectors;
 
 /**
- * Maintains the status panel on the bottom of the window.
+ * Maintains the status panel on the bottom of the window. The status is refreshed on the event dispatch thread from the
+ * latest event of a {@link GameEventPipeline}.
  */
-public class GuiStatusPanel extends JPanel implements IGameLifecycleHandler, ITimerUpdateHandler {
+public class GuiStatusPanel extends JPanel implements ITimerUpdateHandler {
 
     private static final String STATUS_FORMAT_L10N_ID = "status.format";
     private static final String STATUS_IDLE_L10N_ID = "status.idle";
     private static final String STATUS_NOPOWERUPS_L10N_ID = "status.nopowerups";
     private static final String STATUS_TIME_L10N_ID = "status.time";
 
+    private static final int STATUS_REFRESH_DELAY = 50;
+
     private static final Color COLOR_VGOOD = new Color(0, 0x66, 0);
     private static final Color COLOR_GOOD = new Color(0, 0, 0x66);
     private static final Color COLOR_NEUTRAL = Color.BLACK;
     private static final Color COLOR_BAD = new Color(0xBF, 0x66, 0);
     private static final Color COLOR_VBAD = new Color(0x99, 0, 0);
 
-    private final GameController gameController;
+    private final GameEventPipeline.Cursor events;
+    private final Timer refreshTimer;
     private final String statusFormat; // level number, level, current lives, max lives, level score, total score, active powerups
     private final String statusIdle;
     private final String statusNoPowerups;
@@ -41,13 +46,14 @@ public class GuiStatusPanel extends JPanel implements IGameLifecycleHandler, ITi
      * Initializes the status panel.
      *
      * @param gameController Game controller.
+     * @param eventPipeline  Pipeline publishing the controller's events.
      * @param parent         Size of the parent container.
      * @param language       Language to use when localizing strings.
      */
-    public GuiStatusPanel(GameController gameController, Dimension parent, Language language) {
+    public GuiStatusPanel(GameController gameController, GameEventPipeline eventPipeline, Dimension parent, Language language) {
         super();
 
-        this.gameController = gameController;
+        this.events = eventPipeline.createCursor();
         this.statusFormat = language.getValue(STATUS_FORMAT_L10N_ID);
         this.statusIdle = language.getValue(STATUS_IDLE_L10N_ID);
         this.statusNoPowerups = language.getValue(STATUS_NOPOWERUPS_L10N_ID);
@@ -67,68 +73,42 @@ public class GuiStatusPanel extends JPanel implements IGameLifecycleHandler, ITi
         this.time.setBorder(BorderFactory.createEmptyBorder(0, 4, 0, 4));
         this.add(this.time);
 
-        gameController.addLifecycleHandler(this);
         gameController.addTimerUpdateHandler(this);
-    }
-
-    @Override
-    public void onGameStarted(ILevel currentLevel, int currentLives) {
-        this.status.setText(this.formatStatus(currentLevel,
-                currentLives,
-                this.gameController.getMaxLives(),
-                0,
-                0,
-                this.gameController.getActivePowerups()));
-    }
-
-    @Override
-    public void onGameStopped(int totalScore, boolean completed) {
-        this.status.setText(this.statusIdle);
-        this.time.setText("");
-    }
 
-    @Override
-    public void onNextLevel(ILevel previousLevel, int previousLevelScore, ILevel currentLevel, int totalScore) {
-        this.status.setText(this.formatStatus(currentLevel,
-                this.gameController.getCurrentLives(),
-                this.gameController.getMaxLives(),
-                0,
-                totalScore,
-                this.gameController.getActivePowerups()));
-    }
-
-    @Override
-    public void onLivesUpdated(int currentLives, int maxLives) {
-        this.status.setText(this.formatStatus(this.gameController.getCurrentLevel(),
-                currentLives,
-                maxLives,
-                this.gameController.getCurrentScore(),
-                this.gameController.getTotalScore(),
-                this.gameController.getActivePowerups()));
+        this.refreshTimer = new Timer(STATUS_REFRESH_DELAY, e -> this.processEvents());
+        this.refreshTimer.start();
     }
 
-    @Override
-    public void onScoreUpdated(int currentScore, int totalScore) {
-        this.status.setText(this.formatStatus(this.gameController.getCurrentLevel(),
-                this.gameController.getCurrentLives(),
-                this.gameController.getMaxLives(),
-                currentScore,
-                totalScore,
-                this.gameController.getActivePowerups()));
+    private void processEvents() {
+        GameEvent latest = null, event;
+        while ((event = this.events.poll()) != null)
+            latest = event;
+
+        // events carry the full status, so only the latest one needs to be formatted
+        if (latest == null)
+            return;
+
+        if (latest.getKind() == GameEvent.STOPPED) {
+            this.status.setText(this.statusIdle);
+            this.time.setText("");
+            return;
+        }
+
+        this.status.setText(this.formatStatus(latest.getLevel(),
+                latest.getCurrentLives(),
+                latest.getMaxLives(),
+                latest.getCurrentScore(),
+                latest.getTotalScore(),
+                latest.getActivePowerups()));
     }
 
     @Override
-    public void onPowerupsUpdated(EnumSet<GamePowerup> activePowerups) {
-        this.status.setText(this.formatStatus(this.gameController.getCurrentLevel(),
-                this.gameController.getCurrentLives(),
-                this.gameController.getMaxLives(),
-                this.gameController.getCurrentScore(),
-                this.gameController.getTotalScore(),
-                activePowerups));
+    public void onTimerUpdated(long current, long bonus, long penalty, long fail) {
+        // timers are ticked on the game thread
+        SwingUtilities.invokeLater(() -> this.updateTime(current, bonus, penalty, fail));
     }
 
-    @Override
-    public void onTimerUpdated(long current, long bonus, long penalty, long fail) {
+    private void updateTime(long current, long bonus, long penalty, long fail) {
         this.time.setText(String.format(this.timeFormat, current));
 
         assert bonus < penalty;
@@ -0,0 +1,100 @@
+package elkaproj.game;
+
+import elkaproj.config.ILevel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+public class GameActorTests {
+
+    // more crates than target spots
+    private static final ILevel LEVEL = new TestLevel(0,
+            "###########",
+            "#S_P_X_G__#",
+            "#_PP__T_P_#",
+            "#_U____P__#",
+            "#__P_T_G__#",
+            "#_G_U_P___#",
+            "#__#__T__U#",
+            "###########");
+
+    @Test
+    public void testOrdering() throws ExecutionException, InterruptedException {
+        TestLevelPack pack = new TestLevelPack(LEVEL);
+        GameController reference = new GameController(pack, pack);
+        GameActor actor = new GameActor(new GameController(pack, pack), 10);
+
+        actor.startGame();
+        actor.start();
+        reference.startGame();
+
+        Random random = new Random(6);
+        GameMovementDirection[] directions = GameMovementDirection.values();
+        for (int i = 0; i < 5000; i++) {
+            if (random.nextInt(6) == 0) {
+                actor.undoMove();
+                reference.undoMove();
+            } else {
+                GameMovementDirection direction = directions[random.nextInt(directions.length)];
+                actor.move(direction);
+                reference.move(direction);
+            }
+        }
+
+        Assert.assertEquals(reference.getStateHash(), (long) actor.query(GameController::getStateHash).get());
+        Assert.assertEquals(reference.getCurrentScore(), (int) actor.query(GameController::getCurrentScore).get());
+
+        actor.shutdown();
+    }
+
+    @Test
+    public void testConcurrentProducers() throws ExecutionException, InterruptedException {
+        TestLevelPack pack = new TestLevelPack(LEVEL);
+        GameController controller = new GameController(pack, pack);
+        List<GameMovementDirection> executed = new ArrayList<>();
+        Thread[] handlerThreads = new Thread[1];
+        controller.addMoveResultHandler(result -> handlerThreads[0] = Thread.currentThread());
+
+        GameActor actor = new GameActor(controller, 10);
+        actor.start();
+        actor.startGame();
+
+        Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            Random random = new Random(p);
+            producers[p] = new Thread(() -> {
+                GameMovementDirection[] directions = GameMovementDirection.values();
+                for (int i = 0; i < 5000; i++) {
+                    GameMovementDirection direction = directions[random.nextInt(directions.length)];
+                    actor.submit(gameController -> {
+                        executed.add(direction);
+                        gameController.move(direction);
+                    });
+                }
+            });
+            producers[p].start();
+        }
+
+        for (Thread producer : producers)
+            producer.join();
+
+        long hash = actor.query(GameController::getStateHash).get();
+        Thread gameThread = actor.query(gameController -> Thread.currentThread()).get();
+        actor.shutdown();
+
+        Assert.assertEquals(producers.length * 5000, executed.size());
+        Assert.assertSame(gameThread, handlerThreads[0]);
+
+        // replaying the commands in the order they were executed gives the same state
+        GameController reference = new GameController(pack, pack);
+        reference.startGame();
+        for (GameMovementDirection direction : executed)
+            reference.move(direction);
+
+        Assert.assertEquals(reference.getStateHash(), hash);
+    }
+}
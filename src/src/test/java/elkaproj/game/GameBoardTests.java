@@ -0,0 +1,586 @@
+package elkaproj.game;
+
+import elkaproj.Dimensions;
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+import elkaproj.config.LevelTileGrid;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GameBoardTests {
+
+    private static final GameMovementDirection[] DIRECTIONS = GameMovementDirection.values();
+
+    private static final ILevel POWERUP_LEVEL = new TestLevel(0,
+            "###########",
+            "#S_P_X_G__#",
+            "#_PP_XT_P_#",
+            "#_U__X_P_X#",
+            "#__P_TXG__#",
+            "#_G_U_PX__#",
+            "#__#__T__U#",
+            "###########");
+
+    @Test
+    public void testPush() {
+        GameBoard board = new GameBoard(new TestLevel(0, "#####", "#SPX#", "#####"), EnumSet.allOf(GamePowerup.class));
+        EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+
+        Assert.assertFalse(board.isCompleted());
+        Assert.assertEquals(GameBoard.MOVE_BLOCKED, board.move(GameMovementDirection.UP, powerUps));
+        Assert.assertEquals(GameBoard.MOVE_ACCEPTED | GameBoard.MOVE_PUSH, board.move(GameMovementDirection.RIGHT, powerUps));
+        Assert.assertTrue(board.isCompleted());
+        Assert.assertEquals(GameBoard.MOVE_BLOCKED, board.move(GameMovementDirection.RIGHT, powerUps));
+    }
+
+    @Test
+    public void testMatchesReferenceRules() {
+        Random random = new Random(2137);
+        for (int game = 0; game < 200; game++) {
+            GameBoard board = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            ReferenceBoard reference = new ReferenceBoard(POWERUP_LEVEL);
+            EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+
+            for (int move = 0; move < 200; move++) {
+                GameMovementDirection direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                boolean moved = (board.move(direction, powerUps) & GameBoard.MOVE_ACCEPTED) != 0;
+
+                Assert.assertEquals(reference.move(direction), moved);
+                this.assertSameState(reference, board, powerUps);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesReferenceRulesAcrossChunks() {
+        // the power-up level's pattern repeated over four chunks, with the player starting next to their common corner
+        String[] pattern = {"__P_X_G__", "_PP_XT_P_", "_U__X_P_X", "__P_TXG__", "_G_U_PX__", "__#__T__U"};
+        char[][] cells = new char[96][96];
+        for (int y = 0; y < cells.length; y++) {
+            for (int x = 0; x < cells[y].length; x++) {
+                boolean border = x == 0 || y == 0 || x == cells[y].length - 1 || y == cells.length - 1;
+                cells[y][x] = border ? '#' : pattern[(y - 1) % pattern.length].charAt((x - 1) % pattern[0].length());
+            }
+        }
+
+        cells[63][63] = 'S';
+        String[] rows = new String[cells.length];
+        for (int y = 0; y < cells.length; y++)
+            rows[y] = new String(cells[y]);
+
+        ILevel level = new TestLevel(0, rows);
+        Random random = new Random(1789);
+        for (int game = 0; game < 20; game++) {
+            GameBoard board = new GameBoard(level, EnumSet.allOf(GamePowerup.class));
+            ReferenceBoard reference = new ReferenceBoard(level);
+            EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+
+            for (int move = 0; move < 400; move++) {
+                GameMovementDirection direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                boolean moved = (board.move(direction, powerUps) & GameBoard.MOVE_ACCEPTED) != 0;
+
+                Assert.assertEquals(reference.move(direction), moved);
+                Assert.assertEquals(reference.x, board.getPlayerX());
+                Assert.assertEquals(reference.y, board.getPlayerY());
+                Assert.assertEquals(board.computeStateHash(), board.getStateHash());
+            }
+
+            this.assertSameState(reference, board, powerUps);
+        }
+    }
+
+    @Test
+    public void testPowerupMask() {
+        Random random = new Random(1410);
+        for (int game = 0; game < 100; game++) {
+            GameBoard board = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            GameBoard reference = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            PowerupSet powerUps = new PowerupSet();
+            EnumSet<GamePowerup> referencePowerUps = EnumSet.noneOf(GamePowerup.class);
+
+            for (int move = 0; move < 200; move++) {
+                GameMovementDirection direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                int before = powerUps.getMask();
+                int result = board.move(direction, powerUps);
+
+                Assert.assertEquals(reference.move(direction, referencePowerUps), result);
+                Assert.assertEquals(referencePowerUps, powerUps);
+                Assert.assertEquals(GameBoard.updatePowerups(before, result), powerUps.getMask());
+            }
+        }
+    }
+
+    @Test
+    public void testUndoRedo() {
+        Random random = new Random(1337);
+        for (int game = 0; game < 100; game++) {
+            GameBoard board = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+            board.getCrateArray();
+
+            String[] states = new String[201];
+            states[0] = describe(board, powerUps);
+            int moves = 0;
+            for (int move = 0; move < 200; move++) {
+                if ((board.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)], powerUps) & GameBoard.MOVE_ACCEPTED) != 0)
+                    moves++;
+
+                states[moves] = describe(board, powerUps);
+            }
+
+            for (int move = moves - 1; move >= 0; move--) {
+                Assert.assertTrue((board.undo(powerUps) & GameBoard.MOVE_ACCEPTED) != 0);
+                Assert.assertEquals(states[move], describe(board, powerUps));
+            }
+
+            Assert.assertEquals(0, board.getUndoCount());
+            for (int move = 1; move <= moves; move++) {
+                Assert.assertTrue((board.redo(powerUps) & GameBoard.MOVE_ACCEPTED) != 0);
+                Assert.assertEquals(states[move], describe(board, powerUps));
+            }
+
+            Assert.assertEquals(0, board.getRedoCount());
+        }
+    }
+
+    @Test
+    public void testUndoCapacity() {
+        GameBoard board = new GameBoard(new TestLevel(0, "#######", "#S___X#", "#_P___#", "#######"), EnumSet.noneOf(GamePowerup.class), 8);
+        EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+        for (int move = 0; move < 20; move++)
+            board.move(move % 2 == 0 ? GameMovementDirection.RIGHT : GameMovementDirection.LEFT, powerUps);
+
+        Assert.assertEquals(8, board.getUndoCount());
+        for (int move = 0; move < 8; move++)
+            Assert.assertTrue((board.undo(powerUps) & GameBoard.MOVE_ACCEPTED) != 0);
+
+        Assert.assertEquals(GameBoard.MOVE_BLOCKED, board.undo(powerUps));
+        Assert.assertEquals(8, board.getRedoCount());
+    }
+
+    @Test
+    public void testCrateIndex() {
+        Random random = new Random(6502);
+        for (int game = 0; game < 100; game++) {
+            GameBoard board = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+            CrateIndex crates = board.getCrateIndex();
+
+            for (int move = 0; move < 200; move++) {
+                int[] before = new int[crates.size()];
+                for (int n = 0; n < before.length; n++)
+                    before[n] = crates.get(n);
+
+                int result = random.nextInt(4) == 0 ? board.undo(powerUps)
+                        : board.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)], powerUps);
+
+                // crates keep their slots, so exactly the moved ones change position
+                MoveDeltas deltas = board.getLastMove();
+                int moved = 0;
+                for (int n = 0; n < before.length; n++) {
+                    if (before[n] != crates.get(n))
+                        moved++;
+                }
+
+                Assert.assertEquals((result & GameBoard.MOVE_ACCEPTED) != 0 ? deltas.getCrateMoveCount() : 0, moved);
+                this.assertMatchesBoard(crates, board);
+            }
+
+            board.reset();
+            this.assertMatchesBoard(crates, board);
+        }
+    }
+
+    @Test
+    public void testStateHash() {
+        Random random = new Random(31337);
+        Map<String, Long> hashes = new HashMap<>();
+        for (int game = 0; game < 50; game++) {
+            GameBoard board = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+
+            for (int move = 0; move < 300; move++) {
+                if (random.nextInt(4) == 0)
+                    board.undo(powerUps);
+                else
+                    board.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)], powerUps);
+
+                Assert.assertEquals(board.computeStateHash(), board.getStateHash());
+
+                // power-ups are hashed by the controller, so they are left out of the compared state
+                String state = describe(board, EnumSet.noneOf(GamePowerup.class));
+                Long previous = hashes.putIfAbsent(state, board.getStateHash());
+                if (previous != null)
+                    Assert.assertEquals((long) previous, board.getStateHash());
+            }
+        }
+
+        Assert.assertEquals(hashes.size(), new HashSet<>(hashes.values()).size());
+    }
+
+    @Test
+    public void testMoveOptions() {
+        Random random = new Random(8086);
+        for (int game = 0; game < 100; game++) {
+            GameBoard board = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+
+            for (int move = 0; move < 200; move++) {
+                int legal = board.getLegalDirections(powerUps), pushes = board.getPushDirections(powerUps);
+                GameState state = board.createState(powerUps);
+                for (GameMovementDirection direction : DIRECTIONS) {
+                    int option = board.getMoveOption(direction, powerUps);
+                    GameState next = state.step(direction);
+                    Assert.assertEquals(next == state ? GameBoard.MOVE_BLOCKED : next.getLastResult(), option);
+
+                    int bit = 1 << direction.ordinal();
+                    Assert.assertEquals((option & GameBoard.MOVE_ACCEPTED) != 0, (legal & bit) != 0);
+                    Assert.assertEquals((option & GameBoard.MOVE_ACCEPTED) != 0
+                            && (option & (GameBoard.MOVE_PUSH | GameBoard.MOVE_PULL)) != 0, (pushes & bit) != 0);
+                }
+
+                if (random.nextInt(5) == 0) {
+                    board.undo(powerUps);
+                } else {
+                    GameMovementDirection direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                    int option = board.getMoveOption(direction, powerUps);
+                    Assert.assertEquals(option, board.move(direction, powerUps));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReset() {
+        Random random = new Random(404);
+        GameBoard board = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+        EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+        String initial = describe(board, powerUps);
+
+        for (int game = 0; game < 50; game++) {
+            for (int move = 0; move < 200; move++)
+                board.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)], powerUps);
+
+            powerUps.clear();
+            board.reset();
+            Assert.assertTrue(board.getLastMove().isFullUpdate());
+            Assert.assertEquals(0, board.getUndoCount());
+            Assert.assertEquals(initial, describe(board, powerUps));
+        }
+
+        GameBoard restricted = new GameBoard(POWERUP_LEVEL, EnumSet.of(GamePowerup.PULL));
+        Assert.assertEquals(LevelTile.NONE, restricted.getPowerupTile(restricted.indexOf(7, 1)));
+        Assert.assertEquals(LevelTile.PULL, restricted.getPowerupTile(restricted.indexOf(2, 3)));
+    }
+
+    @Test
+    public void testHugeSparseLevel() {
+        LevelTileGrid.Builder builder = new LevelTileGrid.Builder(LevelTileGrid.MAX_SIZE, LevelTileGrid.MAX_SIZE);
+        builder.setRow(2000, "############################################################S"
+                + repeat('_', 39) + "P" + repeat('_', 49) + "X" + repeat('_', 50));
+        LevelTileGrid grid = builder.build();
+        Assert.assertEquals(4, grid.getStoredChunkCount());
+        Assert.assertTrue(grid.isWallChunk(0, 0));
+
+        ILevel level = new TestLevel(0, "#") {
+            @Override
+            public Dimensions getSize() {
+                return grid.getSize();
+            }
+
+            @Override
+            public LevelTileGrid getTileGrid() {
+                return grid;
+            }
+        };
+
+        GameBoard board = new GameBoard(level, EnumSet.allOf(GamePowerup.class));
+        EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+        Assert.assertEquals(GameBoard.MOVE_BLOCKED, board.move(GameMovementDirection.UP, powerUps));
+        Assert.assertEquals(GameBoard.MOVE_BLOCKED, board.move(GameMovementDirection.LEFT, powerUps));
+
+        // the crate crosses the chunk boundaries at x = 128
+        for (int i = 0; i < 89; i++)
+            Assert.assertTrue((board.move(GameMovementDirection.RIGHT, powerUps) & GameBoard.MOVE_ACCEPTED) != 0);
+
+        Assert.assertTrue(board.isCompleted());
+        Assert.assertEquals(149, board.getPlayerX());
+        Assert.assertTrue(board.hasCrate(board.indexOf(150, 2000)));
+
+        for (int i = 0; i < 50; i++)
+            board.move(GameMovementDirection.RIGHT, powerUps);
+
+        Assert.assertEquals(199, board.getPlayerX());
+        Assert.assertEquals(GameBoard.MOVE_BLOCKED, board.move(GameMovementDirection.RIGHT, powerUps));
+    }
+
+    @Test
+    public void testGhostInWallChunk() {
+        // x = 64..127, y = 0..63 is a chunk made only of walls, which GHOST lets the player enter
+        char[] row = new char[133];
+        Arrays.fill(row, '#');
+        Arrays.fill(row, 1, 62, '_');
+        row[62] = 'S';
+        row[63] = 'G';
+        row[129] = 'P';
+        row[131] = 'X';
+        // rows 64 and beyond are walls too, so chunks below are made only of walls as well
+        String[] rows = new String[66];
+        Arrays.fill(rows, new String(new char[133]).replace('\0', '#'));
+        rows[1] = new String(row);
+        ILevel level = new TestLevel(0, rows);
+
+        TestLevelPack pack = new TestLevelPack(level);
+        GameController controller = new GameController(pack, pack);
+        controller.startGame();
+        controller.move(GameMovementDirection.RIGHT);
+        GameState state = controller.getBoard().createState(controller.getActivePowerups());
+        controller.move(GameMovementDirection.RIGHT);
+
+        GameBoard board = controller.getBoard();
+        Assert.assertEquals(64, board.getPlayerX());
+        Assert.assertEquals(1, board.getPlayerY());
+        Assert.assertEquals(board.computeStateHash(), board.getStateHash());
+
+        // forked and stepped states agree on the position and its hash
+        GameState stepped = state.step(GameMovementDirection.RIGHT);
+        GameState forked = board.createState(controller.getActivePowerups());
+        Assert.assertEquals(64, forked.getPlayerX());
+        Assert.assertEquals(1, forked.getPlayerY());
+        Assert.assertEquals(forked, stepped);
+        Assert.assertEquals(board.getStateHash(), stepped.getStateHash());
+
+        // the player's position survives saving and restoring
+        GameController restored = new GameController(pack, pack);
+        restored.restoreState(controller.saveState());
+        Assert.assertEquals(64, restored.getBoard().getPlayerX());
+        Assert.assertEquals(1, restored.getBoard().getPlayerY());
+        Assert.assertEquals(controller.getStateHash(), restored.getStateHash());
+
+        // positions in different chunks made only of walls hash differently, though their cell indices are the same
+        Assert.assertEquals(board.indexOf(64, 1), board.indexOf(0, 65));
+        Assert.assertNotEquals(GameBoard.playerKey(64, 1, board.getWidth()), GameBoard.playerKey(0, 65, board.getWidth()));
+    }
+
+    @Test
+    public void testSharedTemplate() throws Exception {
+        ILevel level = createLargeLevel(256, 256, 1000, new Random(5));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<LevelTemplate>> templates = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+                templates.add(executor.submit(() -> LevelTemplate.of(level)));
+
+            // however many threads compiled the level, all of them got the same template
+            for (Future<LevelTemplate> template : templates)
+                Assert.assertSame(LevelTemplate.of(level), template.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static ILevel createLargeLevel(int width, int height, int crates, Random random) {
+        char[][] cells = new char[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean border = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+                cells[y][x] = border || random.nextInt(10) == 0 ? '#' : '_';
+            }
+        }
+
+        for (int i = 0; i < crates; i++) {
+            cells[1 + random.nextInt(height - 2)][1 + random.nextInt(width - 2)] = 'P';
+            cells[1 + random.nextInt(height - 2)][1 + random.nextInt(width - 2)] = 'X';
+        }
+
+        cells[height / 2][width / 2] = 'S';
+
+        String[] rows = new String[height];
+        for (int y = 0; y < height; y++)
+            rows[y] = new String(cells[y]);
+
+        return new TestLevel(0, rows);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static String describe(GameBoard board, EnumSet<GamePowerup> powerUps) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(board.getPlayerX()).append(',').append(board.getPlayerY()).append(',').append(board.getMatchedCount()).append(powerUps);
+
+        boolean[][] crates = board.getCrateArray();
+        LevelTile[][] powerupTiles = board.getPowerupTileArray();
+        for (int y = 0; y < board.getHeight(); y++) {
+            sb.append('\n');
+            for (int x = 0; x < board.getWidth(); x++) {
+                int i = board.indexOf(x, y);
+                Assert.assertEquals(board.hasCrate(i), crates[y][x]);
+                Assert.assertEquals(board.getPowerupTile(i), powerupTiles[y][x]);
+                sb.append(board.hasCrate(i) ? 'P' : '_').append(board.getPowerupTile(i).getRepresentation());
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private void assertMatchesBoard(CrateIndex crates, GameBoard board) {
+        Assert.assertEquals(board.getCrateCount(), crates.size());
+        for (int n = 0; n < crates.size(); n++) {
+            Assert.assertTrue(board.hasCrate(crates.get(n)));
+            Assert.assertEquals(n, crates.slotOf(crates.get(n)));
+        }
+
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++)
+                Assert.assertEquals(board.hasCrate(board.indexOf(x, y)), crates.contains(board.indexOf(x, y)));
+        }
+    }
+
+    private void assertSameState(ReferenceBoard reference, GameBoard board, EnumSet<GamePowerup> powerUps) {
+        Assert.assertEquals(reference.powerUps, powerUps);
+        Assert.assertEquals(reference.x, board.getPlayerX());
+        Assert.assertEquals(reference.y, board.getPlayerY());
+        Assert.assertEquals(reference.numMatched, board.getMatchedCount());
+
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                Assert.assertEquals(reference.crates[y][x], board.hasCrate(board.indexOf(x, y)));
+                Assert.assertEquals(reference.powerupTiles[y][x], board.getPowerupTile(board.indexOf(x, y)));
+            }
+        }
+    }
+
+    /**
+     * Jagged-array implementation of the move rules, as originally implemented by {@link GameController}.
+     */
+    static class ReferenceBoard {
+
+        private final LevelTile[][] board;
+        private final LevelTile[][] powerupTiles;
+        private final boolean[][] crates;
+        private final EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+        private int x, y, numMatched;
+
+        public ReferenceBoard(ILevel level) {
+            this.board = level.getTiles();
+            this.powerupTiles = new LevelTile[this.board.length][];
+            this.crates = new boolean[this.board.length][];
+
+            for (int y = 0; y < this.board.length; y++) {
+                this.powerupTiles[y] = new LevelTile[this.board[y].length];
+                this.crates[y] = new boolean[this.board[y].length];
+
+                for (int x = 0; x < this.board[y].length; x++) {
+                    LevelTile tile = this.board[y][x];
+                    this.powerupTiles[y][x] = GamePowerup.fromTile(tile) != null ? tile : LevelTile.NONE;
+                    this.crates[y][x] = tile == LevelTile.CRATE;
+
+                    if (tile == LevelTile.PLAYER) {
+                        this.x = x;
+                        this.y = y;
+                    }
+
+                    if (tile != LevelTile.WALL && tile != LevelTile.TARGET_SPOT)
+                        this.board[y][x] = LevelTile.FLOOR;
+                }
+            }
+        }
+
+        public boolean move(GameMovementDirection direction) {
+            int xm = 0, ym = 0;
+            switch (direction) {
+                case RIGHT:
+                    xm = 1;
+                    break;
+
+                case LEFT:
+                    xm = -1;
+                    break;
+
+                case UP:
+                    ym = -1;
+                    break;
+
+                case DOWN:
+                    ym = 1;
+                    break;
+            }
+
+            int ox = this.x, oy = this.y, nx = ox + xm, ny = oy + ym;
+            if (this.isOutside(nx, ny))
+                return false;
+
+            if (this.board[ny][nx] == LevelTile.WALL && !this.powerUps.contains(GamePowerup.GHOST))
+                return false;
+            this.powerUps.remove(GamePowerup.GHOST);
+
+            if (this.crates[ny][nx]) {
+                if (this.isOutside(nx + xm, ny + ym) || this.board[ny + ym][nx + xm] == LevelTile.WALL)
+                    return false;
+
+                if (this.crates[ny + ym][nx + xm] && !this.powerUps.contains(GamePowerup.STRENGTH))
+                    return false;
+
+                if (this.crates[ny + ym][nx + xm]) {
+                    if (this.isOutside(nx + 2 * xm, ny + 2 * ym) || this.board[ny + 2 * ym][nx + 2 * xm] == LevelTile.WALL)
+                        return false;
+
+                    if (this.crates[ny + 2 * ym][nx + 2 * xm])
+                        return false;
+
+                    this.powerUps.remove(GamePowerup.STRENGTH);
+                    this.moveCrate(nx + xm, ny + ym, nx + 2 * xm, ny + 2 * ym);
+                }
+
+                this.moveCrate(nx, ny, nx + xm, ny + ym);
+            }
+
+            if (this.powerUps.contains(GamePowerup.PULL) && !this.isOutside(ox - xm, oy - ym) && this.crates[oy - ym][ox - xm]) {
+                this.powerUps.remove(GamePowerup.PULL);
+                this.moveCrate(ox - xm, oy - ym, ox, oy);
+            }
+
+            this.x = nx;
+            this.y = ny;
+
+            GamePowerup powerup = GamePowerup.fromTile(this.powerupTiles[ny][nx]);
+            if (powerup != null) {
+                this.powerUps.add(powerup);
+                this.powerupTiles[ny][nx] = LevelTile.NONE;
+            }
+
+            return true;
+        }
+
+        private void moveCrate(int fx, int fy, int tx, int ty) {
+            this.crates[fy][fx] = false;
+            this.crates[ty][tx] = true;
+
+            if (this.board[ty][tx] == LevelTile.TARGET_SPOT && this.board[fy][fx] != LevelTile.TARGET_SPOT)
+                this.numMatched++;
+            else if (this.board[ty][tx] != LevelTile.TARGET_SPOT && this.board[fy][fx] == LevelTile.TARGET_SPOT)
+                this.numMatched--;
+        }
+
+        private boolean isOutside(int x, int y) {
+            return x < 0 || y < 0 || y >= this.board.length || x >= this.board[y].length;
+        }
+    }
+}
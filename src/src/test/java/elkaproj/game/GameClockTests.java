@@ -0,0 +1,106 @@
+package elkaproj.game;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class GameClockTests {
+
+    @Test
+    public void testDeadlines() {
+        long[] now = {1000};
+        GameClock clock = new GameClock(() -> now[0]);
+        clock.restore(960);
+        clock.armDeadline(0, 1000);
+        clock.armDeadline(1, 60000);
+
+        // the current second is due for a report even before the clock starts
+        Assert.assertEquals(0, clock.getMillisUntilNextEvent());
+        Assert.assertTrue(clock.pollSecond());
+        Assert.assertFalse(clock.pollSecond());
+        Assert.assertEquals(Long.MAX_VALUE, clock.getMillisUntilNextEvent());
+
+        clock.start();
+        Assert.assertEquals(40, clock.getMillisUntilNextEvent());
+        Assert.assertEquals(0, clock.pollDeadlines());
+
+        now[0] += TimeUnit.MILLISECONDS.toNanos(40);
+        Assert.assertEquals(0, clock.getMillisUntilNextEvent());
+        Assert.assertEquals(1, clock.pollDeadlines());
+        Assert.assertTrue(clock.pollSecond());
+        Assert.assertEquals(0, clock.pollDeadlines());
+
+        // pausing suspends the remaining deadline
+        clock.stop(true);
+        now[0] += TimeUnit.SECONDS.toNanos(100);
+        Assert.assertFalse(clock.isRunning());
+        Assert.assertEquals(Long.MAX_VALUE, clock.getMillisUntilNextEvent());
+        Assert.assertEquals(0, clock.pollDeadlines());
+
+        clock.start();
+        Assert.assertTrue(clock.isRunning());
+        Assert.assertEquals(1000, clock.getMillisUntilNextEvent());
+
+        clock.reset();
+        Assert.assertEquals(0, clock.getMillisUntilNextEvent());
+        Assert.assertTrue(clock.pollSecond());
+        Assert.assertEquals(0, clock.pollDeadlines());
+    }
+
+    @Test
+    public void testMoveTimings() {
+        long[] now = {-5000};
+        GameClock clock = new GameClock(() -> now[0]);
+        clock.reset();
+        clock.start();
+
+        // think time before the first move, then quick moves
+        now[0] += 2_000_000_000L;
+        clock.recordMove();
+        for (int i = 0; i < 10; i++) {
+            now[0] += 150_000L + i;
+            clock.recordMove();
+        }
+
+        // pauses are excluded from timings, and resuming starts a new decision
+        clock.stop(true);
+        now[0] += 7_000_000_000L;
+        Assert.assertEquals(7_000_000_000L, clock.getPausedNanos());
+        clock.start();
+        now[0] += 300_000_000L;
+        clock.recordMove();
+
+        clock.recordDecisionPoint();
+        now[0] += 800_000_000L;
+        clock.recordMove();
+
+        Assert.assertEquals(13, clock.getMoveCount());
+        Assert.assertEquals(1, clock.getPauseCount());
+        Assert.assertEquals(7_000_000_000L, clock.getPausedNanos());
+        Assert.assertEquals(2_000_000_000L + 1_500_045L + 300_000_000L + 800_000_000L, clock.getElapsedNanos());
+        Assert.assertEquals(clock.getElapsedNanos(), clock.getLastMoveNanos());
+
+        LatencyHistogram intervals = clock.getMoveIntervals();
+        Assert.assertEquals(13, intervals.getCount());
+        Assert.assertEquals(clock.getElapsedNanos(), intervals.getTotalNanos());
+        Assert.assertEquals(150_000L, intervals.getMinNanos());
+        Assert.assertEquals(2_000_000_000L, intervals.getMaxNanos());
+
+        // percentiles are exact to within 1/16
+        long median = intervals.getPercentileNanos(50);
+        Assert.assertTrue(median >= 150_004L && median <= 150_004L + 150_004L / 16);
+        Assert.assertEquals(2_000_000_000L, intervals.getPercentileNanos(100));
+
+        LatencyHistogram thinkTimes = clock.getThinkTimes();
+        Assert.assertEquals(3, thinkTimes.getCount());
+        Assert.assertEquals(300_000_000L, thinkTimes.getMinNanos());
+        Assert.assertEquals(2_000_000_000L, thinkTimes.getMaxNanos());
+
+        LatencyHistogram copy = thinkTimes.copy();
+        clock.reset();
+        Assert.assertEquals(0, clock.getMoveCount());
+        Assert.assertEquals(0, clock.getThinkTimes().getCount());
+        Assert.assertEquals(3, copy.getCount());
+    }
+}
@@ -0,0 +1,673 @@
+package elkaproj.game;
+
+import elkaproj.Dimensions;
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+public class GameControllerTests {
+
+    private static final ILevel LEVEL_0 = new TestLevel(0,
+            "######",
+            "#S_PX#",
+            "#____#",
+            "######");
+
+    private static final ILevel LEVEL_1 = new TestLevel(1,
+            "#######",
+            "#X_P_S#",
+            "#######");
+
+    // more crates than target spots
+    private static final ILevel NEVER_COMPLETED_LEVEL = new TestLevel(0,
+            "###########",
+            "#S_P_X_G__#",
+            "#_PP__T_P_#",
+            "#_U____P__#",
+            "#__P_T_G__#",
+            "#_G_U_P___#",
+            "#__#__T__U#",
+            "###########");
+
+    @Test
+    public void testBoardEvents() {
+        TestLevelPack pack = new TestLevelPack(LEVEL_0, LEVEL_1);
+        GameController controller = new GameController(pack, pack);
+        BoardRecorder recorder = new BoardRecorder();
+        controller.addGameEventHandler(recorder);
+
+        controller.startGame();
+        Assert.assertEquals(new Dimensions(1, 1), recorder.playerPosition);
+        Assert.assertTrue(recorder.crates[1][3]);
+        Assert.assertEquals(LevelTile.FLOOR, recorder.board[1][1]);
+        Assert.assertNull(recorder.deltas);
+
+        controller.move(GameMovementDirection.UP);
+        Assert.assertEquals(0, controller.getCurrentScore());
+
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertEquals(1, controller.getCurrentScore());
+        Assert.assertNull(recorder.deltas);
+
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertSame(LEVEL_1, controller.getCurrentLevel());
+        Assert.assertEquals(new Dimensions(5, 1), recorder.playerPosition);
+        Assert.assertTrue(recorder.crates[1][3]);
+    }
+
+    @Test
+    public void testCrateDeltas() {
+        TestLevelPack pack = new TestLevelPack(LEVEL_1);
+        GameController controller = new GameController(pack, pack);
+        BoardRecorder recorder = new BoardRecorder();
+        controller.addGameEventHandler(recorder);
+
+        controller.startGame();
+        controller.move(GameMovementDirection.LEFT);
+        controller.move(GameMovementDirection.LEFT);
+
+        Assert.assertEquals(1, recorder.deltas.size());
+        Dimensions.Delta delta = recorder.deltas.iterator().next();
+        Assert.assertEquals(new Dimensions(3, 1), delta.getFrom());
+        Assert.assertEquals(new Dimensions(2, 1), delta.getTo());
+        Assert.assertTrue(recorder.crates[1][2]);
+        Assert.assertFalse(recorder.crates[1][3]);
+
+        controller.move(GameMovementDirection.LEFT);
+        Assert.assertFalse(controller.isGameRunning());
+    }
+
+    @Test
+    public void testUndoRedo() {
+        TestLevelPack pack = new TestLevelPack(new TestLevel(0,
+                "########",
+                "#SGP_X_#",
+                "########"));
+        GameController controller = new GameController(pack, pack);
+        BoardRecorder recorder = new BoardRecorder();
+        controller.addGameEventHandler(recorder);
+
+        controller.startGame();
+        controller.undoMove();
+        Assert.assertEquals(0, recorder.undone);
+
+        controller.move(GameMovementDirection.RIGHT);
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertEquals(2, controller.getCurrentScore());
+        Assert.assertTrue(recorder.crates[1][4]);
+        Assert.assertTrue(controller.getActivePowerups().isEmpty());
+
+        controller.undoMove();
+        Assert.assertEquals(1, recorder.undone);
+        Assert.assertEquals(1, controller.getCurrentScore());
+        Assert.assertEquals(new Dimensions(2, 1), recorder.playerPosition);
+        Assert.assertTrue(recorder.crates[1][3]);
+        Assert.assertEquals(EnumSet.of(GamePowerup.GHOST), controller.getActivePowerups());
+
+        controller.undoMove();
+        Assert.assertEquals(0, controller.getCurrentScore());
+        Assert.assertEquals(LevelTile.GHOST, recorder.powerupTiles[1][2]);
+        Assert.assertTrue(controller.getActivePowerups().isEmpty());
+
+        long initialHash = controller.getStateHash();
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertNotEquals(initialHash, controller.getStateHash());
+        controller.undoMove();
+        Assert.assertEquals(initialHash, controller.getStateHash());
+
+        controller.redoMove();
+        controller.redoMove();
+        Assert.assertEquals(2, controller.getCurrentScore());
+        Assert.assertTrue(recorder.crates[1][4]);
+
+        controller.undoMove();
+        controller.move(GameMovementDirection.LEFT);
+        controller.redoMove();
+        Assert.assertEquals(2, controller.getCurrentScore());
+        Assert.assertEquals(new Dimensions(1, 1), recorder.playerPosition);
+    }
+
+    @Test
+    public void testApplyMoves() {
+        TestLevelPack pack = new TestLevelPack(new TestLevel(0,
+                "#######",
+                "#S_P_X#",
+                "#######"), LEVEL_1);
+        GameController controller = new GameController(pack, pack);
+        BoardRecorder recorder = new BoardRecorder();
+        controller.addGameEventHandler(recorder);
+        int[] scoreUpdates = new int[1];
+        controller.addLifecycleHandler(new IGameLifecycleHandler() {
+            @Override
+            public void onScoreUpdated(int currentScore, int totalScore) {
+                scoreUpdates[0]++;
+            }
+        });
+
+        controller.startGame();
+        scoreUpdates[0] = 0;
+        recorder.updates = 0;
+
+        Assert.assertEquals(0, controller.applyMoves("x"));
+        Assert.assertEquals(2, controller.applyMoves("rRur"));
+        Assert.assertEquals(2, controller.getCurrentScore());
+        Assert.assertEquals(1, scoreUpdates[0]);
+        Assert.assertEquals(1, recorder.updates);
+        Assert.assertEquals(new Dimensions(3, 1), recorder.playerPosition);
+        Assert.assertTrue(recorder.crates[1][4]);
+
+        Assert.assertEquals(1, controller.applyMoves("RRR"));
+        Assert.assertSame(LEVEL_1, controller.getCurrentLevel());
+        Assert.assertEquals(0, controller.getCurrentScore());
+        Assert.assertEquals(3, controller.getTotalScore());
+
+        Assert.assertEquals(3, controller.applyMoves("lLL"));
+        Assert.assertFalse(controller.isGameRunning());
+    }
+
+    @Test
+    public void testPreparedNextLevel() {
+        TestLevelPack pack = new TestLevelPack(LEVEL_0, LEVEL_1, LEVEL_0);
+        List<Runnable> preparations = new ArrayList<>();
+        GameController controller = new GameController(pack, pack, preparations::add);
+
+        controller.startGame();
+        Assert.assertEquals(1, preparations.size());
+
+        // a preparation which already ran is swapped in
+        preparations.get(0).run();
+        controller.applyMoves("rr");
+        Assert.assertSame(LEVEL_1, controller.getCurrentLevel());
+        Assert.assertSame(LEVEL_1, controller.getBoard().getLevel());
+        Assert.assertEquals(5, controller.getBoard().getPlayerX());
+        Assert.assertEquals(2, preparations.size());
+
+        // a preparation which was not started yet runs on the controller's thread
+        controller.applyMoves("lll");
+        Assert.assertSame(LEVEL_0, controller.getCurrentLevel());
+        Assert.assertEquals(1, controller.getBoard().getPlayerX());
+        Assert.assertEquals(0, controller.getBoard().getMatchedCount());
+
+        // nothing is prepared past the last level
+        Assert.assertEquals(2, preparations.size());
+
+        // preparation falls back to the controller's thread when the executor rejects it
+        GameController rejecting = new GameController(pack, pack, task -> {
+            throw new RejectedExecutionException();
+        });
+        rejecting.startGame();
+        rejecting.applyMoves("rr");
+        Assert.assertSame(LEVEL_1, rejecting.getCurrentLevel());
+    }
+
+    @Test
+    public void testBoardDiffs() {
+        TestLevelPack pack = new TestLevelPack(NEVER_COMPLETED_LEVEL);
+        GameController controller = new GameController(pack, pack);
+        Spectator spectator = new Spectator();
+        controller.addBoardDiffHandler(spectator);
+
+        controller.startGame();
+        Assert.assertEquals(1, spectator.snapshots);
+
+        Random random = new Random(5);
+        GameMovementDirection[] directions = GameMovementDirection.values();
+        for (int i = 0; i < 2000; i++) {
+            switch (random.nextInt(8)) {
+                case 0:
+                    controller.undoMove();
+                    break;
+
+                case 1:
+                    controller.applyMoves("lurdrdlu".substring(random.nextInt(4)));
+                    break;
+
+                default:
+                    controller.move(directions[random.nextInt(directions.length)]);
+                    break;
+            }
+
+            spectator.assertMatches(controller.getBoard());
+        }
+
+        controller.resetLevel();
+        Assert.assertEquals(2, spectator.snapshots);
+        spectator.assertMatches(controller.getBoard());
+    }
+
+    @Test
+    public void testMoveResults() {
+        TestLevelPack pack = new TestLevelPack(new TestLevel(0,
+                "#######",
+                "#STP_X#",
+                "#######"), LEVEL_1);
+        GameController controller = new GameController(pack, pack);
+        ResultRecorder recorder = new ResultRecorder();
+        controller.addLifecycleHandler(recorder);
+        controller.addGameEventHandler(recorder);
+        controller.addLevelScoreEventHandler(recorder);
+        controller.addMoveResultHandler(recorder);
+
+        controller.startGame();
+        Assert.assertTrue(recorder.events > 0);
+        recorder.events = 0;
+
+        controller.move(GameMovementDirection.UP);
+        Assert.assertEquals(0, recorder.results);
+
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertEquals(1, recorder.results);
+        Assert.assertEquals(0, recorder.events);
+        Assert.assertEquals(1, recorder.currentScore);
+        Assert.assertTrue(recorder.powerupsChanged);
+        Assert.assertEquals(EnumSet.of(GamePowerup.STRENGTH), recorder.activePowerups);
+        Assert.assertEquals(MoveDeltas.pack(2, 1), recorder.playerPosition);
+
+        controller.undoMove();
+        Assert.assertEquals(2, recorder.results);
+        Assert.assertTrue(recorder.undo);
+        Assert.assertEquals(0, recorder.currentScore);
+        Assert.assertTrue(recorder.activePowerups.isEmpty());
+
+        controller.redoMove();
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertEquals(4, recorder.results);
+        Assert.assertFalse(recorder.powerupsChanged);
+        Assert.assertEquals(EnumSet.of(GamePowerup.STRENGTH), recorder.activePowerups);
+
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertEquals(5, recorder.results);
+        Assert.assertEquals(0, recorder.events);
+        Assert.assertTrue(recorder.levelCompleted);
+        Assert.assertEquals(3, recorder.completedLevelScore);
+        Assert.assertSame(LEVEL_1, recorder.nextLevel);
+        Assert.assertEquals(0, recorder.currentScore);
+        Assert.assertEquals(3, recorder.totalScore);
+        Assert.assertEquals(MoveDeltas.pack(5, 1), recorder.playerPosition);
+
+        Assert.assertEquals(3, controller.applyMoves("lLL"));
+        Assert.assertEquals(6, recorder.results);
+        Assert.assertEquals(0, recorder.events);
+        Assert.assertEquals(3, recorder.moveCount);
+        Assert.assertTrue(recorder.gameCompleted);
+        Assert.assertFalse(controller.isGameRunning());
+    }
+
+    @Test
+    public void testSaveRestoreState() {
+        TestLevelPack pack = new TestLevelPack(true, NEVER_COMPLETED_LEVEL);
+        GameController controller = new GameController(pack, pack);
+        Spectator spectator = new Spectator();
+        controller.addBoardDiffHandler(spectator);
+        controller.startGame();
+
+        Random random = new Random(7);
+        GameMovementDirection[] directions = GameMovementDirection.values();
+        GameMovementDirection[] moves = new GameMovementDirection[400];
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = directions[random.nextInt(directions.length)];
+
+        for (int i = 0; i < moves.length / 2; i++)
+            controller.move(moves[i]);
+
+        controller.resetLevel();
+        for (int i = 0; i < moves.length / 2; i++)
+            controller.move(moves[i]);
+
+        byte[] state = controller.saveState();
+        long hash = controller.getStateHash();
+        int score = controller.getCurrentScore();
+        EnumSet<GamePowerup> powerups = controller.getActivePowerups();
+        Assert.assertTrue(state.length < 64);
+
+        for (int i = moves.length / 2; i < moves.length; i++)
+            controller.move(moves[i]);
+
+        long finalHash = controller.getStateHash();
+        Assert.assertNotEquals(hash, finalHash);
+
+        controller.restoreState(state);
+        Assert.assertEquals(hash, controller.getStateHash());
+        Assert.assertEquals(score, controller.getCurrentScore());
+        Assert.assertEquals(2, controller.getCurrentLives());
+        Assert.assertEquals(powerups, controller.getActivePowerups());
+        Assert.assertEquals(0, controller.getBoard().getUndoCount());
+        spectator.assertMatches(controller.getBoard());
+
+        // a fresh controller continues from the restored state
+        GameController restored = new GameController(pack, pack);
+        restored.restoreState(state);
+        Assert.assertTrue(restored.isGameRunning());
+        for (int i = moves.length / 2; i < moves.length; i++)
+            restored.move(moves[i]);
+
+        Assert.assertEquals(finalHash, restored.getStateHash());
+
+        // invalid states leave the game unchanged
+        state[state.length - 1] ^= 1;
+        try {
+            restored.restoreState(state);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        Assert.assertEquals(finalHash, restored.getStateHash());
+    }
+
+    @Test
+    public void testSaveRestoreStateInWall() {
+        TestLevelPack pack = new TestLevelPack(new TestLevel(0,
+                "########",
+                "#SG#P_X#",
+                "########"));
+        GameController controller = new GameController(pack, pack);
+        controller.startGame();
+
+        // GHOST lets the player step into the wall, where the state is saved
+        controller.move(GameMovementDirection.RIGHT);
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertEquals(3, controller.getBoard().getPlayerX());
+        Assert.assertTrue(controller.getBoard().isWall(controller.getBoard().getPlayerIndex()));
+
+        byte[] state = controller.saveState();
+        long hash = controller.getStateHash();
+
+        GameController restored = new GameController(pack, pack);
+        restored.restoreState(state);
+        Assert.assertEquals(hash, restored.getStateHash());
+        Assert.assertEquals(3, restored.getBoard().getPlayerX());
+        Assert.assertEquals(1, restored.getBoard().getPlayerY());
+
+        // both games go on the same way, pushing the crate out of the wall's side
+        controller.move(GameMovementDirection.RIGHT);
+        restored.move(GameMovementDirection.RIGHT);
+        Assert.assertTrue(restored.getBoard().hasCrate(restored.getBoard().indexOf(5, 1)));
+        Assert.assertEquals(controller.getStateHash(), restored.getStateHash());
+    }
+
+    @Test
+    public void testSaveRestoreStateCrateInWall() {
+        TestLevelPack pack = new TestLevelPack(new TestLevel(0,
+                "#########",
+                "#_P#___X#",
+                "#__GU_S_#",
+                "#########"));
+        GameController controller = new GameController(pack, pack, Runnable::run, new GameClock(() -> 0));
+        controller.startGame();
+
+        // with PULL and GHOST, the player steps into the wall, and pulls the crate into it while walking back out
+        controller.applyMoves("LLLUR");
+        Assert.assertEquals(4, controller.getBoard().getPlayerX());
+        Assert.assertTrue(controller.getBoard().hasCrate(controller.getBoard().indexOf(3, 1)));
+        Assert.assertTrue(controller.getBoard().isWall(controller.getBoard().indexOf(3, 1)));
+
+        byte[] state = controller.saveState();
+        GameController restored = new GameController(pack, pack, Runnable::run, new GameClock(() -> 0));
+        restored.restoreState(state);
+        Assert.assertEquals(controller.getStateHash(), restored.getStateHash());
+        Assert.assertArrayEquals(state, restored.saveState());
+    }
+
+    @Test
+    public void testLargeStateSize() {
+        TestLevelPack pack = new TestLevelPack(GameBoardTests.createLargeLevel(100, 100, 300, new Random(8)));
+        GameController controller = new GameController(pack, pack);
+        controller.startGame();
+
+        byte[] state = controller.saveState();
+        Assert.assertTrue(state.length < 1024);
+
+        controller.move(GameMovementDirection.LEFT);
+        controller.restoreState(state);
+        Assert.assertEquals(0, controller.getCurrentScore());
+        Assert.assertEquals(controller.getBoard().computeStateHash(), controller.getBoard().getStateHash());
+    }
+
+    @Test
+    public void testMoveDoesNotAllocate() {
+        TestLevelPack pack = new TestLevelPack(NEVER_COMPLETED_LEVEL);
+        GameController controller = new GameController(pack, pack);
+        controller.addLifecycleHandler(new IGameLifecycleHandler() {
+        });
+        controller.addGameEventHandler(new IGameEventHandler() {
+            @Override
+            public void onBoardUpdated(ILevel currentLevel, GameBoard board, MoveDeltas deltas) {
+            }
+        });
+        controller.addMoveResultHandler(result -> {
+        });
+        controller.startGame();
+
+        GameMovementDirection[] directions = GameMovementDirection.values();
+        GameMovementDirection[] moves = new GameMovementDirection[4096];
+        Random random = new Random(1);
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = directions[random.nextInt(directions.length)];
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // rounds may allocate while the JIT compiles and recompiles the move path, so the rounds go on until one
+        // allocates nothing, and the move path must then keep allocating nothing
+        long allocated = -1;
+        for (int round = 0; round < 500 && allocated != 0; round++)
+            allocated = measureAllocatedBytes(controller, moves, threadBean, threadId);
+
+        Assert.assertEquals(0, allocated);
+
+        long minimum = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++)
+            minimum = Math.min(minimum, measureAllocatedBytes(controller, moves, threadBean, threadId));
+
+        Assert.assertEquals(0, minimum);
+
+        Assert.assertTrue(controller.getCurrentScore() > 0);
+    }
+
+    private static long measureAllocatedBytes(GameController controller, GameMovementDirection[] moves,
+                                              com.sun.management.ThreadMXBean threadBean, long threadId) {
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (GameMovementDirection move : moves)
+            controller.move(move);
+
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    @Test
+    public void testTimerEvents() {
+        TestLevelPack pack = new TestLevelPack(true, NEVER_COMPLETED_LEVEL);
+        GameController controller = new GameController(pack, pack);
+        int[] updates = new int[1];
+        controller.addTimerUpdateHandler(new ITimerUpdateHandler() {
+            @Override
+            public void onTimerUpdated(long current, long bonus, long penalty, long fail) {
+                updates[0]++;
+            }
+        });
+
+        Assert.assertEquals(Long.MAX_VALUE, controller.getMillisUntilNextTimerEvent());
+        controller.startGame();
+        Assert.assertEquals(0, controller.getMillisUntilNextTimerEvent());
+
+        // handlers are notified of the current second once, however often the controller ticks
+        for (int i = 0; i < 100; i++)
+            controller.tick();
+        Assert.assertEquals(1, updates[0]);
+
+        long wait = controller.getMillisUntilNextTimerEvent();
+        Assert.assertTrue(wait > 0 && wait <= 1000);
+
+        controller.togglePause();
+        Assert.assertEquals(Long.MAX_VALUE, controller.getMillisUntilNextTimerEvent());
+        controller.togglePause();
+        Assert.assertTrue(controller.getMillisUntilNextTimerEvent() <= 1000);
+    }
+
+    static class Spectator implements IBoardDiffHandler {
+
+        private boolean[][] crates;
+        private LevelTile[][] powerupTiles;
+        private int playerX, playerY;
+        private int snapshots = 0;
+
+        @Override
+        public void onBoardSnapshot(ILevel currentLevel, BoardSnapshot snapshot) {
+            this.crates = new boolean[snapshot.getHeight()][snapshot.getWidth()];
+            this.powerupTiles = new LevelTile[snapshot.getHeight()][snapshot.getWidth()];
+            for (int y = 0; y < snapshot.getHeight(); y++) {
+                for (int x = 0; x < snapshot.getWidth(); x++) {
+                    this.crates[y][x] = snapshot.hasCrate(x, y);
+                    this.powerupTiles[y][x] = snapshot.getPowerupTile(x, y);
+                }
+            }
+
+            this.playerX = snapshot.getPlayerX();
+            this.playerY = snapshot.getPlayerY();
+            this.snapshots++;
+        }
+
+        @Override
+        public void onBoardDiff(ILevel currentLevel, BoardDiff diff) {
+            for (int n = 0; n < diff.getChangeCount(); n++) {
+                int from = diff.getFrom(n), to = diff.getTo(n);
+                switch (diff.getKind(n)) {
+                    case BoardDiff.PLAYER_MOVED:
+                        Assert.assertEquals(MoveDeltas.pack(this.playerX, this.playerY), from);
+                        this.playerX = MoveDeltas.unpackX(to);
+                        this.playerY = MoveDeltas.unpackY(to);
+                        break;
+
+                    case BoardDiff.CRATE_MOVED:
+                        Assert.assertTrue(this.crates[MoveDeltas.unpackY(from)][MoveDeltas.unpackX(from)]);
+                        this.crates[MoveDeltas.unpackY(from)][MoveDeltas.unpackX(from)] = false;
+                        this.crates[MoveDeltas.unpackY(to)][MoveDeltas.unpackX(to)] = true;
+                        break;
+
+                    case BoardDiff.POWERUP_CONSUMED:
+                        this.powerupTiles[MoveDeltas.unpackY(to)][MoveDeltas.unpackX(to)] = LevelTile.NONE;
+                        break;
+
+                    case BoardDiff.POWERUP_RESTORED:
+                        this.powerupTiles[MoveDeltas.unpackY(to)][MoveDeltas.unpackX(to)] = GamePowerup.toTile(diff.getPowerup(n));
+                        break;
+                }
+            }
+        }
+
+        void assertMatches(GameBoard board) {
+            Assert.assertEquals(board.getPlayerX(), this.playerX);
+            Assert.assertEquals(board.getPlayerY(), this.playerY);
+            for (int y = 0; y < board.getHeight(); y++) {
+                for (int x = 0; x < board.getWidth(); x++) {
+                    Assert.assertEquals(board.hasCrate(board.indexOf(x, y)), this.crates[y][x]);
+                    Assert.assertEquals(board.getPowerupTile(board.indexOf(x, y)), this.powerupTiles[y][x]);
+                }
+            }
+        }
+    }
+
+    private static class BoardRecorder implements IGameEventHandler {
+
+        private LevelTile[][] board;
+        private LevelTile[][] powerupTiles;
+        private boolean[][] crates;
+        private Dimensions playerPosition;
+        private Set<Dimensions.Delta> deltas;
+        private int undone = 0;
+        private int updates = 0;
+
+        @Override
+        public void onBoardUpdated(ILevel currentLevel, LevelTile[][] board, LevelTile[][] powerupTiles, boolean[][] crates, Dimensions playerPosition, Set<Dimensions.Delta> deltas) {
+            this.board = board;
+            this.powerupTiles = powerupTiles;
+            this.crates = crates;
+            this.playerPosition = playerPosition;
+            this.deltas = deltas;
+            this.updates++;
+        }
+
+        @Override
+        public void onMoveUndone(ILevel currentLevel, GameBoard board, MoveDeltas deltas) {
+            this.undone++;
+            IGameEventHandler.super.onMoveUndone(currentLevel, board, deltas);
+        }
+    }
+
+    private static class ResultRecorder implements IMoveResultHandler, IGameLifecycleHandler, IGameEventHandler, ILevelScoreUpdateHandler {
+
+        int results = 0;
+        int events = 0;
+        int moveCount;
+        boolean undo;
+        int currentScore;
+        int totalScore;
+        boolean powerupsChanged;
+        Set<GamePowerup> activePowerups;
+        int playerPosition;
+        boolean levelCompleted;
+        int completedLevelScore;
+        ILevel nextLevel;
+        boolean gameCompleted;
+
+        @Override
+        public void onMoveResult(MoveResult result) {
+            this.results++;
+            this.moveCount = result.getMoveCount();
+            this.undo = result.isUndo();
+            this.currentScore = result.getCurrentScore();
+            this.totalScore = result.getTotalScore();
+            this.powerupsChanged = result.arePowerupsChanged();
+            this.activePowerups = result.getActivePowerups().toEnumSet();
+            this.playerPosition = result.getDeltas() != null ? result.getDeltas().getPlayerTo() : -1;
+            this.levelCompleted = result.isLevelCompleted();
+            this.completedLevelScore = result.getCompletedLevelScore();
+            this.nextLevel = result.getNextLevel();
+            this.gameCompleted = result.isGameCompleted();
+        }
+
+        @Override
+        public void onGameStopped(int totalScore, boolean completed) {
+            this.events++;
+        }
+
+        @Override
+        public void onNextLevel(ILevel previousLevel, int previousLevelScore, ILevel currentLevel, int totalScore) {
+            this.events++;
+        }
+
+        @Override
+        public void onLivesUpdated(int currentLives, int maxLives) {
+            this.events++;
+        }
+
+        @Override
+        public void onScoreUpdated(int currentScore, int totalScore) {
+            this.events++;
+        }
+
+        @Override
+        public void onPowerupsUpdated(PowerupSet activePowerups) {
+            this.events++;
+        }
+
+        @Override
+        public void onBoardUpdated(ILevel currentLevel, GameBoard board, MoveDeltas deltas) {
+            this.events++;
+        }
+
+        @Override
+        public void onLevelScoreUpdated(ILevel level, int score) {
+            this.events++;
+        }
+    }
+}
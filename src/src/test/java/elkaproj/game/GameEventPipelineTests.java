@@ -0,0 +1,173 @@
+package elkaproj.game;
+
+import elkaproj.config.ILevel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class GameEventPipelineTests {
+
+    // more crates than target spots
+    private static final ILevel LEVEL = new TestLevel(0,
+            "###########",
+            "#S_P_X_G__#",
+            "#_PP__T_P_#",
+            "#_U____P__#",
+            "#__P_T_G__#",
+            "#_G_U_P___#",
+            "#__#__T__U#",
+            "###########");
+
+    @Test
+    public void testEvents() {
+        TestLevelPack pack = new TestLevelPack(LEVEL);
+        GameController controller = new GameController(pack, pack);
+        GameEventPipeline pipeline = new GameEventPipeline(controller, 16);
+        GameEventPipeline.Cursor cursor = pipeline.createCursor();
+        Consumer consumer = new Consumer();
+
+        controller.startGame();
+        consumer.drain(cursor);
+        Assert.assertEquals(1, consumer.snapshots);
+        consumer.assertMatches(controller);
+
+        long published = pipeline.getPublishedCount();
+        controller.move(GameMovementDirection.RIGHT);
+        Assert.assertEquals(published + 1, pipeline.getPublishedCount());
+        consumer.drain(cursor);
+        Assert.assertEquals(GameEvent.DIFF, consumer.last.getKind());
+        Assert.assertNull(cursor.poll());
+
+        Random random = new Random(3);
+        GameMovementDirection[] directions = GameMovementDirection.values();
+        for (int i = 0; i < 1000; i++) {
+            switch (random.nextInt(8)) {
+                case 0:
+                    controller.undoMove();
+                    break;
+
+                case 1:
+                    controller.applyMoves("lurdrdlu".substring(random.nextInt(4)));
+                    break;
+
+                default:
+                    controller.move(directions[random.nextInt(directions.length)]);
+                    break;
+            }
+
+            consumer.drain(cursor);
+            consumer.assertMatches(controller);
+        }
+
+        Assert.assertEquals(0, cursor.getMissedCount());
+        Assert.assertEquals(1, consumer.snapshots);
+
+        controller.togglePause();
+        consumer.drain(cursor);
+        Assert.assertTrue(consumer.paused);
+
+        controller.stopGame(false);
+        consumer.drain(cursor);
+        Assert.assertTrue(consumer.stopped);
+    }
+
+    @Test
+    public void testLaggingConsumer() {
+        TestLevelPack pack = new TestLevelPack(LEVEL);
+        GameController controller = new GameController(pack, pack);
+        GameEventPipeline pipeline = new GameEventPipeline(controller, 8);
+        GameEventPipeline.Cursor cursor = pipeline.createCursor();
+        Consumer consumer = new Consumer();
+
+        controller.startGame();
+        consumer.drain(cursor);
+
+        Random random = new Random(4);
+        GameMovementDirection[] directions = GameMovementDirection.values();
+        for (int i = 0; i < 100; i++)
+            controller.move(directions[random.nextInt(directions.length)]);
+
+        Assert.assertNull(cursor.poll());
+        Assert.assertTrue(cursor.getMissedCount() > 0);
+
+        // the next event is preceded by a fresh snapshot
+        controller.togglePause();
+        consumer.drain(cursor);
+        Assert.assertEquals(2, consumer.snapshots);
+        consumer.assertMatches(controller);
+    }
+
+    @Test
+    public void testConcurrentConsumer() throws InterruptedException {
+        TestLevelPack pack = new TestLevelPack(LEVEL);
+        GameController controller = new GameController(pack, pack);
+        GameEventPipeline pipeline = new GameEventPipeline(controller, 1 << 16);
+        GameEventPipeline.Cursor cursor = pipeline.createCursor();
+        Consumer consumer = new Consumer();
+
+        Thread thread = new Thread(() -> {
+            while (!consumer.paused)
+                consumer.drain(cursor);
+        });
+        thread.start();
+
+        controller.startGame();
+        Random random = new Random(5);
+        GameMovementDirection[] directions = GameMovementDirection.values();
+        for (int i = 0; i < 20000; i++)
+            controller.move(directions[random.nextInt(directions.length)]);
+
+        controller.togglePause();
+        thread.join(10000);
+
+        Assert.assertFalse(thread.isAlive());
+        Assert.assertEquals(0, cursor.getMissedCount());
+        consumer.assertMatches(controller);
+    }
+
+    private static class Consumer {
+
+        private final GameControllerTests.Spectator spectator = new GameControllerTests.Spectator();
+        private int snapshots = 0;
+        private long lastSequence = -1;
+        private GameEvent last = null;
+        private volatile boolean paused = false;
+        private boolean stopped = false;
+
+        private void drain(GameEventPipeline.Cursor cursor) {
+            GameEvent event;
+            while ((event = cursor.poll()) != null) {
+                Assert.assertTrue(event.getSequence() > this.lastSequence);
+                this.lastSequence = event.getSequence();
+
+                switch (event.getKind()) {
+                    case GameEvent.SNAPSHOT:
+                        this.spectator.onBoardSnapshot(event.getLevel(), event.getSnapshot());
+                        this.snapshots++;
+                        break;
+
+                    case GameEvent.DIFF:
+                        this.spectator.onBoardDiff(event.getLevel(), event.getDiff());
+                        break;
+
+                    case GameEvent.STOPPED:
+                        this.stopped = true;
+                        break;
+                }
+
+                this.last = event;
+                this.paused = event.isPaused();
+            }
+        }
+
+        private void assertMatches(GameController controller) {
+            this.spectator.assertMatches(controller.getBoard());
+            Assert.assertSame(controller.getCurrentLevel(), this.last.getLevel());
+            Assert.assertEquals(controller.getCurrentScore(), this.last.getCurrentScore());
+            Assert.assertEquals(controller.getTotalScore(), this.last.getTotalScore());
+            Assert.assertEquals(controller.getCurrentLives(), this.last.getCurrentLives());
+            Assert.assertEquals(controller.getActivePowerups(), this.last.getActivePowerups());
+        }
+    }
+}
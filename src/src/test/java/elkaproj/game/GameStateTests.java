@@ -0,0 +1,144 @@
+package elkaproj.game;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class GameStateTests {
+
+    private static final GameMovementDirection[] DIRECTIONS = GameMovementDirection.values();
+
+    private static final ILevel POWERUP_LEVEL = new TestLevel(0,
+            "###########",
+            "#S_P_X_G__#",
+            "#_PP_XT_P_#",
+            "#_U__X_P_X#",
+            "#__P_TXG__#",
+            "#_G_U_PX__#",
+            "#__#__T__U#",
+            "###########");
+
+    @Test
+    public void testMatchesBoard() {
+        Random random = new Random(4242);
+        for (int game = 0; game < 200; game++) {
+            GameBoard board = new GameBoard(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+            GameState state = GameState.initial(POWERUP_LEVEL, EnumSet.allOf(GamePowerup.class));
+            assertSameState(board, powerUps, state);
+
+            for (int move = 0; move < 200; move++) {
+                GameMovementDirection direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                int result = board.move(direction, powerUps);
+                GameState next = GameState.step(state, direction);
+
+                if (result == GameBoard.MOVE_BLOCKED) {
+                    Assert.assertSame(state, next);
+                } else {
+                    Assert.assertNotSame(state, next);
+                    Assert.assertEquals(result, next.getLastResult());
+                }
+
+                state = next;
+                assertSameState(board, powerUps, state);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesBoardAcrossBlocks() {
+        // a narrow level, with the player starting next to the boundary of the first two blocks of rows
+        ILevel level = GameBoardTests.createLargeLevel(8, 130, 150, new Random(11));
+        GameState initial = GameState.initial(level, EnumSet.allOf(GamePowerup.class));
+
+        Random random = new Random(12);
+        for (int game = 0; game < 20; game++) {
+            GameBoard board = new GameBoard(level, EnumSet.allOf(GamePowerup.class));
+            EnumSet<GamePowerup> powerUps = EnumSet.noneOf(GamePowerup.class);
+            GameState state = initial;
+
+            for (int move = 0; move < 500; move++) {
+                GameMovementDirection direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                board.move(direction, powerUps);
+                state = GameState.step(state, direction);
+            }
+
+            assertSameState(board, powerUps, state);
+        }
+
+        // states branched from the initial one never change it
+        Assert.assertEquals(GameState.initial(level, EnumSet.allOf(GamePowerup.class)), initial);
+    }
+
+    @Test
+    public void testBranching() {
+        TestLevelPack pack = new TestLevelPack(POWERUP_LEVEL);
+        GameController controller = new GameController(pack, pack);
+        controller.startGame();
+        controller.applyMoves("drdl");
+
+        GameState root = controller.fork();
+        long rootHash = root.getStateHash();
+        Assert.assertEquals(controller.getStateHash(), rootHash);
+        Assert.assertEquals(0, root.getMoveCount());
+
+        // branches explored concurrently from a shared root match the same moves replayed on a controller
+        List<String> paths = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 64; i++) {
+            StringBuilder path = new StringBuilder();
+            for (int move = 0; move < 100; move++)
+                path.append("udlr".charAt(random.nextInt(4)));
+            paths.add(path.toString());
+        }
+
+        long[] hashes = IntStream.range(0, paths.size()).parallel().mapToLong(i -> {
+            GameState state = root;
+            for (char c : paths.get(i).toCharArray())
+                state = state.step(GameMovementDirection.fromLurd(c));
+            return state.getStateHash();
+        }).toArray();
+
+        Assert.assertEquals(rootHash, root.getStateHash());
+        Assert.assertEquals(root, controller.fork());
+
+        for (int i = 0; i < paths.size(); i++) {
+            GameController reference = new GameController(pack, pack);
+            reference.startGame();
+            reference.applyMoves("drdl");
+            for (char c : paths.get(i).toCharArray())
+                reference.move(GameMovementDirection.fromLurd(c));
+
+            Assert.assertEquals(reference.getStateHash(), hashes[i]);
+        }
+    }
+
+    private static void assertSameState(GameBoard board, EnumSet<GamePowerup> powerUps, GameState state) {
+        Assert.assertEquals(board.getPlayerX(), state.getPlayerX());
+        Assert.assertEquals(board.getPlayerY(), state.getPlayerY());
+        Assert.assertEquals(board.getMatchedCount(), state.getMatchedCount());
+        Assert.assertEquals(board.isCompleted(), state.isCompleted());
+        Assert.assertEquals(powerUps, state.getActivePowerups());
+
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                int index = board.indexOf(x, y);
+                Assert.assertEquals(board.hasCrate(index), state.hasCrate(x, y));
+                Assert.assertEquals(board.getPowerupTile(index), state.getPowerupTile(x, y));
+            }
+        }
+
+        long hash = board.getStateHash();
+        for (GamePowerup powerup : powerUps)
+            hash ^= GameBoard.zobristKey(powerup.ordinal(), GameBoard.ZOBRIST_POWERUP);
+        Assert.assertEquals(hash, state.getStateHash());
+        Assert.assertEquals(state, board.createState(powerUps));
+    }
+}
@@ -0,0 +1,264 @@
+package elkaproj.game;
+
+import elkaproj.config.ILevel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class ReplayPlayerTests {
+
+    private static final GameMovementDirection[] DIRECTIONS = GameMovementDirection.values();
+
+    private static final ILevel LEVEL_0 = new TestLevel(0,
+            "######",
+            "#S_PX#",
+            "#____#",
+            "######");
+
+    private static final ILevel LEVEL_1 = new TestLevel(1,
+            "#######",
+            "#X_P_S#",
+            "#######");
+
+    private static final ILevel POWERUP_LEVEL = new TestLevel(0,
+            "###########",
+            "#S_P_X_G__#",
+            "#_PP_XT_P_#",
+            "#_U__X_P_X#",
+            "#__P_TXG__#",
+            "#_G_U_PX__#",
+            "#__#__T__U#",
+            "###########");
+
+    @Test
+    public void testTimesRecordingWithoutTimers() throws IOException {
+        TestLevelPack pack = new TestLevelPack(LEVEL_0, LEVEL_1);
+        long[] now = {0};
+        GameController controller = new GameController(pack, pack, Runnable::run, new GameClock(() -> now[0]));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(controller, output, 1024);
+
+        controller.startGame();
+        now[0] += TimeUnit.MILLISECONDS.toNanos(1500);
+        controller.move(GameMovementDirection.DOWN);
+        controller.togglePause();
+        now[0] += TimeUnit.MILLISECONDS.toNanos(60000);
+        controller.togglePause();
+        now[0] += TimeUnit.MILLISECONDS.toNanos(500);
+        controller.move(GameMovementDirection.RIGHT);
+        recorder.close();
+
+        ReplayPlayer player = new ReplayPlayer(pack, pack, output.toByteArray(), () -> 0);
+        Assert.assertEquals(2000, player.getDuration());
+        Assert.assertEquals(2000, controller.getGameClock().getElapsedMillis());
+    }
+
+    @Test
+    public void testPlaysAtRecordedPace() throws IOException {
+        TestLevelPack pack = new TestLevelPack(true, LEVEL_0, LEVEL_1);
+        long[] now = {0};
+        GameController controller = new GameController(pack, pack, Runnable::run, new GameClock(() -> now[0]));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(controller, output, 1024);
+
+        controller.startGame();
+        now[0] += TimeUnit.MILLISECONDS.toNanos(1000);
+        controller.move(GameMovementDirection.RIGHT);
+        now[0] += TimeUnit.MILLISECONDS.toNanos(40000);
+        controller.move(GameMovementDirection.RIGHT);
+        recorder.close();
+
+        long[] wall = {0};
+        ReplayPlayer player = new ReplayPlayer(pack, pack, output.toByteArray(), () -> wall[0]);
+        Assert.assertEquals(41000, player.getDuration());
+
+        player.play();
+        player.update();
+        Assert.assertEquals(2, player.getPlayedRecordCount());
+        Assert.assertEquals(1000, player.getMillisUntilNextRecord());
+
+        wall[0] += TimeUnit.MILLISECONDS.toNanos(999);
+        player.update();
+        Assert.assertEquals(2, player.getPlayedRecordCount());
+
+        wall[0] += TimeUnit.MILLISECONDS.toNanos(1);
+        player.update();
+        Assert.assertEquals(1, player.getGameController().getCurrentScore());
+
+        // at 4x, the second move is due in 10 seconds
+        player.setSpeed(4);
+        Assert.assertEquals(10000, player.getMillisUntilNextRecord());
+
+        wall[0] += TimeUnit.SECONDS.toNanos(10);
+        player.update();
+        Assert.assertTrue(player.isFinished());
+        Assert.assertFalse(player.isPlaying());
+
+        // the level took longer than its bonus threshold, so the score was not reduced in either game
+        Assert.assertEquals(controller.getTotalScore(), player.getGameController().getTotalScore());
+        Assert.assertEquals(2, player.getGameController().getTotalScore());
+        Assert.assertEquals(1, player.getGameController().getCurrentLevel().getOrdinal());
+    }
+
+    @Test
+    public void testSeeksToRecordedStates() throws IOException {
+        TestLevelPack pack = new TestLevelPack(true, POWERUP_LEVEL);
+        long[] now = {0};
+        GameController controller = new GameController(pack, pack, Runnable::run, new GameClock(() -> now[0]));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(controller, output, 1 << 16, 8);
+
+        Random random = new Random(2024);
+        controller.startGame();
+
+        // blocked inputs are not recorded, so the replay ends at the state after the last recorded one
+        byte[] expected = controller.saveState();
+        long recorded = recorder.getRecordedByteCount();
+        for (int step = 0; step < 1500 && controller.isGameRunning(); step++) {
+            now[0] += TimeUnit.MILLISECONDS.toNanos(1 + random.nextInt(50));
+            int action = random.nextInt(100);
+            if (step == 500 || step == 1000) {
+                controller.resetLevel();
+            } else if (action < 2) {
+                controller.togglePause();
+                now[0] += TimeUnit.SECONDS.toNanos(5);
+                controller.togglePause();
+            } else if (action < 30) {
+                controller.undoMove();
+            } else if (action < 40) {
+                controller.redoMove();
+            } else {
+                controller.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+            }
+
+            if (recorder.getRecordedByteCount() != recorded && controller.isGameRunning()) {
+                recorded = recorder.getRecordedByteCount();
+                expected = controller.saveState();
+            }
+        }
+
+        recorder.close();
+        byte[] log = output.toByteArray();
+
+        // playing every record in turn is the reference for seeking
+        ReplayPlayer reference = new ReplayPlayer(pack, pack, log);
+        List<byte[]> states = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        while (reference.step()) {
+            states.add(reference.getGameController().saveState());
+            times.add(reference.getPosition());
+        }
+
+        Assert.assertArrayEquals(expected, states.get(states.size() - 1));
+        Assert.assertTrue(reference.getKeyframeCount() > 10);
+
+        ReplayPlayer player = new ReplayPlayer(pack, pack, log);
+        for (int seek = 0; seek < 300; seek++) {
+            int record = random.nextInt(states.size());
+            long time = times.get(record);
+            while (record + 1 < states.size() && times.get(record + 1) == time)
+                record++;
+
+            player.seek(time);
+            Assert.assertEquals(time, player.getPosition());
+            Assert.assertEquals(record + 1, player.getPlayedRecordCount());
+            Assert.assertArrayEquals(states.get(record), player.getGameController().saveState());
+
+            // records after the target may undo moves made before the keyframe the seek started from
+            for (int i = record + 1; i < Math.min(record + 30, states.size()); i++) {
+                Assert.assertTrue(player.step());
+                Assert.assertArrayEquals(states.get(i), player.getGameController().saveState());
+            }
+        }
+    }
+
+    @Test
+    public void testSeeksIntoGhostSegment() throws IOException {
+        TestLevelPack pack = new TestLevelPack(true, new TestLevel(0,
+                "########",
+                "#SG#P_X#",
+                "########"));
+        long[] now = {0};
+        GameController controller = new GameController(pack, pack, Runnable::run, new GameClock(() -> now[0]));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(controller, output, 1024, 1);
+
+        // the keyframes after the second move hold the player standing in the wall
+        controller.startGame();
+        List<byte[]> states = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            now[0] += TimeUnit.MILLISECONDS.toNanos(1000);
+            controller.move(GameMovementDirection.RIGHT);
+            states.add(controller.saveState());
+            hashes.add(controller.getStateHash());
+        }
+
+        recorder.close();
+
+        ReplayPlayer player = new ReplayPlayer(pack, pack, output.toByteArray());
+        player.seek(2000);
+        Assert.assertArrayEquals(states.get(1), player.getGameController().saveState());
+        Assert.assertTrue(player.getGameController().getBoard().isWall(player.getGameController().getBoard().getPlayerIndex()));
+
+        // between records, only the level time differs from the saved state
+        player.seek(2500);
+        Assert.assertEquals(2500, player.getPosition());
+        Assert.assertEquals((long) hashes.get(1), player.getGameController().getStateHash());
+
+        player.seek(3000);
+        Assert.assertArrayEquals(states.get(2), player.getGameController().saveState());
+
+        player.seek(1000);
+        Assert.assertArrayEquals(states.get(0), player.getGameController().saveState());
+
+        // a keyframe the controller rejects is skipped in favour of the one before it
+        byte[] log = output.toByteArray();
+        int keyframe = indexOf(log, states.get(1));
+        Assert.assertTrue(keyframe > 0);
+        log[keyframe] = 99;
+
+        player = new ReplayPlayer(pack, pack, log);
+        player.seek(2000);
+        Assert.assertArrayEquals(states.get(1), player.getGameController().saveState());
+    }
+
+    private static int indexOf(byte[] array, byte[] sequence) {
+        for (int i = 0; i + sequence.length <= array.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(array, i, i + sequence.length), sequence))
+                return i;
+        }
+
+        return -1;
+    }
+
+    @Test
+    public void testRejectsInvalidLogs() {
+        TestLevelPack pack = new TestLevelPack(LEVEL_0);
+        try {
+            new ReplayPlayer(pack, pack, new byte[]{'E', 'R', 'P'});
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        try {
+            new ReplayPlayer(pack, pack, new byte[]{'E', 'R', 'P', 'L', 99});
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        // a record cut off at the end is not played
+        byte[] log = {'E', 'R', 'P', 'L', ReplayFormat.VERSION, ReplayFormat.START, 0, ReplayFormat.LEVEL, 0};
+        ReplayPlayer player = new ReplayPlayer(pack, pack, log);
+        Assert.assertEquals(1, player.getRecordCount());
+        player.playToEnd();
+        Assert.assertTrue(player.getGameController().isGameRunning());
+    }
+}
@@ -0,0 +1,199 @@
+package elkaproj.game;
+
+import elkaproj.config.ILevel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class ReplayRecorderTests {
+
+    private static final ILevel LEVEL_0 = new TestLevel(0,
+            "######",
+            "#S_PX#",
+            "#____#",
+            "######");
+
+    private static final ILevel LEVEL_1 = new TestLevel(1,
+            "#######",
+            "#X_P_S#",
+            "#######");
+
+    @Test
+    public void testRecordsSession() throws IOException {
+        TestLevelPack pack = new TestLevelPack(LEVEL_0, LEVEL_1);
+        GameController controller = new GameController(pack, pack, Runnable::run, new GameClock(() -> 0));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(controller, output, 1024, 0);
+
+        controller.startGame();
+        controller.move(GameMovementDirection.UP);
+        controller.move(GameMovementDirection.RIGHT);
+        controller.undoMove();
+        controller.redoMove();
+        controller.togglePause();
+        controller.togglePause();
+        controller.resetLevel();
+        controller.applyMoves("RR");
+        controller.stopGame(false);
+        recorder.close();
+
+        List<int[]> records = parse(output.toByteArray());
+        Assert.assertEquals(Arrays.asList("START", "MOVE", "UNDO", "REDO", "PAUSE", "RESUME", "RESET", "MOVE", "MOVE",
+                "LEVEL", "STOP"), kinds(records));
+        Assert.assertEquals(GameMovementDirection.RIGHT.ordinal(), records.get(1)[1]);
+        Assert.assertEquals(1, records.get(9)[1]);
+        Assert.assertEquals(0, recorder.getDroppedCount());
+
+        // with the clock standing still, every record takes a tag and a zero time delta, the level ordinal and the score one byte each
+        Assert.assertEquals(5 + 2 * 11 + 2, output.size());
+    }
+
+    @Test
+    public void testDropsAndResyncs() throws Exception {
+        TestLevelPack pack = new TestLevelPack(LEVEL_0, LEVEL_1);
+        GameController controller = new GameController(pack, pack);
+        BlockingOutputStream output = new BlockingOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(controller, output, 64, 0);
+
+        // the writer is stuck on the header, so the ring fills up, but moves are never held up
+        controller.startGame();
+        for (int i = 0; i < 100; i++)
+            controller.move(i % 2 == 0 ? GameMovementDirection.RIGHT : GameMovementDirection.LEFT);
+
+        long dropped = recorder.getDroppedCount();
+        Assert.assertTrue(dropped > 0);
+        Assert.assertEquals(100, controller.getCurrentScore());
+
+        output.release.countDown();
+        for (int i = 0; i < 200 && output.data.size() < recorder.getRecordedByteCount(); i++)
+            Thread.sleep(10);
+
+        controller.move(GameMovementDirection.RIGHT);
+        controller.resetLevel();
+        controller.move(GameMovementDirection.RIGHT);
+        recorder.close();
+
+        List<int[]> records = parse(output.data.toByteArray());
+        List<String> kinds = kinds(records);
+        int gap = kinds.indexOf("GAP");
+        Assert.assertEquals(Arrays.asList("GAP", "RESTORE", "MOVE"), kinds.subList(gap, kinds.size()));
+        Assert.assertEquals(dropped + 1, records.get(gap)[1]);
+
+        // the saved state brings a new controller to the state right after the reset
+        GameController replay = new GameController(pack, pack);
+        replay.restoreState(Arrays.copyOfRange(output.data.toByteArray(), records.get(gap + 1)[2],
+                records.get(gap + 1)[2] + records.get(gap + 1)[1]));
+        Assert.assertEquals(controller.getCurrentLives(), replay.getCurrentLives());
+        Assert.assertEquals(controller.getCurrentScore() - 1, replay.getCurrentScore());
+    }
+
+    @Test
+    public void testWritesKeyframes() throws IOException {
+        TestLevelPack pack = new TestLevelPack(LEVEL_0, LEVEL_1);
+        GameController controller = new GameController(pack, pack, Runnable::run, new GameClock(() -> 0));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(controller, output, 1024, 1);
+
+        controller.startGame();
+        controller.move(GameMovementDirection.RIGHT);
+        controller.undoMove();
+        controller.move(GameMovementDirection.RIGHT);
+        controller.move(GameMovementDirection.RIGHT);
+        recorder.close();
+
+        // undos are not followed by keyframes, and the keyframe after the last move follows the level change it caused
+        List<int[]> records = parse(output.toByteArray());
+        Assert.assertEquals(Arrays.asList("START", "KEYFRAME", "MOVE", "KEYFRAME", "UNDO", "MOVE", "KEYFRAME", "MOVE",
+                "LEVEL", "KEYFRAME"), kinds(records));
+
+        GameController replay = new GameController(pack, pack, Runnable::run, new GameClock(() -> 0));
+        replay.restoreState(Arrays.copyOfRange(output.toByteArray(), records.get(9)[2], records.get(9)[2] + records.get(9)[1]));
+        Assert.assertArrayEquals(controller.saveState(), replay.saveState());
+    }
+
+    private static final String[] KINDS = {"MOVE", "UNDO", "REDO", "RESET", "PAUSE", "RESUME", "LEVEL", "START", "STOP",
+            "RESTORE", "GAP", "KEYFRAME"};
+
+    private static List<String> kinds(List<int[]> records) {
+        List<String> kinds = new ArrayList<>();
+        for (int[] record : records)
+            kinds.add(KINDS[record[0]]);
+
+        return kinds;
+    }
+
+    // each record is parsed into its kind, its main field, and the offset of the saved state, if it holds one
+    private static List<int[]> parse(byte[] log) {
+        VarIntReader in = new VarIntReader(log);
+        for (byte b : ReplayFormat.MAGIC)
+            Assert.assertEquals(b & 0xFF, in.readByte());
+
+        Assert.assertEquals(ReplayFormat.VERSION, in.readVarInt());
+
+        List<int[]> records = new ArrayList<>();
+        while (in.hasRemaining()) {
+            int tag = in.readByte();
+            int kind = tag & ReplayFormat.KIND_MASK;
+            in.readVarLong();
+
+            int field = 0, offset = 0;
+            switch (kind) {
+                case ReplayFormat.MOVE:
+                    field = tag >>> ReplayFormat.DIRECTION_SHIFT & ReplayFormat.DIRECTION_MASK;
+                    break;
+
+                case ReplayFormat.LEVEL:
+                case ReplayFormat.GAP:
+                    field = in.readVarInt();
+                    break;
+
+                case ReplayFormat.STOP:
+                    field = in.readSignedVarInt();
+                    break;
+
+                case ReplayFormat.RESTORE:
+                case ReplayFormat.KEYFRAME:
+                    field = in.readVarInt();
+                    offset = in.getPosition();
+                    for (int i = 0; i < field; i++)
+                        in.readByte();
+                    break;
+            }
+
+            records.add(new int[]{kind, field, offset});
+        }
+
+        return records;
+    }
+
+    private static class BlockingOutputStream extends OutputStream {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                this.release.await();
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+
+            synchronized (this.data) {
+                this.data.write(b, off, len);
+            }
+        }
+    }
+}
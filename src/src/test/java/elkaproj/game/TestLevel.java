@@ -0,0 +1,70 @@
+package elkaproj.game;
+
+import elkaproj.Dimensions;
+import elkaproj.config.ILevel;
+import elkaproj.config.LevelTile;
+
+/**
+ * Level defined in-code, using the same tile representation as level definition files.
+ */
+public class TestLevel implements ILevel {
+
+    private final int ordinal;
+    private final Dimensions size;
+    private final LevelTile[][] tiles;
+
+    public TestLevel(int ordinal, String... rows) {
+        this.ordinal = ordinal;
+
+        int width = 0;
+        for (String row : rows)
+            width = Math.max(width, row.length());
+
+        this.size = new Dimensions(width, rows.length);
+        this.tiles = new LevelTile[rows.length][];
+        for (int y = 0; y < rows.length; y++) {
+            this.tiles[y] = new LevelTile[width];
+            for (int x = 0; x < width; x++)
+                this.tiles[y][x] = x < rows[y].length() ? LevelTile.fromRepresentation(rows[y].charAt(x)) : LevelTile.WALL;
+        }
+    }
+
+    @Override
+    public int getOrdinal() {
+        return this.ordinal;
+    }
+
+    @Override
+    public String getName() {
+        return "Test level " + this.ordinal;
+    }
+
+    @Override
+    public int getBonusTimeThreshold() {
+        return 30;
+    }
+
+    @Override
+    public int getPenaltyTimeThreshold() {
+        return 90;
+    }
+
+    @Override
+    public int getFailTimeThreshold() {
+        return 150;
+    }
+
+    @Override
+    public Dimensions getSize() {
+        return this.size;
+    }
+
+    @Override
+    public LevelTile[][] getTiles() {
+        LevelTile[][] copy = new LevelTile[this.tiles.length][];
+        for (int y = 0; y < this.tiles.length; y++)
+            copy[y] = this.tiles[y].clone();
+
+        return copy;
+    }
+}
@@ -0,0 +1,91 @@
+package elkaproj.game;
+
+import elkaproj.config.*;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Level pack and matching configuration defined in-code.
+ */
+public class TestLevelPack implements ILevelPack, IConfiguration {
+
+    private final List<ILevel> levels;
+    private final boolean timersActive;
+
+    public TestLevelPack(boolean timersActive, ILevel... levels) {
+        this.timersActive = timersActive;
+        this.levels = Arrays.asList(levels);
+    }
+
+    public TestLevelPack(ILevel... levels) {
+        this(false, levels);
+    }
+
+    @Override
+    public String getName() {
+        return "Test pack";
+    }
+
+    @Override
+    public String getId() {
+        return "test";
+    }
+
+    @Override
+    public int getCount() {
+        return this.levels.size();
+    }
+
+    @Override
+    public ILevel getLevel(int number) {
+        return this.levels.get(number);
+    }
+
+    @Override
+    public Iterator<ILevel> iterator() {
+        return this.levels.iterator();
+    }
+
+    @Override
+    public String getLevelPackId() {
+        return this.getId();
+    }
+
+    @Override
+    public int getMaxLives() {
+        return 5;
+    }
+
+    @Override
+    public int getStartingLives() {
+        return 3;
+    }
+
+    @Override
+    public int getLifeRecoveryThreshold() {
+        return 3;
+    }
+
+    @Override
+    public int getLifeRecoveryCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean areTimersActive() {
+        return this.timersActive;
+    }
+
+    @Override
+    public EnumSet<GamePowerup> getActivePowerups() {
+        return EnumSet.allOf(GamePowerup.class);
+    }
+
+    @Override
+    public void serialize(OutputStream os) {
+    }
+}
@@ -0,0 +1,66 @@
+package elkaproj.game.simulation;
+
+import elkaproj.game.TestLevel;
+import elkaproj.game.TestLevelPack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class GameSimulatorTests {
+
+    private static final TestLevelPack PACK = new TestLevelPack(
+            new TestLevel(0,
+                    "######",
+                    "#S_PX#",
+                    "#____#",
+                    "######"),
+            new TestLevel(1,
+                    "#######",
+                    "#X_P_S#",
+                    "#######"));
+
+    @Test
+    public void testScriptedGames() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            GameSimulator simulator = new GameSimulator(PACK, PACK, executor, 100);
+            SimulationReport report = simulator.run(64, game -> new ScriptedMoveSource("rR", "l u lL"));
+
+            Assert.assertEquals(64, report.getGames());
+            Assert.assertEquals(64, report.getGamesCompleted());
+            Assert.assertEquals(128, report.getLevelsCompleted());
+            Assert.assertEquals(64 * 6, report.getMoves());
+
+            LevelResult first = report.getLevelResults().get(0), second = report.getLevelResults().get(1);
+            Assert.assertEquals(64, first.getCompletions());
+            Assert.assertEquals(64 * 2, first.getMoves());
+            Assert.assertEquals(64, second.getAttempts());
+            Assert.assertEquals(0, second.getAbandons());
+            Assert.assertEquals(64 * 3, second.getMoves());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBotGames() {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            GameSimulator simulator = new GameSimulator(PACK, PACK, executor, 10000);
+            SimulationReport report = simulator.run(256, RandomMoveSource::new);
+
+            int abandons = 0;
+            for (LevelResult result : report.getLevelResults()) {
+                Assert.assertEquals(result.getAttempts(), result.getCompletions() + result.getAbandons());
+                abandons += result.getAbandons();
+            }
+
+            Assert.assertEquals(report.getGames() - report.getGamesCompleted(), abandons);
+            Assert.assertTrue(report.getMoves() > 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
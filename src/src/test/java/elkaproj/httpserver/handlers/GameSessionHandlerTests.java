@@ -0,0 +1,273 @@
+package elkaproj.httpserver.handlers;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+import elkaproj.config.IConfigurationLoader;
+import elkaproj.game.TestLevel;
+import elkaproj.game.TestLevelPack;
+import elkaproj.httpserver.ServiceProvider;
+import elkaproj.httpserver.services.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class GameSessionHandlerTests {
+
+    private static final TestLevelPack PACK = new TestLevelPack(
+            new TestLevel(0,
+                    "######",
+                    "#S_PX#",
+                    "#____#",
+                    "######"),
+            new TestLevel(1,
+                    "#######",
+                    "#X_P_S#",
+                    "#######"));
+
+    private final HttpHandler sessionHandler;
+    private final HttpHandler commandHandler;
+
+    // every test gets its own services, so sessions created by one test are not seen by another
+    public GameSessionHandlerTests() throws Exception {
+        ServiceProvider.Builder builder = ServiceProvider.createBuilder();
+        builder.registerSingleton(new TestConfigurationLoader(PACK), IConfigurationLoader.class);
+        builder.registerSingleton(GameSessionManager.class);
+        builder.registerSingleton(GameSessionWriterService.class);
+        builder.registerSingleton(ErrorHandlerService.class);
+        builder.registerSingleton(ByteEncoderService.class);
+        builder.registerTransient(EndpointParserService.class);
+        ServiceProvider serviceProvider = builder.build();
+
+        this.sessionHandler = createHandler(GameSessionHandler.class, serviceProvider);
+        this.commandHandler = createHandler(GameSessionCommandHandler.class, serviceProvider);
+    }
+
+    @Test
+    public void testSessionLifecycle() throws Exception {
+        TestHttpExchange create = this.send(this.sessionHandler, "POST", "/sessions", PACK.getId());
+        Assert.assertEquals(200, create.responseCode);
+        Map<String, String> created = create.getResponseFields();
+        Assert.assertEquals("true", created.get("running"));
+        Assert.assertEquals("0", created.get("level"));
+        Assert.assertNotNull(created.get("state"));
+
+        String id = created.get("session");
+        TestHttpExchange get = this.send(this.sessionHandler, "GET", "/sessions/" + id, "");
+        Assert.assertEquals(200, get.responseCode);
+        Assert.assertEquals(id, get.getResponseFields().get("session"));
+
+        TestHttpExchange close = this.send(this.sessionHandler, "DELETE", "/sessions/" + id, "");
+        Assert.assertEquals(204, close.responseCode);
+
+        Assert.assertEquals(404, this.send(this.sessionHandler, "GET", "/sessions/" + id, "").responseCode);
+        Assert.assertEquals(404, this.send(this.sessionHandler, "DELETE", "/sessions/" + id, "").responseCode);
+    }
+
+    @Test
+    public void testSessionErrors() throws Exception {
+        Assert.assertEquals(404, this.send(this.sessionHandler, "POST", "/sessions", "unknown").responseCode);
+        Assert.assertEquals(400, this.send(this.sessionHandler, "POST", "/sessions", "").responseCode);
+        Assert.assertEquals(400, this.send(this.sessionHandler, "GET", "/sessions", "").responseCode);
+        Assert.assertEquals(400, this.send(this.sessionHandler, "PUT", "/sessions/x", "").responseCode);
+        Assert.assertEquals(404, this.send(this.sessionHandler, "GET", "/sessions/unknown", "").responseCode);
+    }
+
+    @Test
+    public void testCommands() throws Exception {
+        String id = this.send(this.sessionHandler, "POST", "/sessions", PACK.getId()).getResponseFields().get("session");
+        String path = "/sessions/commands/" + id + "/";
+
+        Map<String, String> move = this.send(this.commandHandler, "POST", path + "move", "L").getResponseFields();
+        Assert.assertEquals("0", move.get("result"));
+
+        move = this.send(this.commandHandler, "POST", path + "move", "DR").getResponseFields();
+        Assert.assertEquals("2", move.get("result"));
+        Assert.assertEquals("2", move.get("score"));
+
+        Map<String, String> undo = this.send(this.commandHandler, "POST", path + "undo", "").getResponseFields();
+        Assert.assertEquals("1", undo.get("score"));
+
+        Map<String, String> redo = this.send(this.commandHandler, "POST", path + "redo", "").getResponseFields();
+        Assert.assertEquals("2", redo.get("score"));
+
+        // resetting the level takes a life, and puts the player back on the starting spot
+        Map<String, String> reset = this.send(this.commandHandler, "POST", path + "reset", "").getResponseFields();
+        Assert.assertEquals(Integer.parseInt(redo.get("lives")) - 1, Integer.parseInt(reset.get("lives")));
+
+        Map<String, String> pause = this.send(this.commandHandler, "POST", path + "pause", "").getResponseFields();
+        Assert.assertEquals("true", pause.get("paused"));
+        pause = this.send(this.commandHandler, "POST", path + "pause", "").getResponseFields();
+        Assert.assertEquals("false", pause.get("paused"));
+
+        // pushing the crate onto the target completes the first level
+        Map<String, String> completion = this.send(this.commandHandler, "POST", path + "move", "RR").getResponseFields();
+        Assert.assertEquals("2", completion.get("result"));
+        Assert.assertEquals("1", completion.get("level"));
+    }
+
+    @Test
+    public void testCommandErrors() throws Exception {
+        String id = this.send(this.sessionHandler, "POST", "/sessions", PACK.getId()).getResponseFields().get("session");
+        String path = "/sessions/commands/" + id + "/";
+
+        Assert.assertEquals(400, this.send(this.commandHandler, "GET", path + "move", "R").responseCode);
+        Assert.assertEquals(404, this.send(this.commandHandler, "POST", path + "jump", "").responseCode);
+        Assert.assertEquals(404, this.send(this.commandHandler, "POST", "/sessions/commands/" + id, "").responseCode);
+        Assert.assertEquals(404, this.send(this.commandHandler, "POST", "/sessions/commands/unknown/move", "R").responseCode);
+
+        StringBuilder moves = new StringBuilder();
+        for (int i = 0; i <= GameSessionCommandHandler.MAX_MOVES; i++)
+            moves.append(i % 2 == 0 ? 'D' : 'U');
+
+        Assert.assertEquals(400, this.send(this.commandHandler, "POST", path + "move", moves.toString()).responseCode);
+
+        // the session is closed once deleted, and refuses further commands
+        this.send(this.sessionHandler, "DELETE", "/sessions/" + id, "");
+        Assert.assertEquals(404, this.send(this.commandHandler, "POST", path + "move", "R").responseCode);
+    }
+
+    private TestHttpExchange send(HttpHandler handler, String method, String path, String body) throws Exception {
+        TestHttpExchange exchange = new TestHttpExchange(method, path, body);
+        handler.handle(exchange);
+        return exchange;
+    }
+
+    // instantiates a handler the way the server does, injecting the services its constructor asks for
+    private static HttpHandler createHandler(Class<? extends HttpHandler> klass, ServiceProvider serviceProvider) throws Exception {
+        Constructor<?> ctor = klass.getDeclaredConstructors()[0];
+        Parameter[] params = ctor.getParameters();
+        Object[] args = new Object[params.length];
+        args[0] = serviceProvider;
+        for (int i = 1; i < params.length; i++)
+            args[i] = serviceProvider.resolveService(params[i].getAnnotation(Inject.class).value());
+
+        ctor.setAccessible(true);
+        return (HttpHandler) ctor.newInstance(args);
+    }
+
+    private static class TestHttpExchange extends HttpExchange {
+        private final String method;
+        private final URI uri;
+        private final Headers requestHeaders = new Headers();
+        private final Headers responseHeaders = new Headers();
+        private final ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+        private InputStream requestBody;
+        private int responseCode = -1;
+
+        public TestHttpExchange(String method, String path, String body) {
+            this.method = method;
+            this.uri = URI.create(path);
+            this.requestBody = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public Map<String, String> getResponseFields() {
+            Assert.assertEquals(200, this.responseCode);
+
+            HashMap<String, String> fields = new HashMap<>();
+            for (String line : new String(this.responseBody.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+                int separator = line.indexOf('=');
+                fields.put(line.substring(0, separator), line.substring(separator + 1));
+            }
+
+            return fields;
+        }
+
+        @Override
+        public Headers getRequestHeaders() {
+            return this.requestHeaders;
+        }
+
+        @Override
+        public Headers getResponseHeaders() {
+            return this.responseHeaders;
+        }
+
+        @Override
+        public URI getRequestURI() {
+            return this.uri;
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return this.method;
+        }
+
+        @Override
+        public HttpContext getHttpContext() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public InputStream getRequestBody() {
+            return this.requestBody;
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return this.responseBody;
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) {
+            this.responseCode = rCode;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return this.responseCode;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public String getProtocol() {
+            return "HTTP/1.1";
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return null;
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+        }
+
+        @Override
+        public void setStreams(InputStream i, OutputStream o) {
+            if (i != null)
+                this.requestBody = i;
+        }
+
+        @Override
+        public HttpPrincipal getPrincipal() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package elkaproj.httpserver.services;
+
+import elkaproj.config.IConfigurationLoader;
+import elkaproj.game.TestLevel;
+import elkaproj.game.TestLevelPack;
+import elkaproj.httpserver.ServiceProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class GameSessionManagerTests {
+
+    private static final TestLevelPack PACK = new TestLevelPack(new TestLevel(0,
+            "######",
+            "#S_PX#",
+            "#____#",
+            "######"));
+
+    @Test
+    public void testCreatesAndClosesSessions() throws Exception {
+        GameSessionManager manager = createManager();
+
+        GameSession session = manager.createSession(PACK.getId());
+        Assert.assertNotNull(session);
+        Assert.assertSame(session, manager.getSession(session.getId()));
+        Assert.assertEquals(1, manager.getSessionCount());
+
+        // the game is started by the first command of the session
+        GameSessionSnapshot snapshot = session.submit(controller -> 0).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(snapshot.isRunning());
+        Assert.assertEquals(0, snapshot.getLevel());
+
+        Assert.assertTrue(manager.closeSession(session.getId()));
+        Assert.assertTrue(session.isClosed());
+        Assert.assertNull(manager.getSession(session.getId()));
+        Assert.assertEquals(0, manager.getSessionCount());
+
+        Assert.assertFalse(manager.closeSession(session.getId()));
+        Assert.assertEquals(0, manager.getSessionCount());
+    }
+
+    @Test
+    public void testUnknownPackDoesNotTakeSession() {
+        GameSessionManager manager = createManager();
+
+        try {
+            manager.createSession("unknown");
+            Assert.fail();
+        } catch (IOException ex) {
+            // expected
+        }
+
+        Assert.assertEquals(0, manager.getSessionCount());
+    }
+
+    @Test
+    public void testEvictsIdleSessions() throws Exception {
+        GameSessionManager manager = createManager();
+        GameSession idle = manager.createSession(PACK.getId());
+        long lastAccess = idle.getLastAccessMillis();
+
+        manager.evictIdleSessions(lastAccess + GameSessionManager.IDLE_TIMEOUT_MILLIS);
+        Assert.assertFalse(idle.isClosed());
+        Assert.assertEquals(1, manager.getSessionCount());
+
+        // a session accessed later is kept, while the idle one is evicted
+        Thread.sleep(5);
+        GameSession active = manager.createSession(PACK.getId());
+        Assert.assertTrue(active.getLastAccessMillis() > lastAccess);
+
+        manager.evictIdleSessions(lastAccess + GameSessionManager.IDLE_TIMEOUT_MILLIS + 1);
+        Assert.assertTrue(idle.isClosed());
+        Assert.assertNull(manager.getSession(idle.getId()));
+        Assert.assertFalse(active.isClosed());
+        Assert.assertSame(active, manager.getSession(active.getId()));
+        Assert.assertEquals(1, manager.getSessionCount());
+    }
+
+    @Test
+    public void testLimitsSessionsCreatedConcurrently() throws Exception {
+        GameSessionManager manager = createManager();
+
+        int threads = 8;
+        int attempts = GameSessionManager.MAX_SESSIONS / threads * 2;
+        ConcurrentLinkedQueue<GameSession> sessions = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayList<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                for (int j = 0; j < attempts; j++) {
+                    GameSession session = manager.createSession(PACK.getId());
+                    if (session != null)
+                        sessions.add(session);
+                }
+
+                return null;
+            }));
+        }
+
+        for (Future<?> result : results)
+            result.get();
+
+        executor.shutdown();
+
+        Assert.assertEquals(GameSessionManager.MAX_SESSIONS, sessions.size());
+        Assert.assertEquals(GameSessionManager.MAX_SESSIONS, manager.getSessionCount());
+        Assert.assertNull(manager.createSession(PACK.getId()));
+
+        // closing a session makes room for another
+        Assert.assertTrue(manager.closeSession(sessions.peek().getId()));
+        Assert.assertNotNull(manager.createSession(PACK.getId()));
+        Assert.assertNull(manager.createSession(PACK.getId()));
+    }
+
+    private static GameSessionManager createManager() {
+        ServiceProvider.Builder builder = ServiceProvider.createBuilder();
+        builder.registerSingleton(new TestConfigurationLoader(PACK), IConfigurationLoader.class);
+        builder.registerSingleton(GameSessionManager.class);
+        ServiceProvider serviceProvider = builder.build();
+
+        return serviceProvider.resolveService(GameSessionManager.class).getInstance(serviceProvider);
+    }
+}
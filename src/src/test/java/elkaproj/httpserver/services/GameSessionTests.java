@@ -0,0 +1,201 @@
+package elkaproj.httpserver.services;
+
+import elkaproj.config.ILevel;
+import elkaproj.game.TestLevel;
+import elkaproj.game.TestLevelPack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class GameSessionTests {
+
+    private static final ILevel LEVEL_0 = new TestLevel(0,
+            "######",
+            "#S_PX#",
+            "#____#",
+            "######");
+
+    private static final ILevel LEVEL_1 = new TestLevel(1,
+            "#######",
+            "#X_P_S#",
+            "#######");
+
+    private static final int MAX_PENDING_COMMANDS = 32;
+
+    @Test
+    public void testCommandsRunInOrder() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        GameSession session = createSession(executor);
+
+        CompletableFuture<GameSessionSnapshot> start = session.submit(controller -> {
+            controller.startGame();
+            return 0;
+        });
+        CompletableFuture<GameSessionSnapshot> move = session.submit(controller -> controller.applyMoves("R"));
+        CompletableFuture<GameSessionSnapshot> completion = session.submit(controller -> controller.applyMoves("R"));
+
+        Assert.assertFalse(start.isDone());
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+
+        Assert.assertTrue(start.get().isRunning());
+        Assert.assertEquals(0, start.get().getLevel());
+        Assert.assertEquals(1, move.get().getResult());
+        Assert.assertEquals(1, move.get().getScore());
+        Assert.assertEquals(1, completion.get().getResult());
+        Assert.assertEquals(1, completion.get().getLevel());
+        Assert.assertEquals(session.getId(), completion.get().getSessionId());
+        Assert.assertNotNull(completion.get().getState());
+    }
+
+    @Test
+    public void testDrainYieldsAndReschedules() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        GameSession session = createSession(executor);
+
+        ArrayList<CompletableFuture<GameSessionSnapshot>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            results.add(session.submit(controller -> value));
+        }
+
+        // the session is only scheduled once, however many commands are queued
+        Assert.assertEquals(1, executor.tasks.size());
+
+        // a batch runs, and the session schedules itself again for the rest
+        executor.runNext();
+        int done = 0;
+        for (CompletableFuture<GameSessionSnapshot> result : results) {
+            if (result.isDone())
+                done++;
+        }
+
+        Assert.assertTrue(done > 0 && done < results.size());
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        for (int i = 0; i < results.size(); i++)
+            Assert.assertEquals(i, results.get(i).get().getResult());
+
+        // once drained, the session is scheduled again by the next command
+        CompletableFuture<GameSessionSnapshot> later = session.submit(controller -> 42);
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        Assert.assertEquals(42, later.get().getResult());
+    }
+
+    @Test
+    public void testRejectsCommandsOverLimit() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        GameSession session = createSession(executor);
+
+        ArrayList<CompletableFuture<GameSessionSnapshot>> results = new ArrayList<>();
+        for (int i = 0; i < MAX_PENDING_COMMANDS; i++)
+            results.add(session.submit(controller -> 0));
+
+        assertRejected(session.submit(controller -> 0));
+
+        executor.runAll();
+        for (CompletableFuture<GameSessionSnapshot> result : results)
+            Assert.assertFalse(result.isCompletedExceptionally());
+
+        // the commands which ran no longer count against the limit
+        for (int i = 0; i < MAX_PENDING_COMMANDS; i++)
+            results.add(session.submit(controller -> 0));
+
+        executor.runAll();
+        for (CompletableFuture<GameSessionSnapshot> result : results)
+            Assert.assertFalse(result.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testClosedSessionRunsQueuedCommandsOnly() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        GameSession session = createSession(executor);
+
+        CompletableFuture<GameSessionSnapshot> queued = session.submit(controller -> 1);
+        session.close();
+        Assert.assertTrue(session.isClosed());
+
+        assertRejected(session.submit(controller -> 0));
+
+        executor.runAll();
+        Assert.assertEquals(1, queued.get().getResult());
+    }
+
+    @Test
+    public void testShutDownExecutorFailsCommands() {
+        GameSession session = createSession(task -> {
+            throw new RejectedExecutionException();
+        });
+
+        assertRejected(session.submit(controller -> 0));
+        assertRejected(session.submit(controller -> 0));
+    }
+
+    @Test
+    public void testFailedCommandDoesNotStopSession() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        GameSession session = createSession(executor);
+
+        CompletableFuture<GameSessionSnapshot> failed = session.submit(controller -> {
+            throw new IllegalStateException();
+        });
+        CompletableFuture<GameSessionSnapshot> next = session.submit(controller -> 7);
+
+        executor.runAll();
+
+        try {
+            failed.get();
+            Assert.fail();
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+
+        Assert.assertEquals(7, next.get().getResult());
+    }
+
+    private static GameSession createSession(Executor executor) {
+        TestLevelPack pack = new TestLevelPack(LEVEL_0, LEVEL_1);
+        return new GameSession("test", pack, pack, executor, 16, MAX_PENDING_COMMANDS);
+    }
+
+    private static void assertRejected(CompletableFuture<GameSessionSnapshot> result) {
+        Assert.assertTrue(result.isCompletedExceptionally());
+        try {
+            result.get();
+            Assert.fail();
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        } catch (InterruptedException ex) {
+            Assert.fail();
+        }
+    }
+
+    // runs tasks only when asked to, so tests can observe what a session schedules
+    private static class QueuedExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.tasks.add(command);
+        }
+
+        public void runNext() {
+            this.tasks.poll().run();
+        }
+
+        public void runAll() {
+            while (!this.tasks.isEmpty())
+                this.runNext();
+        }
+    }
+}
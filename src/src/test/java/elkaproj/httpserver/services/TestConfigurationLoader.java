@@ -0,0 +1,41 @@
+package elkaproj.httpserver.services;
+
+import elkaproj.config.IConfiguration;
+import elkaproj.config.IConfigurationLoader;
+import elkaproj.config.ILevelPack;
+import elkaproj.config.ILevelPackLoader;
+import elkaproj.game.TestLevelPack;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+public class TestConfigurationLoader implements IConfigurationLoader, ILevelPackLoader {
+
+    private final TestLevelPack pack;
+
+    public TestConfigurationLoader(TestLevelPack pack) {
+        this.pack = pack;
+    }
+
+    @Override
+    public IConfiguration load() {
+        return this.pack;
+    }
+
+    @Override
+    public ILevelPackLoader getLevelPackLoader() {
+        return this;
+    }
+
+    @Override
+    public ILevelPack loadPack(String id) throws IOException {
+        if (!this.pack.getId().equals(id))
+            throw new FileNotFoundException(id);
+
+        return this.pack;
+    }
+
+    @Override
+    public void close() {
+    }
+}
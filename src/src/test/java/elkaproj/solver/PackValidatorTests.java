@@ -0,0 +1,152 @@
+package elkaproj.solver;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.game.TestLevel;
+import elkaproj.game.TestLevelPack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.concurrent.ForkJoinPool;
+
+public class PackValidatorTests {
+
+    private static final EnumSet<GamePowerup> ALL_POWERUPS = EnumSet.allOf(GamePowerup.class);
+
+    private static final ILevel SOLVABLE_LEVEL = new TestLevel(0,
+            "#######",
+            "#S____#",
+            "#_P__X#",
+            "#_____#",
+            "#######");
+
+    // takes far longer than the time limits of tests to solve
+    private static final ILevel HARD_LEVEL = new TestLevel(1,
+            "###########",
+            "#S_G#######",
+            "####___X###",
+            "#__PP#__X_#",
+            "#_PP_#_P#X#",
+            "#_P____P__#",
+            "#_#####X#_#",
+            "#____XXX__#",
+            "###########");
+
+    @Test
+    public void testChecksStructure() {
+        Assert.assertEquals(EnumSet.noneOf(LevelIssue.class), LevelChecker.check(SOLVABLE_LEVEL, ALL_POWERUPS));
+
+        Assert.assertEquals(EnumSet.of(LevelIssue.NO_PLAYER), LevelChecker.check(new TestLevel(0,
+                "#####",
+                "#_PX#",
+                "#####"), ALL_POWERUPS));
+
+        Assert.assertEquals(EnumSet.of(LevelIssue.MULTIPLE_PLAYERS), LevelChecker.check(new TestLevel(0,
+                "######",
+                "#SPXS#",
+                "######"), ALL_POWERUPS));
+
+        Assert.assertEquals(EnumSet.of(LevelIssue.NO_CRATES, LevelIssue.CRATE_TARGET_MISMATCH), LevelChecker.check(new TestLevel(0,
+                "#####",
+                "#S_X#",
+                "#####"), ALL_POWERUPS));
+
+        Assert.assertEquals(EnumSet.of(LevelIssue.CRATE_TARGET_MISMATCH), LevelChecker.check(new TestLevel(0,
+                "######",
+                "#SPPX#",
+                "######"), ALL_POWERUPS));
+
+        // a gap in the walls lets the player walk to the edge
+        Assert.assertEquals(EnumSet.of(LevelIssue.NOT_ENCLOSED), LevelChecker.check(new TestLevel(0,
+                "######",
+                "#SPX__",
+                "######"), ALL_POWERUPS));
+
+        // floor outside the walls is fine, as long as the player can't get there
+        Assert.assertEquals(EnumSet.noneOf(LevelIssue.class), LevelChecker.check(new TestLevel(0,
+                "_______",
+                "_#####_",
+                "_#SPX#_",
+                "_#####_",
+                "_______"), ALL_POWERUPS));
+    }
+
+    @Test
+    public void testValidatesPack() {
+        TestLevelPack pack = new TestLevelPack(
+                SOLVABLE_LEVEL,
+                new TestLevel(1,
+                        "#####",
+                        "#S_X#",
+                        "#####"),
+                new TestLevel(2,
+                        "######",
+                        "#SXP_#",
+                        "######"));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ValidationReport report = new PackValidator(ALL_POWERUPS, SolverBudget.DEFAULT, pool).validate(pack);
+            Assert.assertEquals("test", report.levelPackId);
+            Assert.assertFalse(report.valid);
+            Assert.assertEquals(3, report.levels.length);
+
+            ValidationReport.LevelReport solved = report.levels[0];
+            Assert.assertEquals(0, solved.ordinal);
+            Assert.assertTrue(solved.isValid());
+            Assert.assertEquals(SolverStatus.SOLVED, solved.status);
+            Assert.assertEquals(3, solved.pushes);
+            Assert.assertEquals(solved.solution.length(), solved.moves);
+
+            ValidationReport.LevelReport invalid = report.levels[1];
+            Assert.assertEquals(1, invalid.ordinal);
+            Assert.assertFalse(invalid.isValid());
+            Assert.assertArrayEquals(new LevelIssue[]{LevelIssue.NO_CRATES, LevelIssue.CRATE_TARGET_MISMATCH}, invalid.issues);
+            Assert.assertNull(invalid.status);
+
+            ValidationReport.LevelReport unsolvable = report.levels[2];
+            Assert.assertEquals(2, unsolvable.ordinal);
+            Assert.assertFalse(unsolvable.isValid());
+            Assert.assertEquals(SolverStatus.UNSOLVABLE, unsolvable.status);
+            Assert.assertEquals(-1, unsolvable.pushes);
+        } finally {
+            pool.shutdown();
+        }
+
+        ValidationReport report = new PackValidator(ALL_POWERUPS, SolverBudget.DEFAULT, ForkJoinPool.commonPool())
+                .validate(new TestLevelPack(SOLVABLE_LEVEL));
+        Assert.assertTrue(report.valid);
+    }
+
+    @Test
+    public void testTimesOut() {
+        SolverBudget budget = new SolverBudget(Long.MAX_VALUE, 1 << 20, 1);
+        ValidationReport.LevelReport report = new PackValidator(ALL_POWERUPS, budget, ForkJoinPool.commonPool()).validate(HARD_LEVEL);
+        Assert.assertEquals(SolverStatus.TIMED_OUT, report.status);
+        Assert.assertFalse(report.isValid());
+        Assert.assertEquals(-1, report.pushes);
+        Assert.assertTrue(report.pushLowerBound > 0);
+        Assert.assertTrue(report.elapsedMillis < 5000);
+        Assert.assertTrue(report.cpuMillis >= 1);
+    }
+
+    @Test
+    public void testTimeLimitIgnoresOtherLevels() {
+        // levels searched at once share the threads of the pool, but each is given the whole time limit of its own
+        TestLevelPack pack = new TestLevelPack(HARD_LEVEL, HARD_LEVEL, HARD_LEVEL, HARD_LEVEL);
+        SolverBudget budget = new SolverBudget(Long.MAX_VALUE, 1 << 20, 100);
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ValidationReport report = new PackValidator(ALL_POWERUPS, budget, pool).validate(pack);
+            for (ValidationReport.LevelReport level : report.levels) {
+                Assert.assertEquals(SolverStatus.TIMED_OUT, level.status);
+                Assert.assertTrue(level.cpuMillis >= 100);
+                Assert.assertTrue(level.cpuMillis < 5000);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
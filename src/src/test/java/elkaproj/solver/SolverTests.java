@@ -0,0 +1,150 @@
+package elkaproj.solver;
+
+import elkaproj.config.GamePowerup;
+import elkaproj.config.ILevel;
+import elkaproj.game.GameController;
+import elkaproj.game.GameMovementDirection;
+import elkaproj.game.IGameLifecycleHandler;
+import elkaproj.game.TestLevel;
+import elkaproj.game.TestLevelPack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.concurrent.ForkJoinPool;
+
+public class SolverTests {
+
+    private static final EnumSet<GamePowerup> ALL_POWERUPS = EnumSet.allOf(GamePowerup.class);
+    private static final EnumSet<GamePowerup> NO_POWERUPS = EnumSet.noneOf(GamePowerup.class);
+
+    // levels of pack0 which solve quickly
+    private static final ILevel[] PACK_LEVELS = {
+            new TestLevel(0,
+                    "########",
+                    "###___##",
+                    "#XSP__##",
+                    "###_PX##",
+                    "#X##P_##",
+                    "#_#_X_##",
+                    "#PPXPPX#",
+                    "#___X__#",
+                    "########"),
+            new TestLevel(2,
+                    "########",
+                    "##X__###",
+                    "##_#P###",
+                    "#_P_P__#",
+                    "#_XX___#",
+                    "##SUU###",
+                    "########"),
+    };
+
+    private static final ILevel LARGE_LEVEL = new TestLevel(1,
+            "###########",
+            "#S_G#######",
+            "####___X###",
+            "#__PP#__X_#",
+            "#_PP_#_P#X#",
+            "#_P____P__#",
+            "#_#####X#_#",
+            "#____XXX__#",
+            "###########");
+
+    @Test
+    public void testSolvesWithFewestPushes() {
+        ILevel level = new TestLevel(0,
+                "#######",
+                "#S____#",
+                "#_P__X#",
+                "#_____#",
+                "#######");
+
+        SolverResult result = new Solver(level, NO_POWERUPS).solve(SolverBudget.DEFAULT);
+        Assert.assertEquals(SolverStatus.SOLVED, result.getStatus());
+        Assert.assertEquals(3, result.getPushes());
+        Assert.assertEquals(3, result.getLowerBound());
+        assertCompletes(level, result.getSolution());
+    }
+
+    @Test
+    public void testSolvesPackLevels() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (ILevel level : PACK_LEVELS) {
+                SolverResult result = new Solver(level, ALL_POWERUPS).solve(SolverBudget.DEFAULT, pool);
+                Assert.assertEquals(SolverStatus.SOLVED, result.getStatus());
+                assertCompletes(level, result.getSolution());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testUsesPowerups() {
+        // the crate is stuck in the corner, unless it is pulled out
+        ILevel level = new TestLevel(0,
+                "#######",
+                "#PXSU_#",
+                "#######");
+
+        Assert.assertEquals(SolverStatus.UNSOLVABLE, new Solver(level, NO_POWERUPS).solve(SolverBudget.DEFAULT).getStatus());
+
+        SolverResult result = new Solver(level, ALL_POWERUPS).solve(SolverBudget.DEFAULT);
+        Assert.assertEquals(SolverStatus.SOLVED, result.getStatus());
+        Assert.assertEquals("rllR", result.getSolution());
+        assertCompletes(level, result.getSolution());
+    }
+
+    @Test
+    public void testDetectsUnsolvableLevels() {
+        ILevel tooManyCrates = new TestLevel(0,
+                "######",
+                "#SPPX#",
+                "######");
+
+        ILevel stuck = new TestLevel(0,
+                "######",
+                "#S_P_#",
+                "#___X#",
+                "######");
+
+        Assert.assertEquals(SolverStatus.UNSOLVABLE, new Solver(tooManyCrates, ALL_POWERUPS).solve(SolverBudget.DEFAULT).getStatus());
+        Assert.assertEquals(SolverStatus.UNSOLVABLE, new Solver(stuck, NO_POWERUPS).solve(SolverBudget.DEFAULT).getStatus());
+    }
+
+    @Test
+    public void testRespectsBudget() {
+        SolverResult result = new Solver(LARGE_LEVEL, ALL_POWERUPS).solve(new SolverBudget(100, 1 << 20));
+        Assert.assertEquals(SolverStatus.BUDGET_EXCEEDED, result.getStatus());
+        Assert.assertNull(result.getSolution());
+        Assert.assertTrue(result.getLowerBound() > 0);
+        Assert.assertTrue(result.getNodes() <= 101);
+
+        // a full table makes the search forget visited states, but it still finds the solution
+        result = new Solver(PACK_LEVELS[1], ALL_POWERUPS).solve(new SolverBudget(Long.MAX_VALUE, 0));
+        Assert.assertEquals(SolverStatus.SOLVED, result.getStatus());
+        assertCompletes(PACK_LEVELS[1], result.getSolution());
+    }
+
+    private static void assertCompletes(ILevel level, String solution) {
+        TestLevelPack pack = new TestLevelPack(level);
+        GameController controller = new GameController(pack, pack, Runnable::run);
+        boolean[] completed = {false};
+        controller.addLifecycleHandler(new IGameLifecycleHandler() {
+            @Override
+            public void onGameStopped(int totalScore, boolean completedGame) {
+                completed[0] = completedGame;
+            }
+        });
+
+        controller.startGame();
+        for (int i = 0; i < solution.length(); i++) {
+            Assert.assertTrue(controller.isGameRunning());
+            controller.move(GameMovementDirection.fromLurd(solution.charAt(i)));
+        }
+
+        Assert.assertTrue(completed[0]);
+    }
+}